@@ -215,6 +215,23 @@ public interface APIConsumer extends APIManager {
     Set<SubscribedAPI> getPaginatedSubscribedAPIs(Subscriber subscriber, String applicationName, int startSubIndex, int endSubIndex, String groupingId)
             throws APIManagementException;
 
+    /**
+     * Returns a page of the SubscribedAPIs of the given application, continuing after the page the given page token
+     * was returned with. Unlike {@link #getPaginatedSubscribedAPIs}, the cost of a page does not grow with its
+     * position.
+     *
+     * @param subscriber Subscriber
+     * @param applicationName Application needed to find subscriptions
+     * @param pageToken opaque token returned with the previous page, or null for the first page
+     * @param limit maximum number of subscriptions to be listed
+     * @param groupingId the group id of the application
+     * @return the SubscribedAPIs of the page under "subscribedAPIs" and the token of the next page, or null after the
+     * last page, under "nextPageToken"
+     * @throws APIManagementException if the page token is invalid or the subscriptions could not be read
+     */
+    Map<String, Object> getSubscribedAPIsByPageToken(Subscriber subscriber, String applicationName, String pageToken,
+            int limit, String groupingId) throws APIManagementException;
+
       /**
      * Returns true if a given user has subscribed to the API
      *
@@ -316,6 +333,29 @@ public interface APIConsumer extends APIManager {
      */
     int addApplication(Application application, String userId) throws APIManagementException;
 
+    /**
+     * Provisions applications of a subscriber in bulk, along with the subscriptions given in
+     * {@link Application#getSubscribedAPIs()} of each application and, if a key type is given, its keys. The
+     * applications are added in chunks, each chunk in a single transaction, and their subscriptions in a single
+     * transaction per chunk. Applications, subscriptions and keys which already exist are left as they are, so a
+     * request can be provisioned again to complete the items which failed in an earlier run.
+     *
+     * @param userId         subscriber who owns the applications
+     * @param applications   applications to provision, with the APIs to subscribe to
+     * @param keyType        type of the keys to generate (PRODUCTION | SANDBOX), or null to not generate keys
+     * @param allowedDomains allowed domains of the keys
+     * @param validityTime   validity period of the application tokens
+     * @param tokenScope     scopes requested for the application tokens
+     * @param chunkSize      number of applications provisioned per transaction, or 0 for the default
+     * @return result of each application, in the order of the given applications
+     * @throws APIManagementException if the existing applications and subscriptions of the subscriber could not be
+     *                                read. Failures of individual items are reported in their results.
+     */
+    List<ApplicationProvisioningResult> provisionApplications(String userId, List<Application> applications,
+                                                              String keyType, String[] allowedDomains,
+                                                              String validityTime, String tokenScope, int chunkSize)
+            throws APIManagementException;
+
     /**
      * Updates the details of the specified user application.
      *
@@ -419,6 +459,25 @@ public interface APIConsumer extends APIManager {
             String search, String sortColumn, String sortOrder)
             throws APIManagementException;
 
+    /**
+     * Returns a page of the applications of a subscriber, continuing after the page the given page token was returned
+     * with. Unlike {@link #getApplicationsWithPagination}, the cost of a page does not grow with its position. The
+     * keys of the applications are not loaded.
+     *
+     * @param subscriber Subscriber
+     * @param groupingId the groupId to which the applications must belong
+     * @param pageToken opaque token returned with the previous page, or null for the first page
+     * @param limit maximum number of applications to be listed, greater than zero
+     * @param search part of the names of the applications to be listed, or null to list all of them
+     * @param sortColumn NAME, APPLICATION_TIER or APPLICATION_STATUS, or null to sort by name
+     * @param sortOrder asc or desc
+     * @return the applications of the page under "applications" and the token of the next page, or null after the
+     * last page, under "nextPageToken"
+     * @throws APIManagementException if the page token or limit is invalid or the applications could not be read
+     */
+    Map<String, Object> getApplicationsByPageToken(Subscriber subscriber, String groupingId, String pageToken,
+            int limit, String search, String sortColumn, String sortOrder) throws APIManagementException;
+
 
     /**
      * This will return APIM application by giving name and subscriber
@@ -135,6 +135,19 @@ public interface APIProvider extends APIManager {
      */
     long getAPISubscriptionCountByAPI(APIIdentifier identifier) throws APIManagementException;
 
+    /**
+     * Returns the number of subscriptions of each API of the tenant, excluding APIs in the CREATED state and APIs
+     * without subscriptions.
+     *
+     * @param providerName provider of the APIs, or null to include the APIs of all the providers
+     * @param start        index of the first API of the page
+     * @param end          index after the last API of the page
+     * @return the subscription count of each API of the page, ordered by provider, name and version
+     * @throws APIManagementException if failed to get the subscription counts
+     */
+    Map<APIIdentifier, Long> getSubscriptionCountsOfAPIs(String providerName, int start, int end)
+            throws APIManagementException;
+
     void addTier(Tier tier) throws APIManagementException;
 
     void addPolicy(Policy policy) throws APIManagementException;
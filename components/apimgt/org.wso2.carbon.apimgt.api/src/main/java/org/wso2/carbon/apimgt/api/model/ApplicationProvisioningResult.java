@@ -0,0 +1,125 @@
+/*
+* Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package org.wso2.carbon.apimgt.api.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of provisioning one application in a bulk provisioning request: the application itself, each of its
+ * requested subscriptions and its keys. Provisioning the same request again reports the items added by an earlier
+ * run as {@link Status#EXISTING}.
+ */
+public class ApplicationProvisioningResult {
+
+    /**
+     * Outcome of provisioning an item.
+     */
+    public enum Status {
+        /** The item was added by this request. */
+        CREATED,
+        /** The item already existed and was left as it was. */
+        EXISTING,
+        /** The item could not be added. The reason is in the errors of the result. */
+        FAILED,
+        /** The item was not attempted, e.g. the keys of an application which is not approved yet. */
+        SKIPPED
+    }
+
+    private final String applicationName;
+    private int applicationId;
+    private String applicationUUID;
+    private Status applicationStatus;
+    private final Map<APIIdentifier, Status> subscriptionStatuses = new LinkedHashMap<APIIdentifier, Status>();
+    private Status keyStatus = Status.SKIPPED;
+    private String consumerKey;
+    private final List<String> errors = new ArrayList<String>();
+
+    public ApplicationProvisioningResult(String applicationName) {
+        this.applicationName = applicationName;
+    }
+
+    public String getApplicationName() {
+        return applicationName;
+    }
+
+    public int getApplicationId() {
+        return applicationId;
+    }
+
+    public void setApplicationId(int applicationId) {
+        this.applicationId = applicationId;
+    }
+
+    public String getApplicationUUID() {
+        return applicationUUID;
+    }
+
+    public void setApplicationUUID(String applicationUUID) {
+        this.applicationUUID = applicationUUID;
+    }
+
+    public Status getApplicationStatus() {
+        return applicationStatus;
+    }
+
+    public void setApplicationStatus(Status applicationStatus) {
+        this.applicationStatus = applicationStatus;
+    }
+
+    public Map<APIIdentifier, Status> getSubscriptionStatuses() {
+        return Collections.unmodifiableMap(subscriptionStatuses);
+    }
+
+    public void setSubscriptionStatus(APIIdentifier identifier, Status status) {
+        subscriptionStatuses.put(identifier, status);
+    }
+
+    public Status getKeyStatus() {
+        return keyStatus;
+    }
+
+    public void setKeyStatus(Status keyStatus) {
+        this.keyStatus = keyStatus;
+    }
+
+    public String getConsumerKey() {
+        return consumerKey;
+    }
+
+    public void setConsumerKey(String consumerKey) {
+        this.consumerKey = consumerKey;
+    }
+
+    public List<String> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    public void addError(String error) {
+        errors.add(error);
+    }
+
+    /**
+     * @return whether the application, all of its subscriptions and its keys were provisioned
+     */
+    public boolean isSuccessful() {
+        return errors.isEmpty();
+    }
+}
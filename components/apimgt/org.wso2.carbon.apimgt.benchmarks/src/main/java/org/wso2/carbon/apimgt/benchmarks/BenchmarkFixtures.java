@@ -0,0 +1,431 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.benchmarks;
+
+import org.apache.axis2.Constants;
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.engine.AxisConfiguration;
+import org.apache.commons.codec.binary.Base64;
+import org.apache.synapse.MessageContext;
+import org.apache.synapse.config.SynapseConfiguration;
+import org.apache.synapse.core.axis2.Axis2MessageContext;
+import org.apache.synapse.core.axis2.Axis2SynapseEnvironment;
+import org.apache.synapse.rest.API;
+import org.apache.synapse.rest.RESTConstants;
+import org.apache.synapse.rest.Resource;
+import org.apache.synapse.rest.dispatch.URITemplateHelper;
+import org.apache.synapse.rest.version.URLBasedVersionStrategy;
+import org.apache.synapse.rest.version.VersionStrategyFactory;
+import org.apache.synapse.transport.nhttp.NhttpConstants;
+import org.json.simple.JSONObject;
+import org.wso2.carbon.apimgt.api.dto.ConditionDTO;
+import org.wso2.carbon.apimgt.api.dto.ConditionGroupDTO;
+import org.wso2.carbon.apimgt.api.model.policy.PolicyConstants;
+import org.wso2.carbon.apimgt.gateway.APIMgtGatewayConstants;
+import org.wso2.carbon.apimgt.impl.APIConstants;
+import org.wso2.carbon.apimgt.impl.APIManagerConfiguration;
+import org.wso2.carbon.apimgt.impl.APIManagerConfigurationServiceImpl;
+import org.wso2.carbon.apimgt.impl.dto.APIInfoDTO;
+import org.wso2.carbon.apimgt.impl.dto.ResourceInfoDTO;
+import org.wso2.carbon.apimgt.impl.dto.VerbInfoDTO;
+import org.wso2.carbon.apimgt.impl.utils.APIUtil;
+
+import javax.cache.Cache;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Synthetic gateway and key manager fixtures shared by the benchmarks. Every fixture is generated from a fixed seed
+ * so that two runs with the same parameters exercise exactly the same APIs, resources, conditions and claims, which
+ * keeps results comparable across commits.
+ */
+public final class BenchmarkFixtures {
+
+    public static final long SEED = 0x5EEDL;
+
+    public static final String API_VERSION = "1.0.0";
+
+    public static final String API_PROVIDER = "admin";
+
+    public static final String END_USER = "admin@carbon.super";
+
+    public static final String CLIENT_IP = "10.100.1.25";
+
+    private static final String[] HTTP_METHODS = {"GET", "POST", "PUT", "DELETE", "PATCH", "HEAD"};
+
+    private static final String[] CONDITION_TYPES = {PolicyConstants.HEADER_TYPE, PolicyConstants.QUERY_PARAMETER_TYPE,
+            PolicyConstants.IP_RANGE_TYPE, PolicyConstants.IP_SPECIFIC_TYPE, PolicyConstants.JWT_CLAIMS_TYPE};
+
+    private static volatile boolean configurationInstalled;
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Installs an in memory api-manager.xml into the impl and gateway service holders, so that classes which read
+     * their configuration while being constructed can be used outside of an OSGi runtime.
+     */
+    public static synchronized void installConfiguration() {
+        if (configurationInstalled) {
+            return;
+        }
+        BenchmarkConfiguration configuration = new BenchmarkConfiguration();
+        // neither the WS nor the Thrift client, so that the key validator does not connect to a key manager
+        configuration.set(APIConstants.API_KEY_VALIDATOR_CLIENT_TYPE, "Benchmark");
+        configuration.set(APIConstants.GATEWAY_TOKEN_CACHE_ENABLED, "true");
+        configuration.set(APIConstants.TOKEN_CACHE_EXPIRY, "900");
+        configuration.set(APIConstants.GATEWAY_RESOURCE_CACHE_ENABLED, "true");
+        configuration.set(APIConstants.CORS_CONFIGURATION_ENABLED, "true");
+        configuration.set(APIConstants.CORS_CONFIGURATION_ACCESS_CTL_ALLOW_ORIGIN, "*");
+        configuration.set(APIConstants.CORS_CONFIGURATION_ACCESS_CTL_ALLOW_HEADERS,
+                "authorization,Access-Control-Allow-Origin,Content-Type,SOAPAction");
+        configuration.set(APIConstants.CORS_CONFIGURATION_ACCESS_CTL_ALLOW_METHODS, "GET,PUT,POST,DELETE,PATCH,OPTIONS");
+        configuration.set(APIConstants.CORS_CONFIGURATION_ACCESS_CTL_ALLOW_CREDENTIALS, "false");
+        configuration.set(APIConstants.JWT_SIGNATURE_ALGORITHM, "SHA256withRSA");
+
+        APIManagerConfigurationServiceImpl configurationService = new APIManagerConfigurationServiceImpl(configuration);
+        org.wso2.carbon.apimgt.impl.internal.ServiceReferenceHolder.getInstance()
+                .setAPIManagerConfigurationService(configurationService);
+        org.wso2.carbon.apimgt.gateway.internal.ServiceReferenceHolder.getInstance()
+                .setAPIManagerConfigurationService(configurationService);
+        configurationInstalled = true;
+    }
+
+    public static String getApiName(int apiIndex) {
+        return API_PROVIDER + "--Api" + apiIndex + ":v" + API_VERSION;
+    }
+
+    public static String getApiContext(int apiIndex) {
+        return "/api" + apiIndex;
+    }
+
+    /**
+     * Builds the URI templates of a resource tree with the given depth and number of children per level, e.g.
+     * {@code /r0/{p1}/r2/{p2}} for the third child of the first child of the root.
+     *
+     * @param depth     number of levels in the tree
+     * @param branching number of children of each resource
+     * @return URI templates of every resource in the tree
+     */
+    public static List<String> buildResourceTree(int depth, int branching) {
+        List<String> templates = new ArrayList<String>();
+        List<String> level = new ArrayList<String>();
+        level.add("");
+        for (int d = 1; d <= depth; d++) {
+            List<String> next = new ArrayList<String>();
+            for (String parent : level) {
+                for (int b = 0; b < branching; b++) {
+                    String template = parent + "/r" + b + "/{p" + d + "}";
+                    next.add(template);
+                    templates.add(template);
+                }
+            }
+            level = next;
+        }
+        return templates;
+    }
+
+    /**
+     * Fills a template produced by {@link #buildResourceTree(int, int)} with concrete path parameter values.
+     */
+    public static String toRequestPath(String template, Random random) {
+        StringBuilder path = new StringBuilder(template.length());
+        int i = 0;
+        while (i < template.length()) {
+            char c = template.charAt(i);
+            if (c == '{') {
+                path.append(random.nextInt(100000));
+                i = template.indexOf('}', i) + 1;
+            } else {
+                path.append(c);
+                i++;
+            }
+        }
+        return path.toString();
+    }
+
+    /**
+     * @return HTTP methods allowed on a resource, always including GET
+     */
+    public static String[] getResourceMethods(Random random) {
+        List<String> methods = new ArrayList<String>();
+        methods.add(HTTP_METHODS[0]);
+        for (int i = 1; i < HTTP_METHODS.length; i++) {
+            if (random.nextBoolean()) {
+                methods.add(HTTP_METHODS[i]);
+            }
+        }
+        return methods.toArray(new String[methods.size()]);
+    }
+
+    /**
+     * Builds the Synapse API deployed on the gateway for an API with the given resource templates.
+     */
+    public static API buildSynapseAPI(int apiIndex, List<String> templates, Random random) {
+        API api = new API(getApiName(apiIndex), getApiContext(apiIndex));
+        api.setVersionStrategy(new URLBasedVersionStrategy(api, API_VERSION, null));
+        for (String template : templates) {
+            Resource resource = new Resource();
+            resource.setDispatcherHelper(new URITemplateHelper(template));
+            for (String method : getResourceMethods(random)) {
+                resource.addMethod(method);
+            }
+            api.addResource(resource);
+        }
+        return api;
+    }
+
+    /**
+     * Builds the resource metadata the key manager returns for a Synapse API built by
+     * {@link #buildSynapseAPI(int, List, Random)}.
+     */
+    public static APIInfoDTO buildAPIInfo(int apiIndex, API api) {
+        APIInfoDTO apiInfoDTO = new APIInfoDTO();
+        apiInfoDTO.setApiName(api.getName());
+        apiInfoDTO.setContext(getApiContext(apiIndex));
+        apiInfoDTO.setVersion(API_VERSION);
+        apiInfoDTO.setProviderId(API_PROVIDER);
+        apiInfoDTO.setResources(new LinkedHashSet<ResourceInfoDTO>());
+        for (Resource resource : api.getResources()) {
+            ResourceInfoDTO resourceInfoDTO = new ResourceInfoDTO();
+            resourceInfoDTO.setUrlPattern(resource.getDispatcherHelper().getString());
+            resourceInfoDTO.setHttpVerbs(new LinkedHashSet<VerbInfoDTO>());
+            for (String method : resource.getMethods()) {
+                VerbInfoDTO verbInfoDTO = new VerbInfoDTO();
+                verbInfoDTO.setHttpVerb(method);
+                verbInfoDTO.setAuthType(APIConstants.AUTH_APPLICATION_OR_USER_LEVEL_TOKEN);
+                verbInfoDTO.setThrottling(APIConstants.UNLIMITED_TIER);
+                resourceInfoDTO.getHttpVerbs().add(verbInfoDTO);
+            }
+            apiInfoDTO.getResources().add(resourceInfoDTO);
+        }
+        return apiInfoDTO;
+    }
+
+    public static String getAPIInfoCacheKey(int apiIndex) {
+        return APIUtil.getAPIInfoDTOCacheKey(getApiContext(apiIndex), API_VERSION);
+    }
+
+    /**
+     * Creates a Synapse message context for a request to the given API, in the state it is in when the gateway
+     * handlers are invoked.
+     */
+    public static MessageContext createMessageContext(SynapseConfiguration synapseConfiguration, int apiIndex,
+                                                      String httpMethod, String requestPath, String queryString,
+                                                      TreeMap<String, String> headers) {
+        org.apache.axis2.context.MessageContext axis2MsgCtx = new org.apache.axis2.context.MessageContext();
+        axis2MsgCtx.setIncomingTransportName("http");
+        axis2MsgCtx.setProperty(Constants.Configuration.HTTP_METHOD, httpMethod);
+        axis2MsgCtx.setProperty(org.apache.axis2.context.MessageContext.TRANSPORT_HEADERS, headers);
+        axis2MsgCtx.setProperty(org.apache.axis2.context.MessageContext.REMOTE_ADDR, CLIENT_IP);
+        String fullPath = getApiContext(apiIndex) + "/" + API_VERSION + requestPath;
+        String restPostfix = fullPath.substring(1) + (queryString != null ? "?" + queryString : "");
+        axis2MsgCtx.setProperty(NhttpConstants.REST_URL_POSTFIX, restPostfix);
+        axis2MsgCtx.setProperty(Constants.Configuration.TRANSPORT_IN_URL, "/" + restPostfix);
+
+        ConfigurationContext configurationContext = new ConfigurationContext(new AxisConfiguration());
+        MessageContext synCtx = new Axis2MessageContext(axis2MsgCtx, synapseConfiguration,
+                new Axis2SynapseEnvironment(configurationContext, synapseConfiguration));
+        synCtx.setProperty(RESTConstants.SYNAPSE_REST_API, getApiName(apiIndex));
+        synCtx.setProperty(RESTConstants.REST_API_CONTEXT, getApiContext(apiIndex));
+        synCtx.setProperty(RESTConstants.SYNAPSE_REST_API_VERSION, API_VERSION);
+        synCtx.setProperty(RESTConstants.SYNAPSE_REST_API_VERSION_STRATEGY, VersionStrategyFactory.TYPE_URL);
+        synCtx.setProperty(RESTConstants.REST_FULL_REQUEST_PATH, fullPath);
+        return synCtx;
+    }
+
+    /**
+     * @return transport headers of a typical browser or mobile client request
+     */
+    public static TreeMap<String, String> buildRequestHeaders(int extraHeaders, Random random) {
+        TreeMap<String, String> headers = new TreeMap<String, String>(String.CASE_INSENSITIVE_ORDER);
+        headers.put("Accept", "application/json");
+        headers.put("Accept-Encoding", "gzip, deflate");
+        headers.put("Authorization", "Bearer " + Long.toHexString(random.nextLong()));
+        headers.put("Host", "gateway.example.com:8243");
+        headers.put("Origin", "https://app.example.com");
+        headers.put("User-Agent", "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko)");
+        headers.put(APIMgtGatewayConstants.X_FORWARDED_FOR, CLIENT_IP + ", 10.0.0.1");
+        for (int i = 0; i < extraHeaders; i++) {
+            headers.put("X-Custom-" + i, Long.toHexString(random.nextLong()));
+        }
+        return headers;
+    }
+
+    public static String buildQueryString(int paramCount, Random random) {
+        StringBuilder query = new StringBuilder();
+        for (int i = 0; i < paramCount; i++) {
+            if (i > 0) {
+                query.append('&');
+            }
+            query.append("param").append(i).append('=').append(random.nextInt(1000));
+        }
+        return query.toString();
+    }
+
+    /**
+     * @return string claims of a user, in the form a claims retriever returns them
+     */
+    public static Map<String, String> buildClaims(int claimCount, Random random) {
+        Map<String, String> claims = new HashMap<String, String>();
+        for (int i = 0; i < claimCount; i++) {
+            String claimURI = "http://wso2.org/claims/custom" + i;
+            if (i % 5 == 0) {
+                // multi valued attributes are joined with the default attribute separator
+                claims.put(claimURI, "role" + random.nextInt(100) + APIConstants.MULTI_ATTRIBUTE_SEPARATOR_DEFAULT
+                        + "role" + random.nextInt(100) + APIConstants.MULTI_ATTRIBUTE_SEPARATOR_DEFAULT
+                        + "role" + random.nextInt(100));
+            } else {
+                claims.put(claimURI, Long.toHexString(random.nextLong()));
+            }
+        }
+        return claims;
+    }
+
+    /**
+     * Builds an unsigned JWT carrying the given claims, as the caller token set by the key validation handler.
+     */
+    @SuppressWarnings("unchecked")
+    public static String buildCallerToken(Map<String, String> claims) {
+        Charset utf8 = Charset.forName("UTF-8");
+        JSONObject header = new JSONObject();
+        header.put("typ", "JWT");
+        header.put("alg", "none");
+        JSONObject body = new JSONObject();
+        body.putAll(claims);
+        return Base64.encodeBase64URLSafeString(header.toJSONString().getBytes(utf8)) + "."
+                + Base64.encodeBase64URLSafeString(body.toJSONString().getBytes(utf8)) + ".";
+    }
+
+    /**
+     * Builds the condition groups of an advanced throttling policy. Conditions are spread over every condition type
+     * and, like most production policies, rarely match a given request so that the evaluator has to go through all
+     * of them before falling back to the default group.
+     *
+     * @param groupCount         number of condition groups, excluding the default group
+     * @param conditionsPerGroup number of conditions in each group
+     * @param claimCount         number of claims in the caller token the JWT conditions are evaluated against
+     */
+    public static ConditionGroupDTO[] buildConditionGroups(int groupCount, int conditionsPerGroup, int claimCount,
+                                                           Random random) {
+        ConditionGroupDTO[] groups = new ConditionGroupDTO[groupCount + 1];
+        for (int g = 0; g < groupCount; g++) {
+            ConditionDTO[] conditions = new ConditionDTO[conditionsPerGroup];
+            for (int c = 0; c < conditionsPerGroup; c++) {
+                String type = CONDITION_TYPES[(g + c) % CONDITION_TYPES.length];
+                ConditionDTO condition = new ConditionDTO();
+                condition.setConditionType(type);
+                if (PolicyConstants.HEADER_TYPE.equals(type)) {
+                    condition.setConditionName("X-Custom-" + random.nextInt(20));
+                    condition.setConditionValue("^[0-9a-f]{4}" + random.nextInt(10) + ".*");
+                } else if (PolicyConstants.QUERY_PARAMETER_TYPE.equals(type)) {
+                    condition.setConditionName("param" + random.nextInt(20));
+                    condition.setConditionValue(String.valueOf(random.nextInt(1000)));
+                } else if (PolicyConstants.IP_RANGE_TYPE.equals(type)) {
+                    int subnet = random.nextInt(250);
+                    condition.setConditionName("192.168." + subnet + ".0");
+                    condition.setConditionValue("192.168." + subnet + ".255");
+                } else if (PolicyConstants.IP_SPECIFIC_TYPE.equals(type)) {
+                    condition.setConditionName(PolicyConstants.IP_SPECIFIC_TYPE);
+                    condition.setConditionValue("172.16." + random.nextInt(250) + "." + random.nextInt(250));
+                } else {
+                    condition.setConditionName("http://wso2.org/claims/custom" + random.nextInt(claimCount));
+                    condition.setConditionValue("^" + Integer.toHexString(random.nextInt(16)) + "[0-9a-f]*$");
+                }
+                // a few conditions are inverted, as they are for blacklisting style policies
+                condition.isInverted(random.nextInt(10) == 0);
+                conditions[c] = condition;
+            }
+            ConditionGroupDTO group = new ConditionGroupDTO();
+            group.setConditionGroupId("condition_" + g);
+            group.setConditions(conditions);
+            groups[g] = group;
+        }
+        ConditionGroupDTO defaultGroup = new ConditionGroupDTO();
+        defaultGroup.setConditionGroupId(APIConstants.THROTTLE_POLICY_DEFAULT);
+        defaultGroup.setConditions(new ConditionDTO[0]);
+        groups[groupCount] = defaultGroup;
+        return groups;
+    }
+
+    /**
+     * Creates a {@link Cache} backed by a plain concurrent map, standing in for the Carbon cache manager which is
+     * not available outside of the server. Only the operations used by the gateway handlers are supported.
+     */
+    @SuppressWarnings("unchecked")
+    public static Cache createMapBackedCache(final String name) {
+        final ConcurrentHashMap<Object, Object> entries = new ConcurrentHashMap<Object, Object>();
+        return (Cache) Proxy.newProxyInstance(BenchmarkFixtures.class.getClassLoader(), new Class[]{Cache.class},
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        String methodName = method.getName();
+                        if ("get".equals(methodName)) {
+                            return entries.get(args[0]);
+                        } else if ("put".equals(methodName)) {
+                            entries.put(args[0], args[1]);
+                            return null;
+                        } else if ("remove".equals(methodName) && args != null && args.length == 1) {
+                            return entries.remove(args[0]) != null;
+                        } else if ("containsKey".equals(methodName)) {
+                            return entries.containsKey(args[0]);
+                        } else if ("removeAll".equals(methodName) && args == null) {
+                            entries.clear();
+                            return null;
+                        } else if ("getName".equals(methodName)) {
+                            return name;
+                        } else if ("hashCode".equals(methodName)) {
+                            return System.identityHashCode(proxy);
+                        } else if ("equals".equals(methodName)) {
+                            return proxy == args[0];
+                        } else if ("toString".equals(methodName)) {
+                            return "MapBackedCache[" + name + "]";
+                        }
+                        throw new UnsupportedOperationException(methodName + " is not supported by the benchmark cache");
+                    }
+                });
+    }
+
+    /**
+     * An api-manager.xml held in memory.
+     */
+    private static class BenchmarkConfiguration extends APIManagerConfiguration {
+
+        private final Map<String, String> properties = new ConcurrentHashMap<String, String>();
+
+        void set(String key, String value) {
+            properties.put(key, value);
+        }
+
+        @Override
+        public String getFirstProperty(String key) {
+            return properties.get(key);
+        }
+    }
+}
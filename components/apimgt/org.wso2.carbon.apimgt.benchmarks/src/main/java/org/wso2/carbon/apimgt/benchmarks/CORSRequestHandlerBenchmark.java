@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.benchmarks;
+
+import org.apache.synapse.MessageContext;
+import org.apache.synapse.config.SynapseConfiguration;
+import org.apache.synapse.rest.API;
+import org.apache.synapse.rest.Resource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.apimgt.gateway.handlers.security.CORSRequestHandler;
+
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Computes the CORS headers of requests to the resources of an API, for a wildcard origin and for an explicit list
+ * of allowed origins.
+ *
+ * {@link CORSRequestHandler#handleRequest(MessageContext)} itself is not measured since it reports to the Carbon
+ * metrics service, which is not available outside of the server; its resource dispatching is the same as that of
+ * {@link FindMatchingVerbBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class CORSRequestHandlerBenchmark {
+
+    @Param({"*", "list"})
+    public String allowedOrigins;
+
+    @Param({"50"})
+    public int originCount;
+
+    private CORSRequestHandler handler;
+
+    private MessageContext synCtx;
+
+    private Resource[] resources;
+
+    private int next;
+
+    @Setup
+    public void setup() {
+        BenchmarkFixtures.installConfiguration();
+        Random random = new Random(BenchmarkFixtures.SEED);
+
+        API api = BenchmarkFixtures.buildSynapseAPI(0, BenchmarkFixtures.buildResourceTree(3, 4), random);
+        resources = api.getResources();
+
+        TreeMap<String, String> headers = BenchmarkFixtures.buildRequestHeaders(10, random);
+        headers.put("Access-Control-Request-Headers", "authorization,content-type");
+        StringBuilder origins = new StringBuilder();
+        for (int i = 0; i < originCount; i++) {
+            origins.append("https://app").append(i).append(".example.com,");
+        }
+        origins.append(headers.get("Origin"));
+
+        handler = new CORSRequestHandler();
+        handler.setAllowedOrigins("*".equals(allowedOrigins) ? "*" : origins.toString());
+        handler.setAllowHeaders("authorization,Access-Control-Allow-Origin,Content-Type,SOAPAction");
+        handler.setAllowedMethods("GET,PUT,POST,DELETE,PATCH,OPTIONS");
+        handler.setAllowCredentials("true");
+
+        synCtx = BenchmarkFixtures.createMessageContext(new SynapseConfiguration(), 0, "GET", "/r0/1", null,
+                headers);
+    }
+
+    @Benchmark
+    public MessageContext setCORSHeaders() {
+        handler.setCORSHeaders(synCtx, resources[next]);
+        next = (next + 1) % resources.length;
+        return synCtx;
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.benchmarks;
+
+import org.apache.axis2.engine.AxisConfiguration;
+import org.apache.synapse.MessageContext;
+import org.apache.synapse.config.SynapseConfiguration;
+import org.apache.synapse.rest.API;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.apimgt.gateway.handlers.security.APIKeyValidator;
+import org.wso2.carbon.apimgt.gateway.handlers.security.APISecurityException;
+import org.wso2.carbon.apimgt.gateway.handlers.security.ResourceNotFoundException;
+import org.wso2.carbon.apimgt.impl.APIConstants;
+import org.wso2.carbon.apimgt.impl.dto.VerbInfoDTO;
+
+import javax.cache.Cache;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolves the resource and verb of requests to a gateway with many deployed APIs, each having a deep resource
+ * tree. {@link #findMatchingVerb()} measures the path taken by the first handler of a request, which dispatches the
+ * request to a Synapse resource and looks the verb up in the resource cache. {@link #findMatchingVerbCacheMiss()}
+ * additionally evicts the verb so that it is resolved from the API's resource metadata.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class FindMatchingVerbBenchmark {
+
+    private static final int REQUEST_COUNT = 1024;
+
+    @Param({"50", "500"})
+    public int apiCount;
+
+    @Param({"2", "4"})
+    public int resourceDepth;
+
+    @Param({"4"})
+    public int resourceBranching;
+
+    private BenchmarkKeyValidator keyValidator;
+
+    private MessageContext[] requests;
+
+    private String[] verbCacheKeys;
+
+    private int next;
+
+    @Setup
+    public void setup() throws Exception {
+        BenchmarkFixtures.installConfiguration();
+        Random random = new Random(BenchmarkFixtures.SEED);
+        keyValidator = new BenchmarkKeyValidator();
+
+        SynapseConfiguration synapseConfiguration = new SynapseConfiguration();
+        List<String> templates = BenchmarkFixtures.buildResourceTree(resourceDepth, resourceBranching);
+        API[] apis = new API[apiCount];
+        for (int i = 0; i < apiCount; i++) {
+            apis[i] = BenchmarkFixtures.buildSynapseAPI(i, templates, random);
+            synapseConfiguration.addAPI(apis[i].getName(), apis[i]);
+            keyValidator.getResourceCache().put(BenchmarkFixtures.getAPIInfoCacheKey(i),
+                    BenchmarkFixtures.buildAPIInfo(i, apis[i]));
+        }
+
+        requests = new MessageContext[REQUEST_COUNT];
+        verbCacheKeys = new String[REQUEST_COUNT];
+        for (int r = 0; r < REQUEST_COUNT; r++) {
+            int apiIndex = random.nextInt(apiCount);
+            String requestPath = BenchmarkFixtures.toRequestPath(templates.get(random.nextInt(templates.size())),
+                    random);
+            requests[r] = BenchmarkFixtures.createMessageContext(synapseConfiguration, apiIndex, "GET", requestPath,
+                    null, BenchmarkFixtures.buildRequestHeaders(0, random));
+            // resolve every request once so that the resource cache holds the verbs, as it does on a warm gateway
+            VerbInfoDTO verb = keyValidator.findMatchingVerb(requests[r]);
+            if (verb == null) {
+                throw new IllegalStateException("No verb found for " + requestPath + " of API " + apiIndex);
+            }
+            verbCacheKeys[r] = verb.getRequestKey();
+        }
+    }
+
+    @Benchmark
+    public VerbInfoDTO findMatchingVerb() throws ResourceNotFoundException, APISecurityException {
+        return keyValidator.findMatchingVerb(nextRequest());
+    }
+
+    @Benchmark
+    public VerbInfoDTO findMatchingVerbCacheMiss() throws ResourceNotFoundException, APISecurityException {
+        keyValidator.getResourceCache().remove(verbCacheKeys[next]);
+        return keyValidator.findMatchingVerb(nextRequest());
+    }
+
+    /**
+     * @return the next request, reset to the state it is in before any handler has seen it
+     */
+    private MessageContext nextRequest() {
+        MessageContext synCtx = requests[next];
+        next = (next + 1) % REQUEST_COUNT;
+        synCtx.getPropertyKeySet().remove(APIConstants.API_RESOURCE_CACHE_KEY);
+        synCtx.getPropertyKeySet().remove(APIConstants.API_ELECTED_RESOURCE);
+        return synCtx;
+    }
+
+    /**
+     * Key validator using in memory caches in place of the Carbon cache manager.
+     */
+    private static class BenchmarkKeyValidator extends APIKeyValidator {
+
+        // assigned lazily since the super constructor already asks for the caches
+        private Cache resourceCache;
+
+        private Cache gatewayKeyCache;
+
+        BenchmarkKeyValidator() {
+            super(new AxisConfiguration());
+        }
+
+        @Override
+        protected Cache getResourceCache() {
+            if (resourceCache == null) {
+                resourceCache = BenchmarkFixtures.createMapBackedCache(APIConstants.RESOURCE_CACHE_NAME);
+            }
+            return resourceCache;
+        }
+
+        @Override
+        protected Cache getGatewayKeyCache() {
+            if (gatewayKeyCache == null) {
+                gatewayKeyCache = BenchmarkFixtures.createMapBackedCache(APIConstants.GATEWAY_KEY_CACHE_NAME);
+            }
+            return gatewayKeyCache;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.apimgt.api.APIManagementException;
+import org.wso2.carbon.apimgt.impl.APIConstants;
+import org.wso2.carbon.apimgt.impl.dto.APIKeyValidationInfoDTO;
+import org.wso2.carbon.apimgt.keymgt.service.TokenValidationContext;
+import org.wso2.carbon.apimgt.keymgt.token.AbstractJWTGenerator;
+import org.wso2.carbon.apimgt.keymgt.token.JWTGenerator;
+import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.security.Key;
+import java.security.KeyPairGenerator;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds and signs the JWT passed to the back end for a user with a large claim set.
+ *
+ * The super tenant's private key is normally read from the Carbon key store the first time a token is signed.
+ * Here a freshly generated RSA key is placed in the generator's key cache instead, which is the state of a running
+ * key manager after its first token.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class JWTGeneratorBenchmark {
+
+    @Param({"10", "100"})
+    public int claimCount;
+
+    private BenchmarkJWTGenerator generator;
+
+    private TokenValidationContext validationContext;
+
+    private Method signJWT;
+
+    private String body;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() throws Exception {
+        BenchmarkFixtures.installConfiguration();
+        Random random = new Random(BenchmarkFixtures.SEED);
+
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(2048);
+        Field privateKeys = AbstractJWTGenerator.class.getDeclaredField("privateKeys");
+        privateKeys.setAccessible(true);
+        ((Map<Integer, Key>) privateKeys.get(null)).put(MultitenantConstants.SUPER_TENANT_ID,
+                keyPairGenerator.generateKeyPair().getPrivate());
+
+        signJWT = AbstractJWTGenerator.class.getDeclaredMethod("signJWT", String.class, String.class);
+        signJWT.setAccessible(true);
+
+        generator = new BenchmarkJWTGenerator(BenchmarkFixtures.buildClaims(claimCount, random));
+
+        APIKeyValidationInfoDTO validationInfo = new APIKeyValidationInfoDTO();
+        validationInfo.setAuthorized(true);
+        validationInfo.setEndUserName(BenchmarkFixtures.END_USER);
+        validationInfo.setSubscriber(BenchmarkFixtures.API_PROVIDER);
+        validationInfo.setApplicationId("1");
+        validationInfo.setApplicationName("DefaultApplication");
+        validationInfo.setApplicationTier(APIConstants.UNLIMITED_TIER);
+        validationInfo.setTier(APIConstants.UNLIMITED_TIER);
+        validationInfo.setType(APIConstants.API_KEY_TYPE_PRODUCTION);
+        validationInfo.setUserType(APIConstants.ACCESS_TOKEN_USER_TYPE_APPLICATION);
+
+        validationContext = new TokenValidationContext();
+        validationContext.setContext(BenchmarkFixtures.getApiContext(0));
+        validationContext.setVersion(BenchmarkFixtures.API_VERSION);
+        validationContext.setValidationInfoDTO(validationInfo);
+
+        body = generator.buildBody(validationContext);
+    }
+
+    @Benchmark
+    public String buildBody() throws APIManagementException {
+        return generator.buildBody(validationContext);
+    }
+
+    @Benchmark
+    public Object signJWT() throws Exception {
+        return signJWT.invoke(generator, body, BenchmarkFixtures.END_USER);
+    }
+
+    /**
+     * The default generator, with the claims of the user supplied by the benchmark rather than a user store.
+     */
+    private static class BenchmarkJWTGenerator extends JWTGenerator {
+
+        private final Map<String, String> customClaims;
+
+        BenchmarkJWTGenerator(Map<String, String> customClaims) {
+            this.customClaims = customClaims;
+        }
+
+        @Override
+        public Map<String, String> populateCustomClaims(TokenValidationContext validationContext) {
+            // buildBody merges the custom claims into the standard claims, so a copy is not needed
+            return customClaims;
+        }
+    }
+}
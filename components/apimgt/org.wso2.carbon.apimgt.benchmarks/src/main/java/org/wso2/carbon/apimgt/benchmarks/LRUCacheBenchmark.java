@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.apimgt.impl.utils.LRUCache;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads and writes token cache style keys to an {@link LRUCache}, both from a single thread and from several
+ * threads contending for the cache lock. Keys are drawn from a working set larger than the cache, so a share of the
+ * accesses miss and evict.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class LRUCacheBenchmark {
+
+    private static final int KEY_COUNT = 1 << 14;
+
+    @Param({"1000", "10000"})
+    public int maxEntries;
+
+    private LRUCache<String, String> cache;
+
+    private String[] keys;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(BenchmarkFixtures.SEED);
+        cache = new LRUCache<String, String>(maxEntries);
+        keys = new String[KEY_COUNT];
+        for (int i = 0; i < KEY_COUNT; i++) {
+            keys[i] = Long.toHexString(random.nextLong()) + Long.toHexString(random.nextLong());
+        }
+        for (int i = 0; i < maxEntries; i++) {
+            cache.put(keys[i % KEY_COUNT], keys[i % KEY_COUNT]);
+        }
+    }
+
+    /**
+     * Per thread position in the key sequence.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        private final Random random = new Random(BenchmarkFixtures.SEED);
+
+        int nextIndex() {
+            return random.nextInt(KEY_COUNT);
+        }
+    }
+
+    @Benchmark
+    public String getOrPut(Cursor cursor) {
+        return lookup(cursor.nextIndex());
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(4)
+    public String contendedGetOrPut(Cursor cursor) {
+        return lookup(cursor.nextIndex());
+    }
+
+    private String lookup(int index) {
+        String key = keys[index];
+        String value = cache.get(key);
+        if (value == null) {
+            cache.put(key, key);
+            value = key;
+        }
+        return value;
+    }
+}
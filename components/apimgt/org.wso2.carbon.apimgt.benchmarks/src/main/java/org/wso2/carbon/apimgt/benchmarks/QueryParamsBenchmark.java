@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.benchmarks;
+
+import org.apache.axis2.context.MessageContext;
+import org.apache.synapse.transport.nhttp.NhttpConstants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.apimgt.gateway.utils.GatewayUtils;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses the query string of a request, which is done once per query parameter throttling condition.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class QueryParamsBenchmark {
+
+    @Param({"1", "10", "50"})
+    public int paramCount;
+
+    private MessageContext axis2MsgCtx;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(BenchmarkFixtures.SEED);
+        axis2MsgCtx = new MessageContext();
+        axis2MsgCtx.setProperty(NhttpConstants.REST_URL_POSTFIX, "api0/1.0.0/r1/42/r3/7?"
+                + BenchmarkFixtures.buildQueryString(paramCount, random));
+    }
+
+    @Benchmark
+    public Map<String, String> getQueryParams() {
+        return GatewayUtils.getQueryParams(axis2MsgCtx);
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.benchmarks;
+
+import org.apache.synapse.MessageContext;
+import org.apache.synapse.config.SynapseConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.apimgt.api.dto.ConditionGroupDTO;
+import org.wso2.carbon.apimgt.gateway.handlers.security.AuthenticationContext;
+import org.wso2.carbon.apimgt.gateway.handlers.throttling.ThrottleConditionEvaluator;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluates the condition groups of an advanced throttling policy against a request carrying many headers, query
+ * parameters and JWT claims. The conditions rarely match, so every group is evaluated for every request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class ThrottleConditionEvaluatorBenchmark {
+
+    @Param({"10", "100"})
+    public int conditionGroups;
+
+    @Param({"3"})
+    public int conditionsPerGroup;
+
+    @Param({"50"})
+    public int claimCount;
+
+    private MessageContext synCtx;
+
+    private AuthenticationContext authContext;
+
+    private ConditionGroupDTO[] groups;
+
+    @Setup
+    public void setup() {
+        BenchmarkFixtures.installConfiguration();
+        Random random = new Random(BenchmarkFixtures.SEED);
+        groups = BenchmarkFixtures.buildConditionGroups(conditionGroups, conditionsPerGroup, claimCount, random);
+        synCtx = BenchmarkFixtures.createMessageContext(new SynapseConfiguration(), 0, "GET", "/r0/1",
+                BenchmarkFixtures.buildQueryString(20, random), BenchmarkFixtures.buildRequestHeaders(20, random));
+        authContext = new AuthenticationContext();
+        authContext.setAuthenticated(true);
+        authContext.setUsername(BenchmarkFixtures.END_USER);
+        authContext.setCallerToken(BenchmarkFixtures.buildCallerToken(
+                BenchmarkFixtures.buildClaims(claimCount, random)));
+    }
+
+    @Benchmark
+    public List<ConditionGroupDTO> getApplicableConditions() {
+        return ThrottleConditionEvaluator.getInstance().getApplicableConditions(synCtx, authContext, groups);
+    }
+}
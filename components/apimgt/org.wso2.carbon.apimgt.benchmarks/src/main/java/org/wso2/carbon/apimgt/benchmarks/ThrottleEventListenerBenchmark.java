@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.apimgt.gateway.throttling.ThrottleDataHolder;
+import org.wso2.carbon.apimgt.jms.listener.utils.ThrottleKeyParser;
+import org.wso2.carbon.apimgt.jms.listener.utils.ThrottleUpdateBatch;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Applies a burst of throttle decisions from the traffic manager to the throttle data holder, as the JMS listener does
+ * during a throttle storm, where the same API, resource and application keys are throttled and unthrottled
+ * repeatedly. The broker is not involved, so the scores are the time the listener spends per burst once the messages
+ * are received.
+ *
+ * {@code applyOneByOne} extracts the API and resource keys with the regular expressions and applies each decision on
+ * its own, as the listener did before decisions were batched, and is kept as the baseline.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class ThrottleEventListenerBenchmark {
+
+    private static final Pattern API_PATTERN = Pattern.compile("/.*/(.*):\\1_(condition_(\\d*)|default)");
+
+    private static final Pattern RESOURCE_PATTERN =
+            Pattern.compile("/.*/(.*)/\\1(.*)?:[A-Z]{0,5}_(condition_(\\d*)|default)");
+
+    @Param({"100"})
+    public int burstSize;
+
+    @Param({"20"})
+    public int distinctKeys;
+
+    private String[] throttleKeys;
+
+    private boolean[] throttled;
+
+    private long[] expiryTimestamps;
+
+    private ThrottleDataHolder throttleDataHolder;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(BenchmarkFixtures.SEED);
+        String[] keys = new String[distinctKeys];
+        for (int i = 0; i < distinctKeys; i++) {
+            String context = "/t/tenant" + i % 3 + ".com/api" + i + "/1.0.0";
+            switch (i % 3) {
+                case 0:
+                    keys[i] = context + ":1.0.0_condition_" + random.nextInt(4);
+                    break;
+                case 1:
+                    keys[i] = context + "/1.0.0/r" + i + "/{id}:GET_default";
+                    break;
+                default:
+                    keys[i] = BenchmarkFixtures.END_USER + ":app" + i + "_default";
+                    break;
+            }
+        }
+        throttleKeys = new String[burstSize];
+        throttled = new boolean[burstSize];
+        expiryTimestamps = new long[burstSize];
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < burstSize; i++) {
+            throttleKeys[i] = keys[random.nextInt(distinctKeys)];
+            throttled[i] = random.nextInt(4) > 0;
+            expiryTimestamps[i] = now + TimeUnit.HOURS.toMillis(1) + random.nextInt(60000);
+        }
+        throttleDataHolder = new ThrottleDataHolder();
+    }
+
+    @Benchmark
+    public ThrottleDataHolder applyBatch() {
+        ThrottleUpdateBatch batch = new ThrottleUpdateBatch();
+        for (int i = 0; i < burstSize; i++) {
+            batch.add(throttleKeys[i], throttled[i], expiryTimestamps[i]);
+        }
+        batch.apply(throttleDataHolder);
+        return throttleDataHolder;
+    }
+
+    @Benchmark
+    public ThrottleDataHolder applyOneByOne() {
+        for (int i = 0; i < burstSize; i++) {
+            String throttleKey = throttleKeys[i];
+            String apiKey = extractWithPatterns(throttleKey);
+            if (throttled[i]) {
+                throttleDataHolder.addThrottleData(throttleKey, expiryTimestamps[i]);
+                if (apiKey != null && !throttleDataHolder.isAPIThrottled(apiKey)) {
+                    throttleDataHolder.addThrottledAPIKey(apiKey, expiryTimestamps[i]);
+                }
+            } else {
+                throttleDataHolder.removeThrottleData(throttleKey);
+                if (apiKey != null) {
+                    throttleDataHolder.removeThrottledAPIKey(apiKey);
+                }
+            }
+        }
+        return throttleDataHolder;
+    }
+
+    @Benchmark
+    public String extractKey() {
+        return ThrottleKeyParser.extractAPIorResourceKey(throttleKeys[0]);
+    }
+
+    @Benchmark
+    public String extractKeyWithPatterns() {
+        return extractWithPatterns(throttleKeys[0]);
+    }
+
+    private static String extractWithPatterns(String throttleKey) {
+        Matcher m = RESOURCE_PATTERN.matcher(throttleKey);
+        if (m.matches()) {
+            return throttleKey.substring(0, throttleKey.indexOf("_" + m.group(3)));
+        }
+        m = API_PATTERN.matcher(throttleKey);
+        if (m.matches()) {
+            return throttleKey.substring(0, throttleKey.indexOf("_" + m.group(2)));
+        }
+        return null;
+    }
+}
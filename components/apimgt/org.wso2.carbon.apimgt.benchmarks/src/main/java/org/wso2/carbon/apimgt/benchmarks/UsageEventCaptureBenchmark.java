@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.benchmarks;
+
+import org.apache.synapse.MessageContext;
+import org.apache.synapse.config.SynapseConfiguration;
+import org.apache.synapse.rest.RESTConstants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.apimgt.gateway.handlers.security.APISecurityUtils;
+import org.wso2.carbon.apimgt.gateway.handlers.security.AuthenticationContext;
+import org.wso2.carbon.apimgt.impl.APIConstants;
+import org.wso2.carbon.apimgt.impl.utils.APIUtil;
+import org.wso2.carbon.apimgt.usage.publisher.APIMgtUsageHandler;
+import org.wso2.carbon.apimgt.usage.publisher.dto.DataBridgeRequestPublisherDTO;
+import org.wso2.carbon.apimgt.usage.publisher.dto.RequestPublisherDTO;
+import org.wso2.carbon.utils.multitenancy.MultitenantUtils;
+
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+
+/**
+ * Captures the usage event of a request and creates the payload published to the request stream, as
+ * {@link APIMgtUsageHandler} and the data bridge publisher do for every request.
+ *
+ * {@code uncachedCapture} derives the API details and the resource path on every request and copies the event before
+ * creating the payload, as the handler and the publisher did before the details were cached, and is kept as the
+ * baseline. Run with {@code -prof gc} to compare the bytes allocated per request ({@code gc.alloc.rate.norm}).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class UsageEventCaptureBenchmark {
+
+    private APIMgtUsageHandler handler;
+
+    private MessageContext synCtx;
+
+    @Setup
+    public void setup() {
+        BenchmarkFixtures.installConfiguration();
+        Random random = new Random(BenchmarkFixtures.SEED);
+
+        TreeMap<String, String> headers = BenchmarkFixtures.buildRequestHeaders(10, random);
+        synCtx = BenchmarkFixtures.createMessageContext(new SynapseConfiguration(), 0, "GET", "/r0/1/r2/7",
+                BenchmarkFixtures.buildQueryString(3, random), headers);
+        synCtx.setProperty(APIConstants.API_ELECTED_RESOURCE, "/r0/{p1}/r2/{p2}");
+
+        AuthenticationContext authContext = new AuthenticationContext();
+        authContext.setAuthenticated(true);
+        authContext.setConsumerKey(Long.toHexString(random.nextLong()));
+        authContext.setUsername(BenchmarkFixtures.END_USER);
+        authContext.setApplicationId("1");
+        authContext.setApplicationName("DefaultApplication");
+        authContext.setSubscriber(BenchmarkFixtures.API_PROVIDER);
+        authContext.setTier(APIConstants.UNLIMITED_TIER);
+        authContext.setKeyType(APIConstants.API_KEY_TYPE_PRODUCTION);
+        APISecurityUtils.setAuthenticationContext(synCtx, authContext, null);
+
+        handler = new APIMgtUsageHandler();
+    }
+
+    @Benchmark
+    public Object[] capture() {
+        RequestPublisherDTO event = handler.createRequestEvent(synCtx, System.currentTimeMillis());
+        return DataBridgeRequestPublisherDTO.createPayload(event);
+    }
+
+    @Benchmark
+    public Object uncachedCapture() {
+        RequestPublisherDTO event = handler.createRequestEvent(synCtx, System.currentTimeMillis());
+
+        String apiVersion = (String) synCtx.getProperty(RESTConstants.SYNAPSE_REST_API);
+        String fullRequestPath = (String) synCtx.getProperty(RESTConstants.REST_FULL_REQUEST_PATH);
+        String tenantDomain = MultitenantUtils.getTenantDomainFromRequestURL(fullRequestPath);
+        String apiPublisher = APIUtil.getAPIProviderFromRESTAPI(apiVersion, tenantDomain);
+        event.setApiPublisher(apiPublisher);
+        event.setApi(APIUtil.getAPINamefromRESTAPI(apiVersion));
+        event.setTenantDomain(MultitenantUtils.getTenantDomain(apiPublisher));
+        Matcher matcher = APIMgtUsageHandler.resourcePattern.matcher(fullRequestPath);
+        event.setResourcePath(matcher.find() ? matcher.group(1) : "/");
+
+        return new DataBridgeRequestPublisherDTO(event).createPayload();
+    }
+}
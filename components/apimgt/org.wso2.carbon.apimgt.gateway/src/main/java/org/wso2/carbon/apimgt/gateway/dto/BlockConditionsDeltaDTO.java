@@ -0,0 +1,63 @@
+/*
+*  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.apimgt.gateway.dto;
+
+
+public class BlockConditionsDeltaDTO {
+
+  private String revision;
+
+  private boolean fullSnapshot;
+
+  private BlockConditionsDTO added = new BlockConditionsDTO();
+
+  private BlockConditionsDTO removed = new BlockConditionsDTO();
+
+  public String getRevision() {
+    return revision;
+  }
+
+  public void setRevision(String revision) {
+    this.revision = revision;
+  }
+
+  public boolean isFullSnapshot() {
+    return fullSnapshot;
+  }
+
+  public void setFullSnapshot(boolean fullSnapshot) {
+    this.fullSnapshot = fullSnapshot;
+  }
+
+  public BlockConditionsDTO getAdded() {
+    return added;
+  }
+
+  public void setAdded(BlockConditionsDTO added) {
+    this.added = added;
+  }
+
+  public BlockConditionsDTO getRemoved() {
+    return removed;
+  }
+
+  public void setRemoved(BlockConditionsDTO removed) {
+    this.removed = removed;
+  }
+}
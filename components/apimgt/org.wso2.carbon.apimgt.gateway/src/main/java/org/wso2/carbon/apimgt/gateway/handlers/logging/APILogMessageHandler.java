@@ -18,7 +18,6 @@ package org.wso2.carbon.apimgt.gateway.handlers.logging;
 
 import org.apache.axis2.AxisFault;
 import org.apache.axis2.description.WSDL2Constants;
-import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.synapse.MessageContext;
@@ -29,86 +28,146 @@ import org.apache.synapse.rest.RESTConstants;
 import org.apache.synapse.transport.nhttp.NhttpConstants;
 import org.wso2.carbon.apimgt.gateway.APIMgtGatewayConstants;
 import org.wso2.carbon.apimgt.impl.APIConstants;
+import org.wso2.carbon.apimgt.impl.utils.APIUtil;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
 
-import java.util.Date;
 import java.util.Map;
-import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * A Simple extension handler for message logging for the apis deployed in the API Gateway.
- * This handler first looks for a sequence named WSO2AM--Ext--[Dir], where [Dir] could be
- * either In or Out depending on the direction of the message. If such a sequence is found,
- * It log the information of the particular API. If such an API specific sequence is found, that
- * is also invoked. If no extension is found either at the global level or at the per API level
- * this mediator simply returns true.
+ * This handler logs the information of the requests to an API and of their responses at debug level, which can be
+ * enabled for all the APIs with the logger of this class, or while the gateway is running, only for an API or an
+ * application with the loggers named after them, i.e. [this class].api.[API name] and
+ * [this class].application.[application name].
+ *
+ * The fields of a message are captured on the request thread, and formatted and written by a background thread, see
+ * {@link APILogWriter}. Set the sampleRate property of the handler, e.g. to 0.1, to log only that share of the
+ * requests, together with their responses.
  */
 public class APILogMessageHandler extends AbstractHandler {
 
-    private static final String DIRECTION_IN = "In";
-    private static final String DIRECTION_OUT = "Out";
-
     private static final Log log = LogFactory.getLog(APILogMessageHandler.class);
 
-    private boolean mediate(MessageContext messageContext, String direction) {
+    private static final String API_LOG_PREFIX = APILogMessageHandler.class.getName() + ".api.";
 
-        String applicationName = (String) messageContext.getProperty(APIMgtGatewayConstants.APPLICATION_NAME);
-        String endUserName = (String) messageContext.getProperty(APIMgtGatewayConstants.END_USER_NAME);
-        boolean isLoginRequest = false;
-        String logMessage = "";
+    private static final String APPLICATION_LOG_PREFIX = APILogMessageHandler.class.getName() + ".application.";
 
-        org.apache.axis2.context.MessageContext axisMC = ((Axis2MessageContext) messageContext).getAxis2MessageContext();
+    // Logger a request was logged with, to log its response with the same logger
+    private static final String REQUEST_LOG = "api.ut.requestLog";
 
-        if (applicationName != null) {
-            logMessage = " appName=" + applicationName;
+    private static final int MAX_APPLICATION_LOGS = 1000;
+
+    private static final Map<String, Log> applicationLogs = new ConcurrentHashMap<String, Log>();
+
+    private final APILogWriter writer;
+
+    private volatile Log apiLog;
+
+    private double sampleRate = 1;
+
+    public APILogMessageHandler() {
+        this(APILogWriter.getInstance());
+    }
+
+    APILogMessageHandler(APILogWriter writer) {
+        this.writer = writer;
+    }
+
+    public boolean handleRequest(MessageContext messageContext) {
+        Log requestLog = getEnabledLog(messageContext);
+        if (requestLog != null && (sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate)) {
+            messageContext.setProperty(REQUEST_LOG, requestLog);
+            writer.write(capture(messageContext, requestLog, true));
         }
-        if (endUserName != null) {
-            logMessage = logMessage + " , userName=" + endUserName;
+        return true;
+    }
+
+    public boolean handleResponse(MessageContext messageContext) {
+        Object requestLog = messageContext.getProperty(REQUEST_LOG);
+        if (requestLog instanceof Log && ((Log) requestLog).isDebugEnabled()) {
+            writer.write(capture(messageContext, (Log) requestLog, false));
         }
-        Map headers = (Map) axisMC.getProperty(org.apache.axis2.context.MessageContext.TRANSPORT_HEADERS);
-        String logID = (String) headers.get(APIConstants.ACTIVITY_ID);
-
-        if (DIRECTION_OUT.equals(direction) && logID == null) {
-            try {
-                org.apache.axis2.context.MessageContext inMessageContext =
-                        axisMC.getOperationContext().getMessageContext(WSDL2Constants.MESSAGE_LABEL_IN);
-                if (inMessageContext != null) {
-                    Object inTransportHeaders =
-                            inMessageContext.getProperty(org.apache.axis2.context.MessageContext.TRANSPORT_HEADERS);
-                    if (inTransportHeaders != null) {
-                        String inID = (String) ((Map) inTransportHeaders).get(APIConstants.ACTIVITY_ID);
-                        if (inID != null) {
-                            logID = inID;
-                        }
-                    }
-                }
-            } catch (AxisFault axisFault) {
-                //Ignore Axis fault to continue logging
-                log.error("Cannot get Transport headers from Gateway", axisFault);
+        return true;
+    }
+
+    public String getSampleRate() {
+        return String.valueOf(sampleRate);
+    }
+
+    /**
+     * @param sampleRate share of the requests logged, from 0 to 1
+     */
+    public void setSampleRate(String sampleRate) {
+        this.sampleRate = Double.parseDouble(sampleRate);
+    }
+
+    /**
+     * @return the logger of this class, the API or the application of the request if it is enabled, or null
+     */
+    private Log getEnabledLog(MessageContext messageContext) {
+        if (log.isDebugEnabled()) {
+            return log;
+        }
+        Log requestLog = apiLog;
+        if (requestLog == null) {
+            // The handler is created for a single API
+            String apiName = (String) messageContext.getProperty(RESTConstants.SYNAPSE_REST_API);
+            if (apiName == null) {
+                return null;
             }
+            requestLog = LogFactory.getLog(API_LOG_PREFIX + APIUtil.getAPINamefromRESTAPI(apiName));
+            apiLog = requestLog;
         }
-        if (logID != null) {
-            logMessage = logMessage + " , transactionId=" + logID;
+        if (requestLog.isDebugEnabled()) {
+            return requestLog;
         }
-        String userAgent = (String) ((TreeMap) axisMC.getProperty(org.apache.axis2.context.MessageContext
-                .TRANSPORT_HEADERS)).get(APIConstants.USER_AGENT);
-        if (userAgent != null) {
-            logMessage = logMessage + " , userAgent=" + userAgent;
+        String applicationName = (String) messageContext.getProperty(APIMgtGatewayConstants.APPLICATION_NAME);
+        if (applicationName != null) {
+            requestLog = applicationLogs.get(applicationName);
+            if (requestLog == null) {
+                if (applicationLogs.size() >= MAX_APPLICATION_LOGS) {
+                    applicationLogs.clear();
+                }
+                requestLog = LogFactory.getLog(APPLICATION_LOG_PREFIX + applicationName);
+                applicationLogs.put(applicationName, requestLog);
+            }
+            if (requestLog.isDebugEnabled()) {
+                return requestLog;
+            }
         }
+        return null;
+    }
 
+    private APILogRecord capture(MessageContext messageContext, Log recordLog, boolean inbound) {
+        org.apache.axis2.context.MessageContext axisMC = ((Axis2MessageContext) messageContext).getAxis2MessageContext();
         String requestURI = (String) messageContext.getProperty(RESTConstants.REST_FULL_REQUEST_PATH);
-        if (requestURI != null) {
-            logMessage = logMessage + " , requestURI=" + requestURI;
-            if ("/token/".equalsIgnoreCase(requestURI)) {
-                isLoginRequest = true;
-            }
+
+        APILogRecord record = new APILogRecord(recordLog, inbound, "/token/".equalsIgnoreCase(requestURI));
+        record.applicationName = (String) messageContext.getProperty(APIMgtGatewayConstants.APPLICATION_NAME);
+        record.userName = (String) messageContext.getProperty(APIMgtGatewayConstants.END_USER_NAME);
+        record.requestURI = requestURI;
+        PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+        record.tenantDomain = carbonContext.getTenantDomain();
+        record.tenantId = carbonContext.getTenantId();
+
+        Map headers = (Map) axisMC.getProperty(org.apache.axis2.context.MessageContext.TRANSPORT_HEADERS);
+        String remoteIP = null;
+        if (headers != null) {
+            record.transactionId = (String) headers.get(APIConstants.ACTIVITY_ID);
+            record.userAgent = (String) headers.get(APIConstants.USER_AGENT);
+            remoteIP = (String) headers.get(APIMgtGatewayConstants.X_FORWARDED_FOR);
+        }
+        if (!inbound && record.transactionId == null) {
+            record.transactionId = getInboundTransactionId(axisMC);
+        }
+
+        Object requestTime = axisMC.getProperty(APIMgtGatewayConstants.REQUEST_RECEIVED_TIME);
+        if (requestTime != null) {
+            record.requestTime = Long.parseLong((String) requestTime);
         }
-        long reqIncomingTimestamp = Long.parseLong((String) ((Axis2MessageContext) messageContext).
-                getAxis2MessageContext().getProperty(APIMgtGatewayConstants.REQUEST_RECEIVED_TIME));
-        Date incomingReqTime = new Date(reqIncomingTimestamp);
-        logMessage = logMessage + " , requestTime=" + incomingReqTime;
 
-        String remoteIP = (String) ((TreeMap) axisMC.getProperty(org.apache.axis2.context.MessageContext
-                .TRANSPORT_HEADERS)).get(APIMgtGatewayConstants.X_FORWARDED_FOR);
         if (remoteIP != null) {
             if (remoteIP.indexOf(',') > 0) {
                 remoteIP = remoteIP.substring(0, remoteIP.indexOf(','));
@@ -116,43 +175,30 @@ public class APILogMessageHandler extends AbstractHandler {
         } else {
             remoteIP = (String) axisMC.getProperty(org.apache.axis2.context.MessageContext.REMOTE_ADDR);
         }
-        //null check before add it to log message
-        if (remoteIP != null) {
-            logMessage = logMessage + " , clientIP=" + remoteIP;
-        }
-        if (DIRECTION_OUT.equals(direction)) {
-            String statusCode = String.valueOf(axisMC.getProperty(NhttpConstants.HTTP_SC));
+        record.clientIP = remoteIP;
 
-            if (StringUtils.isEmpty(statusCode)) {
-                logMessage = logMessage + " , statusCode=" + statusCode;
-            }
+        if (!inbound) {
+            record.statusCode = axisMC.getProperty(NhttpConstants.HTTP_SC);
+            record.endpointURL = messageContext.getProperty(SynapseConstants.ENDPOINT_PREFIX);
         }
-        if (isLoginRequest) {
-
-            if (DIRECTION_IN.equals(direction)) {
-                log.debug("Inbound OAuth token request from client to gateway: " + logMessage);
-
-            } else if (DIRECTION_OUT.equals(direction)) {
-                log.debug("Outbound OAuth token response from gateway to client: " + logMessage);
-            }
-        } else {
-            if (DIRECTION_IN.equals(direction)) {
-                log.debug("Inbound API call from client to gateway: " + logMessage);
+        return record;
+    }
 
-            } else if (DIRECTION_OUT.equals(direction)) {
-                logMessage = logMessage + " , EndPointURL=" + messageContext.getProperty(
-                        SynapseConstants.ENDPOINT_PREFIX);
-                log.debug("Outbound API call from gateway to client: " + logMessage);
+    private String getInboundTransactionId(org.apache.axis2.context.MessageContext axisMC) {
+        try {
+            org.apache.axis2.context.MessageContext inMessageContext =
+                    axisMC.getOperationContext().getMessageContext(WSDL2Constants.MESSAGE_LABEL_IN);
+            if (inMessageContext != null) {
+                Object inTransportHeaders =
+                        inMessageContext.getProperty(org.apache.axis2.context.MessageContext.TRANSPORT_HEADERS);
+                if (inTransportHeaders != null) {
+                    return (String) ((Map) inTransportHeaders).get(APIConstants.ACTIVITY_ID);
+                }
             }
+        } catch (AxisFault axisFault) {
+            //Ignore Axis fault to continue logging
+            log.error("Cannot get Transport headers from Gateway", axisFault);
         }
-        return true;
-    }
-
-    public boolean handleRequest(MessageContext messageContext) {
-        return !log.isDebugEnabled() || mediate(messageContext, DIRECTION_IN);
-    }
-
-    public boolean handleResponse(MessageContext messageContext) {
-        return !log.isDebugEnabled() || mediate(messageContext, DIRECTION_OUT);
+        return null;
     }
 }
@@ -0,0 +1,105 @@
+/*
+*  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.apimgt.gateway.handlers.logging;
+
+import org.apache.commons.logging.Log;
+
+import java.util.Date;
+
+/**
+ * The fields of a message logged by {@link APILogMessageHandler}, captured on the request thread as they are, and
+ * formatted only when written by the {@link APILogWriter}.
+ */
+final class APILogRecord {
+
+    private static final int INITIAL_MESSAGE_SIZE = 512;
+
+    final Log log;
+
+    final boolean inbound;
+
+    final boolean loginRequest;
+
+    // Tenant of the request, under which the record is written
+    String tenantDomain;
+
+    int tenantId;
+
+    String applicationName;
+
+    String userName;
+
+    String transactionId;
+
+    String userAgent;
+
+    String requestURI;
+
+    long requestTime;
+
+    String clientIP;
+
+    Object statusCode;
+
+    Object endpointURL;
+
+    APILogRecord(Log log, boolean inbound, boolean loginRequest) {
+        this.log = log;
+        this.inbound = inbound;
+        this.loginRequest = loginRequest;
+    }
+
+    /**
+     * Formats the record as the message was logged before records were written in the background, as comma
+     * separated name=value pairs after a description of the message.
+     */
+    void format(StringBuilder message) {
+        if (loginRequest) {
+            message.append(inbound ? "Inbound OAuth token request from client to gateway:" :
+                           "Outbound OAuth token response from gateway to client:");
+        } else {
+            message.append(inbound ? "Inbound API call from client to gateway:" :
+                           "Outbound API call from gateway to client:");
+        }
+        int fieldsStart = message.length();
+        append(message, fieldsStart, "appName", applicationName);
+        append(message, fieldsStart, "userName", userName);
+        append(message, fieldsStart, "transactionId", transactionId);
+        append(message, fieldsStart, "userAgent", userAgent);
+        append(message, fieldsStart, "requestURI", requestURI);
+        append(message, fieldsStart, "requestTime", requestTime > 0 ? new Date(requestTime) : null);
+        append(message, fieldsStart, "clientIP", clientIP);
+        append(message, fieldsStart, "statusCode", statusCode);
+        if (!inbound && !loginRequest) {
+            message.append(" , EndPointURL=").append(endpointURL);
+        }
+    }
+
+    String format() {
+        StringBuilder message = new StringBuilder(INITIAL_MESSAGE_SIZE);
+        format(message);
+        return message.toString();
+    }
+
+    private static void append(StringBuilder message, int fieldsStart, String name, Object value) {
+        if (value != null) {
+            message.append(message.length() == fieldsStart ? " " : " , ").append(name).append('=').append(value);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+*  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.apimgt.gateway.handlers.logging;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Formats and writes the records of {@link APILogMessageHandler} off the request path. Records are placed on a bounded
+ * queue drained by a single daemon thread. When the queue is full the oldest pending record is discarded, so that a
+ * slow log appender never blocks the gateway, and the number of discarded records is logged once writing catches up.
+ * Each record is written in a flow of the tenant of its request, so that it is logged as of that tenant.
+ */
+class APILogWriter {
+
+    private static final Log log = LogFactory.getLog(APILogWriter.class);
+
+    static final int DEFAULT_QUEUE_SIZE = 10000;
+
+    private static final int BATCH_SIZE = 100;
+
+    private static final long POLL_TIMEOUT_MILLIS = 1000;
+
+    private static final APILogWriter instance = new APILogWriter(DEFAULT_QUEUE_SIZE);
+
+    private final BlockingQueue<APILogRecord> queue;
+
+    private final AtomicLong writtenCount = new AtomicLong();
+
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    private final Thread writerThread;
+
+    private volatile boolean running = true;
+
+    APILogWriter(int queueSize) {
+        queue = new ArrayBlockingQueue<APILogRecord>(queueSize);
+        writerThread = new Thread(new RecordWriter(), "APILogWriter");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    static APILogWriter getInstance() {
+        return instance;
+    }
+
+    /**
+     * Queues a record for writing. Never blocks; if the queue is full the oldest queued record is dropped to make
+     * room.
+     */
+    void write(APILogRecord record) {
+        while (!queue.offer(record)) {
+            if (queue.poll() != null) {
+                droppedCount.incrementAndGet();
+            }
+        }
+    }
+
+    long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    int getPendingCount() {
+        return queue.size();
+    }
+
+    void shutdown() {
+        running = false;
+        writerThread.interrupt();
+    }
+
+    private class RecordWriter implements Runnable {
+
+        @Override
+        public void run() {
+            List<APILogRecord> batch = new ArrayList<APILogRecord>(BATCH_SIZE);
+            StringBuilder message = new StringBuilder(512);
+            long reportedDroppedCount = 0;
+            while (running) {
+                try {
+                    APILogRecord first = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, BATCH_SIZE - 1);
+                    for (APILogRecord record : batch) {
+                        writeRecord(record, message);
+                    }
+                    writtenCount.addAndGet(batch.size());
+
+                    long dropped = droppedCount.get();
+                    if (dropped > reportedDroppedCount) {
+                        log.warn((dropped - reportedDroppedCount) + " API log messages were dropped as they were " +
+                                 "logged faster than they could be written");
+                        reportedDroppedCount = dropped;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (RuntimeException e) {
+                    log.error("Error while writing " + batch.size() + " API log messages", e);
+                } finally {
+                    batch.clear();
+                }
+            }
+        }
+
+        private void writeRecord(APILogRecord record, StringBuilder message) {
+            message.setLength(0);
+            record.format(message);
+            if (record.tenantDomain == null) {
+                record.log.debug(message.toString());
+                return;
+            }
+            try {
+                PrivilegedCarbonContext.startTenantFlow();
+                PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+                carbonContext.setTenantDomain(record.tenantDomain);
+                carbonContext.setTenantId(record.tenantId);
+                record.log.debug(message.toString());
+            } finally {
+                PrivilegedCarbonContext.endTenantFlow();
+            }
+        }
+    }
+}
@@ -37,6 +37,9 @@ import org.wso2.carbon.utils.CarbonUtils;
 import org.wso2.carbon.utils.ConfigurationContextService;
 
 import java.io.File;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @scr.component name="org.wso2.carbon.apimgt.handlers" immediate="true"
@@ -55,6 +58,7 @@ public class APIHandlerServiceComponent {
     private ThriftKeyValidatorClientPool thriftClientPool;
     private APIManagerConfiguration configuration = new APIManagerConfiguration();
     private ServiceRegistration registration;
+    private ScheduledThreadPoolExecutor throttleDataRetrievalScheduler;
 
     protected void activate(ComponentContext context) {
     	BundleContext bundleContext = context.getBundleContext();
@@ -99,12 +103,11 @@ public class APIHandlerServiceComponent {
                     // up to date
                     //start web service throttle data retriever as separate thread and start it.
                     if (configuration.getThrottleProperties().getBlockCondition().isEnabled()){
-                        BlockingConditionRetriever webServiceThrottleDataRetriever = new
-                                BlockingConditionRetriever();
-                        webServiceThrottleDataRetriever.startWebServiceThrottleDataRetriever();
-                        KeyTemplateRetriever webServiceBlockConditionsRetriever = new
-                                KeyTemplateRetriever();
-                        webServiceBlockConditionsRetriever.startKeyTemplateDataRetriever();
+                        throttleDataRetrievalScheduler = new ScheduledThreadPoolExecutor(configuration
+                                .getThrottleProperties().getBlockCondition().getCorePoolSize(),
+                                new ThrottleDataRetrievalThreadFactory());
+                        new BlockingConditionRetriever().start(throttleDataRetrievalScheduler);
+                        new KeyTemplateRetriever().start(throttleDataRetrievalScheduler);
                     }
                 }
             }
@@ -119,6 +122,9 @@ public class APIHandlerServiceComponent {
         }
         clientPool.cleanup();
         thriftClientPool.cleanup();
+        if (throttleDataRetrievalScheduler != null) {
+            throttleDataRetrievalScheduler.shutdownNow();
+        }
         if(registration != null){
             log.debug("Unregistering ThrottleDataService...");
             registration.unregister();
@@ -153,4 +159,15 @@ public class APIHandlerServiceComponent {
         ServiceReferenceHolder.getInstance().setAPIManagerConfigurationService(null);
     }
 
+    private static class ThrottleDataRetrievalThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "ThrottleDataRetriever-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
 }
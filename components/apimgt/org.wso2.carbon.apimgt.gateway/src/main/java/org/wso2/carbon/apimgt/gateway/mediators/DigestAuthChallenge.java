@@ -0,0 +1,92 @@
+/*
+*  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.apimgt.gateway.mediators;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A digest challenge received from a backend, together with what the Gateway derived from it for one set of
+ * credentials. The challenge is reused for the requests that follow, so that they can carry the Authorization header
+ * without first being rejected by the backend. Only the nonce count changes once a challenge is created.
+ */
+final class DigestAuthChallenge {
+
+    private final String userName;
+    private final String realm;
+    private final String serverNonce;
+    private final String qop;
+    private final String opaque;
+    private final String algorithm;
+    private final String clientNonce;
+    private final String ha1;
+    private final AtomicInteger nonceCount = new AtomicInteger();
+
+    DigestAuthChallenge(String userName, String realm, String serverNonce, String qop, String opaque,
+                        String algorithm, String clientNonce, String ha1) {
+        this.userName = userName;
+        this.realm = realm;
+        this.serverNonce = serverNonce;
+        this.qop = qop;
+        this.opaque = opaque;
+        this.algorithm = algorithm;
+        this.clientNonce = clientNonce;
+        this.ha1 = ha1;
+    }
+
+    String getUserName() {
+        return userName;
+    }
+
+    String getRealm() {
+        return realm;
+    }
+
+    String getServerNonce() {
+        return serverNonce;
+    }
+
+    String getQop() {
+        return qop;
+    }
+
+    String getOpaque() {
+        return opaque;
+    }
+
+    String getAlgorithm() {
+        return algorithm;
+    }
+
+    String getClientNonce() {
+        return clientNonce;
+    }
+
+    String getHa1() {
+        return ha1;
+    }
+
+    /**
+     * Reserves the next nonce count of the challenge. Concurrent requests never get the same nonce count.
+     *
+     * @return The nonce count used by the request before this one, as an 8 digit hexadecimal value
+     */
+    String reservePreviousNonceCount() {
+        return String.format("%08x", nonceCount.getAndIncrement());
+    }
+}
@@ -30,7 +30,9 @@ import org.apache.synapse.core.SynapseEnvironment;
 import org.apache.synapse.core.axis2.Axis2MessageContext;
 import org.apache.synapse.mediators.AbstractMediator;
 import org.wso2.carbon.apimgt.impl.APIConstants.DigestAuthConstants;
+import org.wso2.carbon.apimgt.impl.utils.LRUCache;
 
+import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.security.SecureRandom;
 import java.util.*;
@@ -38,12 +40,25 @@ import java.util.*;
 /**
  * This mediator would set the authorization header of the request that is to be sent to the endpoint,
  * making use of the 401 Unauthorized response received from the first request.
+ * The digest challenge of each backend is remembered per set of credentials, so that later requests to the same
+ * backend get their authorization header before they are sent, and are challenged again only when the backend no
+ * longer accepts the nonce.
  */
 
 public class DigestAuthMediator extends AbstractMediator implements ManagedLifecycle {
 
     private static final Log log = LogFactory.getLog(DigestAuthMediator.class);
 
+    private static final int MAX_CACHED_CHALLENGES = 1000;
+
+    private static final SecureRandom secureRandom = new SecureRandom();
+
+    /**
+     * Last digest challenge received from each backend, keyed by the backend and the credentials used for it.
+     */
+    private static final Map<String, DigestAuthChallenge> challengeCache =
+            new LRUCache<String, DigestAuthChallenge>(MAX_CACHED_CHALLENGES);
+
     /**
      * This method is used to split the WWW-Authenticate header sent from the backend
      *
@@ -219,9 +234,8 @@ public class DigestAuthMediator extends AbstractMediator implements ManagedLifec
      */
     public String generateClientNonce() {
 
-        SecureRandom secRandom = new SecureRandom();
         byte[] result = new byte[32];
-        secRandom.nextBytes(result);
+        secureRandom.nextBytes(result);
         return new String(Hex.encodeHex(result));
     }
 
@@ -232,7 +246,7 @@ public class DigestAuthMediator extends AbstractMediator implements ManagedLifec
      * @return The incremented nonce count. This is an 8 digit hexadecimal value
      */
     public String incrementNonceCount(String prevCount) {
-        int counter = Integer.parseInt(prevCount);
+        int counter = Integer.parseInt(prevCount, 16);
         return String.format("%08x", ++counter);
     }
 
@@ -336,23 +350,38 @@ public class DigestAuthMediator extends AbstractMediator implements ManagedLifec
         return header;
     }
 
+    /**
+     * This method is used to find whether a digest challenge was sent because the nonce of an earlier challenge is no
+     * longer accepted, rather than because the credentials were rejected
+     *
+     * @param wwwHeaderSplits The array returned by splitting the WWW-Authenticate header from "Digest"
+     * @return True if the challenge has stale=true
+     */
+    public boolean isStaleNonce(String[] wwwHeaderSplits) {
+
+        for (String keyval : wwwHeaderSplits[1].split(", ")) {
+            int separatorIndex = keyval.indexOf('=');
+            if (separatorIndex > 0 && DigestAuthConstants.STALE.equals(keyval.substring(0, separatorIndex).trim())) {
+                String value = keyval.substring(separatorIndex + 1).trim();
+                return "true".equalsIgnoreCase(value.replace("\"", ""));
+            }
+        }
+        return false;
+    }
+
     /**
      * This method performs the overall mediation for digest authentication
      *
      * @param messageContext This message context will contain the context of the 401 response received from the
-     *                       backend after the first request from the client. It also contains some properties set
-     *                       from the synapse configuration of the api as well, such as POSTFIX, BACKEND_URL,
-     *                       HTTP_METHOD etc.
+     *                       backend after the first request from the client, or the context of the request before it
+     *                       is sent to the backend. It also contains some properties set from the synapse
+     *                       configuration of the api as well, such as POSTFIX, BACKEND_URL, HTTP_METHOD etc.
+     *                       If a challenge has already been received from the backend for the same credentials, the
+     *                       authorization header is set without a 401 response and PreemptiveDigestAuth is set to true.
      * @return A boolean value.True if successful and false if not.
      */
     public boolean mediate(MessageContext messageContext) {
 
-        String realm;
-        String serverNonce;
-        String qop;
-        String opaque;
-        String algorithm;
-
         if (log.isDebugEnabled()) {
             log.debug("Digest authorization header creation mediator is activated...");
         }
@@ -377,110 +406,103 @@ public class DigestAuthMediator extends AbstractMediator implements ManagedLifec
                 log.debug("digest-uri value is : " + digestUri);
             }
 
+            //get username password given by the client
+            String userNamePassword = (String) messageContext.getProperty(DigestAuthConstants.UNAMEPASSWORD);
+            String challengeKey = getChallengeKey(backendUri, userNamePassword);
+
             //Take the WWW-Authenticate header from the message context
             Map transportHeaders = (Map) axis2MC.getProperty(org.apache.axis2.context.MessageContext.TRANSPORT_HEADERS);
-            String wwwHeader = (String) transportHeaders.get(HttpHeaders.WWW_AUTHENTICATE);
+            String wwwHeader = null;
+            if (transportHeaders != null) {
+                wwwHeader = (String) transportHeaders.get(HttpHeaders.WWW_AUTHENTICATE);
+            }
 
             if (log.isDebugEnabled()) {
                 log.debug("WWW-Authentication header is :" + wwwHeader);
             }
-            //This step can throw a NullPointerException if a WWW-Authenticate header is not received.
-            String[] wwwHeaderSplits = wwwHeader.split("Digest");
-
-            //Happens only if the WWW-Authenticate header supports digest authentication.
-            if (wwwHeaderSplits.length > 1 && wwwHeaderSplits[1] != null) {
-
-                //extracting required header information from the WWW-Authenticate header
-                String[] headerAttributes = splitDigestHeader(wwwHeaderSplits);
-                realm = headerAttributes[0];
-                serverNonce = headerAttributes[1];
-                qop = headerAttributes[2];
-                opaque = headerAttributes[3];
-                algorithm = headerAttributes[4];
-
-                if (log.isDebugEnabled()) {
-                    log.debug("Server nonce value : " + serverNonce);
-                    log.debug("realm : " + realm);
-                }
 
-                //get username password given by the client
-                String userNamePassword = (String) messageContext.getProperty(DigestAuthConstants.UNAMEPASSWORD);
+            DigestAuthChallenge challenge;
 
-                byte[] valueDecoded = Base64.decodeBase64(userNamePassword.getBytes(DigestAuthConstants.CHARSET));
-                String decodedString = new String(valueDecoded, DigestAuthConstants.CHARSET);
-                String[] splittedArrayOfUserNamePassword = decodedString.split(":");
+            if (wwwHeader == null) {
 
-                String userName = splittedArrayOfUserNamePassword[0];
-                String passWord = splittedArrayOfUserNamePassword[1];
+                challenge = challengeCache.get(challengeKey);
 
-                if (log.isDebugEnabled()) {
-                    log.debug("Username : " + userName);
-                    log.debug("Password : " + passWord);
+                if (challenge == null) {
+                    if (messageContext.isResponse()) {
+                        log.error("The endpoint does not support digest authentication : WWW-Authenticate header " +
+                                "is not received from " + backendURL);
+                        return false;
+                    }
+                    //No challenge has been received from this backend yet. The request goes without credentials and
+                    //the 401 response is mediated to get them.
+                    if (log.isDebugEnabled()) {
+                        log.debug("No digest challenge is known for " + backendURL);
+                    }
+                    return true;
                 }
 
-                //get the Http method (GET, POST, PUT or DELETE etc.)
-                String httpMethod = (String) messageContext.getProperty(DigestAuthConstants.HTTP_METHOD);
-
                 if (log.isDebugEnabled()) {
-                    log.debug("HTTP method of request is : " + httpMethod);
+                    log.debug("Reusing the digest challenge with nonce " + challenge.getServerNonce() +
+                            " received from " + backendURL);
                 }
+                messageContext.setProperty(DigestAuthConstants.PREEMPTIVE_AUTH, Boolean.TRUE.toString());
 
-                //generate clientNonce
-                String clientNonce = generateClientNonce();
+            } else {
 
-                //calculate hash1
-                String ha1 = calculateHA1(userName, realm, passWord, algorithm, serverNonce, clientNonce);
+                String[] wwwHeaderSplits = wwwHeader.split("Digest");
 
-                if (log.isDebugEnabled()) {
-                    log.debug("Value of hash 1 is : " + ha1);
+                //This is not digest auth protected api. let it go. Might be basic auth or NTLM protected.
+                //Here we receive a www-authenticate header but it is not for Digest authentication.
+                if (wwwHeaderSplits.length <= 1 || wwwHeaderSplits[1] == null) {
+                    return true;
                 }
 
-                //calculate hash2
-                String ha2 = calculateHA2(qop, httpMethod, digestUri, messageContext);
+                challenge = createChallenge(wwwHeaderSplits, userNamePassword, challengeCache.get(challengeKey));
+                challengeCache.put(challengeKey, challenge);
+                messageContext.setProperty(DigestAuthConstants.PREEMPTIVE_AUTH, Boolean.FALSE.toString());
+            }
 
-                if (log.isDebugEnabled()) {
-                    log.debug("Value of hash 2 is : " + ha2);
-                }
+            //get the Http method (GET, POST, PUT or DELETE etc.)
+            String httpMethod = (String) messageContext.getProperty(DigestAuthConstants.HTTP_METHOD);
+
+            if (log.isDebugEnabled()) {
+                log.debug("HTTP method of request is : " + httpMethod);
+            }
 
-                //getting the previous NonceCount
-                String prevNonceCount = (String) messageContext.getProperty(DigestAuthConstants.NONCE_COUNT);
+            //calculate hash2
+            String ha2 = calculateHA2(challenge.getQop(), httpMethod, digestUri, messageContext);
 
-                if (prevNonceCount == null) {
-                    messageContext.setProperty(DigestAuthConstants.NONCE_COUNT, DigestAuthConstants.INIT_NONCE_COUNT);
-                    prevNonceCount = (String) messageContext.getProperty(DigestAuthConstants.NONCE_COUNT);
-                }
+            if (log.isDebugEnabled()) {
+                log.debug("Value of hash 2 is : " + ha2);
+            }
 
-                //generate the final hash (serverResponse)
-                String[] serverResponseArray = generateResponseHash(ha1, ha2, serverNonce, qop, prevNonceCount,
-                        clientNonce);
+            //generate the final hash (serverResponse). Every request using the challenge takes the next nonce count.
+            String[] serverResponseArray = generateResponseHash(challenge.getHa1(), ha2, challenge.getServerNonce(),
+                    challenge.getQop(), challenge.reservePreviousNonceCount(), challenge.getClientNonce());
 
-                //setting the NonceCount after incrementing
+            //setting the NonceCount used by the request
+            if (serverResponseArray.length > 1) {
                 messageContext.setProperty(DigestAuthConstants.NONCE_COUNT, serverResponseArray[1]);
+            }
 
-                String serverResponse = serverResponseArray[0];
-
-                if (log.isDebugEnabled()) {
-                    log.debug("Value of server response  is : " + serverResponse);
-                }
+            if (log.isDebugEnabled()) {
+                log.debug("Value of server response  is : " + serverResponseArray[0]);
+            }
 
-                //Construct the authorization header
-                StringBuilder header = constructAuthHeader(userName, realm, serverNonce, digestUri, serverResponseArray,
-                        qop, opaque, clientNonce, algorithm);
+            //Construct the authorization header
+            StringBuilder header = constructAuthHeader(challenge.getUserName(), challenge.getRealm(),
+                    challenge.getServerNonce(), digestUri, serverResponseArray, challenge.getQop(),
+                    challenge.getOpaque(), challenge.getClientNonce(), challenge.getAlgorithm());
 
-                if (log.isDebugEnabled()) {
-                    log.debug("Processed Authorization header to be sent in the request is : " + header);
-                }
+            if (log.isDebugEnabled()) {
+                log.debug("Processed Authorization header to be sent in the request is : " + header);
+            }
 
-                //set the AuthHeader field in the message context
-                messageContext.setProperty(DigestAuthConstants.AUTH_HEADER, header.toString());
+            //set the AuthHeader field in the message context
+            messageContext.setProperty(DigestAuthConstants.AUTH_HEADER, header.toString());
 
-                return true;
+            return true;
 
-            } else {
-                //This is not digest auth protected api. let it go. Might be basic auth or NTLM protected.
-                //Here we receive a www-authenticate header but it is not for Digest authentication.
-                return true;
-            }
         } catch (NullPointerException ex) {
             log.error("The endpoint does not support digest authentication : " + ex.getMessage(), ex);
             return false;
@@ -491,6 +513,90 @@ public class DigestAuthMediator extends AbstractMediator implements ManagedLifec
 
     }
 
+    /**
+     * This method is used to create the challenge to be reused for the requests sent to a backend, from the
+     * WWW-Authenticate header sent by the backend
+     *
+     * @param wwwHeaderSplits   The array returned by splitting the WWW-Authenticate header from "Digest"
+     * @param userNamePassword  The base64 encoded username:password of the endpoint
+     * @param previousChallenge The challenge previously received from the backend for the same credentials, if any
+     * @return The challenge, with a new client nonce and a nonce count starting from 1
+     * @throws UnsupportedEncodingException If the credentials cannot be decoded
+     */
+    private DigestAuthChallenge createChallenge(String[] wwwHeaderSplits, String userNamePassword,
+            DigestAuthChallenge previousChallenge) throws UnsupportedEncodingException {
+
+        //extracting required header information from the WWW-Authenticate header
+        String[] headerAttributes = splitDigestHeader(wwwHeaderSplits);
+        String realm = headerAttributes[0];
+        String serverNonce = headerAttributes[1];
+        String qop = headerAttributes[2];
+        String opaque = headerAttributes[3];
+        String algorithm = headerAttributes[4];
+        boolean stale = isStaleNonce(wwwHeaderSplits);
+
+        if (log.isDebugEnabled()) {
+            log.debug("Server nonce value : " + serverNonce);
+            log.debug("realm : " + realm);
+            log.debug("stale : " + stale);
+        }
+
+        byte[] valueDecoded = Base64.decodeBase64(userNamePassword.getBytes(DigestAuthConstants.CHARSET));
+        String decodedString = new String(valueDecoded, DigestAuthConstants.CHARSET);
+        String[] splittedArrayOfUserNamePassword = decodedString.split(":");
+
+        String userName = splittedArrayOfUserNamePassword[0];
+        String passWord = splittedArrayOfUserNamePassword[1];
+
+        if (log.isDebugEnabled()) {
+            log.debug("Username : " + userName);
+        }
+
+        //generate clientNonce
+        String clientNonce = generateClientNonce();
+
+        //hash 1 only depends on the nonces with MD5-sess. A stale nonce means the credentials were accepted, so the
+        //hash 1 of the same realm is still valid.
+        String ha1;
+        if (stale && previousChallenge != null && realm.equals(previousChallenge.getRealm())
+                && !DigestAuthConstants.MD5_SESS.equals(algorithm)
+                && !DigestAuthConstants.MD5_SESS.equals(previousChallenge.getAlgorithm())) {
+            ha1 = previousChallenge.getHa1();
+        } else {
+            ha1 = calculateHA1(userName, realm, passWord, algorithm, serverNonce, clientNonce);
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("Value of hash 1 is : " + ha1);
+        }
+
+        return new DigestAuthChallenge(userName, realm, serverNonce, qop, opaque, algorithm, clientNonce, ha1);
+    }
+
+    /**
+     * This method is used to build the key of the challenges received from a backend for a set of credentials. The
+     * credentials are hashed, so that they are not kept in the key.
+     *
+     * @param backendUri       The URI of the backend
+     * @param userNamePassword The base64 encoded username:password of the endpoint
+     * @return The key of the challenge cache
+     */
+    private String getChallengeKey(URI backendUri, String userNamePassword) {
+
+        StringBuilder challengeKey = new StringBuilder();
+        challengeKey.append(backendUri.getScheme()).append("://").append(backendUri.getRawAuthority());
+        challengeKey.append(backendUri.getRawPath());
+        challengeKey.append(':').append(DigestUtils.sha256Hex(String.valueOf(userNamePassword)));
+        return challengeKey.toString();
+    }
+
+    /**
+     * Forgets all the challenges received from backends, so that the next request to each backend is challenged again.
+     */
+    static void clearChallengeCache() {
+        challengeCache.clear();
+    }
+
     //Interface methods are being implemented here
     public void init(SynapseEnvironment synapseEnvironment) {
         //ignore
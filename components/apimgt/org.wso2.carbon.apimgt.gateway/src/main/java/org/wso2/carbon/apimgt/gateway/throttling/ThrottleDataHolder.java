@@ -22,6 +22,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.databridge.agent.DataPublisher;
 
+import java.util.Collection;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -80,6 +81,10 @@ public class ThrottleDataHolder {
         throttleDataMap.remove(key);
     }
 
+    public void removeThrottleData(Collection<String> keys) {
+        throttleDataMap.keySet().removeAll(keys);
+    }
+
     public void addAPIBlockingCondition(String name, String value) {
         isBlockingConditionsPresent = true;
         blockedAPIConditionsMap.put(name, value);
@@ -129,6 +134,19 @@ public class ThrottleDataHolder {
         }
     }
 
+    /**
+     * Replaces all the blocking conditions with the given ones, e.g. with a full snapshot read from the global policy
+     * engine. Blocking conditions which are in both are not removed in between.
+     */
+    public void replaceBlockingConditions(Map<String, String> apiConditions, Map<String, String> applicationConditions,
+                                          Map<String, String> userConditions, Map<String, String> ipConditions) {
+        replaceEntries(blockedAPIConditionsMap, apiConditions);
+        replaceEntries(blockedApplicationConditionsMap, applicationConditions);
+        replaceEntries(blockedUserConditionsMap, userConditions);
+        replaceEntries(blockedIpConditionsMap, ipConditions);
+        isBlockingConditionsPresent = isAnyBlockedMapContainsData();
+    }
+
     public void removeAPIBlockingCondition(String name) {
         blockedAPIConditionsMap.remove(name);
         if(isAnyBlockedMapContainsData()) {
@@ -178,6 +196,14 @@ public class ThrottleDataHolder {
         }
     }
 
+    /**
+     * Replaces all the key templates with the given ones. Key templates which are in both are not removed in between.
+     */
+    public void replaceKeyTemplates(Map<String, String> data) {
+        replaceEntries(keyTemplateMap, data);
+        isKeyTemplatesPresent = keyTemplateMap.size() > 0;
+    }
+
     public void removeKeyTemplate(String name) {
         keyTemplateMap.remove(name);
         if(keyTemplateMap.size() > 0) {
@@ -250,6 +276,11 @@ public class ThrottleDataHolder {
         return false;
     }
 
+    private static void replaceEntries(Map<String, String> map, Map<String, String> data) {
+        map.keySet().retainAll(data.keySet());
+        map.putAll(data);
+    }
+
     public boolean isKeyTemplatesPresent() {
         return isKeyTemplatesPresent;
     }
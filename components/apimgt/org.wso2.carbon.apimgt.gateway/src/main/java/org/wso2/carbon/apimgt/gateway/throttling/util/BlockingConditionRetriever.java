@@ -19,106 +19,67 @@ package org.wso2.carbon.apimgt.gateway.throttling.util;
 
 
 import com.google.gson.Gson;
-import org.apache.commons.codec.binary.Base64;
-import org.apache.commons.logging.Log;
-import org.apache.commons.logging.LogFactory;
-import org.apache.http.HttpResponse;
-import org.apache.http.client.HttpClient;
-import org.apache.http.client.methods.HttpGet;
-import org.apache.http.util.EntityUtils;
 import org.wso2.carbon.apimgt.gateway.dto.BlockConditionsDTO;
+import org.wso2.carbon.apimgt.gateway.dto.BlockConditionsDeltaDTO;
 import org.wso2.carbon.apimgt.gateway.internal.ServiceReferenceHolder;
+import org.wso2.carbon.apimgt.gateway.throttling.ThrottleDataHolder;
 import org.wso2.carbon.apimgt.gateway.utils.GatewayUtils;
-import org.wso2.carbon.apimgt.impl.dto.ThrottleProperties;
-import org.wso2.carbon.apimgt.impl.utils.APIUtil;
 
-import java.io.IOException;
-import java.net.URL;
-import java.nio.charset.StandardCharsets;
-import java.util.Timer;
-import java.util.TimerTask;
-
-public class BlockingConditionRetriever extends TimerTask {
-    private static final Log log = LogFactory.getLog(BlockingConditionRetriever.class);
-    private static final int blockConditionsDataRetrievalTimeoutInSeconds = 15;
-    private static final int blockConditionsDataRetrievalRetries = 15;
+public class BlockingConditionRetriever extends ThrottleDataRetriever {
 
     @Override
-    public void run() {
-        if (log.isDebugEnabled()) {
-            log.debug("Starting web service based data retrieving process.");
-        }
-        loadBlockingConditionsFromWebService();
+    protected String getResource() {
+        return "/block";
     }
 
-    /**
-     * This method will retrieve blocking conditions by calling a WebService.
-     *
-     * @return String object array which contains throttled keys.
-     */
-    private BlockConditionsDTO retrieveBlockConditionsData() {
+    @Override
+    protected String getDataName() {
+        return "Blocking Conditions";
+    }
 
-        try {
-            ThrottleProperties.BlockCondition blockConditionRetrieverConfiguration = ServiceReferenceHolder
-                    .getInstance().getThrottleProperties().getBlockCondition();
-            String url = blockConditionRetrieverConfiguration.getServiceUrl() + "/block";
-            byte[] credentials = Base64.encodeBase64((blockConditionRetrieverConfiguration.getUsername() + ":" +
-                                                      blockConditionRetrieverConfiguration.getPassword()).getBytes
-                    (StandardCharsets.UTF_8));
-            HttpGet method = new HttpGet(url);
-            method.setHeader("Authorization", "Basic " + new String(credentials, StandardCharsets.UTF_8));
-            URL keyMgtURL = new URL(url);
-            int keyMgtPort = keyMgtURL.getPort();
-            String keyMgtProtocol = keyMgtURL.getProtocol();
-            HttpClient httpClient = APIUtil.getHttpClient(keyMgtPort, keyMgtProtocol);
-            HttpResponse httpResponse = null;
-            int retryCount = 0;
-            boolean retry;
-            do {
-                try {
-                    httpResponse = httpClient.execute(method);
-                    retry = false;
-                } catch (IOException ex) {
-                    retryCount++;
-                    if (retryCount < blockConditionsDataRetrievalRetries) {
-                        retry = true;
-                        log.warn("Failed retrieving Blocking Conditions from remote endpoint: " + ex.getMessage()
-                                 + ". Retrying after " + blockConditionsDataRetrievalTimeoutInSeconds + " seconds...");
-                        Thread.sleep(blockConditionsDataRetrievalTimeoutInSeconds * 1000);
-                    } else {
-                        throw ex;
-                    }
-                }
-            } while(retry);
+    @Override
+    protected String applyDelta(String response) {
+        BlockConditionsDeltaDTO blockConditionsDeltaDTO = new Gson().fromJson(response, BlockConditionsDeltaDTO.class);
+        BlockConditionsDTO added = blockConditionsDeltaDTO.getAdded();
+        if (blockConditionsDeltaDTO.isFullSnapshot()) {
+            replaceBlockingConditions(added);
+        } else {
+            ThrottleDataHolder throttleDataHolder = ServiceReferenceHolder.getInstance().getThrottleDataHolder();
+            throttleDataHolder.addAPIBlockingConditionsFromMap(GatewayUtils.generateMap(added.getApi()));
+            throttleDataHolder.addApplicationBlockingConditionsFromMap(
+                    GatewayUtils.generateMap(added.getApplication()));
+            throttleDataHolder.addUserBlockingConditionsFromMap(GatewayUtils.generateMap(added.getUser()));
+            throttleDataHolder.addIplockingConditionsFromMap(GatewayUtils.generateMap(added.getIp()));
 
-            String responseString = EntityUtils.toString(httpResponse.getEntity(), "UTF-8");
-            if (responseString != null && !responseString.isEmpty()) {
-                return new Gson().fromJson(responseString, BlockConditionsDTO.class);
+            BlockConditionsDTO removed = blockConditionsDeltaDTO.getRemoved();
+            for (String api : removed.getApi()) {
+                throttleDataHolder.removeAPIBlockingCondition(api);
+            }
+            for (String application : removed.getApplication()) {
+                throttleDataHolder.removeApplicationBlockingCondition(application);
+            }
+            for (String user : removed.getUser()) {
+                throttleDataHolder.removeUserBlockingCondition(user);
+            }
+            for (String ip : removed.getIp()) {
+                throttleDataHolder.removeIpBlockingCondition(ip);
             }
-        } catch (IOException | InterruptedException e) {
-            log.error("Exception when retrieving Blocking Conditions from remote endpoint ", e);
         }
-        return null;
+        return blockConditionsDeltaDTO.getRevision();
     }
 
-    public void loadBlockingConditionsFromWebService() {
-        BlockConditionsDTO blockConditionsDTO = retrieveBlockConditionsData();
-        if (blockConditionsDTO != null) {
-            ServiceReferenceHolder.getInstance().getThrottleDataHolder().addAPIBlockingConditionsFromMap(
-                    GatewayUtils.generateMap(blockConditionsDTO.getApi()));
-            ServiceReferenceHolder.getInstance().getThrottleDataHolder().addApplicationBlockingConditionsFromMap(
-                    GatewayUtils.generateMap(blockConditionsDTO.getApplication()));
-            ServiceReferenceHolder.getInstance().getThrottleDataHolder().addUserBlockingConditionsFromMap(
-                    GatewayUtils.generateMap(blockConditionsDTO.getUser()));
-            ServiceReferenceHolder.getInstance().getThrottleDataHolder().addIplockingConditionsFromMap(
-                    GatewayUtils.generateMap(blockConditionsDTO.getIp()));
+    @Override
+    protected void applySnapshot(String response) {
+        if (response != null && !response.isEmpty()) {
+            replaceBlockingConditions(new Gson().fromJson(response, BlockConditionsDTO.class));
         }
     }
 
-
-    public void startWebServiceThrottleDataRetriever() {
-
-        new Timer().schedule(this, ServiceReferenceHolder
-                .getInstance().getThrottleProperties().getBlockCondition().getInitDelay());
+    private void replaceBlockingConditions(BlockConditionsDTO blockConditionsDTO) {
+        ServiceReferenceHolder.getInstance().getThrottleDataHolder().replaceBlockingConditions(
+                GatewayUtils.generateMap(blockConditionsDTO.getApi()),
+                GatewayUtils.generateMap(blockConditionsDTO.getApplication()),
+                GatewayUtils.generateMap(blockConditionsDTO.getUser()),
+                GatewayUtils.generateMap(blockConditionsDTO.getIp()));
     }
 }
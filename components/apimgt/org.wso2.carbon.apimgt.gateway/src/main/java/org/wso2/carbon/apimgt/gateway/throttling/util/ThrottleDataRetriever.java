@@ -0,0 +1,192 @@
+/*
+*  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.wso2.carbon.apimgt.gateway.throttling.util;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.util.EntityUtils;
+import org.wso2.carbon.apimgt.gateway.internal.ServiceReferenceHolder;
+import org.wso2.carbon.apimgt.impl.dto.ThrottleProperties;
+import org.wso2.carbon.apimgt.impl.utils.APIUtil;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps throttle data of the Gateway in sync with the global policy engine. The complete data set is retrieved once,
+ * after which only the changes since the revision last retrieved are pulled periodically. This lets the Gateway
+ * converge even if it missed updates published over JMS. A failed retrieval is retried with an exponential backoff,
+ * which is bounded by the retrieval period.
+ */
+public abstract class ThrottleDataRetriever implements Runnable {
+
+    private static final Log log = LogFactory.getLog(ThrottleDataRetriever.class);
+
+    static final long MIN_RETRY_DELAY = 15000;
+
+    private static final int MAX_BACKOFF_EXPONENT = 16;
+
+    private static final String DELTA_RESOURCE = "/delta";
+
+    private ScheduledExecutorService scheduler;
+
+    private String revision;
+
+    private int failedAttempts;
+
+    /**
+     * Schedules the first retrieval after the configured initial delay. Retrieval never blocks the caller.
+     *
+     * @param scheduler scheduler to run the retrievals in
+     */
+    public void start(ScheduledExecutorService scheduler) {
+        this.scheduler = scheduler;
+        scheduler.schedule(this, getConfiguration().getInitDelay(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void run() {
+        long delay;
+        try {
+            synchronize();
+            failedAttempts = 0;
+            delay = getConfiguration().getPeriod();
+        } catch (Exception e) {
+            failedAttempts++;
+            delay = getRetryDelay(failedAttempts, getConfiguration().getPeriod());
+            log.warn("Failed retrieving " + getDataName() + " from remote endpoint: " + e.getMessage() +
+                     ". Retrying after " + (delay / 1000) + " seconds...");
+            if (log.isDebugEnabled()) {
+                log.debug("Error while retrieving " + getDataName(), e);
+            }
+        }
+        if (!scheduler.isShutdown()) {
+            scheduler.schedule(this, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Retrieves the changes since the last revision retrieved and applies them to the throttle data of the Gateway.
+     *
+     * @throws IOException if the changes could not be retrieved
+     */
+    void synchronize() throws IOException {
+        String resource = getResource() + DELTA_RESOURCE;
+        if (revision != null) {
+            resource += "?revision=" + URLEncoder.encode(revision, StandardCharsets.UTF_8.name());
+        }
+        String response = retrieve(resource);
+        if (response != null) {
+            revision = applyDelta(response);
+            if (log.isDebugEnabled()) {
+                log.debug("Synchronized " + getDataName() + " up to revision " + revision);
+            }
+            return;
+        }
+
+        // The throttle data service does not support retrieving the changes. Take the complete data set every time.
+        revision = null;
+        response = retrieve(getResource());
+        if (response == null) {
+            throw new IOException(getResource() + " is not found");
+        }
+        applySnapshot(response);
+    }
+
+    /**
+     * Retrieves a resource of the throttle data service.
+     *
+     * @param resource path of the resource, relative to the throttle data service
+     * @return the response, or null if the resource does not exist
+     * @throws IOException if the resource could not be retrieved
+     */
+    String retrieve(String resource) throws IOException {
+        ThrottleProperties.BlockCondition configuration = getConfiguration();
+        String url = configuration.getServiceUrl() + resource;
+        byte[] credentials = Base64.encodeBase64((configuration.getUsername() + ":" + configuration.getPassword())
+                .getBytes(StandardCharsets.UTF_8));
+        HttpGet method = new HttpGet(url);
+        method.setHeader("Authorization", "Basic " + new String(credentials, StandardCharsets.UTF_8));
+        URL serviceURL = new URL(url);
+        HttpClient httpClient = APIUtil.getHttpClient(serviceURL.getPort(), serviceURL.getProtocol());
+        HttpResponse httpResponse = httpClient.execute(method);
+        int statusCode = httpResponse.getStatusLine().getStatusCode();
+        if (statusCode == HttpStatus.SC_NOT_FOUND) {
+            EntityUtils.consume(httpResponse.getEntity());
+            return null;
+        }
+        String responseString = EntityUtils.toString(httpResponse.getEntity(), "UTF-8");
+        if (statusCode != HttpStatus.SC_OK) {
+            throw new IOException("Unexpected response " + statusCode + " from " + url);
+        }
+        return responseString;
+    }
+
+    /**
+     * @param failedAttempts number of consecutive retrievals which failed
+     * @param period         period between retrievals
+     * @return delay before the next retrieval, doubling with each failed attempt up to the retrieval period
+     */
+    static long getRetryDelay(int failedAttempts, long period) {
+        long maxDelay = Math.max(period, MIN_RETRY_DELAY);
+        int exponent = Math.min(failedAttempts - 1, MAX_BACKOFF_EXPONENT);
+        return Math.min(MIN_RETRY_DELAY << exponent, maxDelay);
+    }
+
+    String getRevision() {
+        return revision;
+    }
+
+    private ThrottleProperties.BlockCondition getConfiguration() {
+        return ServiceReferenceHolder.getInstance().getThrottleProperties().getBlockCondition();
+    }
+
+    /**
+     * @return path of the resource holding the complete data set, relative to the throttle data service
+     */
+    protected abstract String getResource();
+
+    /**
+     * @return name of the data retrieved, for logging
+     */
+    protected abstract String getDataName();
+
+    /**
+     * Applies the changes retrieved from the delta resource.
+     *
+     * @param response response of the delta resource
+     * @return revision of the changes, to be given in the next retrieval
+     */
+    protected abstract String applyDelta(String response);
+
+    /**
+     * Replaces the data with the complete data set retrieved.
+     *
+     * @param response response of the resource holding the complete data set
+     */
+    protected abstract void applySnapshot(String response);
+}
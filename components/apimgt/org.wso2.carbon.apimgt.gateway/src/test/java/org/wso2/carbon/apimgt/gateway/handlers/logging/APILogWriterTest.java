@@ -0,0 +1,208 @@
+/*
+*  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.apimgt.gateway.handlers.logging;
+
+import junit.framework.TestCase;
+import org.apache.commons.logging.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class APILogWriterTest extends TestCase {
+
+    private APILogWriter writer;
+
+    @Override
+    protected void tearDown() throws Exception {
+        if (writer != null) {
+            writer.shutdown();
+        }
+    }
+
+    public void testRecordIsFormattedAsNameValuePairs() {
+        APILogRecord record = new APILogRecord(new RecordingLog(), true, false);
+        record.applicationName = "DefaultApplication";
+        record.transactionId = "1234";
+        record.requestURI = "/pizzashack/1.0.0/menu";
+        record.clientIP = "10.0.0.1";
+        assertEquals("Inbound API call from client to gateway: appName=DefaultApplication , transactionId=1234 , " +
+                     "requestURI=/pizzashack/1.0.0/menu , clientIP=10.0.0.1", record.format());
+
+        record = new APILogRecord(new RecordingLog(), false, false);
+        record.userName = "admin";
+        record.statusCode = 200;
+        record.endpointURL = "http://localhost:9443/am/sample/pizzashack/v1/api/";
+        assertEquals("Outbound API call from gateway to client: userName=admin , statusCode=200 , " +
+                     "EndPointURL=http://localhost:9443/am/sample/pizzashack/v1/api/", record.format());
+
+        record = new APILogRecord(new RecordingLog(), false, true);
+        record.requestURI = "/token/";
+        assertEquals("Outbound OAuth token response from gateway to client: requestURI=/token/", record.format());
+    }
+
+    public void testRecordsAreWrittenToTheirLogs() throws Exception {
+        writer = new APILogWriter(100);
+        RecordingLog apiLog = new RecordingLog();
+        RecordingLog applicationLog = new RecordingLog();
+        for (int i = 0; i < 10; i++) {
+            writer.write(createRecord(i % 2 == 0 ? apiLog : applicationLog, "/r" + i));
+        }
+        waitForWrites(10);
+
+        assertEquals(5, apiLog.messages.size());
+        assertEquals(5, applicationLog.messages.size());
+        assertTrue(apiLog.messages.get(0).endsWith("requestURI=/r0"));
+        assertTrue(applicationLog.messages.get(4).endsWith("requestURI=/r9"));
+    }
+
+    public void testOldestRecordsAreDroppedWhenFull() throws Exception {
+        writer = new APILogWriter(2);
+        RecordingLog log = new RecordingLog();
+        log.blocked = new CountDownLatch(1);
+
+        // The writer takes the first record and blocks writing it, meanwhile the queue fills up
+        writer.write(createRecord(log, "/r0"));
+        assertTrue(log.writing.await(10, TimeUnit.SECONDS));
+        for (int i = 1; i <= 5; i++) {
+            writer.write(createRecord(log, "/r" + i));
+        }
+        assertEquals(3, writer.getDroppedCount());
+        assertEquals(2, writer.getPendingCount());
+
+        log.blocked.countDown();
+        waitForWrites(3);
+        assertEquals(3, log.messages.size());
+        assertTrue(log.messages.get(1).endsWith("requestURI=/r4"));
+        assertTrue(log.messages.get(2).endsWith("requestURI=/r5"));
+    }
+
+    private void waitForWrites(long count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (writer.getWrittenCount() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, writer.getWrittenCount());
+    }
+
+    private static APILogRecord createRecord(Log log, String requestURI) {
+        APILogRecord record = new APILogRecord(log, true, false);
+        record.requestURI = requestURI;
+        return record;
+    }
+
+    private static class RecordingLog implements Log {
+
+        private final List<String> messages = Collections.synchronizedList(new ArrayList<String>());
+
+        private final CountDownLatch writing = new CountDownLatch(1);
+
+        private volatile CountDownLatch blocked;
+
+        @Override
+        public void debug(Object message) {
+            writing.countDown();
+            if (blocked != null) {
+                try {
+                    blocked.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            messages.add(String.valueOf(message));
+        }
+
+        @Override
+        public boolean isDebugEnabled() {
+            return true;
+        }
+
+        @Override
+        public boolean isErrorEnabled() {
+            return true;
+        }
+
+        @Override
+        public boolean isFatalEnabled() {
+            return true;
+        }
+
+        @Override
+        public boolean isInfoEnabled() {
+            return true;
+        }
+
+        @Override
+        public boolean isTraceEnabled() {
+            return false;
+        }
+
+        @Override
+        public boolean isWarnEnabled() {
+            return true;
+        }
+
+        @Override
+        public void trace(Object message) {
+        }
+
+        @Override
+        public void trace(Object message, Throwable t) {
+        }
+
+        @Override
+        public void debug(Object message, Throwable t) {
+            debug(message);
+        }
+
+        @Override
+        public void info(Object message) {
+        }
+
+        @Override
+        public void info(Object message, Throwable t) {
+        }
+
+        @Override
+        public void warn(Object message) {
+        }
+
+        @Override
+        public void warn(Object message, Throwable t) {
+        }
+
+        @Override
+        public void error(Object message) {
+        }
+
+        @Override
+        public void error(Object message, Throwable t) {
+        }
+
+        @Override
+        public void fatal(Object message) {
+        }
+
+        @Override
+        public void fatal(Object message, Throwable t) {
+        }
+    }
+}
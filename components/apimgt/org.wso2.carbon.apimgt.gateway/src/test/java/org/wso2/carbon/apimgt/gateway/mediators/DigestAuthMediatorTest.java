@@ -18,14 +18,46 @@
 
 package org.wso2.carbon.apimgt.gateway.mediators;
 
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
 import junit.framework.TestCase;
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.http.HttpHeaders;
+import org.apache.synapse.MessageContext;
+import org.apache.synapse.core.axis2.Axis2MessageContext;
+import org.wso2.carbon.apimgt.gateway.TestUtils;
+import org.wso2.carbon.apimgt.impl.APIConstants.DigestAuthConstants;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.*;
 
 public class DigestAuthMediatorTest extends TestCase {
 
+    private static final String USERNAME = "GarryL";
+
+    private static final String PASSWORD = "garry@123";
+
+    private static final int REQUEST_COUNT = 20;
+
     DigestAuthMediator mediator;
 
+    @Override
+    protected void setUp() throws Exception {
+        DigestAuthMediator.clearChallengeCache();
+    }
+
     public void testSplitDigestHeader() throws Exception {
         String[] wwwHeaderSplits = { "",
                 "realm=\"Vcreate\", qop=\"auth\", nonce=\"PwQ0MxY3OPW3MDI3NTo1NmU2M09hNzJmDsI1NWFlZik5ZWRwMjdjYWViZjcxZQ==\"" };
@@ -197,4 +229,242 @@ public class DigestAuthMediatorTest extends TestCase {
         assertEquals(expectedHeader, AuthHeader);
     }
 
-}
\ No newline at end of file
+    public void testIncrementNonceCountIsHexadecimal() throws Exception {
+        mediator = new DigestAuthMediator();
+        assertEquals("0000000a", mediator.incrementNonceCount("00000009"));
+        assertEquals("00000010", mediator.incrementNonceCount("0000000f"));
+    }
+
+    public void testIsStaleNonce() throws Exception {
+        mediator = new DigestAuthMediator();
+        assertTrue(mediator.isStaleNonce(new String[] { "", "realm=\"Vcreate\", nonce=\"abc\", stale=true" }));
+        assertTrue(mediator.isStaleNonce(new String[] { "", "realm=\"Vcreate\", stale=\"TRUE\", nonce=\"abc\"" }));
+        assertFalse(mediator.isStaleNonce(new String[] { "", "realm=\"Vcreate\", nonce=\"abc\", stale=false" }));
+        assertFalse(mediator.isStaleNonce(new String[] { "", "realm=\"Vcreate\", nonce=\"abc\"" }));
+    }
+
+    public void testRequestWithoutKnownChallengeIsSentWithoutCredentials() throws Exception {
+        mediator = new DigestAuthMediator();
+        MessageContext request = createMessageContext("http://localhost:8280/service", "/resource", null);
+        assertTrue(mediator.mediate(request));
+        assertNull(request.getProperty(DigestAuthConstants.AUTH_HEADER));
+
+        MessageContext response = createMessageContext("http://localhost:8280/service", "/resource", null);
+        response.setResponse(true);
+        assertFalse(mediator.mediate(response));
+    }
+
+    public void testChallengeIsReusedForLaterRequests() throws Exception {
+        DigestStubServer server = new DigestStubServer(Integer.MAX_VALUE);
+        try {
+            mediator = new DigestAuthMediator();
+            for (int i = 0; i < REQUEST_COUNT; i++) {
+                assertEquals(HttpURLConnection.HTTP_OK, sendThroughMediator(server, "/resource/" + i));
+            }
+            // Only the first request is challenged. Without the challenge cache every request would take 2 round trips.
+            assertEquals(REQUEST_COUNT + 1, server.getRoundTrips());
+            assertEquals(1, server.getChallenges());
+            assertEquals(0, server.getRejectedResponses());
+        } finally {
+            server.stop();
+        }
+    }
+
+    public void testStaleNonceIsChallengedAgain() throws Exception {
+        int nonceUses = 5;
+        DigestStubServer server = new DigestStubServer(nonceUses);
+        try {
+            mediator = new DigestAuthMediator();
+            for (int i = 0; i < REQUEST_COUNT; i++) {
+                assertEquals(HttpURLConnection.HTTP_OK, sendThroughMediator(server, "/resource/" + i));
+            }
+            // The first request and every request after a nonce is used up are challenged
+            int staleChallenges = (REQUEST_COUNT - 1) / nonceUses;
+            assertEquals(staleChallenges, server.getStaleChallenges());
+            assertEquals(REQUEST_COUNT + 1 + staleChallenges, server.getRoundTrips());
+            assertEquals(0, server.getRejectedResponses());
+        } finally {
+            server.stop();
+        }
+    }
+
+    public void testChallengesAreKeptPerCredentials() throws Exception {
+        DigestStubServer server = new DigestStubServer(Integer.MAX_VALUE);
+        try {
+            mediator = new DigestAuthMediator();
+            assertEquals(HttpURLConnection.HTTP_OK, sendThroughMediator(server, "/resource"));
+            assertEquals(HttpURLConnection.HTTP_UNAUTHORIZED,
+                    sendThroughMediator(server, "/resource", USERNAME + ":wrong"));
+            assertEquals(HttpURLConnection.HTTP_OK, sendThroughMediator(server, "/resource"));
+            assertEquals(5, server.getRoundTrips());
+        } finally {
+            server.stop();
+        }
+    }
+
+    private int sendThroughMediator(DigestStubServer server, String postFix) throws Exception {
+        return sendThroughMediator(server, postFix, USERNAME + ":" + PASSWORD);
+    }
+
+    /**
+     * Sends a request the way the API template does: the mediator is run before the request is sent, and again on
+     * the 401 response if the backend challenges the request.
+     */
+    private int sendThroughMediator(DigestStubServer server, String postFix, String credentials) throws Exception {
+        MessageContext request = createMessageContext(server.getBackendUrl(), postFix, credentials);
+        assertTrue(mediator.mediate(request));
+        HttpURLConnection connection = send(server.getBackendUrl() + postFix,
+                (String) request.getProperty(DigestAuthConstants.AUTH_HEADER));
+        int status = connection.getResponseCode();
+        if (status != HttpURLConnection.HTTP_UNAUTHORIZED) {
+            return status;
+        }
+
+        MessageContext response = createMessageContext(server.getBackendUrl(), postFix, credentials);
+        response.setResponse(true);
+        Map<String, String> headers = new HashMap<String, String>();
+        headers.put(HttpHeaders.WWW_AUTHENTICATE, connection.getHeaderField(HttpHeaders.WWW_AUTHENTICATE));
+        ((Axis2MessageContext) response).getAxis2MessageContext()
+                .setProperty(org.apache.axis2.context.MessageContext.TRANSPORT_HEADERS, headers);
+        assertTrue(mediator.mediate(response));
+        assertEquals(Boolean.FALSE.toString(), response.getProperty(DigestAuthConstants.PREEMPTIVE_AUTH));
+        return send(server.getBackendUrl() + postFix, (String) response.getProperty(DigestAuthConstants.AUTH_HEADER))
+                .getResponseCode();
+    }
+
+    private static MessageContext createMessageContext(String backendUrl, String postFix, String credentials)
+            throws Exception {
+        MessageContext messageContext = TestUtils.getMessageContext("/test", "1.0.0");
+        messageContext.setProperty(DigestAuthConstants.BACKEND_URL, backendUrl);
+        messageContext.setProperty(DigestAuthConstants.POSTFIX, postFix);
+        messageContext.setProperty(DigestAuthConstants.HTTP_METHOD, "GET");
+        if (credentials != null) {
+            messageContext.setProperty(DigestAuthConstants.UNAMEPASSWORD,
+                    new String(Base64.encodeBase64(credentials.getBytes(DigestAuthConstants.CHARSET)),
+                            DigestAuthConstants.CHARSET));
+        }
+        return messageContext;
+    }
+
+    private static HttpURLConnection send(String url, String authHeader) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        if (authHeader != null) {
+            connection.setRequestProperty(HttpHeaders.AUTHORIZATION, authHeader);
+        }
+        connection.getResponseCode();
+        return connection;
+    }
+
+    /**
+     * A backend protected with digest authentication (qop=auth, MD5). Each nonce is accepted for a limited number of
+     * requests, after which the request is challenged with stale=true. A nonce count is accepted only once per nonce.
+     */
+    private static class DigestStubServer implements HttpHandler {
+
+        private static final String REALM = "stub@wso2.org";
+
+        private static final String OPAQUE = "5ccc069c403ebaf9f0171e9517f40e41";
+
+        private final HttpServer httpServer;
+        private final int maxNonceUses;
+        private final AtomicInteger roundTrips = new AtomicInteger();
+        private final AtomicInteger challenges = new AtomicInteger();
+        private final AtomicInteger staleChallenges = new AtomicInteger();
+        private final AtomicInteger rejectedResponses = new AtomicInteger();
+        private final Set<String> usedNonceCounts = new HashSet<String>();
+        private String currentNonce = UUID.randomUUID().toString();
+        private int currentNonceUses;
+
+        DigestStubServer(int maxNonceUses) throws IOException {
+            this.maxNonceUses = maxNonceUses;
+            httpServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            httpServer.createContext("/service", this);
+            httpServer.start();
+        }
+
+        String getBackendUrl() {
+            return "http://localhost:" + httpServer.getAddress().getPort() + "/service";
+        }
+
+        int getRoundTrips() {
+            return roundTrips.get();
+        }
+
+        int getChallenges() {
+            return challenges.get();
+        }
+
+        int getStaleChallenges() {
+            return staleChallenges.get();
+        }
+
+        int getRejectedResponses() {
+            return rejectedResponses.get();
+        }
+
+        void stop() {
+            httpServer.stop(0);
+        }
+
+        @Override
+        public synchronized void handle(HttpExchange exchange) throws IOException {
+            roundTrips.incrementAndGet();
+            String authHeader = exchange.getRequestHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+            int status;
+            if (authHeader == null) {
+                status = challenge(exchange, false);
+            } else {
+                Map<String, String> params = parseAuthHeader(authHeader);
+                if (!isValidResponse(params, exchange)) {
+                    rejectedResponses.incrementAndGet();
+                    status = challenge(exchange, false);
+                } else if (!currentNonce.equals(params.get("nonce")) || currentNonceUses >= maxNonceUses) {
+                    status = challenge(exchange, true);
+                } else {
+                    currentNonceUses++;
+                    status = HttpURLConnection.HTTP_OK;
+                }
+            }
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        }
+
+        private int challenge(HttpExchange exchange, boolean stale) {
+            challenges.incrementAndGet();
+            if (stale) {
+                staleChallenges.incrementAndGet();
+                currentNonce = UUID.randomUUID().toString();
+                currentNonceUses = 0;
+            }
+            exchange.getResponseHeaders().add(HttpHeaders.WWW_AUTHENTICATE,
+                    "Digest realm=\"" + REALM + "\", qop=\"auth\", nonce=\"" + currentNonce + "\", opaque=\"" +
+                            OPAQUE + "\", algorithm=\"MD5\"" + (stale ? ", stale=true" : ""));
+            return HttpURLConnection.HTTP_UNAUTHORIZED;
+        }
+
+        private boolean isValidResponse(Map<String, String> params, HttpExchange exchange) {
+            if (!REALM.equals(params.get("realm")) || !OPAQUE.equals(params.get("opaque"))
+                    || !exchange.getRequestURI().getPath().equals(params.get("uri"))
+                    || !usedNonceCounts.add(params.get("nonce") + ':' + params.get("nc"))) {
+                return false;
+            }
+            String ha1 = DigestUtils.md5Hex(params.get("username") + ':' + REALM + ':' + PASSWORD);
+            String ha2 = DigestUtils.md5Hex(exchange.getRequestMethod() + ':' + params.get("uri"));
+            String expectedResponse = DigestUtils.md5Hex(ha1 + ':' + params.get("nonce") + ':' + params.get("nc") +
+                    ':' + params.get("cnonce") + ':' + params.get("qop") + ':' + ha2);
+            return USERNAME.equals(params.get("username")) && expectedResponse.equals(params.get("response"));
+        }
+
+        private static Map<String, String> parseAuthHeader(String authHeader) {
+            Map<String, String> params = new HashMap<String, String>();
+            for (String keyval : authHeader.substring("Digest ".length()).split(", ")) {
+                String value = keyval.substring(keyval.indexOf('=') + 1);
+                if (value.startsWith("\"")) {
+                    value = value.substring(1, value.length() - 1);
+                }
+                params.put(keyval.substring(0, keyval.indexOf('=')), value);
+            }
+            return params;
+        }
+    }
+}
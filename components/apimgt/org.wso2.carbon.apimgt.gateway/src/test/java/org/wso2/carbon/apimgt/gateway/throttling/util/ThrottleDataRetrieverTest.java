@@ -0,0 +1,130 @@
+/*
+*  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.apimgt.gateway.throttling.util;
+
+import junit.framework.TestCase;
+import org.wso2.carbon.apimgt.gateway.internal.ServiceReferenceHolder;
+import org.wso2.carbon.apimgt.gateway.throttling.ThrottleDataHolder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ThrottleDataRetrieverTest extends TestCase {
+
+    private ThrottleDataHolder throttleDataHolder;
+
+    @Override
+    protected void setUp() throws Exception {
+        throttleDataHolder = new ThrottleDataHolder();
+        ServiceReferenceHolder.getInstance().setThrottleDataHolder(throttleDataHolder);
+    }
+
+    public void testBlockingConditionsAreSynchronizedWithDeltas() throws Exception {
+        throttleDataHolder.addUserBlockingCondition("removedWhileOffline", "removedWhileOffline");
+        final Map<String, String> responses = new HashMap<String, String>();
+        final List<String> requestedResources = new ArrayList<String>();
+        BlockingConditionRetriever retriever = new BlockingConditionRetriever() {
+            @Override
+            String retrieve(String resource) {
+                requestedResources.add(resource);
+                return responses.get(resource);
+            }
+        };
+
+        responses.put("/block/delta", "{\"revision\":\"epoch:1\",\"fullSnapshot\":true," +
+                "\"added\":{\"api\":[\"/api/1.0\"],\"application\":[\"admin:app\"],\"ip\":[],\"user\":[\"user1\"]," +
+                "\"custom\":[]},\"removed\":{\"api\":[],\"application\":[],\"ip\":[],\"user\":[],\"custom\":[]}}");
+        retriever.synchronize();
+        assertEquals("epoch:1", retriever.getRevision());
+        assertTrue(throttleDataHolder.isRequestBlocked("/api/1.0", "", "", ""));
+        assertTrue(throttleDataHolder.isRequestBlocked("", "admin:app", "", ""));
+        assertTrue(throttleDataHolder.isRequestBlocked("", "", "user1", ""));
+        // A full snapshot replaces what the Gateway had
+        assertFalse(throttleDataHolder.isRequestBlocked("", "", "removedWhileOffline", ""));
+
+        responses.put("/block/delta?revision=epoch%3A1", "{\"revision\":\"epoch:2\",\"fullSnapshot\":false," +
+                "\"added\":{\"api\":[\"/api/2.0\"],\"application\":[],\"ip\":[\"carbon.super:10.0.0.1\"]," +
+                "\"user\":[],\"custom\":[]},\"removed\":{\"api\":[],\"application\":[],\"ip\":[]," +
+                "\"user\":[\"user1\"],\"custom\":[]}}");
+        retriever.synchronize();
+        assertEquals("/block/delta?revision=epoch%3A1", requestedResources.get(requestedResources.size() - 1));
+        assertEquals("epoch:2", retriever.getRevision());
+        assertTrue(throttleDataHolder.isRequestBlocked("/api/1.0", "", "", ""));
+        assertTrue(throttleDataHolder.isRequestBlocked("/api/2.0", "", "", ""));
+        assertTrue(throttleDataHolder.isRequestBlocked("", "", "", "carbon.super:10.0.0.1"));
+        assertFalse(throttleDataHolder.isRequestBlocked("", "", "user1", ""));
+        assertTrue(throttleDataHolder.isBlockingConditionsPresent());
+    }
+
+    public void testBlockingConditionsFallBackToCompleteSetWithoutDeltaSupport() throws Exception {
+        throttleDataHolder.addAPIBlockingCondition("/removed/1.0", "/removed/1.0");
+        final List<String> requestedResources = new ArrayList<String>();
+        BlockingConditionRetriever retriever = new BlockingConditionRetriever() {
+            @Override
+            String retrieve(String resource) {
+                requestedResources.add(resource);
+                if ("/block".equals(resource)) {
+                    return "{\"api\":[\"/api/1.0\"],\"application\":[],\"ip\":[],\"user\":[],\"custom\":[]}";
+                }
+                return null;
+            }
+        };
+        retriever.synchronize();
+        assertEquals(2, requestedResources.size());
+        assertNull(retriever.getRevision());
+        assertTrue(throttleDataHolder.isRequestBlocked("/api/1.0", "", "", ""));
+        assertFalse(throttleDataHolder.isRequestBlocked("/removed/1.0", "", "", ""));
+    }
+
+    public void testKeyTemplatesAreSynchronizedWithDeltas() throws Exception {
+        final Map<String, String> responses = new HashMap<String, String>();
+        KeyTemplateRetriever retriever = new KeyTemplateRetriever() {
+            @Override
+            String retrieve(String resource) {
+                return responses.get(resource);
+            }
+        };
+
+        responses.put("/keyTemplates/delta", "{\"revision\":\"epoch:3\",\"fullSnapshot\":true," +
+                "\"added\":[\"$userId\",\"$apiContext\"],\"removed\":[]}");
+        retriever.synchronize();
+        assertTrue(throttleDataHolder.isKeyTemplatesPresent());
+        assertEquals(2, throttleDataHolder.getKeyTemplateMap().size());
+
+        responses.put("/keyTemplates/delta?revision=epoch%3A3", "{\"revision\":\"epoch:5\",\"fullSnapshot\":false," +
+                "\"added\":[\"$apiVersion\"],\"removed\":[\"$userId\",\"$apiContext\"]}");
+        retriever.synchronize();
+        assertEquals("epoch:5", retriever.getRevision());
+        assertEquals(1, throttleDataHolder.getKeyTemplateMap().size());
+        assertTrue(throttleDataHolder.getKeyTemplateMap().containsKey("$apiVersion"));
+    }
+
+    public void testRetryDelayBacksOffUpToPeriod() {
+        long period = 300000;
+        assertEquals(ThrottleDataRetriever.MIN_RETRY_DELAY, ThrottleDataRetriever.getRetryDelay(1, period));
+        assertEquals(2 * ThrottleDataRetriever.MIN_RETRY_DELAY, ThrottleDataRetriever.getRetryDelay(2, period));
+        assertEquals(4 * ThrottleDataRetriever.MIN_RETRY_DELAY, ThrottleDataRetriever.getRetryDelay(3, period));
+        assertEquals(period, ThrottleDataRetriever.getRetryDelay(10, period));
+        assertEquals(period, ThrottleDataRetriever.getRetryDelay(Integer.MAX_VALUE, period));
+        // Retries are never more frequent than the minimum delay, even with a shorter period
+        assertEquals(ThrottleDataRetriever.MIN_RETRY_DELAY, ThrottleDataRetriever.getRetryDelay(5, 1000));
+    }
+}
@@ -2720,24 +2720,20 @@ public class APIProviderHostObject extends ScriptableObject {
             }
 
             if (providerName != null) {
-                List<API> apiSet;
+                // subscription counts of all the APIs are taken in one query
+                Map<APIIdentifier, Long> subscriptionCounts;
                 if (providerName.equals("__all_providers__")) {
-                    apiSet = apiProvider.getAllAPIs();
+                    subscriptionCounts = apiProvider.getSubscriptionCountsOfAPIs(null, 0, Integer.MAX_VALUE);
                 } else {
-                    apiSet = apiProvider.getAPIsByProvider(APIUtil.replaceEmailDomain(providerName));
+                    subscriptionCounts = apiProvider.getSubscriptionCountsOfAPIs(providerName, 0, Integer.MAX_VALUE);
                 }
 
                 Map<String, Long> subscriptions = new TreeMap<String, Long>();
-                for (API api : apiSet) {
-                    if (api.getStatus() == APIStatus.CREATED) {
-                        continue;
-                    }
-                    long count = apiProvider.getAPISubscriptionCountByAPI(api.getId());
-                    if (count == 0) {
-                        continue;
-                    }
+                for (Map.Entry<APIIdentifier, Long> subscriptionCount : subscriptionCounts.entrySet()) {
+                    APIIdentifier apiId = subscriptionCount.getKey();
+                    long count = subscriptionCount.getValue();
 
-                    String[] apiData = {api.getId().getApiName(), api.getId().getVersion(),  api.getId().getProviderName()};
+                    String[] apiData = {apiId.getApiName(), apiId.getVersion(), apiId.getProviderName()};
 
                     JSONArray jsonArray = new JSONArray();
                     jsonArray.add(0,apiData[0]);
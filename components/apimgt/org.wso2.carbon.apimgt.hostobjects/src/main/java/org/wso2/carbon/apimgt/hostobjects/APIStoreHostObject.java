@@ -29,7 +29,9 @@ import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.jaggeryjs.scriptengine.exceptions.ScriptException;
+import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
 import org.json.simple.parser.ParseException;
 import org.mozilla.javascript.Context;
 import org.mozilla.javascript.Function;
@@ -37,6 +39,7 @@ import org.mozilla.javascript.NativeArray;
 import org.mozilla.javascript.NativeObject;
 import org.mozilla.javascript.Scriptable;
 import org.mozilla.javascript.ScriptableObject;
+import org.mozilla.javascript.Undefined;
 import org.wso2.carbon.apimgt.api.APIConsumer;
 import org.wso2.carbon.apimgt.api.APIManagementException;
 import org.wso2.carbon.apimgt.api.ApplicationNotFoundException;
@@ -47,6 +50,7 @@ import org.wso2.carbon.apimgt.api.model.APIRating;
 import org.wso2.carbon.apimgt.api.model.APIStatus;
 import org.wso2.carbon.apimgt.api.model.AccessTokenInfo;
 import org.wso2.carbon.apimgt.api.model.Application;
+import org.wso2.carbon.apimgt.api.model.ApplicationProvisioningResult;
 import org.wso2.carbon.apimgt.api.model.Comment;
 import org.wso2.carbon.apimgt.api.model.Documentation;
 import org.wso2.carbon.apimgt.api.model.DocumentationType;
@@ -3210,6 +3214,110 @@ public class APIStoreHostObject extends ScriptableObject {
         return myn;
     }
 
+    /**
+     * Returns a page of the applications of a subscriber, listed after the page the given page token was returned
+     * with. The arguments are the user name, group id, page token (null for the first page), page size, search
+     * string, sort column and sort order.
+     *
+     * @return an object holding the applications of the page under "applications" and the token of the next page,
+     * or null after the last page, under "nextPageToken"
+     * @throws ScriptException
+     * @throws APIManagementException
+     */
+    public static NativeObject jsFunction_getApplicationsByPageToken(Context cx, Scriptable thisObj, Object[] args,
+            Function funObj) throws ScriptException, APIManagementException {
+        if (args == null || args.length < 4) {
+            handleException("Invalid number of parameters.");
+        }
+        String username = args[0].toString();
+        String groupId = args[1] != null ? args[1].toString() : "";
+        String pageToken = getOptionalString(args, 2);
+        int limit = Integer.parseInt(args[3].toString());
+        String search = getOptionalString(args, 4);
+        String sortColumn = getOptionalString(args, 5);
+        String sortOrder = getOptionalString(args, 6);
+
+        APIConsumer apiConsumer = getAPIConsumer(thisObj);
+        Subscriber subscriber = new Subscriber(username);
+        Map<String, Object> page = apiConsumer.getApplicationsByPageToken(subscriber, groupId, pageToken, limit,
+                search, sortColumn, sortOrder);
+
+        NativeArray applicationsArray = new NativeArray(0);
+        int i = 0;
+        for (Application application : (Application[]) page.get(APIConstants.PAGINATED_APPLICATIONS)) {
+            int subscriptionCount = apiConsumer.getSubscriptionCount(subscriber, application.getName(), groupId);
+            NativeObject row = new NativeObject();
+            row.put("name", row, application.getName());
+            row.put("tier", row, application.getTier());
+            row.put("id", row, application.getId());
+            row.put("callbackUrl", row, application.getCallbackUrl());
+            row.put("status", row, application.getStatus());
+            row.put("description", row, application.getDescription());
+            row.put("apiCount", row, subscriptionCount);
+            row.put("groupId", row, application.getGroupId());
+            row.put("isBlacklisted", row, application.getIsBlackListed());
+            applicationsArray.put(i++, applicationsArray, row);
+        }
+
+        NativeObject result = new NativeObject();
+        result.put(APIConstants.PAGINATED_APPLICATIONS, result, applicationsArray);
+        result.put(APIConstants.PAGINATION_NEXT_PAGE_TOKEN, result, page.get(APIConstants.PAGINATION_NEXT_PAGE_TOKEN));
+        return result;
+    }
+
+    /**
+     * Returns a page of the APIs subscribed to by an application, listed after the page the given page token was
+     * returned with. The arguments are the user name, application name, page token (null for the first page), page
+     * size and group id.
+     *
+     * @return an object holding the subscriptions of the page under "subscribedAPIs" and the token of the next page,
+     * or null after the last page, under "nextPageToken"
+     * @throws ScriptException
+     * @throws APIManagementException
+     */
+    public static NativeObject jsFunction_getSubscribedAPIsByPageToken(Context cx, Scriptable thisObj, Object[] args,
+            Function funObj) throws ScriptException, APIManagementException {
+        if (args == null || args.length < 4) {
+            handleException("Invalid number of parameters.");
+        }
+        String username = args[0].toString();
+        String applicationName = args[1].toString();
+        String pageToken = getOptionalString(args, 2);
+        int limit = Integer.parseInt(args[3].toString());
+        String groupId = getOptionalString(args, 4);
+
+        APIConsumer apiConsumer = getAPIConsumer(thisObj);
+        Map<String, Object> page = apiConsumer.getSubscribedAPIsByPageToken(new Subscriber(username), applicationName,
+                pageToken, limit, groupId);
+
+        NativeArray subscriptionsArray = new NativeArray(0);
+        int i = 0;
+        @SuppressWarnings("unchecked")
+        Set<SubscribedAPI> subscribedAPIs = (Set<SubscribedAPI>) page.get(APIConstants.PAGINATED_SUBSCRIBED_APIS);
+        for (SubscribedAPI subscribedAPI : subscribedAPIs) {
+            NativeObject row = new NativeObject();
+            row.put("name", row, subscribedAPI.getApiId().getApiName());
+            row.put("provider", row, APIUtil.replaceEmailDomainBack(subscribedAPI.getApiId().getProviderName()));
+            row.put("version", row, subscribedAPI.getApiId().getVersion());
+            row.put("tier", row, subscribedAPI.getTier().getDisplayName());
+            row.put("subStatus", row, subscribedAPI.getSubStatus());
+            row.put("subCreatedStatus", row, subscribedAPI.getSubCreatedStatus());
+            subscriptionsArray.put(i++, subscriptionsArray, row);
+        }
+
+        NativeObject result = new NativeObject();
+        result.put(APIConstants.PAGINATED_SUBSCRIBED_APIS, result, subscriptionsArray);
+        result.put(APIConstants.PAGINATION_NEXT_PAGE_TOKEN, result, page.get(APIConstants.PAGINATION_NEXT_PAGE_TOKEN));
+        return result;
+    }
+
+    private static String getOptionalString(Object[] args, int index) {
+        if (args.length > index && args[index] != null && !(args[index] instanceof Undefined)) {
+            return args[index].toString();
+        }
+        return null;
+    }
+
     public static NativeArray jsFunction_getApplications(Context cx, Scriptable thisObj, Object[] args, Function funObj)
             throws ScriptException, APIManagementException {
 
@@ -3328,6 +3436,143 @@ public class APIStoreHostObject extends ScriptableObject {
         return status;
     }
 
+    /**
+     * Provisions applications of a subscriber in bulk, along with their subscriptions and optionally their keys.
+     * Applications, subscriptions and keys which already exist are left as they are, so the same request can be
+     * sent again to complete the items which failed.
+     *
+     * @param cx      will be used to store information about the executing of the script.
+     * @param thisObj Object of Scriptable interface provides for the management of properties and for
+     *                performing conversions.
+     * @param args    username, applications as a JSON array of {name, tier, callbackUrl, description, groupId,
+     *                subscriptions: [{provider, name, version, tier}]}, and optionally the key type, allowed domains,
+     *                validity period, scopes and the number of applications provisioned per transaction.
+     * @param funObj  this object  provides for calling functions and constructors.
+     * @return result of each application, in the order of the given applications
+     * @throws ScriptException
+     * @throws APIManagementException
+     */
+    public static NativeArray jsFunction_provisionApplications(Context cx, Scriptable thisObj, Object[] args,
+                                                               Function funObj)
+            throws ScriptException, APIManagementException {
+        if (args == null || args.length < 2 || !(args[0] instanceof String) || !(args[1] instanceof String)) {
+            handleException("Missing parameters.");
+        }
+        String username = (String) args[0];
+        String keyType = args.length > 2 && args[2] instanceof String ? (String) args[2] : null;
+        String[] allowedDomains = new String[] { "ALL" };
+        if (args.length > 3 && args[3] instanceof NativeArray) {
+            NativeArray allowedDomainsArr = (NativeArray) args[3];
+            allowedDomains = new String[(int) allowedDomainsArr.getLength()];
+            for (Object domain : allowedDomainsArr.getIds()) {
+                int index = (Integer) domain;
+                allowedDomains[index] = (String) allowedDomainsArr.get(index, null);
+            }
+        }
+        String validityTime = args.length > 4 && args[4] instanceof String ? (String) args[4] : null;
+        String scopes = args.length > 5 && args[5] instanceof String ? (String) args[5] : null;
+        int chunkSize = 0;
+        if (args.length > 6 && args[6] instanceof String && !StringUtils.isEmpty((String) args[6])) {
+            try {
+                chunkSize = Integer.parseInt((String) args[6]);
+            } catch (NumberFormatException e) {
+                handleException("Invalid chunk size " + args[6], e);
+            }
+        }
+
+        Subscriber subscriber = new Subscriber(username);
+        List<Application> applications = new ArrayList<Application>();
+        try {
+            JSONArray applicationsJson = (JSONArray) new JSONParser().parse((String) args[1]);
+            for (Object applicationObj : applicationsJson) {
+                JSONObject applicationJson = (JSONObject) applicationObj;
+                String name = (String) applicationJson.get("name");
+                String tier = (String) applicationJson.get("tier");
+                if (StringUtils.isEmpty(name) || StringUtils.isEmpty(name.trim())) {
+                    handleException("Application Name is empty.");
+                }
+                if (StringUtils.isEmpty(tier) || StringUtils.isEmpty(tier.trim())) {
+                    handleException("No tier is defined for the Application " + name);
+                }
+                Application application = new Application(name, subscriber);
+                application.setTier(tier);
+                application.setCallbackUrl((String) applicationJson.get("callbackUrl"));
+                application.setDescription((String) applicationJson.get("description"));
+                if (applicationJson.get("groupId") != null) {
+                    application.setGroupId((String) applicationJson.get("groupId"));
+                }
+
+                JSONArray subscriptionsJson = (JSONArray) applicationJson.get("subscriptions");
+                if (subscriptionsJson != null) {
+                    Set<SubscribedAPI> subscriptions = new LinkedHashSet<SubscribedAPI>();
+                    for (Object subscriptionObj : subscriptionsJson) {
+                        JSONObject subscriptionJson = (JSONObject) subscriptionObj;
+                        String provider = (String) subscriptionJson.get("provider");
+                        String apiName = (String) subscriptionJson.get("name");
+                        String version = (String) subscriptionJson.get("version");
+                        String subscriptionTier = (String) subscriptionJson.get("tier");
+                        if (StringUtils.isEmpty(provider) || StringUtils.isEmpty(apiName) ||
+                            StringUtils.isEmpty(version) || StringUtils.isEmpty(subscriptionTier)) {
+                            handleException("Provider, name, version and tier are required for the subscriptions " +
+                                            "of the Application " + name);
+                        }
+                        SubscribedAPI subscription = new SubscribedAPI(subscriber,
+                                new APIIdentifier(APIUtil.replaceEmailDomain(provider), apiName, version));
+                        subscription.setTier(new Tier(subscriptionTier));
+                        subscription.setApplication(application);
+                        subscriptions.add(subscription);
+                    }
+                    application.addSubscribedAPIs(subscriptions);
+                }
+                applications.add(application);
+            }
+        } catch (ParseException e) {
+            handleException("Invalid applications " + args[1], e);
+        } catch (ClassCastException e) {
+            handleException("Invalid applications " + args[1], e);
+        }
+
+        APIConsumer apiConsumer = getAPIConsumer(thisObj);
+        List<ApplicationProvisioningResult> results = apiConsumer.provisionApplications(username, applications,
+                keyType, allowedDomains, validityTime, scopes, chunkSize);
+
+        NativeArray resultArray = new NativeArray(0);
+        int i = 0;
+        for (ApplicationProvisioningResult result : results) {
+            NativeObject row = new NativeObject();
+            row.put("name", row, result.getApplicationName());
+            row.put("id", row, result.getApplicationId());
+            row.put("uuid", row, result.getApplicationUUID());
+            row.put("status", row, String.valueOf(result.getApplicationStatus()));
+            row.put("keyStatus", row, String.valueOf(result.getKeyStatus()));
+            row.put("consumerKey", row, result.getConsumerKey());
+            row.put("successful", row, result.isSuccessful());
+
+            NativeArray subscriptionArray = new NativeArray(0);
+            int j = 0;
+            for (Map.Entry<APIIdentifier, ApplicationProvisioningResult.Status> entry :
+                    result.getSubscriptionStatuses().entrySet()) {
+                NativeObject subscriptionRow = new NativeObject();
+                subscriptionRow.put("provider", subscriptionRow,
+                                    APIUtil.replaceEmailDomainBack(entry.getKey().getProviderName()));
+                subscriptionRow.put("name", subscriptionRow, entry.getKey().getApiName());
+                subscriptionRow.put("version", subscriptionRow, entry.getKey().getVersion());
+                subscriptionRow.put("status", subscriptionRow, String.valueOf(entry.getValue()));
+                subscriptionArray.put(j++, subscriptionArray, subscriptionRow);
+            }
+            row.put("subscriptions", row, subscriptionArray);
+
+            NativeArray errorArray = new NativeArray(0);
+            int k = 0;
+            for (String error : result.getErrors()) {
+                errorArray.put(k++, errorArray, error);
+            }
+            row.put("errors", row, errorArray);
+            resultArray.put(i++, resultArray, row);
+        }
+        return resultArray;
+    }
+
     public static boolean jsFunction_sleep(Context cx, Scriptable thisObj, Object[] args, Function funObj) {
         if (isStringArray(args)) {
             String millis = (String) args[0];
@@ -417,6 +417,9 @@ public final class APIConstants {
     public static final String GATEWAY_RESOURCE_CACHE_ENABLED = CACHE_CONFIGS + "EnableGatewayResourceCache";
     public static final String JWT_CLAIM_CACHE_EXPIRY = CACHE_CONFIGS + "JWTClaimCacheExpiry";
     public static final String KEY_MANAGER_TOKEN_CACHE = CACHE_CONFIGS + "EnableKeyManagerTokenCache";
+    public static final String KEY_MANAGER_RESOURCE_CACHE = CACHE_CONFIGS + "EnableKeyManagerResourceCache";
+    public static final String KEY_MANAGER_RESOURCE_CACHE_EXPIRY = CACHE_CONFIGS + "KeyManagerResourceCacheExpiry";
+    public static final long DEFAULT_KEY_MANAGER_RESOURCE_CACHE_EXPIRY = 15;
     public static final String TOKEN_CACHE_EXPIRY = CACHE_CONFIGS + "TokenCacheExpiry";
     public static final String STORE_TAG_CACHE_DURATION = CACHE_CONFIGS + "TagCacheDuration";
     public static final String API_STORE_RECENTLY_ADDED_API_CACHE_ENABLE = CACHE_CONFIGS + "EnableRecentlyAddedAPICache";
@@ -551,6 +554,9 @@ public final class APIConstants {
     
     public static final String DEFAULT_APPLICATION_NAME = "DefaultApplication";
 
+    // number of applications provisioned in a single transaction by a bulk provisioning request
+    public static final int APPLICATION_PROVISIONING_CHUNK_SIZE = 100;
+
     public static final QName POLICY_ELEMENT = new QName("http://schemas.xmlsoap.org/ws/2004/09/policy",
                       "Policy");
 
@@ -710,6 +716,10 @@ public final class APIConstants {
     public static final String WORKFLOW_CACHE_NAME = "workflowCache";
     public static final String APP_SCOPE_CACHE = "appScopeCache";
     public static final String TIERS_CACHE = "tiersCache";
+    public static final String POLICY_TIERS_CACHE = "policyTiersCache";
+    public static final String TENANT_CONFIG_CACHE = "tenantConfigCache";
+    public static final String API_RESOURCE_METADATA_CACHE = "apiResourceMetadataCache";
+    public static final String GATEWAY_ARTIFACT_DIGEST_CACHE = "gatewayArtifactDigestCache";
     public static final int API_CONTEXT_CACHE_EXPIRY_TIME_IN_DAYS = 3650 ;
     public static final String CLAIMS_APIM_CACHE = "claimsLocalCache";
 
@@ -841,6 +851,7 @@ public final class APIConstants {
         public static final String ALGORITHM = "algorithm";
         public static final String OPAQUE = "opaque";
         public static final String QOP = "qop";
+        public static final String STALE = "stale";
 
         public static final String AUTH = "auth";
         public static final String AUTH_INT = "auth-int";
@@ -855,6 +866,7 @@ public final class APIConstants {
         public static final String INIT_NONCE_COUNT = "00000000";
         public static final String AUTH_HEADER = "AuthHeader";
         public static final String BACKEND_URL = "BACKEND_URL";
+        public static final String PREEMPTIVE_AUTH = "PreemptiveDigestAuth";
         public static final String CHARSET = "UTF-8";
         
         private DigestAuthConstants(){            
@@ -1009,6 +1021,9 @@ public final class APIConstants {
     public static final String API_DATA_TOT_LENGTH = "totalLength";
     public static final String API_DATA_LENGTH = "length";
     public static final String API_DATA_ISMORE = "isMore";
+    public static final String PAGINATED_APPLICATIONS = "applications";
+    public static final String PAGINATED_SUBSCRIBED_APIS = "subscribedAPIs";
+    public static final String PAGINATION_NEXT_PAGE_TOKEN = "nextPageToken";
 
     public static final String ACTIVITY_ID = "activityID";
     public static final String USER_AGENT = "User-Agent";
@@ -22,8 +22,6 @@ import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
-import org.json.simple.parser.ParseException;
 import org.wso2.carbon.CarbonConstants;
 import org.wso2.carbon.apimgt.api.APIConsumer;
 import org.wso2.carbon.apimgt.api.APIManagementException;
@@ -2089,6 +2087,24 @@ class APIConsumerImpl extends AbstractAPIManager implements APIConsumer {
         return subscribedAPIs;
     }
 
+    @Override
+    public Map<String, Object> getSubscribedAPIsByPageToken(Subscriber subscriber, String applicationName,
+            String pageToken, int limit, String groupingId) throws APIManagementException {
+        Map<String, Object> page = apiMgtDAO.getSubscribedAPIsByPageToken(subscriber, applicationName, pageToken,
+                limit, groupingId);
+        @SuppressWarnings("unchecked")
+        Set<SubscribedAPI> subscribedAPIs = (Set<SubscribedAPI>) page.get(APIConstants.PAGINATED_SUBSCRIBED_APIS);
+        if (!subscribedAPIs.isEmpty()) {
+            Map<String, Tier> tiers = APIUtil.getTiers(tenantId);
+            for (SubscribedAPI subscribedApi : subscribedAPIs) {
+                Tier tier = tiers.get(subscribedApi.getTier().getName());
+                subscribedApi.getTier().setDisplayName(tier != null ? tier.getDisplayName() : subscribedApi
+                        .getTier().getName());
+            }
+        }
+        return page;
+    }
+
     public Integer getSubscriptionCount(Subscriber subscriber,String applicationName,String groupingId)
             throws APIManagementException {
         return apiMgtDAO.getSubscriptionCount(subscriber,applicationName,groupingId);
@@ -2138,26 +2154,8 @@ class APIConsumerImpl extends AbstractAPIManager implements APIConsumer {
             String applicationName = apiMgtDAO.getApplicationNameFromId(applicationId);
 
             try {
-                WorkflowExecutor addSubscriptionWFExecutor = WorkflowExecutorFactory.getInstance().
-                        getWorkflowExecutor(WorkflowConstants.WF_TYPE_AM_SUBSCRIPTION_CREATION);
-
-                SubscriptionWorkflowDTO workflowDTO = new SubscriptionWorkflowDTO();
-                workflowDTO.setStatus(WorkflowStatus.CREATED);
-                workflowDTO.setCreatedTime(System.currentTimeMillis());
-                workflowDTO.setTenantDomain(tenantDomain);
-                workflowDTO.setTenantId(tenantId);
-                workflowDTO.setExternalWorkflowReference(addSubscriptionWFExecutor.generateUUID());
-                workflowDTO.setWorkflowReference(String.valueOf(subscriptionId));
-                workflowDTO.setWorkflowType(WorkflowConstants.WF_TYPE_AM_SUBSCRIPTION_CREATION);
-                workflowDTO.setCallbackUrl(addSubscriptionWFExecutor.getCallbackURL());
-                workflowDTO.setApiName(identifier.getApiName());
-                workflowDTO.setApiContext(api.getContext());
-                workflowDTO.setApiVersion(identifier.getVersion());
-                workflowDTO.setApiProvider(identifier.getProviderName());
-                workflowDTO.setTierName(identifier.getTier());
-                workflowDTO.setApplicationName(apiMgtDAO.getApplicationNameFromId(applicationId));
-                workflowDTO.setSubscriber(userId);
-                workflowResponse = addSubscriptionWFExecutor.execute(workflowDTO);
+                workflowResponse = executeSubscriptionCreationWorkflow(identifier, api.getContext(), subscriptionId,
+                        applicationName, userId);
             } catch (WorkflowException e) {
                 //If the workflow execution fails, roll back transaction by removing the subscription entry.
                 apiMgtDAO.removeSubscriptionById(subscriptionId);
@@ -2200,6 +2198,31 @@ class APIConsumerImpl extends AbstractAPIManager implements APIConsumer {
         }
     }
 
+    private WorkflowResponse executeSubscriptionCreationWorkflow(APIIdentifier identifier, String apiContext,
+                                                                 int subscriptionId, String applicationName,
+                                                                 String userId) throws WorkflowException {
+        WorkflowExecutor addSubscriptionWFExecutor = WorkflowExecutorFactory.getInstance().
+                getWorkflowExecutor(WorkflowConstants.WF_TYPE_AM_SUBSCRIPTION_CREATION);
+
+        SubscriptionWorkflowDTO workflowDTO = new SubscriptionWorkflowDTO();
+        workflowDTO.setStatus(WorkflowStatus.CREATED);
+        workflowDTO.setCreatedTime(System.currentTimeMillis());
+        workflowDTO.setTenantDomain(tenantDomain);
+        workflowDTO.setTenantId(tenantId);
+        workflowDTO.setExternalWorkflowReference(addSubscriptionWFExecutor.generateUUID());
+        workflowDTO.setWorkflowReference(String.valueOf(subscriptionId));
+        workflowDTO.setWorkflowType(WorkflowConstants.WF_TYPE_AM_SUBSCRIPTION_CREATION);
+        workflowDTO.setCallbackUrl(addSubscriptionWFExecutor.getCallbackURL());
+        workflowDTO.setApiName(identifier.getApiName());
+        workflowDTO.setApiContext(apiContext);
+        workflowDTO.setApiVersion(identifier.getVersion());
+        workflowDTO.setApiProvider(identifier.getProviderName());
+        workflowDTO.setTierName(identifier.getTier());
+        workflowDTO.setApplicationName(applicationName);
+        workflowDTO.setSubscriber(userId);
+        return addSubscriptionWFExecutor.execute(workflowDTO);
+    }
+
     @Override
     public String getSubscriptionStatusById(int subscriptionId) throws APIManagementException {
         return apiMgtDAO.getSubscriptionStatusById(subscriptionId);
@@ -2396,23 +2419,7 @@ class APIConsumerImpl extends AbstractAPIManager implements APIConsumer {
         }
 
         try {
-
-            WorkflowExecutor appCreationWFExecutor = WorkflowExecutorFactory.getInstance().
-                    getWorkflowExecutor(WorkflowConstants.WF_TYPE_AM_APPLICATION_CREATION);
-            ApplicationWorkflowDTO appWFDto = new ApplicationWorkflowDTO();
-            appWFDto.setApplication(application);
-
-            appWFDto.setExternalWorkflowReference(appCreationWFExecutor.generateUUID());
-            appWFDto.setWorkflowReference(String.valueOf(applicationId));
-            appWFDto.setWorkflowType(WorkflowConstants.WF_TYPE_AM_APPLICATION_CREATION);
-            appWFDto.setCallbackUrl(appCreationWFExecutor.getCallbackURL());
-            appWFDto.setStatus(WorkflowStatus.CREATED);
-            appWFDto.setTenantDomain(tenantDomain);
-            appWFDto.setTenantId(tenantId);
-            appWFDto.setUserName(userId);
-            appWFDto.setCreatedTime(System.currentTimeMillis());
-
-            appCreationWFExecutor.execute(appWFDto);
+            executeApplicationCreationWorkflow(application, applicationId, userId);
         } catch (WorkflowException e) {
             //If the workflow execution fails, roll back transaction by removing the application entry.
             application.setId(applicationId);
@@ -2432,6 +2439,165 @@ class APIConsumerImpl extends AbstractAPIManager implements APIConsumer {
         return applicationId;
     }
 
+    private void executeApplicationCreationWorkflow(Application application, int applicationId, String userId)
+            throws WorkflowException {
+        WorkflowExecutor appCreationWFExecutor = WorkflowExecutorFactory.getInstance().
+                getWorkflowExecutor(WorkflowConstants.WF_TYPE_AM_APPLICATION_CREATION);
+        ApplicationWorkflowDTO appWFDto = new ApplicationWorkflowDTO();
+        appWFDto.setApplication(application);
+
+        appWFDto.setExternalWorkflowReference(appCreationWFExecutor.generateUUID());
+        appWFDto.setWorkflowReference(String.valueOf(applicationId));
+        appWFDto.setWorkflowType(WorkflowConstants.WF_TYPE_AM_APPLICATION_CREATION);
+        appWFDto.setCallbackUrl(appCreationWFExecutor.getCallbackURL());
+        appWFDto.setStatus(WorkflowStatus.CREATED);
+        appWFDto.setTenantDomain(tenantDomain);
+        appWFDto.setTenantId(tenantId);
+        appWFDto.setUserName(userId);
+        appWFDto.setCreatedTime(System.currentTimeMillis());
+
+        appCreationWFExecutor.execute(appWFDto);
+    }
+
+    @Override
+    public List<ApplicationProvisioningResult> provisionApplications(String userId, List<Application> applications,
+                                                                     String keyType, String[] allowedDomains,
+                                                                     String validityTime, String tokenScope,
+                                                                     int chunkSize) throws APIManagementException {
+        return new ConsumerApplicationProvisioner(chunkSize).provision(userId, applications, keyType, allowedDomains,
+                validityTime, tokenScope);
+    }
+
+    /**
+     * Provisions applications in bulk through the DAO, the workflows and the key manager of this consumer.
+     */
+    private class ConsumerApplicationProvisioner extends ApplicationProvisioner {
+
+        ConsumerApplicationProvisioner(int chunkSize) {
+            super(chunkSize);
+        }
+
+        @Override
+        Application[] getApplicationsWithSubscribedAPIs(Subscriber subscriber) throws APIManagementException {
+            return apiMgtDAO.getApplicationsWithSubscribedAPIs(subscriber);
+        }
+
+        @Override
+        void addApplications(List<Application> applications, String userId) throws APIManagementException {
+            apiMgtDAO.addApplications(applications, userId);
+        }
+
+        @Override
+        void executeApplicationCreationWorkflow(Application application, String userId) throws WorkflowException {
+            boolean isTenantFlowStarted = startTenantFlow();
+            try {
+                APIConsumerImpl.this.executeApplicationCreationWorkflow(application, application.getId(), userId);
+            } finally {
+                if (isTenantFlowStarted) {
+                    PrivilegedCarbonContext.endTenantFlow();
+                }
+            }
+
+            JSONObject appLogObject = new JSONObject();
+            appLogObject.put(APIConstants.AuditLogConstants.NAME, application.getName());
+            appLogObject.put(APIConstants.AuditLogConstants.TIER, application.getTier());
+            appLogObject.put(APIConstants.AuditLogConstants.CALLBACK, application.getCallbackUrl());
+
+            APIUtil.logAuditMessage(APIConstants.AuditLogConstants.APPLICATION, appLogObject.toString(),
+                    APIConstants.AuditLogConstants.CREATED, username);
+        }
+
+        @Override
+        void removeApplication(Application application) throws APIManagementException {
+            apiMgtDAO.deleteApplication(application);
+        }
+
+        @Override
+        API getAPI(APIIdentifier identifier) throws APIManagementException {
+            return APIConsumerImpl.this.getAPI(identifier);
+        }
+
+        @Override
+        int addSubscription(APIIdentifier identifier, String apiContext, int applicationId, String userId)
+                throws APIManagementException {
+            return apiMgtDAO.addSubscription(identifier, apiContext, applicationId,
+                    APIConstants.SubscriptionStatus.ON_HOLD, userId);
+        }
+
+        @Override
+        void addSubscriptions(List<SubscribedAPI> subscriptions, String userId) throws APIManagementException {
+            apiMgtDAO.addSubscriptions(subscriptions, APIConstants.SubscriptionStatus.ON_HOLD, userId);
+        }
+
+        @Override
+        void executeSubscriptionCreationWorkflow(SubscribedAPI subscription, API api, String userId)
+                throws WorkflowException {
+            APIIdentifier identifier = subscription.getApiId();
+            Application application = subscription.getApplication();
+            boolean isTenantFlowStarted = startTenantFlow();
+            try {
+                APIConsumerImpl.this.executeSubscriptionCreationWorkflow(identifier, api.getContext(),
+                        subscription.getSubscriptionId(), application.getName(), userId);
+            } finally {
+                if (isTenantFlowStarted) {
+                    PrivilegedCarbonContext.endTenantFlow();
+                }
+            }
+
+            JSONObject subsLogObject = new JSONObject();
+            subsLogObject.put(APIConstants.AuditLogConstants.API_NAME, identifier.getApiName());
+            subsLogObject.put(APIConstants.AuditLogConstants.PROVIDER, identifier.getProviderName());
+            subsLogObject.put(APIConstants.AuditLogConstants.APPLICATION_ID, application.getId());
+            subsLogObject.put(APIConstants.AuditLogConstants.APPLICATION_NAME, application.getName());
+            subsLogObject.put(APIConstants.AuditLogConstants.TIER, identifier.getTier());
+
+            APIUtil.logAuditMessage(APIConstants.AuditLogConstants.SUBSCRIPTION, subsLogObject.toString(),
+                    APIConstants.AuditLogConstants.CREATED, username);
+        }
+
+        @Override
+        void removeSubscription(int subscriptionId) throws APIManagementException {
+            apiMgtDAO.removeSubscriptionById(subscriptionId);
+        }
+
+        @Override
+        void invalidateCachedKeys(int applicationId) throws APIManagementException {
+            if (APIUtil.isAPIGatewayKeyCacheEnabled()) {
+                APIConsumerImpl.this.invalidateCachedKeys(applicationId);
+            }
+        }
+
+        @Override
+        String getConsumerKey(int applicationId, String keyType) throws APIManagementException {
+            return apiMgtDAO.getConsumerkeyByApplicationIdAndKeyType(String.valueOf(applicationId), keyType);
+        }
+
+        @Override
+        String getApplicationStatus(int applicationId) throws APIManagementException {
+            return apiMgtDAO.getApplicationStatusById(applicationId);
+        }
+
+        @Override
+        String generateKeys(String userId, Application application, String keyType, String[] allowedDomains,
+                            String validityTime, String tokenScope) throws APIManagementException {
+            JSONObject jsonParamObj = new JSONObject();
+            jsonParamObj.put(ApplicationConstants.OAUTH_CLIENT_USERNAME, userId);
+            Map<String, Object> keyDetails = requestApprovalForApplicationRegistration(userId,
+                    application.getName(), keyType, application.getCallbackUrl(), allowedDomains, validityTime,
+                    tokenScope, application.getGroupId(), jsonParamObj.toString());
+            return (String) keyDetails.get("consumerKey");
+        }
+
+        private boolean startTenantFlow() {
+            if (tenantDomain != null && !MultitenantConstants.SUPER_TENANT_DOMAIN_NAME.equals(tenantDomain)) {
+                PrivilegedCarbonContext.startTenantFlow();
+                PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain(tenantDomain, true);
+                return true;
+            }
+            return false;
+        }
+    }
+
     /** Updates an Application identified by its id
      *
      * @param application Application object to be updated
@@ -3130,6 +3296,13 @@ class APIConsumerImpl extends AbstractAPIManager implements APIConsumer {
         return apiMgtDAO.getApplicationsWithPagination(subscriber, groupingId, start, offset, search,sortColumn,sortOrder);
     }
 
+    @Override
+    public Map<String, Object> getApplicationsByPageToken(Subscriber subscriber, String groupingId, String pageToken,
+            int limit, String search, String sortColumn, String sortOrder) throws APIManagementException {
+        return apiMgtDAO.getApplicationsByPageToken(subscriber, groupingId, pageToken, limit, search, sortColumn,
+                sortOrder);
+    }
+
     @Override
     public Application[] getApplications(Subscriber subscriber, String groupingId)
 			throws APIManagementException {
@@ -3282,35 +3455,15 @@ class APIConsumerImpl extends AbstractAPIManager implements APIConsumer {
 
     @Override
     public boolean isMonetizationEnabled(String tenantDomain) throws APIManagementException {
-        JSONObject apiTenantConfig = null;
-        try {
-            String content = apimRegistryService.getConfigRegistryResourceContent(tenantDomain, APIConstants.API_TENANT_CONF_LOCATION);
-
-            if (content != null) {
-                JSONParser parser = new JSONParser();
-                apiTenantConfig = (JSONObject) parser.parse(content);
-            }
-
-        } catch (UserStoreException e) {
-            handleException("UserStoreException thrown when getting API tenant config from registry", e);
-        } catch (RegistryException e) {
-            handleException("RegistryException thrown when getting API tenant config from registry", e);
-        } catch (ParseException e) {
-            handleException("ParseException thrown when passing API tenant config from registry", e);
-        }
-
-        return getTenantConfigValue(tenantDomain, apiTenantConfig, APIConstants.API_TENANT_CONF_ENABLE_MONITZATION_KEY);
-    }
-
-    private boolean getTenantConfigValue(String tenantDomain, JSONObject apiTenantConfig, String configKey) throws APIManagementException {
-        if (apiTenantConfig != null) {
-            Object value = apiTenantConfig.get(configKey);
+        TenantConfigDTO tenantConfig = APIUtil.getTenantConfig(tenantDomain, apimRegistryService);
+        if (tenantConfig.isConfigured()) {
+            Boolean value = tenantConfig.getMonetizationEnabled();
 
             if (value != null) {
-                return Boolean.parseBoolean(value.toString());
-            }
-            else {
-                throw new APIManagementException(configKey + " config does not exist for tenant " + tenantDomain);
+                return value;
+            } else {
+                throw new APIManagementException(APIConstants.API_TENANT_CONF_ENABLE_MONITZATION_KEY
+                        + " config does not exist for tenant " + tenantDomain);
             }
         }
         return false;
@@ -19,10 +19,13 @@ package org.wso2.carbon.apimgt.impl;
 import java.util.HashMap;
 import java.util.Map;
 
+import javax.cache.Cache;
+import javax.cache.Caching;
 import javax.xml.namespace.QName;
 
 import org.apache.axiom.om.OMElement;
 import org.apache.axis2.AxisFault;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.apimgt.api.APIManagementException;
@@ -31,6 +34,7 @@ import org.wso2.carbon.apimgt.api.model.APIStatus;
 import org.wso2.carbon.apimgt.impl.dto.Environment;
 import org.wso2.carbon.apimgt.impl.internal.ServiceReferenceHolder;
 import org.wso2.carbon.apimgt.impl.template.APITemplateBuilder;
+import org.wso2.carbon.apimgt.impl.template.APITemplateException;
 import org.wso2.carbon.apimgt.impl.utils.APIGatewayAdminClient;
 import org.wso2.carbon.apimgt.impl.utils.APIUtil;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
@@ -82,6 +86,7 @@ public class APIGatewayManager {
                 continue;
             }
             APIGatewayAdminClient client;
+            long startTime = System.currentTimeMillis();
             try {
                 client = new APIGatewayAdminClient(api.getId(), environment);
 			String operation;
@@ -103,9 +108,11 @@ public class APIGatewayManager {
 					// relevant url has been removed.
 					operation ="delete";
 					client.deleteApi(tenantDomain, api.getId());
+                    removeDeployedArtifact(environment, tenantDomain, getQualifiedName(api));
                     if(api.isPublishedDefaultVersion()){
                         if(client.getDefaultApi(tenantDomain, api.getId())!=null){
                             client.deleteDefaultApi(tenantDomain, api.getId());
+                            removeDeployedArtifact(environment, tenantDomain, getQualifiedDefaultAPIName(api));
                         }
                     }
 					setSecureVaultProperty(api, tenantDomain, environment, operation);
@@ -120,19 +127,31 @@ public class APIGatewayManager {
 
                     operation ="update";
 
-                    //Update the API
-                    if(api.getImplementation().equalsIgnoreCase(APIConstants.IMPLEMENTATION_TYPE_INLINE)){
-                        client.updateApiForInlineScript(builder, tenantDomain, api.getId());
-                    }else if (api.getImplementation().equalsIgnoreCase(APIConstants.IMPLEMENTATION_TYPE_ENDPOINT)){
-                        client.updateApi(builder, tenantDomain, api.getId());
+                    //Update the API. The gateway rebuilds the whole API on an update, so it is only updated if its
+                    //configuration differs from the deployed one.
+                    String apiConfig = getAPIConfig(api, builder, environment);
+                    if (apiConfig != null) {
+                        String apiName = getQualifiedName(api);
+                        if (isArtifactModified(environment, tenantDomain, apiName, apiConfig)) {
+                            client.updateApi(apiConfig, tenantDomain, api.getId());
+                            recordDeployedArtifact(environment, tenantDomain, apiName, apiConfig);
+                        } else if (debugEnabled) {
+                            log.debug("Configuration of API " + api.getId().getApiName() + " is unchanged in " +
+                                      "environment " + environment.getName() + ". Skipping the update of the API");
+                        }
                     }
 
                     if(api.isDefaultVersion() || api.isPublishedDefaultVersion()){//api.isPublishedDefaultVersion() check is used to detect and update when context etc. is changed in the api which is not the default version but has a published default api
+                        String defaultAPIConfig = getDefaultAPIConfig(api, builder);
+                        String defaultAPIName = getQualifiedDefaultAPIName(api);
                         if(client.getDefaultApi(tenantDomain, api.getId())!=null){
-                            client.updateDefaultApi(builder, tenantDomain, api.getId().getVersion(), api.getId());
+                            if (isArtifactModified(environment, tenantDomain, defaultAPIName, defaultAPIConfig)) {
+                                client.updateDefaultApi(defaultAPIConfig, tenantDomain, api.getId());
+                            }
                         }else{
-                            client.addDefaultAPI(builder, tenantDomain, api.getId().getVersion(), api.getId());
+                            client.addDefaultAPI(defaultAPIConfig, tenantDomain, api.getId());
                         }
+                        recordDeployedArtifact(environment, tenantDomain, defaultAPIName, defaultAPIConfig);
                     }
 					setSecureVaultProperty(api, tenantDomain, environment, operation);
 
@@ -161,6 +180,10 @@ public class APIGatewayManager {
 
                     operation ="add";
 
+                    //The API may have been removed from the gateway by other means after it was last deployed
+                    removeDeployedArtifact(environment, tenantDomain, getQualifiedName(api));
+                    removeDeployedArtifact(environment, tenantDomain, getQualifiedDefaultAPIName(api));
+
                     //Add the API
                     if(APIConstants.IMPLEMENTATION_TYPE_INLINE.equalsIgnoreCase(api.getImplementation())){
                         client.addPrototypeApiScriptImpl(builder, tenantDomain, api.getId());
@@ -198,6 +221,10 @@ public class APIGatewayManager {
                 log.error("Error occurred deploying sequences on " + environmentName, ex);
                 failedEnvironmentsMap.put(environmentName, ex.getMessage());
             }
+            if (debugEnabled) {
+                log.debug("Publishing API " + api.getId().getApiName() + " to environment " + environmentName +
+                          " took " + (System.currentTimeMillis() - startTime) + " ms");
+            }
         }
         return failedEnvironmentsMap;
     }
@@ -229,6 +256,7 @@ public class APIGatewayManager {
                         }
                         String operation = "delete";
                         client.deleteApi(tenantDomain, api.getId());
+                        removeDeployedArtifact(environment, tenantDomain, getQualifiedName(api));
                         undeployCustomSequences(api, tenantDomain, environment);
                         setSecureVaultProperty(api, tenantDomain, environment, operation);
                     }
@@ -236,6 +264,7 @@ public class APIGatewayManager {
                     if (api.isPublishedDefaultVersion()) {
                         if (client.getDefaultApi(tenantDomain, api.getId()) != null) {
                             client.deleteDefaultApi(tenantDomain, api.getId());
+                            removeDeployedArtifact(environment, tenantDomain, getQualifiedDefaultAPIName(api));
                         }
                     }
                 } catch (AxisFault axisFault) {
@@ -274,6 +303,7 @@ public class APIGatewayManager {
                                       environment.getName());
                         }
                         client.deleteDefaultApi(tenantDomain, api.getId());
+                        removeDeployedArtifact(environment, tenantDomain, getQualifiedDefaultAPIName(api));
                     }
                 } catch (AxisFault axisFault) {
                     /*
@@ -375,8 +405,10 @@ public class APIGatewayManager {
             if (inSequence.getAttribute(new QName("name")) != null) {
                 inSequence.getAttribute(new QName("name")).setAttributeValue(inSeqExt);
             }
-            APIGatewayAdminClient sequenceAdminServiceClient = new APIGatewayAdminClient(api.getId(), environment);
-            sequenceAdminServiceClient.addSequence(inSequence, tenantDomain);
+            deploySequence(api, inSequence, inSeqExt, tenantDomain, environment);
+        } else {
+            undeploySequence(api, APIUtil.getSequenceExtensionName(api) + APIConstants.API_CUSTOM_SEQ_IN_EXT,
+                             tenantDomain, environment);
         }
     }
 
@@ -391,9 +423,49 @@ public class APIGatewayManager {
             if (outSequence.getAttribute(new QName("name")) != null)    {
                 outSequence.getAttribute(new QName("name")).setAttributeValue(outSeqExt);
             }
-            APIGatewayAdminClient client = new APIGatewayAdminClient(api.getId(), environment);
-            client.addSequence(outSequence, tenantDomain);
+            deploySequence(api, outSequence, outSeqExt, tenantDomain, environment);
+        } else {
+            undeploySequence(api, APIUtil.getSequenceExtensionName(api) + APIConstants.API_CUSTOM_SEQ_OUT_EXT,
+                             tenantDomain, environment);
+        }
+    }
+
+    /**
+     * Deploys a custom sequence of an API, replacing the deployed sequence of the same name. The deployed sequence is
+     * left as it is if it has not changed since it was deployed.
+     *
+     * @param api          - The API the sequence belongs to
+     * @param sequence     - The sequence to be deployed
+     * @param sequenceName - The name the sequence is deployed with
+     * @param tenantDomain - Tenant Domain of the publisher
+     * @param environment  - The environment to deploy the sequence to
+     * @throws AxisFault
+     */
+    private void deploySequence(API api, OMElement sequence, String sequenceName, String tenantDomain,
+                                Environment environment) throws AxisFault {
+        APIGatewayAdminClient client = new APIGatewayAdminClient(api.getId(), environment);
+        String sequenceConfig = sequence.toString();
+        if (client.isExistingSequence(sequenceName, tenantDomain)) {
+            if (!isArtifactModified(environment, tenantDomain, sequenceName, sequenceConfig)) {
+                if (debugEnabled) {
+                    log.debug("Sequence " + sequenceName + " is unchanged in environment " + environment.getName() +
+                              ". Skipping the deployment of the sequence");
+                }
+                return;
+            }
+            client.deleteSequence(sequenceName, tenantDomain);
+        }
+        client.addSequence(sequence, tenantDomain);
+        recordDeployedArtifact(environment, tenantDomain, sequenceName, sequenceConfig);
+    }
+
+    private void undeploySequence(API api, String sequenceName, String tenantDomain, Environment environment)
+            throws AxisFault {
+        APIGatewayAdminClient client = new APIGatewayAdminClient(api.getId(), environment);
+        if (client.isExistingSequence(sequenceName, tenantDomain)) {
+            client.deleteSequence(sequenceName, tenantDomain);
         }
+        removeDeployedArtifact(environment, tenantDomain, sequenceName);
     }
 
 	/**
@@ -420,14 +492,17 @@ public class APIGatewayManager {
 
                 if (APIUtil.isSequenceDefined(api.getInSequence())) {
                     String inSequence = APIUtil.getSequenceExtensionName(api) + APIConstants.API_CUSTOM_SEQ_IN_EXT;
+                    removeDeployedArtifact(environment, tenantDomain, inSequence);
                     client.deleteSequence(inSequence, tenantDomain);
                 }
                 if (APIUtil.isSequenceDefined(api.getOutSequence())) {
                     String outSequence = APIUtil.getSequenceExtensionName(api) + APIConstants.API_CUSTOM_SEQ_OUT_EXT;
+                    removeDeployedArtifact(environment, tenantDomain, outSequence);
                     client.deleteSequence(outSequence, tenantDomain);
                 }
                 if (APIUtil.isSequenceDefined(api.getFaultSequence())) {
                     String faultSequence = APIUtil.getSequenceExtensionName(api) + APIConstants.API_CUSTOM_SEQ_FAULT_EXT;
+                    removeDeployedArtifact(environment, tenantDomain, faultSequence);
                     if(client.isExistingSequence(faultSequence, tenantDomain)) {
                         client.deleteSequence(faultSequence, tenantDomain);
                     }                    
@@ -466,36 +541,29 @@ public class APIGatewayManager {
                 }
                 int tenantId = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
 
-                APIGatewayAdminClient client = new APIGatewayAdminClient(api.getId(), environment);
-
                 //If an inSequence has been added, updated or removed.
                 if (APIUtil.isSequenceDefined(api.getInSequence()) || APIUtil.isSequenceDefined(api.getOldInSequence())) {
-                    String inSequenceKey = APIUtil.getSequenceExtensionName(api) + APIConstants.API_CUSTOM_SEQ_IN_EXT;
-                    //If sequence already exists
-                    if (client.isExistingSequence(inSequenceKey, tenantDomain)) {
-                        //Delete existing sequence
-                        client.deleteSequence(inSequenceKey, tenantDomain);
-                    }
                     //If an inSequence has been added or updated.
                     if(APIUtil.isSequenceDefined(api.getInSequence())){
-                        //Deploy the inSequence
+                        //Deploy the inSequence, replacing the existing sequence if it has been updated
                         deployInSequence(api, tenantId, tenantDomain, environment);
+                    } else {
+                        //Delete the existing sequence
+                        undeploySequence(api, APIUtil.getSequenceExtensionName(api) +
+                                              APIConstants.API_CUSTOM_SEQ_IN_EXT, tenantDomain, environment);
                     }
                 }
 
                 //If an outSequence has been added, updated or removed.
                 if (APIUtil.isSequenceDefined(api.getOutSequence()) || APIUtil.isSequenceDefined(api.getOldOutSequence())) {
-                    String outSequence = APIUtil.getSequenceExtensionName(api) + APIConstants.API_CUSTOM_SEQ_OUT_EXT;
-                    //If the outSequence exists.
-                    if (client.isExistingSequence(outSequence, tenantDomain)) {
-                        //Delete existing outSequence
-                        client.deleteSequence(outSequence, tenantDomain);
-                    }
-
                     //If an outSequence has been added or updated.
                     if (APIUtil.isSequenceDefined(api.getOutSequence())){
-                        //Deploy outSequence
+                        //Deploy the outSequence, replacing the existing sequence if it has been updated
                         deployOutSequence(api, tenantId, tenantDomain, environment);
+                    } else {
+                        //Delete the existing outSequence
+                        undeploySequence(api, APIUtil.getSequenceExtensionName(api) +
+                                              APIConstants.API_CUSTOM_SEQ_OUT_EXT, tenantDomain, environment);
                     }
                 }
             } catch (Exception e) {
@@ -530,30 +598,46 @@ public class APIGatewayManager {
 
                 APIGatewayAdminClient client = new APIGatewayAdminClient(api.getId(), environment);
 
+                //Get the fault sequence xml
+                OMElement faultSequence = APIUtil.getCustomSequence(faultSequenceName, tenantId, 
+                                                            APIConstants.API_CUSTOM_SEQUENCE_TYPE_FAULT, api.getId());
+                boolean isPerAPISequence = faultSequence != null &&
+                                           APIUtil.isPerAPISequence(faultSequenceName, tenantId, api.getId(),
+                                                                    APIConstants.API_CUSTOM_SEQUENCE_TYPE_FAULT);
+                if (isPerAPISequence && faultSequence.getAttribute(new QName("name")) != null) {
+                    faultSequence.getAttribute(new QName("name")).setAttributeValue(faultSeqExt);
+                }
+                String deployedSequenceName = isPerAPISequence ? faultSeqExt : faultSequenceName;
+
+                //The deployed sequence is left as it is if it has not been updated.
+                if (faultSequence != null && client.isExistingSequence(deployedSequenceName, tenantDomain) &&
+                    !isArtifactModified(environment, tenantDomain, deployedSequenceName, faultSequence.toString())) {
+                    if (debugEnabled) {
+                        log.debug("Fault sequence " + deployedSequenceName + " is unchanged in environment " +
+                                  environment.getName() + ". Skipping the deployment of the sequence");
+                    }
+                    return;
+                }
+
                 //If the sequence already exists
                 if (client.isExistingSequence(faultSequenceName, tenantDomain)) {
                     //Delete the sequence. We need to redeploy afterwards since the sequence may have been updated.
                     client.deleteSequence(faultSequenceName, tenantDomain);
                 }
-                //Get the fault sequence xml
-                OMElement faultSequence = APIUtil.getCustomSequence(faultSequenceName, tenantId, 
-                                                            APIConstants.API_CUSTOM_SEQUENCE_TYPE_FAULT, api.getId());
 
                 if (faultSequence != null) {
-                    if (APIUtil.isPerAPISequence(faultSequenceName, tenantId, api.getId(), 
-                                                 APIConstants.API_CUSTOM_SEQUENCE_TYPE_FAULT)) {
-                        if (faultSequence.getAttribute(new QName("name")) != null)    {
-                            faultSequence.getAttribute(new QName("name")).setAttributeValue(faultSeqExt);
-                        }
-                    } else {
+                    if (!isPerAPISequence) {
                         //If the previous sequence was a per API fault sequence delete it
                         if (client.isExistingSequence(faultSeqExt, tenantDomain)) {
                             client.deleteSequence(faultSeqExt, tenantDomain);
                         }
+                        removeDeployedArtifact(environment, tenantDomain, faultSeqExt);
                     }
 
                     //Deploy the fault sequence
+                    String faultSequenceConfig = faultSequence.toString();
                     client.addSequence(faultSequence, tenantDomain);
+                    recordDeployedArtifact(environment, tenantDomain, deployedSequenceName, faultSequenceConfig);
                 }
             } catch (Exception e) {
                 String msg = "Error in updating the fault sequence at the Gateway";
@@ -596,4 +680,98 @@ public class APIGatewayManager {
 			}
 		}
 	}
+
+    private String getAPIConfig(API api, APITemplateBuilder builder, Environment environment)
+            throws APIManagementException {
+        try {
+            if (APIConstants.IMPLEMENTATION_TYPE_INLINE.equalsIgnoreCase(api.getImplementation())) {
+                return builder.getConfigStringForPrototypeScriptAPI(environment);
+            } else if (APIConstants.IMPLEMENTATION_TYPE_ENDPOINT.equalsIgnoreCase(api.getImplementation())) {
+                return builder.getConfigStringForTemplate(environment);
+            }
+            return null;
+        } catch (APITemplateException e) {
+            throw new APIManagementException("Error while generating the configuration of API " +
+                                             api.getId().getApiName(), e);
+        }
+    }
+
+    private String getDefaultAPIConfig(API api, APITemplateBuilder builder) throws APIManagementException {
+        try {
+            return builder.getConfigStringForDefaultAPITemplate(api.getId().getVersion());
+        } catch (APITemplateException e) {
+            throw new APIManagementException("Error while generating the configuration of the default API of " +
+                                             api.getId().getApiName(), e);
+        }
+    }
+
+    private String getQualifiedName(API api) {
+        return api.getId().getProviderName() + "--" + api.getId().getApiName() + ":v" + api.getId().getVersion();
+    }
+
+    private String getQualifiedDefaultAPIName(API api) {
+        return api.getId().getProviderName() + "--" + api.getId().getApiName();
+    }
+
+    /**
+     * Checks whether an API or sequence differs from the one last deployed with the same name to an environment. The
+     * digests of deployed artifacts are kept in a cluster wide cache, so an artifact which is not in it, e.g. because
+     * its entry has expired, is considered modified and is redeployed.
+     *
+     * @param environment  - The environment the artifact is deployed to
+     * @param tenantDomain - Tenant Domain of the publisher
+     * @param artifactName - Name of the API or sequence in the gateway
+     * @param artifact     - Configuration of the API or sequence to be deployed
+     * @return True if the artifact has to be deployed
+     */
+    private boolean isArtifactModified(Environment environment, String tenantDomain, String artifactName,
+                                       String artifact) {
+        Object deployedDigest;
+        try {
+            PrivilegedCarbonContext.startTenantFlow();
+            PrivilegedCarbonContext.getThreadLocalCarbonContext()
+                    .setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME, true);
+            deployedDigest = getGatewayArtifactDigestCache()
+                    .get(getGatewayArtifactKey(environment, tenantDomain, artifactName));
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+        return !DigestUtils.sha256Hex(artifact).equals(deployedDigest);
+    }
+
+    private void recordDeployedArtifact(Environment environment, String tenantDomain, String artifactName,
+                                        String artifact) {
+        try {
+            PrivilegedCarbonContext.startTenantFlow();
+            PrivilegedCarbonContext.getThreadLocalCarbonContext()
+                    .setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME, true);
+            getGatewayArtifactDigestCache().put(getGatewayArtifactKey(environment, tenantDomain, artifactName),
+                                                DigestUtils.sha256Hex(artifact));
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+    }
+
+    private void removeDeployedArtifact(Environment environment, String tenantDomain, String artifactName) {
+        try {
+            PrivilegedCarbonContext.startTenantFlow();
+            PrivilegedCarbonContext.getThreadLocalCarbonContext()
+                    .setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME, true);
+            getGatewayArtifactDigestCache().remove(getGatewayArtifactKey(environment, tenantDomain, artifactName));
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+    }
+
+    private Cache getGatewayArtifactDigestCache() {
+        return Caching.getCacheManager(APIConstants.API_MANAGER_CACHE_MANAGER)
+                      .getCache(APIConstants.GATEWAY_ARTIFACT_DIGEST_CACHE);
+    }
+
+    private String getGatewayArtifactKey(Environment environment, String tenantDomain, String artifactName) {
+        if (tenantDomain == null || tenantDomain.isEmpty()) {
+            tenantDomain = MultitenantConstants.SUPER_TENANT_DOMAIN_NAME;
+        }
+        return environment.getName() + ':' + tenantDomain + ':' + artifactName;
+    }
 }
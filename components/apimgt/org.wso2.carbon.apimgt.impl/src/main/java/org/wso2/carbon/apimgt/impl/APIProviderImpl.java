@@ -388,6 +388,12 @@ class APIProviderImpl extends AbstractAPIManager implements APIProvider {
         return count;
     }
 
+    @Override
+    public Map<APIIdentifier, Long> getSubscriptionCountsOfAPIs(String providerName, int start, int end)
+            throws APIManagementException {
+        return apiMgtDAO.getSubscriptionCountsOfAPIs(providerName, tenantId, start, end);
+    }
+
     @Override
     public void addTier(Tier tier) throws APIManagementException {
         addOrUpdateTier(tier, false);
@@ -848,6 +854,7 @@ class APIProviderImpl extends AbstractAPIManager implements APIProvider {
                             "Error in retrieving Tenant Information while updating api :" + api.getId().getApiName(), e);
                 }
                 apiMgtDAO.updateAPI(api,tenantId);
+                APIUtil.clearAPIResourceMetadataCache(oldApi.getContext(), oldApi.getId().getVersion());
                 if (log.isDebugEnabled()) {
                     log.debug("Successfully updated the API: " + api.getId() + " in the database");
                 }
@@ -1237,6 +1244,7 @@ class APIProviderImpl extends AbstractAPIManager implements APIProvider {
 
                 updateApiArtifact(api, false,false);
                 apiMgtDAO.recordAPILifeCycleEvent(api.getId(), currentStatus, status, userId, this.tenantId);
+                APIUtil.clearAPIResourceMetadataCache(api.getContext(), api.getId().getVersion());
 
                 if(api.isDefaultVersion() || api.isPublishedDefaultVersion()){ //published default version need to be changed
                     apiMgtDAO.updateDefaultAPIPublishedVersion(api.getId(), currentStatus, status);
@@ -1954,19 +1962,7 @@ class APIProviderImpl extends AbstractAPIManager implements APIProvider {
 
             //Sending Notifications to existing subscribers
             try {
-                String isNotificationEnabled = "false";
-                Registry configRegistry = ServiceReferenceHolder.getInstance().getRegistryService().
-                        getConfigSystemRegistry(tenantId);
-                if (configRegistry.resourceExists(APIConstants.API_TENANT_CONF_LOCATION)) {
-                    Resource resource = configRegistry.get(APIConstants.API_TENANT_CONF_LOCATION);
-                    String content = new String((byte[]) resource.getContent(), Charset.defaultCharset());
-                    if(content !=null ){
-                        JSONObject tenantConfig= (JSONObject) new JSONParser().parse(content);
-                        isNotificationEnabled = (String) tenantConfig.get(NotifierConstants.NOTIFICATIONS_ENABLED);
-                    }
-                }
-
-                if (JavaUtils.isTrueExplicitly(isNotificationEnabled)){
+                if (APIUtil.getTenantConfig(tenantDomain).isNotificationsEnabled()) {
 
                     Properties prop = new Properties();
                     prop.put(NotifierConstants.API_KEY, api.getId());
@@ -2582,7 +2578,9 @@ class APIProviderImpl extends AbstractAPIManager implements APIProvider {
                 contextCache.put(context, Boolean.FALSE);
             }
 
+            String apiContext = apiMgtDAO.getAPIContext(identifier);
             apiMgtDAO.deleteAPI(identifier);
+            APIUtil.clearAPIResourceMetadataCache(apiContext, identifier.getVersion());
 
             if (log.isDebugEnabled()) {
                 String logMessage =
@@ -2797,24 +2795,7 @@ class APIProviderImpl extends AbstractAPIManager implements APIProvider {
      * @throws APIManagementException
      */
     private String getExtensionHandlerPosition() throws APIManagementException {
-        String extensionHandlerPosition = null;
-        APIMRegistryService apimRegistryService = new APIMRegistryServiceImpl();
-        try {
-            String content = apimRegistryService.getConfigRegistryResourceContent(tenantDomain, APIConstants
-                    .API_TENANT_CONF_LOCATION);
-            if (content != null) {
-                JSONParser jsonParser = new JSONParser();
-                JSONObject tenantConf = (JSONObject) jsonParser.parse(content);
-                extensionHandlerPosition = (String) tenantConf.get(APIConstants.EXTENSION_HANDLER_POSITION);
-            }
-        } catch (RegistryException e) {
-            handleException("Couldn't read tenant configuration from tenant registry", e);
-        }catch (UserStoreException  e) {
-            handleException("Couldn't read tenant configuration from tenant registry", e);
-        } catch (ParseException e) {
-            handleException("Couldn't parse tenant configuration for reading extension handler position", e);
-        }
-        return extensionHandlerPosition;
+        return APIUtil.getTenantConfig(tenantDomain).getExtensionHandlerPosition();
     }
 
     /**
@@ -4068,6 +4049,10 @@ class APIProviderImpl extends AbstractAPIManager implements APIProvider {
             handleException("Error while generating policy", e);
         }
 
+        if (!PolicyConstants.POLICY_LEVEL_GLOBAL.equals(policyLevel)) {
+            APIUtil.clearPolicyTiersCache(policy.getTenantId());
+        }
+
         // deploy in global cep and gateway manager
         try {
             Iterator iterator = executionFlows.entrySet().iterator();
@@ -4185,6 +4170,10 @@ class APIProviderImpl extends AbstractAPIManager implements APIProvider {
         } catch (APITemplateException e) {
             handleException("Error while generating policy for update");
         }
+
+        if (!PolicyConstants.POLICY_LEVEL_GLOBAL.equals(policyLevel)) {
+            APIUtil.clearPolicyTiersCache(policy.getTenantId());
+        }
         // Deploy in global cep and gateway manager
         try {
             /* If single pipeline fails to deploy then whole deployment should fail.
@@ -4292,6 +4281,9 @@ class APIProviderImpl extends AbstractAPIManager implements APIProvider {
         }
         //remove from database
         apiMgtDAO.removeThrottlePolicy(policyLevel, policyName, tenantID);
+        if (!PolicyConstants.POLICY_LEVEL_GLOBAL.equals(policyLevel)) {
+            APIUtil.clearPolicyTiersCache(tenantID);
+        }
 
         if (globalPolicy != null) {
             publishKeyTemplateEvent(globalPolicy.getKeyTemplate(), "remove");
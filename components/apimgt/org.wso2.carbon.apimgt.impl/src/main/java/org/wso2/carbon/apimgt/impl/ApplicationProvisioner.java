@@ -0,0 +1,410 @@
+/*
+*  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.apimgt.impl;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.apimgt.api.APIManagementException;
+import org.wso2.carbon.apimgt.api.model.API;
+import org.wso2.carbon.apimgt.api.model.APIIdentifier;
+import org.wso2.carbon.apimgt.api.model.APIStatus;
+import org.wso2.carbon.apimgt.api.model.Application;
+import org.wso2.carbon.apimgt.api.model.ApplicationProvisioningResult;
+import org.wso2.carbon.apimgt.api.model.SubscribedAPI;
+import org.wso2.carbon.apimgt.api.model.Subscriber;
+import org.wso2.carbon.apimgt.impl.workflow.WorkflowException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Provisions the applications of a subscriber in bulk, see
+ * {@link org.wso2.carbon.apimgt.api.APIConsumer#provisionApplications}. This class decides what is added in which
+ * transaction and what is reported for each item. The subclass reads and writes the database and runs the workflows
+ * and the key manager.
+ */
+abstract class ApplicationProvisioner {
+
+    private static final Log log = LogFactory.getLog(ApplicationProvisioner.class);
+
+    private final int chunkSize;
+
+    /**
+     * @param chunkSize number of applications provisioned per transaction, or 0 for the default
+     */
+    ApplicationProvisioner(int chunkSize) {
+        this.chunkSize = chunkSize > 0 ? chunkSize : APIConstants.APPLICATION_PROVISIONING_CHUNK_SIZE;
+    }
+
+    /**
+     * @return the applications of the subscriber, each with its subscriptions
+     */
+    abstract Application[] getApplicationsWithSubscribedAPIs(Subscriber subscriber) throws APIManagementException;
+
+    /**
+     * Adds the applications in a single transaction, setting the id of each.
+     */
+    abstract void addApplications(List<Application> applications, String userId) throws APIManagementException;
+
+    /**
+     * Runs the application creation workflow of an added application.
+     */
+    abstract void executeApplicationCreationWorkflow(Application application, String userId)
+            throws WorkflowException;
+
+    abstract void removeApplication(Application application) throws APIManagementException;
+
+    abstract API getAPI(APIIdentifier identifier) throws APIManagementException;
+
+    /**
+     * Adds a subscription of an existing application, replacing one which was removed.
+     *
+     * @return id of the subscription
+     */
+    abstract int addSubscription(APIIdentifier identifier, String apiContext, int applicationId, String userId)
+            throws APIManagementException;
+
+    /**
+     * Adds the subscriptions of new applications in a single transaction, setting the id of each.
+     */
+    abstract void addSubscriptions(List<SubscribedAPI> subscriptions, String userId) throws APIManagementException;
+
+    /**
+     * Runs the subscription creation workflow of an added subscription.
+     */
+    abstract void executeSubscriptionCreationWorkflow(SubscribedAPI subscription, API api, String userId)
+            throws WorkflowException;
+
+    abstract void removeSubscription(int subscriptionId) throws APIManagementException;
+
+    /**
+     * Called once for each application which has new subscriptions, after they are added.
+     */
+    abstract void invalidateCachedKeys(int applicationId) throws APIManagementException;
+
+    /**
+     * @return consumer key of the keys of the type of the application, or null if it has none
+     */
+    abstract String getConsumerKey(int applicationId, String keyType) throws APIManagementException;
+
+    abstract String getApplicationStatus(int applicationId) throws APIManagementException;
+
+    /**
+     * Registers the application with the key manager and generates its keys.
+     *
+     * @return consumer key of the generated keys
+     */
+    abstract String generateKeys(String userId, Application application, String keyType, String[] allowedDomains,
+                                 String validityTime, String tokenScope) throws APIManagementException;
+
+    /**
+     * Provisions the applications in chunks of the chunk size, each with its subscriptions and, if a key type is
+     * given, its keys.
+     *
+     * @return result of each application, in the order of the given applications
+     * @throws APIManagementException if the existing applications and subscriptions of the subscriber could not be
+     *                                read
+     */
+    List<ApplicationProvisioningResult> provision(String userId, List<Application> applications, String keyType,
+                                                  String[] allowedDomains, String validityTime, String tokenScope)
+            throws APIManagementException {
+        Subscriber subscriber = new Subscriber(userId);
+
+        // the existing applications and subscriptions are read once, so that items added by an earlier run of the
+        // same request are not added again
+        Map<String, Application> existingApplications = new HashMap<String, Application>();
+        Set<String> existingSubscriptions = new HashSet<String>();
+        for (Application application : getApplicationsWithSubscribedAPIs(subscriber)) {
+            existingApplications.put(application.getName(), application);
+            for (SubscribedAPI subscription : application.getSubscribedAPIs()) {
+                existingSubscriptions.add(getSubscriptionKey(application.getId(), subscription.getApiId()));
+            }
+        }
+        Map<APIIdentifier, API> apis = new HashMap<APIIdentifier, API>();
+
+        List<ApplicationProvisioningResult> results = new ArrayList<ApplicationProvisioningResult>();
+        for (int start = 0; start < applications.size(); start += chunkSize) {
+            List<Application> chunk = applications.subList(start, Math.min(start + chunkSize, applications.size()));
+            results.addAll(provisionChunk(userId, subscriber, chunk, existingApplications, existingSubscriptions,
+                    apis));
+        }
+
+        if (keyType != null) {
+            for (int i = 0; i < applications.size(); i++) {
+                ApplicationProvisioningResult result = results.get(i);
+                if (result.getApplicationStatus() != ApplicationProvisioningResult.Status.FAILED) {
+                    provisionKeys(userId, applications.get(i), result, keyType, allowedDomains, validityTime,
+                            tokenScope);
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Provisions a chunk of applications and their subscriptions. The new applications of the chunk are added in one
+     * transaction and the new subscriptions of their applications in another.
+     */
+    private List<ApplicationProvisioningResult> provisionChunk(String userId, Subscriber subscriber,
+                                                               List<Application> chunk,
+                                                               Map<String, Application> existingApplications,
+                                                               Set<String> existingSubscriptions,
+                                                               Map<APIIdentifier, API> apis) {
+        List<ApplicationProvisioningResult> results = new ArrayList<ApplicationProvisioningResult>(chunk.size());
+        List<Application> newApplications = new ArrayList<Application>();
+        Map<String, Application> provisionedApplications = new HashMap<String, Application>();
+
+        for (Application application : chunk) {
+            ApplicationProvisioningResult result = new ApplicationProvisioningResult(application.getName());
+            results.add(result);
+            Application existing = existingApplications.get(application.getName());
+            if (existing != null) {
+                result.setApplicationStatus(ApplicationProvisioningResult.Status.EXISTING);
+                provisionedApplications.put(application.getName(), existing);
+            } else {
+                //check whether callback url is empty and set null
+                if (StringUtils.isBlank(application.getCallbackUrl())) {
+                    application.setCallbackUrl(null);
+                }
+                Application newApplication = new Application(application.getName(), subscriber);
+                newApplication.setTier(application.getTier());
+                newApplication.setCallbackUrl(application.getCallbackUrl());
+                newApplication.setDescription(application.getDescription());
+                newApplication.setGroupId(application.getGroupId());
+                newApplications.add(newApplication);
+                // an application requested more than once is added only once
+                existingApplications.put(application.getName(), newApplication);
+                provisionedApplications.put(application.getName(), newApplication);
+            }
+        }
+
+        Set<String> failedApplications = new HashSet<String>();
+        if (!newApplications.isEmpty()) {
+            try {
+                addApplications(newApplications, userId);
+            } catch (APIManagementException e) {
+                log.error("Failed to add applications of " + userId, e);
+                for (Application application : newApplications) {
+                    failedApplications.add(application.getName());
+                    existingApplications.remove(application.getName());
+                }
+            }
+        }
+
+        for (Application application : newApplications) {
+            if (failedApplications.contains(application.getName())) {
+                continue;
+            }
+            try {
+                executeApplicationCreationWorkflow(application, userId);
+            } catch (WorkflowException e) {
+                //If the workflow execution fails, roll back by removing the application entry.
+                log.error("Unable to execute Application Creation Workflow for " + application.getName(), e);
+                failedApplications.add(application.getName());
+                existingApplications.remove(application.getName());
+                try {
+                    removeApplication(application);
+                } catch (APIManagementException e1) {
+                    log.error("Failed to remove application " + application.getName(), e1);
+                }
+            }
+        }
+
+        // subscriptions of the new applications are added together, as there is nothing to check them against.
+        // Subscriptions of existing applications may have to replace one which was removed, so they are added
+        // one by one.
+        List<SubscribedAPI> newSubscriptions = new ArrayList<SubscribedAPI>();
+        List<ApplicationProvisioningResult> newSubscriptionResults = new ArrayList<ApplicationProvisioningResult>();
+        Set<Integer> subscribedApplications = new HashSet<Integer>();
+
+        for (int i = 0; i < chunk.size(); i++) {
+            ApplicationProvisioningResult result = results.get(i);
+            Application application = provisionedApplications.get(chunk.get(i).getName());
+            if (failedApplications.contains(application.getName())) {
+                result.setApplicationStatus(ApplicationProvisioningResult.Status.FAILED);
+                result.addError("Failed to add application " + application.getName());
+                continue;
+            }
+            if (result.getApplicationStatus() == null) {
+                result.setApplicationStatus(ApplicationProvisioningResult.Status.CREATED);
+            }
+            result.setApplicationId(application.getId());
+            result.setApplicationUUID(application.getUUID());
+
+            for (SubscribedAPI requested : chunk.get(i).getSubscribedAPIs()) {
+                APIIdentifier identifier = requested.getApiId();
+                if (identifier.getTier() == null && requested.getTier() != null) {
+                    identifier.setTier(requested.getTier().getName());
+                }
+                String subscriptionKey = getSubscriptionKey(application.getId(), identifier);
+                if (!existingSubscriptions.add(subscriptionKey)) {
+                    result.setSubscriptionStatus(identifier, ApplicationProvisioningResult.Status.EXISTING);
+                    continue;
+                }
+
+                API api;
+                try {
+                    api = apis.get(identifier);
+                    if (api == null) {
+                        api = getAPI(identifier);
+                        apis.put(identifier, api);
+                    }
+                } catch (APIManagementException e) {
+                    log.error("Failed to retrieve API " + identifier, e);
+                    existingSubscriptions.remove(subscriptionKey);
+                    result.setSubscriptionStatus(identifier, ApplicationProvisioningResult.Status.FAILED);
+                    result.addError("Failed to retrieve API " + identifier + " : " + e.getMessage());
+                    continue;
+                }
+                if (!APIStatus.PUBLISHED.equals(api.getStatus())) {
+                    existingSubscriptions.remove(subscriptionKey);
+                    result.setSubscriptionStatus(identifier, ApplicationProvisioningResult.Status.FAILED);
+                    result.addError("Subscriptions not allowed on APIs in the state: " +
+                            api.getStatus().getStatus());
+                    continue;
+                }
+
+                SubscribedAPI subscription = new SubscribedAPI(subscriber, identifier);
+                subscription.setApplication(application);
+                if (result.getApplicationStatus() == ApplicationProvisioningResult.Status.CREATED) {
+                    newSubscriptions.add(subscription);
+                    newSubscriptionResults.add(result);
+                } else {
+                    try {
+                        subscription.setSubscriptionId(addSubscription(identifier, api.getContext(),
+                                application.getId(), userId));
+                        if (completeSubscription(subscription, api, result, existingSubscriptions, userId)) {
+                            subscribedApplications.add(application.getId());
+                        }
+                    } catch (APIManagementException e) {
+                        log.error("Failed to subscribe application " + application.getName() + " to API "
+                                + identifier, e);
+                        existingSubscriptions.remove(subscriptionKey);
+                        result.setSubscriptionStatus(identifier, ApplicationProvisioningResult.Status.FAILED);
+                        result.addError("Failed to subscribe to API " + identifier + " : " + e.getMessage());
+                    }
+                }
+            }
+        }
+
+        if (!newSubscriptions.isEmpty()) {
+            boolean added = false;
+            try {
+                addSubscriptions(newSubscriptions, userId);
+                added = true;
+            } catch (APIManagementException e) {
+                log.error("Failed to add subscriptions of " + userId, e);
+            }
+            for (int i = 0; i < newSubscriptions.size(); i++) {
+                SubscribedAPI subscription = newSubscriptions.get(i);
+                ApplicationProvisioningResult result = newSubscriptionResults.get(i);
+                if (added) {
+                    if (completeSubscription(subscription, apis.get(subscription.getApiId()), result,
+                            existingSubscriptions, userId)) {
+                        subscribedApplications.add(subscription.getApplication().getId());
+                    }
+                } else {
+                    existingSubscriptions.remove(getSubscriptionKey(subscription.getApplication().getId(),
+                            subscription.getApiId()));
+                    result.setSubscriptionStatus(subscription.getApiId(),
+                            ApplicationProvisioningResult.Status.FAILED);
+                    result.addError("Failed to subscribe to API " + subscription.getApiId());
+                }
+            }
+        }
+
+        for (Integer applicationId : subscribedApplications) {
+            try {
+                invalidateCachedKeys(applicationId);
+            } catch (APIManagementException e) {
+                log.error("Failed to invalidate cached keys of application " + applicationId, e);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Executes the subscription creation workflow of an added subscription and records its outcome. The subscription
+     * is removed if the workflow fails.
+     *
+     * @return whether the subscription was created
+     */
+    private boolean completeSubscription(SubscribedAPI subscription, API api, ApplicationProvisioningResult result,
+                                         Set<String> existingSubscriptions, String userId) {
+        APIIdentifier identifier = subscription.getApiId();
+        try {
+            executeSubscriptionCreationWorkflow(subscription, api, userId);
+        } catch (WorkflowException e) {
+            log.error("Could not execute Workflow", e);
+            existingSubscriptions.remove(getSubscriptionKey(subscription.getApplication().getId(), identifier));
+            result.setSubscriptionStatus(identifier, ApplicationProvisioningResult.Status.FAILED);
+            result.addError("Could not execute subscription Workflow for API " + identifier);
+            try {
+                //If the workflow execution fails, roll back by removing the subscription entry.
+                removeSubscription(subscription.getSubscriptionId());
+            } catch (APIManagementException e1) {
+                log.error("Failed to remove subscription " + subscription.getSubscriptionId(), e1);
+            }
+            return false;
+        }
+        result.setSubscriptionStatus(identifier, ApplicationProvisioningResult.Status.CREATED);
+        return true;
+    }
+
+    /**
+     * Generates the keys of an application, unless it already has keys of the type or it is not approved yet.
+     */
+    private void provisionKeys(String userId, Application requested, ApplicationProvisioningResult result,
+                               String keyType, String[] allowedDomains, String validityTime, String tokenScope) {
+        try {
+            String consumerKey = null;
+            if (result.getApplicationStatus() == ApplicationProvisioningResult.Status.EXISTING) {
+                consumerKey = getConsumerKey(result.getApplicationId(), keyType);
+            }
+            if (consumerKey != null) {
+                result.setKeyStatus(ApplicationProvisioningResult.Status.EXISTING);
+                result.setConsumerKey(consumerKey);
+                return;
+            }
+            // keys can only be generated once the application creation workflow has approved the application
+            if (!APIConstants.ApplicationStatus.APPLICATION_APPROVED.equals(
+                    getApplicationStatus(result.getApplicationId()))) {
+                result.setKeyStatus(ApplicationProvisioningResult.Status.SKIPPED);
+                return;
+            }
+            result.setConsumerKey(generateKeys(userId, requested, keyType, allowedDomains, validityTime,
+                    tokenScope));
+            result.setKeyStatus(ApplicationProvisioningResult.Status.CREATED);
+        } catch (APIManagementException e) {
+            log.error("Failed to generate " + keyType + " keys of application " + requested.getName(), e);
+            result.setKeyStatus(ApplicationProvisioningResult.Status.FAILED);
+            result.addError("Failed to generate keys : " + e.getMessage());
+        }
+    }
+
+    private static String getSubscriptionKey(int applicationId, APIIdentifier identifier) {
+        return applicationId + ":" + identifier.getProviderName() + ":" + identifier.getApiName() + ":"
+                + identifier.getVersion();
+    }
+}
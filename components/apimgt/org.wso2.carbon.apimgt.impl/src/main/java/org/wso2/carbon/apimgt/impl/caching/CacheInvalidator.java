@@ -24,6 +24,8 @@ import org.apache.axis2.AxisFault;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.apimgt.api.APIManagementException;
+import org.wso2.carbon.apimgt.api.model.KeyManager;
+import org.wso2.carbon.apimgt.impl.AMDefaultKeyManagerImpl;
 import org.wso2.carbon.apimgt.impl.APIManagerConfiguration;
 import org.wso2.carbon.apimgt.impl.dao.ApiMgtDAO;
 import org.wso2.carbon.apimgt.impl.dto.Environment;
@@ -31,35 +33,76 @@ import org.wso2.carbon.apimgt.impl.factory.KeyManagerHolder;
 import org.wso2.carbon.apimgt.impl.internal.ServiceReferenceHolder;
 import org.wso2.carbon.apimgt.impl.utils.APIAuthenticationAdminClient;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
-import java.util.Map;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
-import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Can be used in Store for Invalidating Gateway Cache. When calling {@code invalidateCacheForApp} a new task will be
- * created for fetching active token created for the App and deleting those from the Cache. This thread will run
- * asynchronously.
+ * Can be used in Store for Invalidating Gateway Cache. Applications passed to {@code invalidateCacheForApp} within a
+ * short window are collected, and the active tokens of all of them are then removed from the Gateway caches
+ * asynchronously. An application passed more than once in the window is handled once.
  */
 public class CacheInvalidator {
 
     private static final Log log = LogFactory.getLog(CacheInvalidator.class);
 
+    // Time invalidation requests are collected for, before their tokens are looked up.
+    private static final long COALESCING_WINDOW_MILLIS = 500;
 
-    // Cached Thread pool was used, since removing/adding subscriptions is not a frequent operation,
-    // and we don't want a fix number of threads running all the time.
-    private Executor cacheInvalidationPool = Executors.newCachedThreadPool(new ThreadFactory() {
-        @Override
-        public Thread newThread(Runnable r) {
-            Thread thread = new Thread(r);
-            thread.setName("Store-CacheInvalidation");
-            return thread;
-        }
-    });
+    // Maximum number of applications whose tokens are read in one query and sent to the Gateways in one call.
+    private static final int BATCH_SIZE = 100;
+
+    // Maximum number of Gateway environments called at the same time.
+    static final int MAX_GATEWAY_THREADS = 5;
+
+    private static final long IDLE_THREAD_TIMEOUT_SECONDS = 60;
+
+    private final long coalescingWindowMillis;
+
+    private final int batchSize;
+
+    // Applications waiting for the next invalidation run. Guarded by itself.
+    private final Set<Integer> pendingAppIds = new LinkedHashSet<Integer>();
+
+    // Next invalidation run, or null if none is scheduled. Guarded by pendingAppIds.
+    private ScheduledFuture<?> scheduledInvalidation;
+
+    // A single thread runs the invalidations one after the other. Requests received while a run is in progress are
+    // collected for the next run, so bursts of requests do not create more threads or queries.
+    private final ScheduledThreadPoolExecutor invalidationScheduler;
+
+    // Calls the Gateway environments in parallel. Only the invalidation thread submits to it, and waits for the calls.
+    private final ThreadPoolExecutor gatewayInvalidationPool;
 
     private CacheInvalidator() {
+        this(COALESCING_WINDOW_MILLIS, BATCH_SIZE);
+    }
+
+    CacheInvalidator(long coalescingWindowMillis, int batchSize) {
+        this.coalescingWindowMillis = coalescingWindowMillis;
+        this.batchSize = batchSize;
+        // Threads are let to time out, since removing/adding subscriptions is not a frequent operation,
+        // and we don't want a fix number of threads running all the time.
+        invalidationScheduler = new ScheduledThreadPoolExecutor(1, new CacheInvalidationThreadFactory());
+        invalidationScheduler.setKeepAliveTime(IDLE_THREAD_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        invalidationScheduler.allowCoreThreadTimeOut(true);
+        gatewayInvalidationPool = new ThreadPoolExecutor(MAX_GATEWAY_THREADS, MAX_GATEWAY_THREADS,
+                IDLE_THREAD_TIMEOUT_SECONDS, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(MAX_GATEWAY_THREADS),
+                new CacheInvalidationThreadFactory(), new ThreadPoolExecutor.CallerRunsPolicy());
+        gatewayInvalidationPool.allowCoreThreadTimeOut(true);
     }
 
     private static class CacheInvalidationHolder {
@@ -71,80 +114,166 @@ public class CacheInvalidator {
     }
 
     /**
-     * When called an async thread will be created to invalidate the token for the App.
+     * Schedules the tokens of the App to be invalidated in the Gateways. Invalidation happens asynchronously,
+     * together with the other Apps scheduled within the coalescing window.
      *
      * @param appId
      */
     public void invalidateCacheForApp(int appId) {
-        CacheInvalidationTask task = new CacheInvalidationTask();
-        task.setAppId(appId);
-        cacheInvalidationPool.execute(task);
+        synchronized (pendingAppIds) {
+            pendingAppIds.add(appId);
+            if (scheduledInvalidation == null) {
+                scheduledInvalidation = invalidationScheduler.schedule(new CacheInvalidationTask(),
+                        coalescingWindowMillis, TimeUnit.MILLISECONDS);
+            }
+        }
     }
 
-    private class CacheInvalidationTask implements Runnable {
-
-        private int appId = -1;
+    /**
+     * Invalidates the pending Apps now instead of at the end of the coalescing window, and waits for the
+     * invalidation to finish. Apps scheduled afterwards are invalidated in the next run.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     * @throws ExecutionException if the invalidation fails
+     */
+    void flush() throws InterruptedException, ExecutionException {
+        synchronized (pendingAppIds) {
+            if (scheduledInvalidation != null && scheduledInvalidation.cancel(false)) {
+                invalidationScheduler.purge();
+            }
+        }
+        // Runs on the invalidation thread, after a run which may already be in progress
+        invalidationScheduler.submit(new CacheInvalidationTask()).get();
+    }
 
-        public void setAppId(int appId) {
-            this.appId = appId;
+    /**
+     * Reads the active tokens of a batch of applications. With the default key manager, tokens are read from the
+     * database in one query. Otherwise, the key manager is asked for the tokens of each consumer key.
+     *
+     * @param appIds IDs of the applications
+     * @return active tokens of the applications
+     * @throws APIManagementException if the tokens cannot be read
+     */
+    Set<String> getActiveTokens(Set<Integer> appIds) throws APIManagementException {
+        KeyManager keyManager = KeyManagerHolder.getKeyManagerInstance();
+        // Subclasses of the default key manager may read tokens from elsewhere
+        if (keyManager != null && AMDefaultKeyManagerImpl.class.equals(keyManager.getClass())) {
+            return ApiMgtDAO.getInstance().getActiveTokensOfApplications(appIds);
+        }
+        Set<String> activeTokens = new HashSet<String>();
+        for (String consumerKey : ApiMgtDAO.getInstance().getConsumerKeysOfApplications(appIds)) {
+            Set<String> tempTokens = keyManager.getActiveTokensByConsumerKey(consumerKey);
+            if (tempTokens != null) {
+                activeTokens.addAll(tempTokens);
+            }
         }
+        return activeTokens;
+    }
 
-        @Override
-        public void run() {
+    Collection<Environment> getGatewayEnvironments() {
+        APIManagerConfiguration config = ServiceReferenceHolder.getInstance().
+                getAPIManagerConfigurationService().getAPIManagerConfiguration();
+        if (config == null) {
+            return Collections.emptyList();
+        }
+        return config.getApiGatewayEnvironments().values();
+    }
 
-            APIManagerConfiguration config = ServiceReferenceHolder.getInstance().
-                    getAPIManagerConfigurationService().getAPIManagerConfiguration();
+    void invalidateCachedTokens(Environment environment, Set<String> activeTokens) throws AxisFault {
+        APIAuthenticationAdminClient client = new APIAuthenticationAdminClient(environment);
+        client.invalidateCachedTokens(activeTokens);
+    }
 
-            // If Gateway environments are not set, Cache invalidation will not happen.
-            if (config == null || config.getApiGatewayEnvironments().isEmpty()) {
-                return;
-            }
+    private void invalidatePendingApps() {
+        List<Integer> appIds;
+        synchronized (pendingAppIds) {
+            appIds = new ArrayList<Integer>(pendingAppIds);
+            pendingAppIds.clear();
+            scheduledInvalidation = null;
+        }
 
-            Set<String> consumerKeys = null;
-            Set<String> activeTokens = null;
+        Collection<Environment> gatewayEnvs = getGatewayEnvironments();
+        // If Gateway environments are not set, Cache invalidation will not happen.
+        if (gatewayEnvs.isEmpty()) {
+            return;
+        }
 
+        for (int i = 0; i < appIds.size(); i += batchSize) {
+            Set<Integer> batch = new HashSet<Integer>(appIds.subList(i, Math.min(i + batchSize, appIds.size())));
+            Set<String> activeTokens;
             try {
-                consumerKeys = ApiMgtDAO.getInstance().getConsumerKeysOfApplication(appId);
-                activeTokens = new HashSet<String>();
-                for (String consumerKey : consumerKeys) {
-                    Set<String> tempTokens = KeyManagerHolder.getKeyManagerInstance().
-                            getActiveTokensByConsumerKey(consumerKey);
-                    if (tempTokens != null) {
-                        activeTokens.addAll(tempTokens);
-                    }
-                }
+                activeTokens = getActiveTokens(batch);
             } catch (APIManagementException e) {
-                log.error("Error occurred while getting Active Tokens", e);
-                return;
+                log.error("Error occurred while getting Active Tokens of applications " + batch, e);
+                continue;
             }
 
-            if (activeTokens.isEmpty()) {
-                return;
+            if (!activeTokens.isEmpty()) {
+                invalidateCachedTokens(gatewayEnvs, activeTokens);
             }
+        }
+    }
 
-            Map<String, Environment> gatewayEnvs = config.getApiGatewayEnvironments();
-
-            for (Environment environment : gatewayEnvs.values()) {
-                try {
-                    if (log.isDebugEnabled()) {
-                        log.debug("Started invalidation tokens for environment: " + environment.getName());
-                    }
-                    APIAuthenticationAdminClient client = new APIAuthenticationAdminClient(environment);
-                    client.invalidateCachedTokens(activeTokens);
-                    if (log.isDebugEnabled()) {
-                        log.debug("Successfully called AdminService for revoking tokens : " + environment.getName());
+    private void invalidateCachedTokens(Collection<Environment> gatewayEnvs, final Set<String> activeTokens) {
+        List<Future<?>> invalidations = new ArrayList<Future<?>>(gatewayEnvs.size());
+        for (final Environment environment : gatewayEnvs) {
+            invalidations.add(gatewayInvalidationPool.submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        if (log.isDebugEnabled()) {
+                            log.debug("Started invalidation tokens for environment: " + environment.getName());
+                        }
+                        invalidateCachedTokens(environment, activeTokens);
+                        if (log.isDebugEnabled()) {
+                            log.debug("Successfully called AdminService for revoking tokens : " +
+                                      environment.getName());
+                        }
+                    } catch (AxisFault axisFault) {
+                        //log and ignore since we do not have to halt the user operation due to cache invalidation
+                        //failures.
+                        log.error("Error occurred while invalidating Token Cache for environment " +
+                                  environment.getName(), axisFault);
                     }
-                } catch (AxisFault axisFault) {
-                    //log and ignore since we do not have to halt the user operation due to cache invalidation failures.
-                    log.error("Error occurred while invalidating Token Cache for environment " + environment.getName(),
-                              axisFault);
                 }
+            }));
+        }
+
+        // Waiting for the Gateways keeps the next batch from being read before this one is sent.
+        for (Future<?> invalidation : invalidations) {
+            try {
+                invalidation.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                log.error("Error occurred while invalidating Token Cache", e.getCause());
             }
+        }
+    }
 
-            return;
+    private class CacheInvalidationTask implements Runnable {
 
+        @Override
+        public void run() {
+            try {
+                invalidatePendingApps();
+            } catch (RuntimeException e) {
+                // An exception would otherwise be kept in the future of the task, which nobody reads
+                log.error("Error occurred while invalidating Token Cache", e);
+            }
         }
     }
 
+    private static class CacheInvalidationThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadCount = new AtomicInteger();
 
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r);
+            thread.setName("Store-CacheInvalidation-" + threadCount.incrementAndGet());
+            return thread;
+        }
+    }
 }
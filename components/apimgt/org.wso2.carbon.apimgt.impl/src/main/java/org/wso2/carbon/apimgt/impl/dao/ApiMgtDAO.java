@@ -82,6 +82,7 @@ import org.wso2.carbon.apimgt.impl.utils.APIUtil;
 import org.wso2.carbon.apimgt.impl.utils.APIVersionComparator;
 import org.wso2.carbon.apimgt.impl.utils.ApplicationUtils;
 import org.wso2.carbon.apimgt.impl.utils.LRUCache;
+import org.wso2.carbon.apimgt.impl.utils.PageToken;
 import org.wso2.carbon.apimgt.impl.utils.RemoteUserManagerClient;
 import org.wso2.carbon.apimgt.impl.workflow.WorkflowConstants;
 import org.wso2.carbon.apimgt.impl.workflow.WorkflowExecutorFactory;
@@ -135,6 +136,14 @@ public class ApiMgtDAO {
 
     private boolean forceCaseInsensitiveComparisons = false;
 
+    private static final String SUBSCRIBED_APIS_ORDER_BY = " ORDER BY SUBS.SUBSCRIPTION_ID";
+
+    /**
+     * Columns the applications can be sorted by when they are listed from a page token
+     */
+    private static final List<String> APPLICATION_SORT_COLUMNS =
+            Arrays.asList("NAME", "APPLICATION_TIER", "APPLICATION_STATUS");
+
     private ApiMgtDAO() {
         APIManagerConfiguration configuration = ServiceReferenceHolder.getInstance()
                 .getAPIManagerConfigurationService().getAPIManagerConfiguration();
@@ -1668,6 +1677,7 @@ public class ApiMgtDAO {
                     sqlQuery += whereClauseWithGroupId;
                 }
 
+                sqlQuery += SUBSCRIBED_APIS_ORDER_BY;
                 ps = connection.prepareStatement(sqlQuery);
                 ps.setInt(1, tenantId);
                 ps.setString(2, applicationName);
@@ -1680,11 +1690,16 @@ public class ApiMgtDAO {
                     sqlQuery += whereClause;
                 }
 
+                sqlQuery += SUBSCRIBED_APIS_ORDER_BY;
                 ps = connection.prepareStatement(sqlQuery);
                 ps.setInt(1, tenantId);
                 ps.setString(2, applicationName);
                 ps.setString(3, subscriber.getName());
             }
+            // rows after the end of the page are never read
+            if (endSubIndex > 0) {
+                ps.setMaxRows(endSubIndex);
+            }
             result = ps.executeQuery();
 
             int index = 0;
@@ -1715,6 +1730,105 @@ public class ApiMgtDAO {
         return subscribedAPIs;
     }
 
+    /**
+     * Returns a page of the APIs subscribed to by an application, continuing after the page the given token was
+     * returned with. The subscriptions are ordered by their ids, and the ones after the token are selected by id, so
+     * the cost of a page does not depend on its position.
+     *
+     * @param subscriber      the subscriber subscribing for the api
+     * @param applicationName the application to which the api's are subscribed
+     * @param pageToken       token returned with the previous page, or null for the first page
+     * @param limit           maximum number of subscriptions in the page
+     * @param groupingId      the group id of the application
+     * @return the subscribed APIs of the page under {@link APIConstants#PAGINATED_SUBSCRIBED_APIS}, and the token
+     * of the next page, or null after the last page, under {@link APIConstants#PAGINATION_NEXT_PAGE_TOKEN}
+     * @throws APIManagementException if the page token is invalid or the subscriptions could not be read
+     */
+    public Map<String, Object> getSubscribedAPIsByPageToken(Subscriber subscriber, String applicationName,
+            String pageToken, int limit, String groupingId) throws APIManagementException {
+        Set<SubscribedAPI> subscribedAPIs = new LinkedHashSet<SubscribedAPI>();
+        String nextPageToken = null;
+        Connection connection = null;
+        PreparedStatement ps = null;
+        ResultSet result = null;
+
+        int lastSubscriptionId = 0;
+        if (pageToken != null) {
+            lastSubscriptionId = parsePageTokenId(PageToken.decode(pageToken, 1)[0], pageToken);
+        }
+
+        String sqlQuery = SQLConstants.GET_PAGINATED_SUBSCRIBED_APIS_SQL;
+        boolean withGroupId = groupingId != null && !"null".equals(groupingId) && !groupingId.isEmpty();
+        if (withGroupId) {
+            if (forceCaseInsensitiveComparisons) {
+                sqlQuery += " AND (APP.GROUP_ID = ? OR (APP.GROUP_ID = '' AND LOWER(SUB.USER_ID) = LOWER(?)))";
+            } else {
+                sqlQuery += " AND (APP.GROUP_ID = ? OR (APP.GROUP_ID = '' AND SUB.USER_ID = ?))";
+            }
+        } else {
+            if (forceCaseInsensitiveComparisons) {
+                sqlQuery += " AND LOWER(SUB.USER_ID) = LOWER(?) ";
+            } else {
+                sqlQuery += " AND SUB.USER_ID = ? ";
+            }
+        }
+        sqlQuery += " AND SUBS.SUBSCRIPTION_ID > ? " + SUBSCRIBED_APIS_ORDER_BY;
+
+        try {
+            connection = APIMgtDBUtil.getConnection();
+            int tenantId = APIUtil.getTenantId(subscriber.getName());
+            ps = connection.prepareStatement(sqlQuery);
+            int index = 1;
+            ps.setInt(index++, tenantId);
+            ps.setString(index++, applicationName);
+            if (withGroupId) {
+                ps.setString(index++, groupingId);
+            }
+            ps.setString(index++, subscriber.getName());
+            ps.setInt(index, lastSubscriptionId);
+            // one row more than the page tells whether there is a next page
+            ps.setMaxRows(limit + 1);
+            result = ps.executeQuery();
+
+            while (result.next()) {
+                if (subscribedAPIs.size() == limit) {
+                    nextPageToken = PageToken.encode(String.valueOf(lastSubscriptionId));
+                    break;
+                }
+                lastSubscriptionId = result.getInt("SUBSCRIPTION_ID");
+                APIIdentifier apiIdentifier = new APIIdentifier(APIUtil.replaceEmailDomain(result.getString
+                        ("API_PROVIDER")), result.getString("API_NAME"), result.getString("API_VERSION"));
+
+                SubscribedAPI subscribedAPI = new SubscribedAPI(subscriber, apiIdentifier);
+                subscribedAPI.setSubscriptionId(lastSubscriptionId);
+                subscribedAPI.setSubStatus(result.getString("SUB_STATUS"));
+                subscribedAPI.setSubCreatedStatus(result.getString("SUBS_CREATE_STATE"));
+                subscribedAPI.setTier(new Tier(result.getString(APIConstants.SUBSCRIPTION_FIELD_TIER_ID)));
+
+                Application application = new Application(result.getString("APP_NAME"), subscriber);
+                subscribedAPI.setApplication(application);
+                subscribedAPIs.add(subscribedAPI);
+            }
+        } catch (SQLException e) {
+            handleException("Failed to get SubscribedAPI of :" + subscriber.getName(), e);
+        } finally {
+            APIMgtDBUtil.closeAllConnections(ps, connection, result);
+        }
+
+        Map<String, Object> page = new HashMap<String, Object>();
+        page.put(APIConstants.PAGINATED_SUBSCRIBED_APIS, subscribedAPIs);
+        page.put(APIConstants.PAGINATION_NEXT_PAGE_TOKEN, nextPageToken);
+        return page;
+    }
+
+    private static int parsePageTokenId(String id, String pageToken) throws APIManagementException {
+        try {
+            return Integer.parseInt(id);
+        } catch (NumberFormatException e) {
+            throw new APIManagementException(PageToken.INVALID_PAGE_TOKEN + " : " + pageToken, e);
+        }
+    }
+
     /**
      * This method returns the set of APIs for given subscriber
      *
@@ -2457,6 +2571,47 @@ public class ApiMgtDAO {
         return consumerKeys;
     }
 
+    /**
+     * Gets the ConsumerKeys of a set of Applications in one query.
+     *
+     * @param applicationIds IDs of the Applications
+     * @return {@link java.util.Set} containing the ConsumerKeys of all the Applications
+     * @throws APIManagementException
+     */
+    public Set<String> getConsumerKeysOfApplications(Set<Integer> applicationIds) throws APIManagementException {
+        Set<String> consumerKeys = new HashSet<String>();
+        if (applicationIds.isEmpty()) {
+            return consumerKeys;
+        }
+        Connection connection = null;
+        PreparedStatement preparedStatement = null;
+        ResultSet resultSet = null;
+
+        String sqlQuery = SQLConstants.GET_CONSUMER_KEYS_OF_APPLICATIONS_PREFIX +
+                getParameterPlaceholders(applicationIds.size()) + SQLConstants.GET_CONSUMER_KEYS_OF_APPLICATIONS_SUFFIX;
+        try {
+            connection = APIMgtDBUtil.getConnection();
+            preparedStatement = connection.prepareStatement(sqlQuery);
+            int parameterIndex = 1;
+            for (Integer applicationId : applicationIds) {
+                preparedStatement.setInt(parameterIndex++, applicationId);
+            }
+            resultSet = preparedStatement.executeQuery();
+            while (resultSet.next()) {
+                String consumerKey = resultSet.getString("CONSUMER_KEY");
+                if (consumerKey != null) {
+                    consumerKeys.add(consumerKey);
+                }
+            }
+        } catch (SQLException e) {
+            handleException("Error occurred while getting the consumer keys of applications " + applicationIds, e);
+        } finally {
+            APIMgtDBUtil.closeAllConnections(preparedStatement, connection, resultSet);
+        }
+
+        return consumerKeys;
+    }
+
     private APIKey getProductionKeyOfApplication(int applicationId, String accessTokenStoreTable)
             throws SQLException, CryptoException, APIManagementException {
 
@@ -3048,6 +3203,63 @@ public class ApiMgtDAO {
         return subscriptions;
     }
 
+    /**
+     * Returns the number of subscriptions of each API of a tenant, counted in a single grouped query. APIs in the
+     * CREATED state and APIs without subscriptions are not included.
+     *
+     * @param providerName provider of the APIs, or null to count the subscriptions of the APIs of all the providers
+     * @param tenantId     tenant of the APIs
+     * @param start        index of the first API of the page
+     * @param end          index after the last API of the page
+     * @return the subscription count of each API of the page, ordered by provider, name and version
+     * @throws APIManagementException if the subscription counts could not be read
+     */
+    public Map<APIIdentifier, Long> getSubscriptionCountsOfAPIs(String providerName, int tenantId, int start, int end)
+            throws APIManagementException {
+        Map<APIIdentifier, Long> subscriptionCounts = new LinkedHashMap<APIIdentifier, Long>();
+        Connection connection = null;
+        PreparedStatement ps = null;
+        ResultSet result = null;
+
+        String sqlQuery = SQLConstants.GET_SUBSCRIPTION_COUNTS_OF_APIS_SQL;
+        if (providerName != null) {
+            sqlQuery += SQLConstants.GET_SUBSCRIPTION_COUNTS_OF_APIS_PROVIDER_WHERE_CLAUSE;
+        }
+        sqlQuery += SQLConstants.GET_SUBSCRIPTION_COUNTS_OF_APIS_GROUP_BY;
+
+        try {
+            connection = APIMgtDBUtil.getConnection();
+            ps = connection.prepareStatement(sqlQuery);
+            ps.setInt(1, tenantId);
+            if (providerName != null) {
+                ps.setString(2, APIUtil.replaceEmailDomainBack(providerName));
+            }
+            // rows after the end of the page are never read
+            if (end > 0) {
+                ps.setMaxRows(end);
+            }
+            result = ps.executeQuery();
+
+            int index = 0;
+            while (result.next()) {
+                if (index >= start && index < end) {
+                    APIIdentifier apiIdentifier = new APIIdentifier(APIUtil.replaceEmailDomain(result.getString
+                            ("API_PROVIDER")), result.getString("API_NAME"), result.getString("API_VERSION"));
+                    subscriptionCounts.put(apiIdentifier, result.getLong("SUBSCRIPTION_COUNT"));
+                    if (index == end - 1) {
+                        break;
+                    }
+                }
+                index++;
+            }
+        } catch (SQLException e) {
+            handleException("Failed to get subscription counts of APIs", e);
+        } finally {
+            APIMgtDBUtil.closeAllConnections(ps, connection, result);
+        }
+        return subscriptionCounts;
+    }
+
     /**
      * This method is used to update the subscriber
      *
@@ -3469,19 +3681,23 @@ public class ApiMgtDAO {
             String sqlQuery = SQLConstants.GET_APP_API_USAGE_BY_PROVIDER_SQL;
             connection = APIMgtDBUtil.getConnection();
 
+            // The keys belong to the application of a subscription, so they are read for all the applications at once
+            // rather than once for each subscription.
+            Map<Integer, Map<String, String>> applicationKeys = getAccessTokenDataOfProviderApplications(connection,
+                    providerName);
+
             ps = connection.prepareStatement(sqlQuery);
             ps.setString(1, APIUtil.replaceEmailDomainBack(providerName));
             result = ps.executeQuery();
 
             Map<String, UserApplicationAPIUsage> userApplicationUsages = new TreeMap<String, UserApplicationAPIUsage>();
             while (result.next()) {
-                int subId = result.getInt("SUBSCRIPTION_ID");
-                Map<String, String> keyData = getAccessTokenData(subId);
-                String accessToken = keyData.get("token");
-                String tokenStatus = keyData.get("status");
+                int appId = result.getInt("APPLICATION_ID");
+                Map<String, String> keyData = applicationKeys.get(appId);
+                String accessToken = keyData != null ? keyData.get("token") : null;
+                String tokenStatus = keyData != null ? keyData.get("status") : null;
                 String userId = result.getString("USER_ID");
                 String application = result.getString("APPNAME");
-                int appId = result.getInt("APPLICATION_ID");
                 String subStatus = result.getString("SUB_STATUS");
                 String subsCreateState = result.getString("SUBS_CREATE_STATE");
                 String key = userId + "::" + application;
@@ -3515,6 +3731,80 @@ public class ApiMgtDAO {
         }
     }
 
+    /**
+     * Returns the access token data of every application subscribed to an API of the given provider, keyed by the
+     * application id. The data of an application is looked up in the same way as {@link #getAccessTokenData(int)}
+     * does for one of its subscriptions, using one query for each access token table.
+     *
+     * @param connection   connection to use
+     * @param providerName name of the provider
+     * @return access token data of the applications which have keys
+     * @throws APIManagementException if failed to get the access token data
+     */
+    private Map<Integer, Map<String, String>> getAccessTokenDataOfProviderApplications(Connection connection,
+            String providerName) throws APIManagementException {
+        Map<Integer, Map<String, String>> applicationKeys = new HashMap<Integer, Map<String, String>>();
+
+        if (APIUtil.checkAccessTokenPartitioningEnabled() && APIUtil.checkUserNameAssertionEnabled()) {
+            String[] keyStoreTables = APIUtil.getAvailableKeyStoreTables();
+            if (keyStoreTables != null) {
+                for (String keyStoreTable : keyStoreTables) {
+                    Map<Integer, Map<String, String>> tableKeys = getAccessTokenDataOfProviderApplications(connection,
+                            providerName, getKeysSqlOfProviderApplications(keyStoreTable));
+                    // an application found in an earlier table is not looked up in the later ones
+                    for (Map.Entry<Integer, Map<String, String>> entry : tableKeys.entrySet()) {
+                        if (!applicationKeys.containsKey(entry.getKey())) {
+                            applicationKeys.put(entry.getKey(), entry.getValue());
+                        }
+                    }
+                }
+            }
+        } else {
+            applicationKeys = getAccessTokenDataOfProviderApplications(connection, providerName,
+                    getKeysSqlOfProviderApplications(null));
+        }
+        return applicationKeys;
+    }
+
+    private Map<Integer, Map<String, String>> getAccessTokenDataOfProviderApplications(Connection connection,
+            String providerName, String getKeysSql) throws APIManagementException {
+        PreparedStatement ps = null;
+        ResultSet result = null;
+        Map<Integer, Map<String, String>> applicationKeys = new HashMap<Integer, Map<String, String>>();
+        try {
+            ps = connection.prepareStatement(getKeysSql);
+            ps.setString(1, APIUtil.replaceEmailDomainBack(providerName));
+            result = ps.executeQuery();
+            while (result.next()) {
+                int applicationId = result.getInt("APPLICATION_ID");
+                Map<String, String> apiKeys = applicationKeys.get(applicationId);
+                if (apiKeys == null) {
+                    apiKeys = new HashMap<String, String>();
+                    applicationKeys.put(applicationId, apiKeys);
+                }
+                apiKeys.put("token", APIUtil.decryptToken(result.getString("ACCESS_TOKEN")));
+                apiKeys.put("status", result.getString("TOKEN_STATE"));
+            }
+        } catch (SQLException e) {
+            handleException("Failed to get keys of the applications subscribed to APIs of : " + providerName, e);
+        } catch (CryptoException e) {
+            handleException("Failed to get keys of the applications subscribed to APIs of : " + providerName, e);
+        } finally {
+            APIMgtDBUtil.closeAllConnections(ps, null, result);
+        }
+        return applicationKeys;
+    }
+
+    private String getKeysSqlOfProviderApplications(String accessTokenStoreTable) {
+        String tokenStoreTable = APIConstants.ACCESS_TOKEN_STORE_TABLE;
+        if (accessTokenStoreTable != null) {
+            tokenStoreTable = accessTokenStoreTable;
+        }
+
+        return SQLConstants.GET_KEYS_OF_PROVIDER_APPLICATIONS_SQL_PREFIX +
+               tokenStoreTable + SQLConstants.GET_KEYS_OF_PROVIDER_APPLICATIONS_SQL_SUFFIX;
+    }
+
     /**
      * return the subscriber for given access token
      *
@@ -3684,6 +3974,162 @@ public class ApiMgtDAO {
         return applicationId;
     }
 
+    /**
+     * Adds the given applications of a subscriber in a single transaction. Either all of the applications are added
+     * or none of them. The id, UUID and status of each application are set on the application once it is added.
+     *
+     * @param applications applications to add
+     * @param userId       subscriber who owns the applications
+     * @return ids of the added applications, in the order of the given applications
+     * @throws APIManagementException if failed to add the applications
+     */
+    public int[] addApplications(List<Application> applications, String userId) throws APIManagementException {
+        Connection conn = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        int[] applicationIds = new int[applications.size()];
+        String loginUserName = getLoginUserName(userId);
+        try {
+            conn = APIMgtDBUtil.getConnection();
+            conn.setAutoCommit(false);
+
+            Subscriber subscriber = getSubscriber(loginUserName, APIUtil.getTenantId(loginUserName), conn);
+            if (subscriber == null) {
+                String msg = "Could not load Subscriber records for: " + loginUserName;
+                log.error(msg);
+                throw new APIManagementException(msg);
+            }
+
+            String sqlQuery = SQLConstants.APP_APPLICATION_SQL;
+            if (conn.getMetaData().getDriverName().contains("PostgreSQL")) {
+                ps = conn.prepareStatement(sqlQuery, new String[]{"application_id"});
+            } else {
+                ps = conn.prepareStatement(sqlQuery, new String[]{"APPLICATION_ID"});
+            }
+
+            for (int i = 0; i < applications.size(); i++) {
+                Application application = applications.get(i);
+                String status = APIConstants.DEFAULT_APPLICATION_NAME.equals(application.getName()) ?
+                        APIConstants.ApplicationStatus.APPLICATION_APPROVED :
+                        APIConstants.ApplicationStatus.APPLICATION_CREATED;
+                String uuid = UUID.randomUUID().toString();
+
+                ps.setString(1, application.getName());
+                ps.setInt(2, subscriber.getId());
+                ps.setString(3, application.getTier());
+                ps.setString(4, application.getCallbackUrl());
+                ps.setString(5, application.getDescription());
+                ps.setString(6, status);
+                ps.setString(7, application.getGroupId());
+                ps.setString(8, subscriber.getName());
+                ps.setTimestamp(9, new Timestamp(System.currentTimeMillis()));
+                ps.setString(10, uuid);
+                ps.executeUpdate();
+
+                // generated keys can not be read back from a JDBC batch on all of the supported databases
+                rs = ps.getGeneratedKeys();
+                while (rs.next()) {
+                    applicationIds[i] = Integer.parseInt(rs.getString(1));
+                }
+                rs.close();
+                rs = null;
+
+                application.setId(applicationIds[i]);
+                application.setUUID(uuid);
+                application.setStatus(status);
+            }
+
+            conn.commit();
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException e1) {
+                    log.error("Failed to rollback adding Applications ", e1);
+                }
+            }
+            handleException("Failed to add Applications of " + userId, e);
+        } finally {
+            APIMgtDBUtil.closeAllConnections(ps, conn, rs);
+        }
+        return applicationIds;
+    }
+
+    /**
+     * Adds the given subscriptions in a single transaction. Either all of the subscriptions are added or none of them.
+     * Unlike {@link #addSubscription(APIIdentifier, String, int, String, String)}, this does not check for existing
+     * subscriptions of the applications, so it is meant for applications which have no subscriptions to the APIs yet.
+     * The id, UUID and status of each subscription are set on the subscription once it is added.
+     *
+     * @param subscriptions subscriptions to add, each with the application it is added to
+     * @param status        subscription status of the added subscriptions
+     * @param subscriber    user who adds the subscriptions
+     * @throws APIManagementException if failed to add the subscriptions
+     */
+    public void addSubscriptions(List<SubscribedAPI> subscriptions, String status, String subscriber)
+            throws APIManagementException {
+        Connection conn = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        String subStatus = status != null ? status : APIConstants.SubscriptionStatus.UNBLOCKED;
+        try {
+            conn = APIMgtDBUtil.getConnection();
+            conn.setAutoCommit(false);
+
+            String sqlQuery = SQLConstants.ADD_SUBSCRIPTION_SQL;
+            if (conn.getMetaData().getDriverName().contains("PostgreSQL")) {
+                ps = conn.prepareStatement(sqlQuery, new String[]{"subscription_id"});
+            } else {
+                ps = conn.prepareStatement(sqlQuery, new String[]{"SUBSCRIPTION_ID"});
+            }
+
+            Map<APIIdentifier, Integer> apiIds = new HashMap<APIIdentifier, Integer>();
+            for (SubscribedAPI subscription : subscriptions) {
+                APIIdentifier identifier = subscription.getApiId();
+                Integer apiId = apiIds.get(identifier);
+                if (apiId == null) {
+                    apiId = getAPIID(identifier, conn);
+                    apiIds.put(identifier, apiId);
+                }
+                String uuid = UUID.randomUUID().toString();
+
+                ps.setString(1, identifier.getTier());
+                ps.setInt(2, apiId);
+                ps.setInt(3, subscription.getApplication().getId());
+                ps.setString(4, subStatus);
+                ps.setString(5, APIConstants.SubscriptionCreatedStatus.SUBSCRIBE);
+                ps.setString(6, subscriber);
+                ps.setTimestamp(7, new Timestamp(System.currentTimeMillis()));
+                ps.setString(8, uuid);
+                ps.executeUpdate();
+
+                rs = ps.getGeneratedKeys();
+                while (rs.next()) {
+                    subscription.setSubscriptionId(Integer.parseInt(rs.getString(1)));
+                }
+                rs.close();
+                rs = null;
+
+                subscription.setUUID(uuid);
+                subscription.setSubStatus(subStatus);
+                subscription.setSubCreatedStatus(APIConstants.SubscriptionCreatedStatus.SUBSCRIBE);
+            }
+
+            conn.commit();
+        } catch (SQLException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException e1) {
+                    log.error("Failed to rollback adding subscriptions ", e1);
+                }
+            }
+            handleException("Failed to add subscriptions of " + subscriber, e);
+        } finally {
+            APIMgtDBUtil.closeAllConnections(ps, conn, rs);
+        }
+    }
+
     public void addRating(APIIdentifier apiId, int rating, String user) throws APIManagementException {
         Connection conn = null;
         try {
@@ -4579,6 +5025,143 @@ public class ApiMgtDAO {
         return applications;
     }
 
+    /**
+     * Returns a page of the applications of a subscriber, continuing after the page the given token was returned
+     * with. The applications after the token are selected by their sort keys rather than skipped by an offset, so
+     * the cost of a page does not grow with its position. The keys of the applications are not loaded.
+     * Applications without a value in the sort column are listed first in ascending order and last in descending
+     * order, on every database.
+     *
+     * @param subscriber the subscriber
+     * @param groupingId group id of the subscriber
+     * @param pageToken  token returned with the previous page, or null for the first page
+     * @param limit      maximum number of applications in the page, greater than zero
+     * @param search     part of the names of the applications to list, or null to list all of them
+     * @param sortColumn one of NAME, APPLICATION_TIER and APPLICATION_STATUS, or null to sort by NAME
+     * @param sortOrder  asc or desc
+     * @return the applications of the page under {@link APIConstants#PAGINATED_APPLICATIONS}, and the token of the
+     * next page, or null after the last page, under {@link APIConstants#PAGINATION_NEXT_PAGE_TOKEN}
+     * @throws APIManagementException if the page token or limit is invalid or the applications could not be read
+     */
+    public Map<String, Object> getApplicationsByPageToken(Subscriber subscriber, String groupingId, String pageToken,
+            int limit, String search, String sortColumn, String sortOrder) throws APIManagementException {
+
+        Connection connection = null;
+        PreparedStatement prepStmt = null;
+        ResultSet rs = null;
+        List<Application> applications = new ArrayList<Application>();
+        String nextPageToken = null;
+
+        if (limit <= 0) {
+            throw new APIManagementException(PageToken.INVALID_PAGE_LIMIT + " : " + limit);
+        }
+        if (sortColumn == null) {
+            sortColumn = "NAME";
+        } else if (!APPLICATION_SORT_COLUMNS.contains(sortColumn)) {
+            throw new APIManagementException("Applications cannot be sorted by " + sortColumn);
+        }
+        boolean descending = "desc".equalsIgnoreCase(sortOrder);
+        sortOrder = descending ? "desc" : "asc";
+
+        String lastSortKey = null;
+        int lastApplicationId = 0;
+        if (pageToken != null) {
+            String[] keys = PageToken.decode(pageToken, 4);
+            // a token only continues the listing it was issued for
+            if (!sortColumn.equals(keys[0]) || !sortOrder.equals(keys[1])) {
+                throw new APIManagementException(PageToken.INVALID_PAGE_TOKEN + " : " + pageToken);
+            }
+            lastSortKey = keys[2];
+            lastApplicationId = parsePageTokenId(keys[3], pageToken);
+        }
+
+        boolean withGroupId = groupingId != null && !"null".equals(groupingId) && !groupingId.isEmpty();
+        String subscriberCondition;
+        if (withGroupId) {
+            if (forceCaseInsensitiveComparisons) {
+                subscriberCondition = " AND (GROUP_ID= ? OR (GROUP_ID='' AND LOWER(SUB.USER_ID) = LOWER(?)))";
+            } else {
+                subscriberCondition = " AND (GROUP_ID= ? OR (GROUP_ID='' AND SUB.USER_ID=?))";
+            }
+        } else {
+            if (forceCaseInsensitiveComparisons) {
+                subscriberCondition = " AND LOWER(SUB.USER_ID) = LOWER(?)";
+            } else {
+                subscriberCondition = " AND SUB.USER_ID=?";
+            }
+        }
+        // NULL sort keys, which include empty strings on Oracle, come before the others in ascending order
+        String keyCondition = "";
+        if (pageToken != null) {
+            String comparison = descending ? "<" : ">";
+            if (lastSortKey == null) {
+                keyCondition = " AND (($1 IS NULL AND APPLICATION_ID " + comparison + " ?)" +
+                        (descending ? ")" : " OR $1 IS NOT NULL)");
+            } else {
+                keyCondition = " AND ($1 " + comparison + " ? OR ($1 = ? AND APPLICATION_ID " + comparison + " ?)" +
+                        (descending ? " OR $1 IS NULL)" : ")");
+            }
+        }
+
+        try {
+            connection = APIMgtDBUtil.getConnection();
+
+            String sqlQuery = SQLConstantManagerFactory.getSQlString("GET_APPLICATIONS_BY_PAGE_TOKEN_SQL");
+            sqlQuery = sqlQuery.replace("$3", subscriberCondition);
+            sqlQuery = sqlQuery.replace("$4", keyCondition);
+            sqlQuery = sqlQuery.replace("$1", sortColumn);
+            sqlQuery = sqlQuery.replace("$2", sortOrder);
+
+            prepStmt = connection.prepareStatement(sqlQuery);
+            int index = 1;
+            if (withGroupId) {
+                prepStmt.setString(index++, groupingId);
+            }
+            prepStmt.setString(index++, subscriber.getName());
+            prepStmt.setString(index++, search == null ? "%" : "%" + search + "%");
+            if (pageToken != null) {
+                if (lastSortKey != null) {
+                    prepStmt.setString(index++, lastSortKey);
+                    prepStmt.setString(index++, lastSortKey);
+                }
+                prepStmt.setInt(index++, lastApplicationId);
+            }
+            // one row more than the page tells whether there is a next page
+            prepStmt.setInt(index, limit + 1);
+            rs = prepStmt.executeQuery();
+
+            while (rs.next()) {
+                if (applications.size() == limit) {
+                    nextPageToken = PageToken.encode(sortColumn, sortOrder, lastSortKey,
+                            String.valueOf(lastApplicationId));
+                    break;
+                }
+                Application application = new Application(rs.getString("NAME"), subscriber);
+                application.setId(rs.getInt("APPLICATION_ID"));
+                application.setTier(rs.getString("APPLICATION_TIER"));
+                application.setCallbackUrl(rs.getString("CALLBACK_URL"));
+                application.setDescription(rs.getString("DESCRIPTION"));
+                application.setStatus(rs.getString("APPLICATION_STATUS"));
+                application.setGroupId(rs.getString("GROUP_ID"));
+                application.setUUID(rs.getString("UUID"));
+                application.setIsBlackListed(rs.getBoolean("ENABLED"));
+                applications.add(application);
+
+                lastSortKey = rs.getString(sortColumn);
+                lastApplicationId = application.getId();
+            }
+        } catch (SQLException e) {
+            handleException("Error when reading the application information from" + " the persistence store.", e);
+        } finally {
+            APIMgtDBUtil.closeAllConnections(prepStmt, connection, rs);
+        }
+
+        Map<String, Object> page = new HashMap<String, Object>();
+        page.put(APIConstants.PAGINATED_APPLICATIONS, applications.toArray(new Application[applications.size()]));
+        page.put(APIConstants.PAGINATION_NEXT_PAGE_TOKEN, nextPageToken);
+        return page;
+    }
+
     public Application[] getApplications(Subscriber subscriber, String groupingId) throws APIManagementException {
 
         Connection connection = null;
@@ -4672,6 +5255,73 @@ public class ApiMgtDAO {
         return applications;
     }
 
+    /**
+     * Returns the applications owned by a subscriber, each with the APIs it is subscribed to. Unlike
+     * {@link #getApplications(Subscriber, String)} the keys of the applications are not read, so the key manager is
+     * not called for each application.
+     *
+     * @param subscriber subscriber who owns the applications
+     * @return applications of the subscriber
+     * @throws APIManagementException if failed to read the applications
+     */
+    public Application[] getApplicationsWithSubscribedAPIs(Subscriber subscriber) throws APIManagementException {
+        Connection connection = null;
+        PreparedStatement prepStmt = null;
+        ResultSet rs = null;
+        String userName = getLoginUserName(subscriber.getName());
+        String whereClause;
+        if (forceCaseInsensitiveComparisons) {
+            whereClause = " AND LOWER(SUB.USER_ID) = LOWER(?) ";
+        } else {
+            whereClause = " AND SUB.USER_ID = ? ";
+        }
+
+        Map<Integer, Application> applications = new LinkedHashMap<Integer, Application>();
+        try {
+            connection = APIMgtDBUtil.getConnection();
+            prepStmt = connection.prepareStatement(SQLConstants.GET_APPLICATIONS_PREFIX + whereClause);
+            prepStmt.setString(1, userName);
+            rs = prepStmt.executeQuery();
+            while (rs.next()) {
+                Application application = new Application(rs.getString("NAME"), subscriber);
+                application.setId(rs.getInt("APPLICATION_ID"));
+                application.setTier(rs.getString("APPLICATION_TIER"));
+                application.setCallbackUrl(rs.getString("CALLBACK_URL"));
+                application.setDescription(rs.getString("DESCRIPTION"));
+                application.setStatus(rs.getString("APPLICATION_STATUS"));
+                application.setGroupId(rs.getString("GROUP_ID"));
+                application.setUUID(rs.getString("UUID"));
+                applications.put(application.getId(), application);
+            }
+            APIMgtDBUtil.closeAllConnections(prepStmt, null, rs);
+
+            prepStmt = connection.prepareStatement(SQLConstants.GET_SUBSCRIBED_APIS_OF_SUBSCRIBER_SQL + whereClause);
+            prepStmt.setInt(1, APIUtil.getTenantId(userName));
+            prepStmt.setString(2, userName);
+            rs = prepStmt.executeQuery();
+            while (rs.next()) {
+                Application application = applications.get(rs.getInt("APP_ID"));
+                if (application == null) {
+                    continue;
+                }
+                APIIdentifier apiIdentifier = new APIIdentifier(APIUtil.replaceEmailDomain(rs.getString
+                        ("API_PROVIDER")), rs.getString("API_NAME"), rs.getString("API_VERSION"));
+                SubscribedAPI subscribedAPI = new SubscribedAPI(subscriber, apiIdentifier);
+                subscribedAPI.setSubscriptionId(rs.getInt("SUBS_ID"));
+                subscribedAPI.setSubStatus(rs.getString("SUB_STATUS"));
+                subscribedAPI.setSubCreatedStatus(rs.getString("SUBS_CREATE_STATE"));
+                subscribedAPI.setTier(new Tier(rs.getString(APIConstants.SUBSCRIPTION_FIELD_TIER_ID)));
+                subscribedAPI.setUUID(rs.getString("SUB_UUID"));
+                application.addSubscribedAPIs(Collections.singleton(subscribedAPI));
+            }
+        } catch (SQLException e) {
+            handleException("Error when reading the applications of " + userName, e);
+        } finally {
+            APIMgtDBUtil.closeAllConnections(prepStmt, connection, rs);
+        }
+        return applications.values().toArray(new Application[applications.size()]);
+    }
+
     /**
      * Returns all the consumerkeys of application which are subscribed for the given api
      *
@@ -7840,6 +8490,37 @@ public class ApiMgtDAO {
         return map;
     }
 
+    /**
+     * Returns the scope bound to each resource of an API.
+     *
+     * @param apiContext context of the API
+     * @param version    version of the API
+     * @return scope key by resource key, for the resources of the API which have a scope
+     * @throws APIManagementException if failed to read the scopes
+     */
+    public Map<String, String> getResourceToScopeMapping(String apiContext, String version)
+            throws APIManagementException {
+        Connection conn = null;
+        ResultSet resultSet = null;
+        PreparedStatement ps = null;
+        Map<String, String> map = new HashMap<String, String>();
+        try {
+            conn = APIMgtDBUtil.getConnection();
+            ps = conn.prepareStatement(SQLConstants.GET_RESOURCE_TO_SCOPE_MAPPING_BY_CONTEXT_SQL);
+            ps.setString(1, apiContext);
+            ps.setString(2, version);
+            resultSet = ps.executeQuery();
+            while (resultSet.next()) {
+                map.put(resultSet.getString(1), resultSet.getString(2));
+            }
+        } catch (SQLException e) {
+            handleException("Failed to retrieve resource scopes of API " + apiContext + ":" + version, e);
+        } finally {
+            APIMgtDBUtil.closeAllConnections(ps, conn, resultSet);
+        }
+        return map;
+    }
+
     public Map<String, String> getScopeRolesOfApplication(String consumerKey) throws APIManagementException {
         Connection conn = null;
         ResultSet resultSet = null;
@@ -8040,6 +8721,59 @@ public class ApiMgtDAO {
         return tokens;
     }
 
+    /**
+     * Gets the active access tokens issued to any of the consumer keys of a set of applications, in one query. Only
+     * applicable when the tokens are kept in the API manager database, i.e. with the default key manager.
+     *
+     * @param applicationIds IDs of the applications
+     * @return active access tokens of the applications
+     * @throws APIManagementException if the tokens cannot be read
+     */
+    public Set<String> getActiveTokensOfApplications(Set<Integer> applicationIds) throws APIManagementException {
+        Set<String> tokens = new HashSet<String>();
+        if (applicationIds.isEmpty()) {
+            return tokens;
+        }
+        Connection conn = null;
+        ResultSet resultSet = null;
+        PreparedStatement ps = null;
+
+        try {
+            conn = APIMgtDBUtil.getConnection();
+            String sqlQuery = SQLConstants.GET_ACTIVE_TOKENS_OF_APPLICATIONS_PREFIX +
+                    getParameterPlaceholders(applicationIds.size()) +
+                    SQLConstants.GET_ACTIVE_TOKENS_OF_APPLICATIONS_SUFFIX;
+
+            ps = conn.prepareStatement(sqlQuery);
+            int parameterIndex = 1;
+            for (Integer applicationId : applicationIds) {
+                ps.setInt(parameterIndex++, applicationId);
+            }
+            resultSet = ps.executeQuery();
+            while (resultSet.next()) {
+                tokens.add(APIUtil.decryptToken(resultSet.getString("ACCESS_TOKEN")));
+            }
+        } catch (SQLException e) {
+            handleException("Failed to get active access tokens of applications " + applicationIds, e);
+        } catch (CryptoException e) {
+            handleException("Token decryption failed of an active access token of applications " + applicationIds, e);
+        } finally {
+            APIMgtDBUtil.closeAllConnections(ps, conn, resultSet);
+        }
+        return tokens;
+    }
+
+    private String getParameterPlaceholders(int count) {
+        StringBuilder placeholders = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                placeholders.append(',');
+            }
+            placeholders.append('?');
+        }
+        return placeholders.toString();
+    }
+
     /**
      * Check the given scope key is already available under given tenant
      *
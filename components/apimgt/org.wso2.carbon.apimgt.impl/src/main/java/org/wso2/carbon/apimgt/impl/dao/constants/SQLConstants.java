@@ -18,6 +18,7 @@
 
 package org.wso2.carbon.apimgt.impl.dao.constants;
 
+import org.wso2.carbon.apimgt.api.model.APIStatus;
 import org.wso2.carbon.apimgt.api.model.policy.PolicyConstants;
 import org.wso2.carbon.apimgt.impl.APIConstants;
 
@@ -746,6 +747,13 @@ public class SQLConstants {
             " FROM AM_APPLICATION_KEY_MAPPING " +
             " WHERE APPLICATION_ID = ?";
 
+    public static final String GET_CONSUMER_KEYS_OF_APPLICATIONS_PREFIX =
+            " SELECT CONSUMER_KEY " +
+            " FROM AM_APPLICATION_KEY_MAPPING " +
+            " WHERE APPLICATION_ID IN (";
+
+    public static final String GET_CONSUMER_KEYS_OF_APPLICATIONS_SUFFIX = ")";
+
     public static final String GET_PRODUCTION_KEYS_OF_APPLICATION_PREFIX =
             "   ICA.CONSUMER_KEY AS CONSUMER_KEY," +
             "   ICA.CONSUMER_SECRET AS CONSUMER_SECRET," +
@@ -955,6 +963,31 @@ public class SQLConstants {
             "   AND ICA.CONSUMER_KEY = AKM.CONSUMER_KEY " +
             "   AND ICA.ID = IAT.CONSUMER_KEY_ID";
 
+    public static final String GET_KEYS_OF_PROVIDER_APPLICATIONS_SQL_PREFIX =
+            " SELECT " +
+            "   AKM.APPLICATION_ID AS APPLICATION_ID," +
+            "   IAT.ACCESS_TOKEN AS ACCESS_TOKEN," +
+            "   IAT.TOKEN_STATE AS TOKEN_STATE " +
+            " FROM" +
+            "   AM_APPLICATION_KEY_MAPPING AKM,";
+
+    public static final String GET_KEYS_OF_PROVIDER_APPLICATIONS_SQL_SUFFIX =
+            "   IAT," +
+            "   IDN_OAUTH_CONSUMER_APPS ICA " +
+            " WHERE" +
+            "   ICA.CONSUMER_KEY = AKM.CONSUMER_KEY " +
+            "   AND ICA.ID = IAT.CONSUMER_KEY_ID " +
+            "   AND AKM.APPLICATION_ID IN (" +
+            "     SELECT " +
+            "       SUBS.APPLICATION_ID " +
+            "     FROM " +
+            "       AM_SUBSCRIPTION SUBS, " +
+            "       AM_API API " +
+            "     WHERE " +
+            "       API.API_ID = SUBS.API_ID " +
+            "       AND API.API_PROVIDER = ? " +
+            "       AND SUBS.SUB_STATUS != '" + APIConstants.SubscriptionStatus.REJECTED + "')";
+
     public static final String GET_SUBSCRIBERS_OF_PROVIDER_SQL =
             " SELECT " +
             "   SUBS.USER_ID AS USER_ID," +
@@ -1000,6 +1033,29 @@ public class SQLConstants {
             "   AND API.API_ID=SUB.API_ID" +
             "   AND SUB.SUBS_CREATE_STATE = '" + APIConstants.SubscriptionCreatedStatus.SUBSCRIBE + "'";
 
+    public static final String GET_SUBSCRIPTION_COUNTS_OF_APIS_SQL =
+            " SELECT" +
+            "   API.API_PROVIDER AS API_PROVIDER," +
+            "   API.API_NAME AS API_NAME," +
+            "   API.API_VERSION AS API_VERSION," +
+            "   COUNT(SUB.SUBSCRIPTION_ID) AS SUBSCRIPTION_COUNT " +
+            " FROM " +
+            "   AM_API API " +
+            "   INNER JOIN AM_SUBSCRIPTION SUB ON API.API_ID = SUB.API_ID " +
+            "   INNER JOIN AM_API_LC_EVENT LC ON API.API_ID = LC.API_ID " +
+            " WHERE SUB.SUBS_CREATE_STATE = '" + APIConstants.SubscriptionCreatedStatus.SUBSCRIBE + "'" +
+            "   AND LC.TENANT_ID = ?" +
+            "   AND LC.NEW_STATE <> '" + APIStatus.CREATED + "'" +
+            "   AND LC.EVENT_ID = (SELECT MAX(LATEST.EVENT_ID) FROM AM_API_LC_EVENT LATEST" +
+            "                      WHERE LATEST.API_ID = API.API_ID)";
+
+    public static final String GET_SUBSCRIPTION_COUNTS_OF_APIS_PROVIDER_WHERE_CLAUSE =
+            "   AND API.API_PROVIDER = ?";
+
+    public static final String GET_SUBSCRIPTION_COUNTS_OF_APIS_GROUP_BY =
+            " GROUP BY API.API_PROVIDER, API.API_NAME, API.API_VERSION" +
+            " ORDER BY API.API_PROVIDER, API.API_NAME, API.API_VERSION";
+
     public static final String UPDATE_SUBSCRIPTION_OF_APPLICATION_SQL =
             " UPDATE AM_SUBSCRIPTION " +
             " SET " +
@@ -2026,6 +2082,28 @@ public class SQLConstants {
             " WHERE" +
             "   A.API_ID = ? ";
 
+    public static final String GET_RESOURCE_TO_SCOPE_MAPPING_BY_CONTEXT_SQL =
+            "SELECT " +
+            "   RS.RESOURCE_PATH, " +
+            "   S.SCOPE_KEY " +
+            " FROM " +
+            "   IDN_OAUTH2_RESOURCE_SCOPE RS " +
+            " INNER JOIN " +
+            "   IDN_OAUTH2_SCOPE S " +
+            " ON " +
+            "   S.SCOPE_ID = RS.SCOPE_ID " +
+            " INNER JOIN " +
+            "   AM_API_SCOPES A " +
+            " ON " +
+            "   A.SCOPE_ID = RS.SCOPE_ID " +
+            " INNER JOIN " +
+            "   AM_API API " +
+            " ON " +
+            "   API.API_ID = A.API_ID " +
+            " WHERE" +
+            "   API.CONTEXT = ? " +
+            "   AND API.API_VERSION = ? ";
+
     public static final String GET_SCOPE_ROLES_OF_APPLICATION_SQL =
             "SELECT " +
             "   IOS.SCOPE_KEY, " +
@@ -2085,6 +2163,25 @@ public class SQLConstants {
             "   IOCA.CONSUMER_KEY = ?" +
             "   AND IOAT.TOKEN_STATE = 'ACTIVE'";
 
+    public static final String GET_ACTIVE_TOKENS_OF_APPLICATIONS_PREFIX =
+            " SELECT " +
+            "   IOAT.ACCESS_TOKEN" +
+            " FROM " +
+            "   IDN_OAUTH2_ACCESS_TOKEN IOAT" +
+            " INNER JOIN " +
+            "   IDN_OAUTH_CONSUMER_APPS IOCA " +
+            " ON " +
+            "   IOCA.ID = IOAT.CONSUMER_KEY_ID" +
+            " INNER JOIN " +
+            "   AM_APPLICATION_KEY_MAPPING AKM " +
+            " ON " +
+            "   AKM.CONSUMER_KEY = IOCA.CONSUMER_KEY" +
+            " WHERE" +
+            "   IOAT.TOKEN_STATE = 'ACTIVE'" +
+            "   AND AKM.APPLICATION_ID IN (";
+
+    public static final String GET_ACTIVE_TOKENS_OF_APPLICATIONS_SUFFIX = ")";
+
     public static final String GET_SCOPE_KEY_SQL =
             "SELECT COUNT(SCOPE_ID) AS SCOPE_COUNT FROM IDN_OAUTH2_SCOPE WHERE SCOPE_KEY = ? AND TENANT_ID" + " = ?";
 
@@ -142,11 +142,37 @@ public class SQLConstantsDB2 extends SQLConstants{
                     " )x left join AM_BLOCK_CONDITIONS bl on  ( bl.TYPE = 'APPLICATION' AND bl.VALUE = concat(concat(x.USER_ID,':'),x.name)) "+
                     " ORDER BY $1 $2 ";
 
-
+    /**
+     * Lists the applications of a subscriber from a page token. $1 and $2 are the sort column and order, $3 the
+     * subscriber or group condition and $4 the condition selecting the applications after the page token.
+     */
+    public static final String GET_APPLICATIONS_BY_PAGE_TOKEN_SQL =
+            "select distinct x.*,bl.ENABLED from (" +
+            "SELECT * FROM (" +
+            "   SELECT " +
+            "   ROW_NUMBER() OVER (ORDER BY CASE WHEN $1 IS NULL THEN 0 ELSE 1 END $2, $1 $2, APPLICATION_ID $2)" +
+            "   as row ," +
+            "   APPLICATION_ID, " +
+            "   NAME," +
+            "   APPLICATION_TIER," +
+            "   APP.SUBSCRIBER_ID,  " +
+            "   CALLBACK_URL,  " +
+            "   DESCRIPTION, " +
+            "   APPLICATION_STATUS, " +
+            "   USER_ID, " +
+            "   GROUP_ID, " +
+            "   UUID " +
+            " FROM" +
+            "   AM_APPLICATION APP, " +
+            "   AM_SUBSCRIBER SUB  " +
+            " WHERE " +
+            "   SUB.SUBSCRIBER_ID = APP.SUBSCRIBER_ID " +
+            "   $3" +
+            " And " +
+            "    NAME like ?" +
+            "   $4" +
+            " ) a WHERE a.row <= ?" +
+            " )x left join AM_BLOCK_CONDITIONS bl on  ( bl.TYPE = 'APPLICATION' AND bl.VALUE = concat(concat(x.USER_ID,':'),x.name)) " +
+            " ORDER BY x.row ";
 
 }
-
-
-
-
-
@@ -22,7 +22,6 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
 import org.json.simple.parser.ParseException;
 import org.wso2.carbon.apimgt.api.APIDefinition;
 import org.wso2.carbon.apimgt.api.APIManagementException;
@@ -37,7 +36,6 @@ import org.wso2.carbon.registry.api.RegistryException;
 import org.wso2.carbon.registry.api.Resource;
 
 import java.nio.charset.Charset;
-import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.Set;
 
@@ -58,67 +56,43 @@ public class APIDefinitionFromSwagger20 extends APIDefinition {
      */
     @Override
     public Set<URITemplate> getURITemplates(API api, String resourceConfigsJSON) throws APIManagementException {
-        JSONParser parser = new JSONParser();
-        JSONObject swagger;
         Set<URITemplate> uriTemplates = new LinkedHashSet<URITemplate>();
         Set<Scope> scopes = getScopes(resourceConfigsJSON);
         try {
-            swagger = (JSONObject) parser.parse(resourceConfigsJSON);
-            if (swagger.get("paths") != null) {
-                JSONObject paths = (JSONObject) swagger.get("paths");
-                for (Object o : paths.keySet()) {
-                    String uriTempVal = (String) o;
-                    //if url template is a custom attribute "^x-" ignore.
-                    if (uriTempVal.startsWith("x-") || uriTempVal.startsWith("X-")) {
-                        continue;
-                    }
-                    JSONObject path = (JSONObject) paths.get(uriTempVal);
-                    // Following code check is done to handle $ref objects supported by swagger spec
-                    // See field types supported by "Path Item Object" in swagger spec.
-                    if (path.containsKey("$ref")) {
-                        log.info("Reference " + uriTempVal + " path object was ignored when generating URL template " +
-                                 "for api \"" + api.getId().getApiName() + '\"');
-                        continue;
-                    }
-                    for (Object o1 : path.keySet()) {
-                        String httpVerb = (String) o1;
-
-                        //Only continue for supported operations
-                        if (APIConstants.SUPPORTED_METHODS.contains(httpVerb.toLowerCase())) {
-                            JSONObject operation = (JSONObject) path.get(httpVerb);
-                            URITemplate template = new URITemplate();
-                            Scope scope = APIUtil.findScopeByKey(scopes, (String) operation.get(APIConstants
-                                                                                                        .SWAGGER_X_SCOPE));
-                            String authType = (String) operation.get(APIConstants.SWAGGER_X_AUTH_TYPE);
-                            if ("Application & Application User".equals(authType)) {
-                                authType = APIConstants.AUTH_APPLICATION_OR_USER_LEVEL_TOKEN;
-                            } else if ("Application User".equals(authType)) {
-                                authType = APIConstants.AUTH_APPLICATION_USER_LEVEL_TOKEN;
-                            } else if ("None".equals(authType)) {
-                                authType = APIConstants.AUTH_NO_AUTHENTICATION;
-                            } else if ("Application".equals(authType)) {
-                                authType = APIConstants.AUTH_APPLICATION_LEVEL_TOKEN;
-                            } else {
-                                authType = APIConstants.AUTH_APPLICATION_OR_USER_LEVEL_TOKEN;
-                            }
-                            template.setThrottlingTier((String) operation.get(APIConstants.SWAGGER_X_THROTTLING_TIER));
-                            template.setThrottlingTiers((String) operation.get(APIConstants.SWAGGER_X_THROTTLING_TIER));
-                            template.setMediationScript((String) operation.get(APIConstants
-                                                                                       .SWAGGER_X_MEDIATION_SCRIPT));
-                            template.setMediationScripts(httpVerb.toUpperCase(), (String) operation.get(
-                                    APIConstants.SWAGGER_X_MEDIATION_SCRIPT));
-                            template.setUriTemplate(uriTempVal);
-                            template.setHTTPVerb(httpVerb.toUpperCase());
-                            template.setHttpVerbs(httpVerb.toUpperCase());
-                            template.setAuthType(authType);
-                            template.setAuthTypes(authType);
-                            template.setScope(scope);
-                            template.setScopes(scope);
-
-                            uriTemplates.add(template);
-                        }
-                    }
+            Swagger20Definition swagger = Swagger20Definition.getDefinition(resourceConfigsJSON);
+            for (String uriTempVal : swagger.getReferencedPaths()) {
+                log.info("Reference " + uriTempVal + " path object was ignored when generating URL template " +
+                         "for api \"" + api.getId().getApiName() + '\"');
+            }
+            for (Swagger20Definition.Operation operation : swagger.getOperations()) {
+                String httpVerb = operation.getHttpVerb();
+                URITemplate template = new URITemplate();
+                Scope scope = APIUtil.findScopeByKey(scopes, operation.getScopeKey());
+                String authType = operation.getAuthType();
+                if ("Application & Application User".equals(authType)) {
+                    authType = APIConstants.AUTH_APPLICATION_OR_USER_LEVEL_TOKEN;
+                } else if ("Application User".equals(authType)) {
+                    authType = APIConstants.AUTH_APPLICATION_USER_LEVEL_TOKEN;
+                } else if ("None".equals(authType)) {
+                    authType = APIConstants.AUTH_NO_AUTHENTICATION;
+                } else if ("Application".equals(authType)) {
+                    authType = APIConstants.AUTH_APPLICATION_LEVEL_TOKEN;
+                } else {
+                    authType = APIConstants.AUTH_APPLICATION_OR_USER_LEVEL_TOKEN;
                 }
+                template.setThrottlingTier(operation.getThrottlingTier());
+                template.setThrottlingTiers(operation.getThrottlingTier());
+                template.setMediationScript(operation.getMediationScript());
+                template.setMediationScripts(httpVerb.toUpperCase(), operation.getMediationScript());
+                template.setUriTemplate(operation.getUriTemplate());
+                template.setHTTPVerb(httpVerb.toUpperCase());
+                template.setHttpVerbs(httpVerb.toUpperCase());
+                template.setAuthType(authType);
+                template.setAuthTypes(authType);
+                template.setScope(scope);
+                template.setScopes(scope);
+
+                uriTemplates.add(template);
             }
         } catch (ParseException e) {
             handleException("Invalid resource configuration ", e);
@@ -136,32 +110,17 @@ public class APIDefinitionFromSwagger20 extends APIDefinition {
     @Override
     public Set<Scope> getScopes(String resourceConfigsJSON) throws APIManagementException {
         Set<Scope> scopeList = new LinkedHashSet<Scope>();
-        JSONObject swaggerObject;
-        JSONParser parser = new JSONParser();
         try {
-            swaggerObject = (JSONObject) parser.parse(resourceConfigsJSON);
-
-            //Check whether security definitions are defined or not
-            if (swaggerObject.get(APIConstants.SWAGGER_X_WSO2_SECURITY) != null) {
-                JSONObject securityDefinitionsObjects = (JSONObject) swaggerObject.get(APIConstants.SWAGGER_X_WSO2_SECURITY);
-
-                for (JSONObject securityDefinition : (Iterable<JSONObject>) securityDefinitionsObjects.values()) {
-                    //Read scopes from custom wso2 scopes
-
-                    if (securityDefinition.get(APIConstants.SWAGGER_X_WSO2_SCOPES) != null) {
-                        JSONArray oauthScope = (JSONArray) securityDefinition.get(APIConstants.SWAGGER_X_WSO2_SCOPES);
-                        for (Object anOauthScope : oauthScope) {
-                            Scope scope = new Scope();
-                            JSONObject scopeObj = (JSONObject) anOauthScope;
-                            scope.setKey((String) scopeObj.get(APIConstants.SWAGGER_SCOPE_KEY));
-                            scope.setName((String) scopeObj.get(APIConstants.SWAGGER_NAME));
-                            scope.setDescription((String) scopeObj.get(APIConstants.SWAGGER_DESCRIPTION));
-                            scope.setRoles(scopeObj.get(APIConstants.SWAGGER_ROLES).toString());
-
-                            scopeList.add(scope);
-                        }
-                    }
-                }
+            // The parsed definition is shared, so new scopes are created for the caller to modify
+            for (Swagger20Definition.ScopeDefinition scopeDefinition :
+                    Swagger20Definition.getDefinition(resourceConfigsJSON).getScopes()) {
+                Scope scope = new Scope();
+                scope.setKey(scopeDefinition.getKey());
+                scope.setName(scopeDefinition.getName());
+                scope.setDescription(scopeDefinition.getDescription());
+                scope.setRoles(scopeDefinition.getRoles());
+
+                scopeList.add(scope);
             }
         } catch (ParseException e) {
             handleException("Invalid resource configuration ", e);
@@ -196,6 +155,8 @@ public class APIDefinitionFromSwagger20 extends APIDefinition {
             resource.setMediaType("application/json");
             registry.put(resourcePath, resource);
 
+            Swagger20Definition.setDefinitionOfPath(resourcePath, apiDefinitionJSON);
+
             //Need to set anonymous if the visibility is public
             APIUtil.setResourcePermissions(apiProviderName, null, null, resourcePath);
 
@@ -218,13 +179,12 @@ public class APIDefinitionFromSwagger20 extends APIDefinition {
         String resourcePath = APIUtil.getSwagger20DefinitionFilePath(apiIdentifier.getApiName(),
                 apiIdentifier.getVersion(), apiIdentifier.getProviderName());
 
-        JSONParser parser = new JSONParser();
         String apiDocContent = null;
         try {
             if (registry.resourceExists(resourcePath + SWAGGER_2_0_FILE_NAME)) {
                 Resource apiDocResource = registry.get(resourcePath + SWAGGER_2_0_FILE_NAME);
                 apiDocContent = new String((byte[]) apiDocResource.getContent(), Charset.defaultCharset());
-                parser.parse(apiDocContent);
+                Swagger20Definition.validateDefinitionOfPath(resourcePath + SWAGGER_2_0_FILE_NAME, apiDocContent);
             } else {
                 if (log.isDebugEnabled()) {
                     log.debug("Resource " + SWAGGER_2_0_FILE_NAME + " not found at " + resourcePath);
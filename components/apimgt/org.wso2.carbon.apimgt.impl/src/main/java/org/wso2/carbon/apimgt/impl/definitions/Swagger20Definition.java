@@ -0,0 +1,292 @@
+/*
+*  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.apimgt.impl.definitions;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+import org.wso2.carbon.apimgt.impl.APIConstants;
+import org.wso2.carbon.apimgt.impl.utils.LRUCache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The resources and scopes of a Swagger 2.0 definition, as read by {@link APIDefinitionFromSwagger20}.
+ *
+ * Parsed definitions are immutable, and cached by the SHA-256 digest of their content, so that a definition read
+ * several times while an API is published, updated or shown is parsed only once. The digest is kept rather than the
+ * content, so the memory used is bounded by the number of cached definitions and the size of their resources.
+ */
+final class Swagger20Definition {
+
+    private static final int MAX_CACHED_DEFINITIONS = 100;
+
+    private static final LRUCache<String, Swagger20Definition> definitions =
+            new LRUCache<String, Swagger20Definition>(MAX_CACHED_DEFINITIONS);
+
+    // Digest of the definition last read from or saved to each registry path, to evict it when the path is saved
+    private static final LRUCache<String, String> digestsByPath = new LRUCache<String, String>(MAX_CACHED_DEFINITIONS);
+
+    private final List<Operation> operations = new ArrayList<Operation>();
+
+    private final List<String> referencedPaths = new ArrayList<String>();
+
+    private final List<ScopeDefinition> scopes = new ArrayList<ScopeDefinition>();
+
+    // Errors reading the paths or the scopes of a malformed definition, thrown when those are read, as when the
+    // definition was parsed separately for reading each of them
+    private RuntimeException pathsError;
+
+    private RuntimeException scopesError;
+
+    private Swagger20Definition(JSONObject swagger) {
+        try {
+            readPaths(swagger);
+        } catch (RuntimeException e) {
+            pathsError = e;
+        }
+        try {
+            readScopes(swagger);
+        } catch (RuntimeException e) {
+            scopesError = e;
+        }
+    }
+
+    /**
+     * Returns the parsed definition, parsing it only if the same content is not cached.
+     *
+     * @param swaggerJSON Swagger 2.0 definition
+     * @return parsed definition
+     * @throws ParseException if the definition is not valid JSON
+     */
+    static Swagger20Definition getDefinition(String swaggerJSON) throws ParseException {
+        String digest = DigestUtils.sha256Hex(swaggerJSON);
+        Swagger20Definition definition = definitions.get(digest);
+        if (definition == null) {
+            // Threads parsing the same definition at the same time each cache an equal result
+            definition = new Swagger20Definition((JSONObject) new JSONParser().parse(swaggerJSON));
+            definitions.put(digest, definition);
+        }
+        return definition;
+    }
+
+    /**
+     * Checks whether the definition read from a registry path is valid JSON. The definition is cached if it is not
+     * already, since its resources and scopes are usually read next, and evicted once the path is saved again.
+     *
+     * @param resourcePath registry path of the definition
+     * @param swaggerJSON  Swagger 2.0 definition
+     * @throws ParseException if the definition is not valid JSON
+     */
+    static void validateDefinitionOfPath(String resourcePath, String swaggerJSON) throws ParseException {
+        String digest = DigestUtils.sha256Hex(swaggerJSON);
+        if (definitions.get(digest) == null) {
+            Object swagger = new JSONParser().parse(swaggerJSON);
+            if (swagger instanceof JSONObject) {
+                definitions.put(digest, new Swagger20Definition((JSONObject) swagger));
+            }
+        }
+        digestsByPath.put(resourcePath, digest);
+    }
+
+    /**
+     * Records the definition saved to a registry path, evicting the definition earlier read from or saved to the
+     * path, which is not read anymore.
+     *
+     * @param resourcePath registry path of the definition
+     * @param swaggerJSON  Swagger 2.0 definition
+     */
+    static void setDefinitionOfPath(String resourcePath, String swaggerJSON) {
+        String digest = DigestUtils.sha256Hex(swaggerJSON);
+        String previousDigest = digestsByPath.put(resourcePath, digest);
+        if (previousDigest != null && !previousDigest.equals(digest)) {
+            definitions.remove(previousDigest);
+        }
+    }
+
+    /**
+     * @return the supported operations of the paths, other than the custom attributes and the referenced paths
+     */
+    List<Operation> getOperations() {
+        if (pathsError != null) {
+            throw pathsError;
+        }
+        return Collections.unmodifiableList(operations);
+    }
+
+    /**
+     * @return paths defined as references to other path items, which are not read
+     */
+    List<String> getReferencedPaths() {
+        if (pathsError != null) {
+            throw pathsError;
+        }
+        return Collections.unmodifiableList(referencedPaths);
+    }
+
+    /**
+     * @return scopes defined in the WSO2 security definitions
+     */
+    List<ScopeDefinition> getScopes() {
+        if (scopesError != null) {
+            throw scopesError;
+        }
+        return Collections.unmodifiableList(scopes);
+    }
+
+    private void readPaths(JSONObject swagger) {
+        if (swagger.get("paths") != null) {
+            JSONObject paths = (JSONObject) swagger.get("paths");
+            for (Object o : paths.keySet()) {
+                String uriTempVal = (String) o;
+                //if url template is a custom attribute "^x-" ignore.
+                if (uriTempVal.startsWith("x-") || uriTempVal.startsWith("X-")) {
+                    continue;
+                }
+                JSONObject path = (JSONObject) paths.get(uriTempVal);
+                // Following code check is done to handle $ref objects supported by swagger spec
+                // See field types supported by "Path Item Object" in swagger spec.
+                if (path.containsKey("$ref")) {
+                    referencedPaths.add(uriTempVal);
+                    continue;
+                }
+                for (Object o1 : path.keySet()) {
+                    String httpVerb = (String) o1;
+
+                    //Only continue for supported operations
+                    if (APIConstants.SUPPORTED_METHODS.contains(httpVerb.toLowerCase())) {
+                        JSONObject operation = (JSONObject) path.get(httpVerb);
+                        operations.add(new Operation(uriTempVal, httpVerb,
+                                (String) operation.get(APIConstants.SWAGGER_X_SCOPE),
+                                (String) operation.get(APIConstants.SWAGGER_X_AUTH_TYPE),
+                                (String) operation.get(APIConstants.SWAGGER_X_THROTTLING_TIER),
+                                (String) operation.get(APIConstants.SWAGGER_X_MEDIATION_SCRIPT)));
+                    }
+                }
+            }
+        }
+    }
+
+    private void readScopes(JSONObject swagger) {
+        //Check whether security definitions are defined or not
+        if (swagger.get(APIConstants.SWAGGER_X_WSO2_SECURITY) != null) {
+            JSONObject securityDefinitionsObjects = (JSONObject) swagger.get(APIConstants.SWAGGER_X_WSO2_SECURITY);
+
+            for (JSONObject securityDefinition : (Iterable<JSONObject>) securityDefinitionsObjects.values()) {
+                //Read scopes from custom wso2 scopes
+
+                if (securityDefinition.get(APIConstants.SWAGGER_X_WSO2_SCOPES) != null) {
+                    JSONArray oauthScope = (JSONArray) securityDefinition.get(APIConstants.SWAGGER_X_WSO2_SCOPES);
+                    for (Object anOauthScope : oauthScope) {
+                        JSONObject scopeObj = (JSONObject) anOauthScope;
+                        scopes.add(new ScopeDefinition((String) scopeObj.get(APIConstants.SWAGGER_SCOPE_KEY),
+                                (String) scopeObj.get(APIConstants.SWAGGER_NAME),
+                                (String) scopeObj.get(APIConstants.SWAGGER_DESCRIPTION),
+                                scopeObj.get(APIConstants.SWAGGER_ROLES).toString()));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * An operation of a path, with the values of the WSO2 extensions as in the definition.
+     */
+    static final class Operation {
+
+        private final String uriTemplate;
+        private final String httpVerb;
+        private final String scopeKey;
+        private final String authType;
+        private final String throttlingTier;
+        private final String mediationScript;
+
+        private Operation(String uriTemplate, String httpVerb, String scopeKey, String authType,
+                          String throttlingTier, String mediationScript) {
+            this.uriTemplate = uriTemplate;
+            this.httpVerb = httpVerb;
+            this.scopeKey = scopeKey;
+            this.authType = authType;
+            this.throttlingTier = throttlingTier;
+            this.mediationScript = mediationScript;
+        }
+
+        String getUriTemplate() {
+            return uriTemplate;
+        }
+
+        String getHttpVerb() {
+            return httpVerb;
+        }
+
+        String getScopeKey() {
+            return scopeKey;
+        }
+
+        String getAuthType() {
+            return authType;
+        }
+
+        String getThrottlingTier() {
+            return throttlingTier;
+        }
+
+        String getMediationScript() {
+            return mediationScript;
+        }
+    }
+
+    /**
+     * A scope defined in the WSO2 security definitions.
+     */
+    static final class ScopeDefinition {
+
+        private final String key;
+        private final String name;
+        private final String description;
+        private final String roles;
+
+        private ScopeDefinition(String key, String name, String description, String roles) {
+            this.key = key;
+            this.name = name;
+            this.description = description;
+            this.roles = roles;
+        }
+
+        String getKey() {
+            return key;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        String getDescription() {
+            return description;
+        }
+
+        String getRoles() {
+            return roles;
+        }
+    }
+}
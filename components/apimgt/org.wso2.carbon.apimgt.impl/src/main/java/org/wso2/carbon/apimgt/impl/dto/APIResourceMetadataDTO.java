@@ -0,0 +1,122 @@
+/*
+*  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.apimgt.impl.dto;
+
+import org.wso2.carbon.apimgt.api.model.URITemplate;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Snapshot of the resources of an API and the scopes bound to them, as read from the database at a point in time.
+ * Snapshots are shared by all callers through the API resource metadata cache, so they must not be modified.
+ */
+public class APIResourceMetadataDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String apiContext;
+
+    private final String apiVersion;
+
+    private final long version;
+
+    private final long loadedTime;
+
+    private final ArrayList<URITemplate> uriTemplates;
+
+    private final Map<String, String> resourceScopes;
+
+    /**
+     * @param apiContext     context of the API
+     * @param apiVersion     version of the API
+     * @param version        generation of the API resource metadata cache the snapshot was read in
+     * @param loadedTime     time the snapshot was read from the database, in milliseconds
+     * @param uriTemplates   resources of the API
+     * @param resourceScopes scope key bound to each resource key of the API which has a scope
+     */
+    public APIResourceMetadataDTO(String apiContext, String apiVersion, long version, long loadedTime,
+                                  ArrayList<URITemplate> uriTemplates, Map<String, String> resourceScopes) {
+        this.apiContext = apiContext;
+        this.apiVersion = apiVersion;
+        this.version = version;
+        this.loadedTime = loadedTime;
+        this.uriTemplates = uriTemplates;
+        this.resourceScopes = resourceScopes;
+    }
+
+    public String getApiContext() {
+        return apiContext;
+    }
+
+    public String getApiVersion() {
+        return apiVersion;
+    }
+
+    /**
+     * @return generation of the API resource metadata cache the snapshot was read in. A snapshot read before the
+     * metadata of an API was last invalidated has a lower version than the invalidation.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return time the snapshot was read from the database, in milliseconds
+     */
+    public long getLoadedTime() {
+        return loadedTime;
+    }
+
+    /**
+     * @param currentTime  current time, in milliseconds
+     * @param expiryMillis milliseconds a snapshot is used for after it is read
+     * @return whether the snapshot is too old to be used, and must be read again from the database
+     */
+    public boolean isExpired(long currentTime, long expiryMillis) {
+        return currentTime - loadedTime >= expiryMillis;
+    }
+
+    /**
+     * @return resources of the API, in the order they are defined
+     */
+    public List<URITemplate> getURITemplates() {
+        return Collections.unmodifiableList(uriTemplates);
+    }
+
+    /**
+     * @param resourceKey key of a resource of the API, as built by
+     *                    {@link org.wso2.carbon.apimgt.impl.utils.APIUtil#getResourceKey(String, String, String,
+     *                    String)}
+     * @return key of the scope bound to the resource, or null if the resource does not have a scope
+     */
+    public String getResourceScope(String resourceKey) {
+        return resourceScopes.get(resourceKey);
+    }
+
+    /**
+     * @return whether the API has any resources. Metadata of an API which is not in the database has none.
+     */
+    public boolean hasResources() {
+        return !uriTemplates.isEmpty();
+    }
+}
@@ -0,0 +1,128 @@
+/*
+*  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.apimgt.impl.dto;
+
+import org.apache.axis2.util.JavaUtils;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+import org.wso2.carbon.apimgt.impl.APIConstants;
+import org.wso2.carbon.apimgt.impl.notification.NotifierConstants;
+
+import java.io.Serializable;
+
+/**
+ * Parsed tenant-conf.json of a tenant. Instances are shared by all callers through the tenant config cache, so they
+ * must not be modified.
+ */
+public class TenantConfigDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final boolean configured;
+
+    private final JSONObject tenantConfig;
+
+    private final Boolean monetizationEnabled;
+
+    private final Boolean unlimitedTierPaid;
+
+    private final String extensionHandlerPosition;
+
+    private final JSONObject restAPIScopes;
+
+    private final boolean notificationsEnabled;
+
+    private final JSONArray notifications;
+
+    private TenantConfigDTO(JSONObject tenantConfig) {
+        this.configured = tenantConfig != null;
+        this.tenantConfig = tenantConfig != null ? tenantConfig : new JSONObject();
+        this.monetizationEnabled = getBoolean(APIConstants.API_TENANT_CONF_ENABLE_MONITZATION_KEY);
+        this.unlimitedTierPaid = getBoolean(APIConstants.API_TENANT_CONF_IS_UNLIMITED_TIER_PAID);
+        this.extensionHandlerPosition = (String) this.tenantConfig.get(APIConstants.EXTENSION_HANDLER_POSITION);
+        this.restAPIScopes = (JSONObject) this.tenantConfig.get(APIConstants.REST_API_SCOPES_CONFIG);
+        this.notificationsEnabled =
+                JavaUtils.isTrueExplicitly(this.tenantConfig.get(NotifierConstants.NOTIFICATIONS_ENABLED));
+        this.notifications = (JSONArray) this.tenantConfig.get(NotifierConstants.Notifications_KEY);
+    }
+
+    /**
+     * @param content content of tenant-conf.json, or null if the tenant does not have one
+     * @return the parsed configuration
+     * @throws ParseException if the content is not valid JSON
+     */
+    public static TenantConfigDTO parse(String content) throws ParseException {
+        if (content == null) {
+            return new TenantConfigDTO(null);
+        }
+        return new TenantConfigDTO((JSONObject) new JSONParser().parse(content));
+    }
+
+    private Boolean getBoolean(String key) {
+        Object value = tenantConfig.get(key);
+        return value != null ? Boolean.valueOf(value.toString()) : null;
+    }
+
+    /**
+     * @return whether the tenant has a tenant-conf.json
+     */
+    public boolean isConfigured() {
+        return configured;
+    }
+
+    /**
+     * @param key top level key of tenant-conf.json
+     * @return the value of the key, or null if it is not set
+     */
+    public Object get(String key) {
+        return tenantConfig.get(key);
+    }
+
+    /**
+     * @return EnableMonetization, or null if it is not set
+     */
+    public Boolean getMonetizationEnabled() {
+        return monetizationEnabled;
+    }
+
+    /**
+     * @return IsUnlimitedTierPaid, or null if it is not set
+     */
+    public Boolean getUnlimitedTierPaid() {
+        return unlimitedTierPaid;
+    }
+
+    public String getExtensionHandlerPosition() {
+        return extensionHandlerPosition;
+    }
+
+    public JSONObject getRESTAPIScopes() {
+        return restAPIScopes;
+    }
+
+    public boolean isNotificationsEnabled() {
+        return notificationsEnabled;
+    }
+
+    public JSONArray getNotifications() {
+        return notifications;
+    }
+}
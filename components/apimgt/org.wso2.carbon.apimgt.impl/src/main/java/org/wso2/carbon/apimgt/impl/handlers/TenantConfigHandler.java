@@ -0,0 +1,48 @@
+/*
+*  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.apimgt.impl.handlers;
+
+import org.wso2.carbon.apimgt.impl.utils.APIUtil;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.registry.core.jdbc.handlers.Handler;
+import org.wso2.carbon.registry.core.jdbc.handlers.RequestContext;
+
+/**
+ * Removes the cached tenant configuration of a tenant when its tenant-conf.json is changed in the registry. Registered
+ * by the API manager component for the tenant-conf.json path in the commit phase, i.e. after the change is written.
+ */
+public class TenantConfigHandler extends Handler {
+
+    public void put(RequestContext requestContext) {
+        clearTenantConfigCache();
+    }
+
+    public void importResource(RequestContext requestContext) {
+        clearTenantConfigCache();
+    }
+
+    public void delete(RequestContext requestContext) {
+        clearTenantConfigCache();
+    }
+
+    private void clearTenantConfigCache() {
+        // registry operations may only set the tenant id of the carbon context
+        APIUtil.clearTenantConfigCache(PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantDomain(true));
+    }
+}
@@ -38,6 +38,7 @@ import org.wso2.carbon.apimgt.impl.APIManagerFactory;
 import org.wso2.carbon.apimgt.impl.dao.ApiMgtDAO;
 import org.wso2.carbon.apimgt.impl.factory.KeyManagerHolder;
 import org.wso2.carbon.apimgt.impl.factory.SQLConstantManagerFactory;
+import org.wso2.carbon.apimgt.impl.handlers.TenantConfigHandler;
 import org.wso2.carbon.apimgt.impl.observers.APIStatusObserverList;
 import org.wso2.carbon.apimgt.impl.observers.CommonConfigDeployer;
 import org.wso2.carbon.apimgt.impl.observers.SignupObserver;
@@ -58,6 +59,8 @@ import org.wso2.carbon.registry.core.RegistryConstants;
 import org.wso2.carbon.registry.core.Resource;
 import org.wso2.carbon.registry.core.config.RegistryContext;
 import org.wso2.carbon.registry.core.exceptions.RegistryException;
+import org.wso2.carbon.registry.core.jdbc.handlers.HandlerLifecycleManager;
+import org.wso2.carbon.registry.core.jdbc.handlers.filters.URLMatcher;
 import org.wso2.carbon.registry.core.service.RegistryService;
 import org.wso2.carbon.registry.core.service.TenantRegistryLoader;
 import org.wso2.carbon.registry.core.session.UserRegistry;
@@ -83,6 +86,10 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
 
 
 /**
@@ -124,135 +131,258 @@ public class APIManagerComponent {
     private APIManagerConfiguration configuration = new APIManagerConfiguration();
     public static final String APPLICATION_ROOT_PERMISSION =  "applications";
 
+    // Most of the startup tasks wait on the registry and the database rather than use the CPU
+    private static final int STARTUP_TASK_THREADS = 4;
+
+    // Names of the startup tasks other tasks depend on
+    private static final String TENANT_CONFIG_HANDLER_TASK = "tenantConfigHandler";
+    private static final String SELF_SIGN_UP_CONFIG_TASK = "selfSignUpConfig";
+    private static final String CONFIGURATION_TASK = "configuration";
+    private static final String ROLE_LISTENERS_TASK = "roleListeners";
+    private static final String DATABASE_TASK = "database";
+
 
     protected void activate(ComponentContext componentContext) throws Exception {
         if (log.isDebugEnabled()) {
             log.debug("API manager component activated");
         }
 
+        BundleContext bundleContext = componentContext.getBundleContext();
+        StartupTaskRunner startupTasks = new StartupTaskRunner("API manager component", STARTUP_TASK_THREADS,
+                                                               new StartupThreadFactory());
+        addStartupTasks(startupTasks);
         try {
-            BundleContext bundleContext = componentContext.getBundleContext();
-            addRxtConfigs();
-            addTierPolicies();
-            addApplicationsPermissionsToRegistry();
-            APIUtil.loadTenantExternalStoreConfig(MultitenantConstants.SUPER_TENANT_ID);
-            APIUtil.loadTenantGAConfig(MultitenantConstants.SUPER_TENANT_ID);
-            int tenantId = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
-            APIUtil.loadTenantConf(tenantId);
-            APIUtil.loadTenantWorkFlowExtensions(tenantId);
-            //load self sigup configuration to the registry
-            APIUtil.loadTenantSelfSignUpConfigurations(tenantId);
-
-            String filePath = CarbonUtils.getCarbonHome() + File.separator + "repository" +
-                              File.separator + "conf" + File.separator + "api-manager.xml";
-            configuration.load(filePath);
-
-            String gatewayType = configuration.getFirstProperty(APIConstants.API_GATEWAY_TYPE);
-            if (APIConstants.API_GATEWAY_TYPE_SYNAPSE.equalsIgnoreCase(gatewayType)) {
-                addDefinedSequencesToRegistry();
+            // The component is activated only once all the tasks are finished
+            startupTasks.run();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Interrupted while initializing the API manager component", e);
+            return;
+        }
+        for (Map.Entry<String, Throwable> failure : startupTasks.getFailures().entrySet()) {
+            if (failure.getValue() instanceof APIManagerDatabaseException) {
+                log.fatal("Error while Creating the database", failure.getValue());
+            } else {
+                log.error("Error while initializing the API manager component. Startup task " + failure.getKey() +
+                          " failed", failure.getValue());
             }
+        }
 
+        if (startupTasks.isCompleted(CONFIGURATION_TASK)) {
             CommonConfigDeployer configDeployer = new CommonConfigDeployer();
             bundleContext.registerService(Axis2ConfigurationContextObserver.class.getName(), configDeployer, null);
 
             SignupObserver signupObserver = new SignupObserver();
             bundleContext.registerService(Axis2ConfigurationContextObserver.class.getName(), signupObserver, null);
 
-            APIManagerConfigurationServiceImpl configurationService =
-                    new APIManagerConfigurationServiceImpl(configuration);
-            ServiceReferenceHolder.getInstance().setAPIManagerConfigurationService(configurationService);
-            registration = componentContext.getBundleContext().registerService(
-                    APIManagerConfigurationService.class.getName(),
-                    configurationService, null);
-            APIStatusObserverList.getInstance().init(configuration);
-
-            log.debug("Reading Analytics Configuration from file...");
-
-            // This method is called in two places. Mostly by the time activate hits,
-            // ServiceDataPublisherAdmin is not activated. Therefore, this same method is run,
-            // when ServiceDataPublisherAdmin is set.
-            APIManagerAnalyticsConfiguration analyticsConfiguration = APIManagerAnalyticsConfiguration.getInstance();
-            analyticsConfiguration.setAPIManagerConfiguration(configuration);
-
-            AuthorizationUtils.addAuthorizeRoleListener(APIConstants.AM_CREATOR_APIMGT_EXECUTION_ID,
-                                                        RegistryUtils.getAbsolutePath(RegistryContext.getBaseInstance(),
-                                                                                      APIUtil.getMountedPath(RegistryContext.getBaseInstance(),
-                                                                                                             RegistryConstants.GOVERNANCE_REGISTRY_BASE_PATH) +
-                                                                                      APIConstants.API_APPLICATION_DATA_LOCATION),
-                                                        APIConstants.Permissions.API_CREATE,
-                                                        UserMgtConstants.EXECUTE_ACTION, null);
-            AuthorizationUtils.addAuthorizeRoleListener(APIConstants.AM_CREATOR_GOVERNANCE_EXECUTION_ID,
-                                                        RegistryUtils.getAbsolutePath(RegistryContext.getBaseInstance(),
-                                                                                      APIUtil.getMountedPath(RegistryContext.getBaseInstance(),
-                                                                                                             RegistryConstants.GOVERNANCE_REGISTRY_BASE_PATH) +
-                                                                                      "/trunk"),
-                                                        APIConstants.Permissions.API_CREATE,
-                                                        UserMgtConstants.EXECUTE_ACTION, null);
-            AuthorizationUtils.addAuthorizeRoleListener(APIConstants.AM_PUBLISHER_APIMGT_EXECUTION_ID,
-                                                        RegistryUtils.getAbsolutePath(RegistryContext.getBaseInstance(),
-                                                                                      APIUtil.getMountedPath(RegistryContext.getBaseInstance(),
-                                                                                                             RegistryConstants.GOVERNANCE_REGISTRY_BASE_PATH) +
-                                                                                      APIConstants.API_APPLICATION_DATA_LOCATION),
-                                                        APIConstants.Permissions.API_PUBLISH,
-                                                        UserMgtConstants.EXECUTE_ACTION, null);
-
-            // Enabling API Publishers/Creators to make changes on life-cycle history.
-            AuthorizationUtils.addAuthorizeRoleListener(APIConstants.AM_CREATOR_LIFECYCLE_EXECUTION_ID,
-                                                        RegistryUtils.getAbsolutePath(RegistryContext.getBaseInstance(),
-                                                                                      APIUtil.getMountedPath(RegistryContext.getBaseInstance(),
-                                                                                                             RegistryConstants.GOVERNANCE_REGISTRY_BASE_PATH) +
-                                                                                      APIConstants
-                                                                                              .API_LIFE_CYCLE_HISTORY),
-                                                        APIConstants.Permissions.API_CREATE,
-                                                        UserMgtConstants.EXECUTE_ACTION, null);
-
-            AuthorizationUtils.addAuthorizeRoleListener(APIConstants.AM_PUBLISHER_LIFECYCLE_EXECUTION_ID,
-                                                        RegistryUtils.getAbsolutePath(RegistryContext.getBaseInstance(),
-                                                                                      APIUtil.getMountedPath(RegistryContext.getBaseInstance(),
-                                                                                                             RegistryConstants.GOVERNANCE_REGISTRY_BASE_PATH) +
-                                                                                      APIConstants
-                                                                                              .API_LIFE_CYCLE_HISTORY),
-                                                        APIConstants.Permissions.API_PUBLISH,
-                                                        UserMgtConstants.EXECUTE_ACTION, null);
-
-            setupImagePermissions();
-            APIMgtDBUtil.initialize();
-
-            configureJMSPublisher();
-            //Load initially available api contexts at the server startup. This Cache is only use by the products other than the api-manager
-            /* TODO: Load Config values from apimgt.core*/
-            boolean apiManagementEnabled = APIUtil.isAPIManagementEnabled();
-            boolean loadAPIContextsAtStartup = APIUtil.isLoadAPIContextsAtStartup();
-            if (apiManagementEnabled && loadAPIContextsAtStartup) {
-                List<String> contextList = ApiMgtDAO.getInstance().getAllAvailableContexts();
-                Cache contextCache = APIUtil.getAPIContextCache();
-                for (String context : contextList) {
-                    contextCache.put(context, Boolean.TRUE);
+            registration = bundleContext.registerService(APIManagerConfigurationService.class.getName(),
+                    ServiceReferenceHolder.getInstance().getAPIManagerConfigurationService(), null);
+        }
+    }
+
+    /**
+     * Declares the steps of the startup of the component, with the steps each of them depends on. Steps which do
+     * not depend on each other run concurrently.
+     *
+     * The steps writing to the registry run one after the other, in the order they ran before, as concurrent writes
+     * to the same registry collections conflict. They overlap only with the steps using the database, the user store
+     * and the key manager. Handlers and role listeners are added to the registry before and after the steps writing
+     * to the registry respectively.
+     */
+    private void addStartupTasks(StartupTaskRunner startupTasks) {
+        final int tenantId = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
+
+        startupTasks.addTask(TENANT_CONFIG_HANDLER_TASK, new StartupTaskRunner.StartupTask() {
+            public void run() {
+                addTenantConfigHandler();
+            }
+        });
+        startupTasks.addTask("rxts", new StartupTaskRunner.StartupTask() {
+            public void run() throws APIManagementException {
+                addRxtConfigs();
+            }
+        }, TENANT_CONFIG_HANDLER_TASK);
+        startupTasks.addTask("tierPolicies", new StartupTaskRunner.StartupTask() {
+            public void run() throws APIManagementException {
+                addTierPolicies();
+            }
+        }, "rxts");
+        startupTasks.addTask("applicationsPermission", new StartupTaskRunner.StartupTask() {
+            public void run() throws APIManagementException {
+                addApplicationsPermissionsToRegistry();
+            }
+        }, "tierPolicies");
+        startupTasks.addTask("externalStoresConfig", new StartupTaskRunner.StartupTask() {
+            public void run() throws APIManagementException {
+                APIUtil.loadTenantExternalStoreConfig(MultitenantConstants.SUPER_TENANT_ID);
+            }
+        }, "applicationsPermission");
+        startupTasks.addTask("googleAnalyticsConfig", new StartupTaskRunner.StartupTask() {
+            public void run() throws APIManagementException {
+                APIUtil.loadTenantGAConfig(MultitenantConstants.SUPER_TENANT_ID);
+            }
+        }, "externalStoresConfig");
+        startupTasks.addTask("tenantConfig", new StartupTaskRunner.StartupTask() {
+            public void run() throws APIManagementException {
+                APIUtil.loadTenantConf(tenantId);
+            }
+        }, "googleAnalyticsConfig");
+        startupTasks.addTask("workflowExtensions", new StartupTaskRunner.StartupTask() {
+            public void run() throws APIManagementException {
+                APIUtil.loadTenantWorkFlowExtensions(tenantId);
+            }
+        }, "tenantConfig");
+        startupTasks.addTask(SELF_SIGN_UP_CONFIG_TASK, new StartupTaskRunner.StartupTask() {
+            public void run() throws APIManagementException {
+                //load self sigup configuration to the registry
+                APIUtil.loadTenantSelfSignUpConfigurations(tenantId);
+            }
+        }, "workflowExtensions");
+
+        startupTasks.addTask(CONFIGURATION_TASK, new StartupTaskRunner.StartupTask() {
+            public void run() throws APIManagementException {
+                String filePath = CarbonUtils.getCarbonHome() + File.separator + "repository" +
+                                  File.separator + "conf" + File.separator + "api-manager.xml";
+                configuration.load(filePath);
+
+                // The service is registered in the OSGi registry only once the component is activated
+                ServiceReferenceHolder.getInstance().setAPIManagerConfigurationService(
+                        new APIManagerConfigurationServiceImpl(configuration));
+                APIStatusObserverList.getInstance().init(configuration);
+
+                log.debug("Reading Analytics Configuration from file...");
+
+                // This method is called in two places. Mostly by the time activate hits,
+                // ServiceDataPublisherAdmin is not activated. Therefore, this same method is run,
+                // when ServiceDataPublisherAdmin is set.
+                APIManagerAnalyticsConfiguration analyticsConfiguration =
+                        APIManagerAnalyticsConfiguration.getInstance();
+                analyticsConfiguration.setAPIManagerConfiguration(configuration);
+            }
+        });
+        startupTasks.addTask("sequences", new StartupTaskRunner.StartupTask() {
+            public void run() throws APIManagementException {
+                String gatewayType = configuration.getFirstProperty(APIConstants.API_GATEWAY_TYPE);
+                if (APIConstants.API_GATEWAY_TYPE_SYNAPSE.equalsIgnoreCase(gatewayType)) {
+                    addDefinedSequencesToRegistry();
                 }
             }
-            APIUtil.createSelfSignUpRoles(MultitenantConstants.SUPER_TENANT_ID);
-            //Adding default throttle policies
-            boolean advancedThrottlingEnabled =  APIUtil.isAdvanceThrottlingEnabled();
-            if(advancedThrottlingEnabled) {
-                addDefaultAdvancedThrottlePolicies();
+        }, CONFIGURATION_TASK, SELF_SIGN_UP_CONFIG_TASK);
+
+        startupTasks.addTask(ROLE_LISTENERS_TASK, new StartupTaskRunner.StartupTask() {
+            public void run() {
+                addAuthorizeRoleListeners();
+            }
+        }, "sequences");
+        startupTasks.addTask("imagePermissions", new StartupTaskRunner.StartupTask() {
+            public void run() throws APIManagementException {
+                setupImagePermissions();
             }
-            // Initialise KeyManager.
-            KeyManagerHolder.initializeKeyManager(configuration);
-            //Initialise sql constants
-            SQLConstantManagerFactory.initializeSQLConstantManager();
-
-        } catch (APIManagementException e) {
-            log.error("Error while initializing the API manager component", e);
-        } catch (APIManagerDatabaseException e) {
-            log.fatal("Error while Creating the database",e);
-        }
+        });
+
+        startupTasks.addTask(DATABASE_TASK, new StartupTaskRunner.StartupTask() {
+            public void run() throws APIManagerDatabaseException {
+                APIMgtDBUtil.initialize();
+            }
+        }, CONFIGURATION_TASK);
+        startupTasks.addTask("jmsPublisher", new StartupTaskRunner.StartupTask() {
+            public void run() {
+                configureJMSPublisher();
+            }
+        }, CONFIGURATION_TASK);
+        startupTasks.addTask("apiContexts", new StartupTaskRunner.StartupTask() {
+            public void run() throws APIManagementException {
+                //Load initially available api contexts at the server startup. This Cache is only use by the products other than the api-manager
+                /* TODO: Load Config values from apimgt.core*/
+                boolean apiManagementEnabled = APIUtil.isAPIManagementEnabled();
+                boolean loadAPIContextsAtStartup = APIUtil.isLoadAPIContextsAtStartup();
+                if (apiManagementEnabled && loadAPIContextsAtStartup) {
+                    List<String> contextList = ApiMgtDAO.getInstance().getAllAvailableContexts();
+                    Cache contextCache = APIUtil.getAPIContextCache();
+                    for (String context : contextList) {
+                        contextCache.put(context, Boolean.TRUE);
+                    }
+                }
+            }
+        }, CONFIGURATION_TASK, DATABASE_TASK);
+        startupTasks.addTask("selfSignUpRoles", new StartupTaskRunner.StartupTask() {
+            public void run() throws APIManagementException {
+                APIUtil.createSelfSignUpRoles(MultitenantConstants.SUPER_TENANT_ID);
+            }
+        }, CONFIGURATION_TASK, SELF_SIGN_UP_CONFIG_TASK, ROLE_LISTENERS_TASK);
+        startupTasks.addTask("throttlePolicies", new StartupTaskRunner.StartupTask() {
+            public void run() throws APIManagementException {
+                //Adding default throttle policies
+                boolean advancedThrottlingEnabled =  APIUtil.isAdvanceThrottlingEnabled();
+                if(advancedThrottlingEnabled) {
+                    addDefaultAdvancedThrottlePolicies();
+                }
+            }
+        }, CONFIGURATION_TASK, DATABASE_TASK);
+        startupTasks.addTask("keyManager", new StartupTaskRunner.StartupTask() {
+            public void run() throws APIManagementException {
+                // Initialise KeyManager.
+                KeyManagerHolder.initializeKeyManager(configuration);
+            }
+        }, CONFIGURATION_TASK);
+        startupTasks.addTask("sqlConstants", new StartupTaskRunner.StartupTask() {
+            public void run() throws APIManagementException {
+                //Initialise sql constants
+                SQLConstantManagerFactory.initializeSQLConstantManager();
+            }
+        }, DATABASE_TASK);
+    }
+
+    private void addAuthorizeRoleListeners() {
+        AuthorizationUtils.addAuthorizeRoleListener(APIConstants.AM_CREATOR_APIMGT_EXECUTION_ID,
+                                                    RegistryUtils.getAbsolutePath(RegistryContext.getBaseInstance(),
+                                                                                  APIUtil.getMountedPath(RegistryContext.getBaseInstance(),
+                                                                                                         RegistryConstants.GOVERNANCE_REGISTRY_BASE_PATH) +
+                                                                                  APIConstants.API_APPLICATION_DATA_LOCATION),
+                                                    APIConstants.Permissions.API_CREATE,
+                                                    UserMgtConstants.EXECUTE_ACTION, null);
+        AuthorizationUtils.addAuthorizeRoleListener(APIConstants.AM_CREATOR_GOVERNANCE_EXECUTION_ID,
+                                                    RegistryUtils.getAbsolutePath(RegistryContext.getBaseInstance(),
+                                                                                  APIUtil.getMountedPath(RegistryContext.getBaseInstance(),
+                                                                                                         RegistryConstants.GOVERNANCE_REGISTRY_BASE_PATH) +
+                                                                                  "/trunk"),
+                                                    APIConstants.Permissions.API_CREATE,
+                                                    UserMgtConstants.EXECUTE_ACTION, null);
+        AuthorizationUtils.addAuthorizeRoleListener(APIConstants.AM_PUBLISHER_APIMGT_EXECUTION_ID,
+                                                    RegistryUtils.getAbsolutePath(RegistryContext.getBaseInstance(),
+                                                                                  APIUtil.getMountedPath(RegistryContext.getBaseInstance(),
+                                                                                                         RegistryConstants.GOVERNANCE_REGISTRY_BASE_PATH) +
+                                                                                  APIConstants.API_APPLICATION_DATA_LOCATION),
+                                                    APIConstants.Permissions.API_PUBLISH,
+                                                    UserMgtConstants.EXECUTE_ACTION, null);
+
+        // Enabling API Publishers/Creators to make changes on life-cycle history.
+        AuthorizationUtils.addAuthorizeRoleListener(APIConstants.AM_CREATOR_LIFECYCLE_EXECUTION_ID,
+                                                    RegistryUtils.getAbsolutePath(RegistryContext.getBaseInstance(),
+                                                                                  APIUtil.getMountedPath(RegistryContext.getBaseInstance(),
+                                                                                                         RegistryConstants.GOVERNANCE_REGISTRY_BASE_PATH) +
+                                                                                  APIConstants
+                                                                                          .API_LIFE_CYCLE_HISTORY),
+                                                    APIConstants.Permissions.API_CREATE,
+                                                    UserMgtConstants.EXECUTE_ACTION, null);
+
+        AuthorizationUtils.addAuthorizeRoleListener(APIConstants.AM_PUBLISHER_LIFECYCLE_EXECUTION_ID,
+                                                    RegistryUtils.getAbsolutePath(RegistryContext.getBaseInstance(),
+                                                                                  APIUtil.getMountedPath(RegistryContext.getBaseInstance(),
+                                                                                                         RegistryConstants.GOVERNANCE_REGISTRY_BASE_PATH) +
+                                                                                  APIConstants
+                                                                                          .API_LIFE_CYCLE_HISTORY),
+                                                    APIConstants.Permissions.API_PUBLISH,
+                                                    UserMgtConstants.EXECUTE_ACTION, null);
     }
 
     protected void deactivate(ComponentContext componentContext) {
         if (log.isDebugEnabled()) {
             log.debug("Deactivating API manager component");
         }
-        registration.unregister();
+        if (registration != null) {
+            registration.unregister();
+        }
         APIManagerFactory.getInstance().clearAll();
         org.wso2.carbon.apimgt.impl.utils.AuthorizationManager.getInstance().destroy();
     }
@@ -307,6 +437,22 @@ public class APIManagerComponent {
         log.debug("Listener manager unbound from the API manager component");
     }
 
+    /**
+     * Registers the handler which removes the cached tenant configuration of a tenant, see
+     * {@link APIUtil#getTenantConfig(String)}, when its tenant-conf.json is added, updated or deleted.
+     */
+    private void addTenantConfigHandler() {
+        String tenantConfPattern = ".*" + Pattern.quote(APIConstants.API_TENANT_CONF_LOCATION);
+        URLMatcher tenantConfMatcher = new URLMatcher();
+        tenantConfMatcher.setPutPattern(tenantConfPattern);
+        tenantConfMatcher.setImportPattern(tenantConfPattern);
+        tenantConfMatcher.setDeletePattern(tenantConfPattern);
+        // The handler runs once the change is committed, so that tenant-conf.json read after the cache is cleared
+        // is never the one being replaced
+        RegistryContext.getBaseInstance().getHandlerManager().addHandler(null, tenantConfMatcher,
+                new TenantConfigHandler(), HandlerLifecycleManager.COMMIT_HANDLER_PHASE);
+    }
+
     private void addRxtConfigs() throws APIManagementException {
         String rxtDir = CarbonUtils.getCarbonHome() + File.separator + "repository" + File.separator +
                         "resources" + File.separator + "rxts";
@@ -619,4 +765,55 @@ public class APIManagerComponent {
     protected void unsetOutputEventAdapterService(OutputEventAdapterService outputEventAdapterService){
         ServiceReferenceHolder.getInstance().setOutputEventAdapterService(null);
     }
+
+    /**
+     * Creates the threads of the startup tasks, which run in the tenant flow and with the class loader of the thread
+     * activating the component.
+     */
+    private static class StartupThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        private final int tenantId;
+
+        private final String tenantDomain;
+
+        private final String username;
+
+        private final ClassLoader classLoader;
+
+        private StartupThreadFactory() {
+            PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+            tenantId = carbonContext.getTenantId();
+            tenantDomain = carbonContext.getTenantDomain();
+            username = carbonContext.getUsername();
+            classLoader = Thread.currentThread().getContextClassLoader();
+        }
+
+        @Override
+        public Thread newThread(final Runnable r) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    PrivilegedCarbonContext.startTenantFlow();
+                    try {
+                        PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+                        carbonContext.setTenantId(tenantId);
+                        if (tenantDomain != null) {
+                            carbonContext.setTenantDomain(tenantDomain);
+                        }
+                        if (username != null) {
+                            carbonContext.setUsername(username);
+                        }
+                        r.run();
+                    } finally {
+                        PrivilegedCarbonContext.endTenantFlow();
+                    }
+                }
+            });
+            thread.setName("APIManager-Startup-" + threadCount.incrementAndGet());
+            thread.setContextClassLoader(classLoader);
+            return thread;
+        }
+    }
 }
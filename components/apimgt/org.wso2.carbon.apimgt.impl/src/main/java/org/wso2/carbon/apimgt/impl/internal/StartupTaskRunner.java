@@ -0,0 +1,311 @@
+/*
+*  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.apimgt.impl.internal;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Runs the startup tasks of a component. Each task declares the tasks it depends on, and is started as soon as all of
+ * them have completed, so tasks which do not depend on each other run concurrently. {@link #run()} returns only when
+ * every task has finished, and the time taken by each task is logged at the end.
+ *
+ * A task whose dependency fails is not run, and is reported as skipped.
+ */
+class StartupTaskRunner {
+
+    private static final Log log = LogFactory.getLog(StartupTaskRunner.class);
+
+    /**
+     * A step of the startup.
+     */
+    interface StartupTask {
+        void run() throws Exception;
+    }
+
+    private enum State {
+        PENDING, RUNNING, COMPLETED, FAILED, SKIPPED
+    }
+
+    private final String name;
+
+    private final int threads;
+
+    private final ThreadFactory threadFactory;
+
+    // Tasks in the order they were added, which is also the order the timings are reported in
+    private final Map<String, TaskEntry> tasks = new LinkedHashMap<String, TaskEntry>();
+
+    private ExecutorService executor;
+
+    private int finishedTasks;
+
+    /**
+     * @param name          name of the component, used in the logs
+     * @param threads       maximum number of tasks run at the same time
+     * @param threadFactory creates the threads the tasks run on
+     */
+    StartupTaskRunner(String name, int threads, ThreadFactory threadFactory) {
+        this.name = name;
+        this.threads = threads;
+        this.threadFactory = threadFactory;
+    }
+
+    /**
+     * Adds a task, which is run after the given tasks have completed. The dependencies may be added after the task.
+     *
+     * @param taskName     unique name of the task
+     * @param task         the task
+     * @param dependencies names of the tasks which have to complete before this task is run
+     */
+    synchronized void addTask(String taskName, StartupTask task, String... dependencies) {
+        if (executor != null) {
+            throw new IllegalStateException("Tasks of " + name + " are already started");
+        }
+        if (tasks.containsKey(taskName)) {
+            throw new IllegalArgumentException("Duplicate startup task: " + taskName);
+        }
+        tasks.put(taskName, new TaskEntry(taskName, task, dependencies));
+    }
+
+    /**
+     * Runs the tasks, and waits till all of them have finished.
+     *
+     * @throws IllegalStateException if a dependency is not added as a task, or the dependencies are cyclic
+     * @throws InterruptedException  if interrupted while waiting. The tasks which already started keep running.
+     */
+    void run() throws InterruptedException {
+        List<TaskEntry> readyTasks = new ArrayList<TaskEntry>();
+        long startTime = System.currentTimeMillis();
+        synchronized (this) {
+            if (executor != null) {
+                throw new IllegalStateException("Tasks of " + name + " are already started");
+            }
+            for (TaskEntry entry : tasks.values()) {
+                for (String dependency : entry.dependencies) {
+                    TaskEntry dependencyEntry = tasks.get(dependency);
+                    if (dependencyEntry == null) {
+                        throw new IllegalStateException("Startup task " + entry.name + " depends on " + dependency +
+                                                        ", which is not a startup task of " + name);
+                    }
+                    dependencyEntry.dependents.add(entry);
+                }
+                entry.pendingDependencies = entry.dependencies.length;
+                if (entry.pendingDependencies == 0) {
+                    readyTasks.add(entry);
+                }
+            }
+            checkForCycles();
+            if (tasks.isEmpty()) {
+                return;
+            }
+            executor = Executors.newFixedThreadPool(Math.min(threads, tasks.size()), threadFactory);
+            for (TaskEntry entry : readyTasks) {
+                entry.state = State.RUNNING;
+            }
+        }
+
+        try {
+            submit(readyTasks);
+            synchronized (this) {
+                while (finishedTasks < tasks.size()) {
+                    wait();
+                }
+            }
+        } finally {
+            // Lets the threads of tasks which are still running end, once those tasks are finished
+            executor.shutdown();
+        }
+        logTimings(System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * @param taskName name of the task
+     * @return whether the task has run without an error
+     */
+    synchronized boolean isCompleted(String taskName) {
+        TaskEntry entry = tasks.get(taskName);
+        return entry != null && entry.state == State.COMPLETED;
+    }
+
+    /**
+     * @return errors of the failed tasks, by the names of the tasks
+     */
+    synchronized Map<String, Throwable> getFailures() {
+        Map<String, Throwable> failures = new LinkedHashMap<String, Throwable>();
+        for (TaskEntry entry : tasks.values()) {
+            if (entry.state == State.FAILED) {
+                failures.put(entry.name, entry.failure);
+            }
+        }
+        return Collections.unmodifiableMap(failures);
+    }
+
+    private void checkForCycles() {
+        // Tasks which can never become ready, once all tasks which can have run, are part of or depend on a cycle
+        Map<TaskEntry, Integer> pendingDependencies = new LinkedHashMap<TaskEntry, Integer>();
+        List<TaskEntry> ready = new ArrayList<TaskEntry>();
+        for (TaskEntry entry : tasks.values()) {
+            pendingDependencies.put(entry, entry.dependencies.length);
+            if (entry.dependencies.length == 0) {
+                ready.add(entry);
+            }
+        }
+        while (!ready.isEmpty()) {
+            TaskEntry entry = ready.remove(ready.size() - 1);
+            pendingDependencies.remove(entry);
+            for (TaskEntry dependent : entry.dependents) {
+                int pending = pendingDependencies.get(dependent) - 1;
+                pendingDependencies.put(dependent, pending);
+                if (pending == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+        if (!pendingDependencies.isEmpty()) {
+            List<String> names = new ArrayList<String>();
+            for (TaskEntry entry : pendingDependencies.keySet()) {
+                names.add(entry.name);
+            }
+            throw new IllegalStateException("Cyclic dependencies between startup tasks of " + name + ": " + names);
+        }
+    }
+
+    private void submit(List<TaskEntry> entries) {
+        for (TaskEntry entry : entries) {
+            executor.execute(entry);
+        }
+    }
+
+    private void finish(TaskEntry entry, Throwable failure) {
+        List<TaskEntry> readyTasks = new ArrayList<TaskEntry>();
+        synchronized (this) {
+            entry.endTime = System.currentTimeMillis();
+            finishedTasks++;
+            if (failure == null) {
+                entry.state = State.COMPLETED;
+                for (TaskEntry dependent : entry.dependents) {
+                    if (--dependent.pendingDependencies == 0 && dependent.state == State.PENDING) {
+                        dependent.state = State.RUNNING;
+                        readyTasks.add(dependent);
+                    }
+                }
+            } else {
+                entry.state = State.FAILED;
+                entry.failure = failure;
+                skipDependents(entry);
+            }
+            notifyAll();
+        }
+        submit(readyTasks);
+    }
+
+    private void skipDependents(TaskEntry entry) {
+        for (TaskEntry dependent : entry.dependents) {
+            if (dependent.state == State.PENDING) {
+                dependent.state = State.SKIPPED;
+                finishedTasks++;
+                if (log.isDebugEnabled()) {
+                    log.debug("Startup task " + dependent.name + " of " + name + " is skipped, since " +
+                              entry.name + " did not complete");
+                }
+                skipDependents(dependent);
+            }
+        }
+    }
+
+    private synchronized void logTimings(long totalTime) {
+        StringBuilder timings = new StringBuilder();
+        long sequentialTime = 0;
+        for (TaskEntry entry : tasks.values()) {
+            if (timings.length() > 0) {
+                timings.append(", ");
+            }
+            timings.append(entry.name);
+            if (entry.state == State.SKIPPED) {
+                timings.append(" skipped");
+                continue;
+            }
+            long taskTime = entry.endTime - entry.startTime;
+            sequentialTime += taskTime;
+            timings.append(' ').append(taskTime).append(" ms");
+            if (entry.state == State.FAILED) {
+                timings.append(" (failed)");
+            }
+        }
+        log.info("Startup tasks of " + name + " finished in " + totalTime + " ms, " + sequentialTime +
+                 " ms if run one after the other: " + timings);
+    }
+
+    private class TaskEntry implements Runnable {
+
+        private final String name;
+
+        private final StartupTask task;
+
+        private final String[] dependencies;
+
+        private final List<TaskEntry> dependents = new ArrayList<TaskEntry>();
+
+        // The fields below are guarded by the runner
+        private int pendingDependencies;
+
+        private State state = State.PENDING;
+
+        private long startTime;
+
+        private long endTime;
+
+        private Throwable failure;
+
+        private TaskEntry(String name, StartupTask task, String[] dependencies) {
+            this.name = name;
+            this.task = task;
+            this.dependencies = dependencies;
+        }
+
+        @Override
+        public void run() {
+            synchronized (StartupTaskRunner.this) {
+                startTime = System.currentTimeMillis();
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Running startup task " + name + " of " + StartupTaskRunner.this.name);
+            }
+            Throwable error = null;
+            try {
+                task.run();
+            } catch (Throwable e) {
+                // Errors are caught as well, since the startup would otherwise wait for the task forever
+                error = e;
+            } finally {
+                finish(this, error);
+            }
+        }
+    }
+}
@@ -25,6 +25,7 @@ import org.wso2.carbon.apimgt.api.model.Subscriber;
 import org.wso2.carbon.apimgt.impl.internal.ServiceReferenceHolder;
 import org.wso2.carbon.apimgt.impl.notification.exception.NotificationException;
 import org.wso2.carbon.apimgt.impl.token.ClaimsRetriever;
+import org.wso2.carbon.apimgt.impl.token.DefaultClaimsRetriever;
 import org.wso2.carbon.apimgt.impl.utils.APIUtil;
 import org.wso2.carbon.context.CarbonContext;
 import org.wso2.carbon.event.output.adapter.core.OutputEventAdapterConfiguration;
@@ -32,11 +33,17 @@ import org.wso2.carbon.event.output.adapter.core.exception.OutputEventAdapterExc
 import org.wso2.carbon.registry.core.Registry;
 import org.wso2.carbon.registry.core.Resource;
 import org.wso2.carbon.registry.core.exceptions.RegistryException;
+import org.wso2.carbon.user.api.UserStoreException;
+import org.wso2.carbon.user.api.UserStoreManager;
+import org.wso2.carbon.user.core.common.AbstractUserStoreManager;
+import org.wso2.carbon.user.core.model.UserClaimSearchEntry;
+import org.wso2.carbon.utils.multitenancy.MultitenantUtils;
 
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -58,51 +65,91 @@ public class NewAPIVersionEmailNotifier extends Notifier {
 
         Set<Subscriber> subscriberList = (Set<Subscriber>) notificationDTO.getProperty(NotifierConstants
                 .SUBSCRIBERS_PER_API);
-        Map<String, String> emailProperties = null;
-
         // Notifications are sent only if there are subscribers
         if (subscriberList.size() > 0) {
 
             Set<String> notifierSet=getNotifierSet(notificationDTO);
+            if (notifierSet.isEmpty()) {
+                log.info("Empty email list. Please set subscriber's email addresses");
+                return;
+            }
             notificationDTO.setNotifierSet(notifierSet);
             notificationDTO = loadMessageTemplate(notificationDTO);
 
-            emailProperties = getEmailProperties(notificationDTO);
-            if (emailProperties != null) {
-                String tenantDomain = CarbonContext.getThreadLocalCarbonContext().getTenantDomain();
-                String adapterName = NotifierConstants.ADAPTER_NAME + tenantDomain;
-                String message = notificationDTO.getMessage();
-                try {
-
-                    synchronized (Notifier.class) {
-                        if (!adapterList.contains(adapterName)) {
-                            OutputEventAdapterConfiguration outputEventAdapterConfiguration =
-                                    createOutputEventAdapterConfiguration(adapterName, NotifierConstants
-                                            .EMAIL_ADAPTER_TYPE);
-                            ServiceReferenceHolder.getInstance().getOutputEventAdapterService().create
-                                    (outputEventAdapterConfiguration);
-                            ServiceReferenceHolder.getInstance().getOutputEventAdapterService()
-                                    .getOutputEventAdapterTypes();
-                            adapterList.add(adapterName);
-                        }
-                    }
+            String tenantDomain = CarbonContext.getThreadLocalCarbonContext().getTenantDomain();
+            sendEmails(notificationDTO, NotifierConstants.ADAPTER_NAME + tenantDomain);
+        }else {
+            if (log.isDebugEnabled()) {
+                log.debug("No exiting Subscribers to send notifications for " + api.getApiName() + api.getVersion());
+            }
+        }
+    }
 
-                    ServiceReferenceHolder.getInstance().getOutputEventAdapterService().publish(adapterName,
-                            emailProperties, message);
+    /**
+     * Publishes the notification to the email adapter, in batches of at most the configured batch size of
+     * recipients, so that a single mail does not carry an unbounded recipient list.
+     *
+     * @param notificationDTO notification with the recipients, title and message set
+     * @param adapterName name of the email adapter of the tenant
+     * @throws NotificationException if the adapter cannot be created
+     */
+    protected void sendEmails(NotificationDTO notificationDTO, String adapterName) throws NotificationException {
 
-                    log.info("notification sent to Email Adapter ");
+        int batchSize = getBatchSize(notificationDTO);
+        String message = notificationDTO.getMessage();
+        try {
 
-                } catch (OutputEventAdapterException e) {
-                    throw new NotificationException("Adapter Creation Failed ", e);
+            synchronized (Notifier.class) {
+                if (!adapterList.contains(adapterName)) {
+                    OutputEventAdapterConfiguration outputEventAdapterConfiguration =
+                            createOutputEventAdapterConfiguration(adapterName, NotifierConstants
+                                    .EMAIL_ADAPTER_TYPE);
+                    ServiceReferenceHolder.getInstance().getOutputEventAdapterService().create
+                            (outputEventAdapterConfiguration);
+                    ServiceReferenceHolder.getInstance().getOutputEventAdapterService()
+                            .getOutputEventAdapterTypes();
+                    adapterList.add(adapterName);
                 }
-            } else {
-                log.info("Empty email list. Please set subscriber's email addresses");
             }
-        }else {
-            if (log.isDebugEnabled()) {
-                log.debug("No exiting Subscribers to send notifications for " + api.getApiName() + api.getVersion());
+
+            List<String> batch = new ArrayList<String>(batchSize);
+            int batches = 0;
+            for (String email : notificationDTO.getNotifierSet()) {
+                batch.add(email);
+                if (batch.size() == batchSize) {
+                    ServiceReferenceHolder.getInstance().getOutputEventAdapterService().publish(adapterName,
+                            getEmailProperties(notificationDTO, batch), message);
+                    batches++;
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                ServiceReferenceHolder.getInstance().getOutputEventAdapterService().publish(adapterName,
+                        getEmailProperties(notificationDTO, batch), message);
+                batches++;
+            }
+
+            log.info("notification sent to Email Adapter for " + notificationDTO.getNotifierSet().size() +
+                    " recipients in " + batches + " batches");
+
+        } catch (OutputEventAdapterException e) {
+            throw new NotificationException("Adapter Creation Failed ", e);
+        }
+    }
+
+    private int getBatchSize(NotificationDTO notificationDTO) {
+        Object batchSize = notificationDTO.getProperty(NotifierConstants.BATCH_SIZE_KEY);
+        if (batchSize != null) {
+            try {
+                int size = Integer.parseInt(batchSize.toString());
+                if (size > 0) {
+                    return size;
+                }
+            } catch (NumberFormatException e) {
+                log.warn("Invalid notification batch size " + batchSize + ", using the default batch size");
             }
         }
+        return NotifierConstants.DEFAULT_BATCH_SIZE;
     }
 
     /**
@@ -118,19 +165,37 @@ public class NewAPIVersionEmailNotifier extends Notifier {
 
         String claimsRetrieverImplClass = (String) notificationDTO.getProperty(NotifierConstants
                 .CLAIMS_RETRIEVER_IMPL_CLASS);
-        ClaimsRetriever claimsRetriever = null;
         Set<String> emaiset = new HashSet<String>();
 
         try {
-
-            for (Subscriber subscriber : subscriberList) {
-                String tenantUserName = subscriber.getName();
-                claimsRetriever = (ClaimsRetriever) APIUtil.getClassForName(claimsRetrieverImplClass).newInstance();
+            Class<?> claimsRetrieverClass = APIUtil.getClassForName(claimsRetrieverImplClass);
+
+            if (DefaultClaimsRetriever.class.equals(claimsRetrieverClass)) {
+                // The default retriever reads every claim of a user. Only the email claim is needed here, so it is
+                // read directly from the user store of each tenant.
+                Map<String, List<String>> usersByTenant = new HashMap<String, List<String>>();
+                for (Subscriber subscriber : subscriberList) {
+                    String tenantDomain = MultitenantUtils.getTenantDomain(subscriber.getName());
+                    List<String> users = usersByTenant.get(tenantDomain);
+                    if (users == null) {
+                        users = new ArrayList<String>();
+                        usersByTenant.put(tenantDomain, users);
+                    }
+                    users.add(MultitenantUtils.getTenantAwareUsername(subscriber.getName()));
+                }
+                for (Map.Entry<String, List<String>> tenantUsers : usersByTenant.entrySet()) {
+                    emaiset.addAll(getEmails(tenantUsers.getKey(), tenantUsers.getValue()));
+                }
+            } else {
+                ClaimsRetriever claimsRetriever = (ClaimsRetriever) claimsRetrieverClass.newInstance();
                 claimsRetriever.init();
-                String email = claimsRetriever.getClaims(tenantUserName).get(NotifierConstants.EMAIL_CLAIM);
+                for (Subscriber subscriber : subscriberList) {
+                    Map<String, String> claims = claimsRetriever.getClaims(subscriber.getName());
+                    String email = claims != null ? claims.get(NotifierConstants.EMAIL_CLAIM) : null;
 
-                if (email != null && !email.isEmpty()) {
-                    emaiset.add(email);
+                    if (email != null && !email.isEmpty()) {
+                        emaiset.add(email);
+                    }
                 }
             }
 
@@ -147,35 +212,86 @@ public class NewAPIVersionEmailNotifier extends Notifier {
     }
 
     /**
-     * Returns a map which will be used to create an Email event adapter
-     * email addresses are extracted from notificationDTO and added as a comma separated string value
+     * Reads the email addresses of users of a tenant, using a single user store manager for all the users. User store
+     * managers extending {@link AbstractUserStoreManager} read the claims of all the users in one lookup.
      *
-     * @param notificationDTO
-     * @return Map contains email properties such as message, title ...
+     * @param tenantDomain tenant domain of the users
+     * @param tenantAwareUserNames tenant aware user names
+     * @return email addresses of the users who have one
+     * @throws NotificationException if the user store cannot be read
      */
-    private Map<String, String> getEmailProperties(NotificationDTO notificationDTO) {
+    private Set<String> getEmails(String tenantDomain, List<String> tenantAwareUserNames)
+            throws NotificationException {
+        Set<String> emails = new HashSet<String>();
+        try {
+            int tenantId = ServiceReferenceHolder.getInstance().getRealmService().getTenantManager()
+                    .getTenantId(tenantDomain);
+            UserStoreManager userStoreManager = ServiceReferenceHolder.getInstance().getRealmService()
+                    .getTenantUserRealm(tenantId).getUserStoreManager();
+            if (userStoreManager instanceof AbstractUserStoreManager) {
+                UserClaimSearchEntry[] entries = getEmailClaims((AbstractUserStoreManager) userStoreManager,
+                        tenantAwareUserNames.toArray(new String[tenantAwareUserNames.size()]));
+                if (entries != null) {
+                    for (UserClaimSearchEntry entry : entries) {
+                        String email = entry.getClaims() != null ?
+                                       entry.getClaims().get(NotifierConstants.EMAIL_CLAIM) : null;
+                        if (email != null && !email.isEmpty()) {
+                            emails.add(email);
+                        }
+                    }
+                }
+            } else {
+                for (String userName : tenantAwareUserNames) {
+                    String email = userStoreManager.getUserClaimValue(userName, NotifierConstants.EMAIL_CLAIM, null);
+                    if (email != null && !email.isEmpty()) {
+                        emails.add(email);
+                    }
+                }
+            }
+        } catch (UserStoreException e) {
+            throw new NotificationException("Error while retrieving Email Claims of tenant " + tenantDomain, e);
+        }
+        return emails;
+    }
 
-        Map<String, String> emailProperties = null;
+    /**
+     * Reads the email claims of the given users in one lookup.
+     *
+     * @param userStoreManager user store manager of the tenant of the users
+     * @param tenantAwareUserNames tenant aware user names
+     * @return the email claims of the users
+     * @throws UserStoreException if the user store cannot be read
+     */
+    UserClaimSearchEntry[] getEmailClaims(AbstractUserStoreManager userStoreManager, String[] tenantAwareUserNames)
+            throws UserStoreException {
+        return userStoreManager.getUsersClaimValues(tenantAwareUserNames,
+                new String[] { NotifierConstants.EMAIL_CLAIM }, null);
+    }
 
-        Set<String> emailNotifierList = notificationDTO.getNotifierSet();
-        if (emailNotifierList != null && emailNotifierList.size() > 0) {
+    /**
+     * Returns a map which will be used to publish an Email event to the adapter
+     * email addresses of the batch are added as a comma separated string value
+     *
+     * @param notificationDTO
+     * @param emails email addresses of the batch
+     * @return Map contains email properties such as message, title ...
+     */
+    private Map<String, String> getEmailProperties(NotificationDTO notificationDTO, List<String> emails) {
 
-            emailProperties = new HashMap<String, String>();
+        Map<String, String> emailProperties = new HashMap<String, String>();
 
-            // Adding emails as comma separated list
-            String emailList = null;
-            for (String email : emailNotifierList) {
-                if (emailList == null) {
-                    emailList = email;
-                } else {
-                    emailList = emailList + "," + email;
-                }
+        // Adding emails as comma separated list
+        StringBuilder emailList = new StringBuilder();
+        for (String email : emails) {
+            if (emailList.length() > 0) {
+                emailList.append(',');
             }
-
-            emailProperties.put(NotifierConstants.EMAIL_ADDRESS_KEY, emailList);
-            emailProperties.put(NotifierConstants.EMAIL_SUBJECT_KEY, notificationDTO.getTitle());
-            emailProperties.put(NotifierConstants.EMAIL_TYPE_KEY, NotifierConstants.EMAIL_FORMAT_HTML);
+            emailList.append(email);
         }
+
+        emailProperties.put(NotifierConstants.EMAIL_ADDRESS_KEY, emailList.toString());
+        emailProperties.put(NotifierConstants.EMAIL_SUBJECT_KEY, notificationDTO.getTitle());
+        emailProperties.put(NotifierConstants.EMAIL_TYPE_KEY, NotifierConstants.EMAIL_FORMAT_HTML);
         return emailProperties;
     }
 
@@ -21,50 +21,64 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
-import org.json.simple.parser.ParseException;
-import org.wso2.carbon.apimgt.impl.APIConstants;
-import org.wso2.carbon.apimgt.impl.internal.ServiceReferenceHolder;
+import org.wso2.carbon.apimgt.api.APIManagementException;
 import org.wso2.carbon.apimgt.impl.notification.exception.NotificationException;
 import org.wso2.carbon.apimgt.impl.utils.APIUtil;
-import org.wso2.carbon.context.PrivilegedCarbonContext;
-import org.wso2.carbon.registry.core.Registry;
-import org.wso2.carbon.registry.core.Resource;
-import org.wso2.carbon.registry.core.exceptions.RegistryException;
 
-import java.nio.charset.Charset;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class NotificationExecutor{
 
-    private static final Log log = LogFactory.getLog(NewAPIVersionEmailNotifier.class);
+    private static final Log log = LogFactory.getLog(NotificationExecutor.class);
+
+    // Notifications of all tenants are sent by a bounded pool.
+    private static final ThreadPoolExecutor notificationPool = createNotificationPool(
+            NotifierConstants.NOTIFICATION_POOL_SIZE, NotifierConstants.NOTIFICATION_QUEUE_SIZE);
+
+    /**
+     * Creates a pool of daemon threads for sending notifications. When the queue is full the caller sends the
+     * notification itself, so that notifications are delayed rather than dropped.
+     * @param poolSize number of threads of the pool
+     * @param queueSize number of notifications waiting for a thread
+     * @return the notification pool
+     */
+    static ThreadPoolExecutor createNotificationPool(int poolSize, int queueSize) {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(queueSize), new ThreadFactory() {
+                    private final AtomicInteger count = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r);
+                        thread.setName("APIM-Notification-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
 
     /**
-     * Executes the notifer classes in separtate threads.
+     * Executes the notifer classes in the notification thread pool.
      * @param notificationDTO
      * @throws NotificationException
      */
     public void sendAsyncNotifications(NotificationDTO notificationDTO) throws NotificationException {
 
-        Registry registry = null;
         int tenantId = notificationDTO.getTenantID();
-        String content = null;
-        JSONObject notificationConfig;
         String notificationType = notificationDTO.getType();
 
         try {
-            registry = ServiceReferenceHolder.getInstance().getRegistryService().getConfigSystemRegistry
-                    (tenantId);
-            if (registry.resourceExists(APIConstants.API_TENANT_CONF_LOCATION)) {
-                Resource resource = registry.get(APIConstants.API_TENANT_CONF_LOCATION);
-                content = new String((byte[]) resource.getContent(), Charset.defaultCharset());
-            }
+            JSONArray notificationArray = APIUtil.getTenantConfig(notificationDTO.getTenantDomain()).getNotifications();
 
-            if (content != null) {
-                JSONParser parser = new JSONParser();
-                notificationConfig = (JSONObject) parser.parse(content);
-                JSONArray notificationArray = (JSONArray) notificationConfig.get(NotifierConstants.Notifications_KEY);
+            if (notificationArray != null) {
 
                 for (Object notification : notificationArray) {
 
@@ -76,19 +90,22 @@ public class NotificationExecutor{
                             JSONObject jsonNotifier = (JSONObject) notifier;
                             String notifierClass = (String) jsonNotifier.get("Class");
 
-                            Map map = (Map) jsonNotifier;
-                            Properties prop = notificationDTO.getProperties();
-                            prop.putAll(map);
-                            notificationDTO.setProperties(prop);
-
-                            //starting Notifier threads
+                            //submitting Notifiers to the notification pool
                             if (notifierClass != null && !notifierClass.isEmpty()) {
 
+                                // Each notifier gets its own copy of the properties, since notifiers run
+                                // concurrently and the notifier configurations differ.
+                                Properties prop = new Properties();
+                                prop.putAll(notificationDTO.getProperties());
+                                prop.putAll((Map) jsonNotifier);
+                                NotificationDTO notifierDTO = new NotificationDTO(prop, notificationType);
+                                notifierDTO.setTenantID(tenantId);
+                                notifierDTO.setTenantDomain(notificationDTO.getTenantDomain());
+
                                 Notifier notfier = (Notifier) APIUtil.getClassForName(notifierClass).newInstance();
-                                notfier.setNotificationDTO(notificationDTO);
+                                notfier.setNotificationDTO(notifierDTO);
                                 notfier.setTenantDomain(notificationDTO.getTenantDomain());
-                                Thread notificationThread = new Thread(notfier);
-                                notificationThread.start();
+                                notificationPool.execute(notfier);
                             }
                         }
                     }
@@ -101,10 +118,8 @@ public class NotificationExecutor{
             throw new NotificationException("Error while Initializing the notifier class",e);
         } catch (ClassNotFoundException e) {
             throw new NotificationException("Error while Initializing the notifier class",e);
-        } catch (RegistryException e) {
+        } catch (APIManagementException e) {
             throw new NotificationException("Error while Reading notification Configuration",e);
-        } catch (ParseException e) {
-            throw new NotificationException("Error while passing notification Configuration",e);
         }
     }
 }
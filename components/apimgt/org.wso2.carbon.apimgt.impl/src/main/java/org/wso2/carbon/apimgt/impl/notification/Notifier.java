@@ -39,12 +39,17 @@ public abstract class Notifier implements Runnable {
 
     @Override
     public void run() {
+        // The executor may run a notifier on the thread which submitted it, so the tenant of that thread is kept in a
+        // tenant flow of its own
+        PrivilegedCarbonContext.startTenantFlow();
         try {
             setThreadLocalContxet(tenantDomain);
             sendNotifications(notificationDTO);
         }
         catch (Exception e) {
             log.error("Exception Occured during notification Sending ", e);
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
         }
     }
 
@@ -53,4 +53,8 @@ public class NotifierConstants {
     public final static String NOTIFICATION_TYPE_NEW_VERSION = "new_api_version";
     public final static String NOTIFICATIONS_ENABLED = "NotificationsEnabled";
     public final static String CLAIMS_RETRIEVER_IMPL_CLASS = "ClaimsRetrieverImplClass";
+    public final static String BATCH_SIZE_KEY = "BatchSize";
+    public final static int DEFAULT_BATCH_SIZE = 100;
+    public final static int NOTIFICATION_POOL_SIZE = 4;
+    public final static int NOTIFICATION_QUEUE_SIZE = 1000;
 }
@@ -220,9 +220,24 @@ public class APIGatewayAdminClient extends AbstractAPIGatewayAdminClient {
 
     public void addDefaultAPI(APITemplateBuilder builder, String tenantDomain, String defaultVersion,
                               APIIdentifier apiId) throws AxisFault {
+        String apiConfig;
+        try {
+            apiConfig = builder.getConfigStringForDefaultAPITemplate(defaultVersion);
+        } catch (Exception e) {
+            throw new AxisFault("Error publishing default API to the Gateway. " + e.getMessage(), e);
+        }
+        addDefaultAPI(apiConfig, tenantDomain, apiId);
+    }
 
+    /**
+     * Add the default version of the API to the gateway
+     *
+     * @param apiConfig - Synapse configuration of the default API
+     * @param tenantDomain - The Tenant Domain
+     * @throws AxisFault
+     */
+    public void addDefaultAPI(String apiConfig, String tenantDomain, APIIdentifier apiId) throws AxisFault {
         try {
-            String apiConfig = builder.getConfigStringForDefaultAPITemplate(defaultVersion);
             if (tenantDomain != null && !("").equals(tenantDomain)
                 && !MultitenantConstants.SUPER_TENANT_DOMAIN_NAME.equals(tenantDomain)) {
                 apiGatewayAdminStub.addDefaultAPIForTenant(apiId.getProviderName(), apiId.getApiName(), apiId.getVersion(), apiConfig,
@@ -281,8 +296,24 @@ public class APIGatewayAdminClient extends AbstractAPIGatewayAdminClient {
      * @throws AxisFault
      */
     public void updateApi(APITemplateBuilder builder, String tenantDomain, APIIdentifier apiId) throws AxisFault {
+        String apiConfig;
+        try {
+            apiConfig = builder.getConfigStringForTemplate(environment);
+        } catch (Exception e) {
+            throw new AxisFault("Error while updating API in the gateway. " + e.getMessage(), e);
+        }
+        updateApi(apiConfig, tenantDomain, apiId);
+    }
+
+    /**
+     * Update the API in the Gateway
+     *
+     * @param apiConfig - Synapse configuration of the API
+     * @param tenantDomain - The Tenant Domain
+     * @throws AxisFault
+     */
+    public void updateApi(String apiConfig, String tenantDomain, APIIdentifier apiId) throws AxisFault {
         try {
-            String apiConfig = builder.getConfigStringForTemplate(environment);
             if (tenantDomain != null && !("").equals(tenantDomain) &&
                 !MultitenantConstants.SUPER_TENANT_DOMAIN_NAME.equals(tenantDomain)) {
 
@@ -320,8 +351,24 @@ public class APIGatewayAdminClient extends AbstractAPIGatewayAdminClient {
 
     public void updateDefaultApi(APITemplateBuilder builder, String tenantDomain, String defaultVersion,
                                  APIIdentifier apiId) throws AxisFault {
+        String apiConfig;
+        try {
+            apiConfig = builder.getConfigStringForDefaultAPITemplate(defaultVersion);
+        } catch (Exception e) {
+            throw new AxisFault("Error while updating default API in the gateway. " + e.getMessage(), e);
+        }
+        updateDefaultApi(apiConfig, tenantDomain, apiId);
+    }
+
+    /**
+     * Update the default version of the API in the Gateway
+     *
+     * @param apiConfig - Synapse configuration of the default API
+     * @param tenantDomain - The Tenant Domain
+     * @throws AxisFault
+     */
+    public void updateDefaultApi(String apiConfig, String tenantDomain, APIIdentifier apiId) throws AxisFault {
         try {
-            String apiConfig = builder.getConfigStringForDefaultAPITemplate(defaultVersion);
             if (tenantDomain != null && !("").equals(tenantDomain) &&
                 !MultitenantConstants.SUPER_TENANT_DOMAIN_NAME.equals(tenantDomain)) {
 
@@ -47,7 +47,6 @@ import org.apache.http.conn.ssl.X509HostnameVerifier;
 import org.apache.http.impl.client.DefaultHttpClient;
 import org.apache.http.impl.conn.tsccm.ThreadSafeClientConnManager;
 import org.apache.http.params.BasicHttpParams;
-import org.apache.http.params.HttpParams;
 import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.SolrDocumentList;
 import org.apache.woden.WSDLException;
@@ -71,7 +70,9 @@ import org.wso2.carbon.apimgt.impl.clients.ApplicationManagementServiceClient;
 import org.wso2.carbon.apimgt.impl.clients.OAuthAdminClient;
 import org.wso2.carbon.apimgt.impl.dao.ApiMgtDAO;
 import org.wso2.carbon.apimgt.impl.dto.APIKeyValidationInfoDTO;
+import org.wso2.carbon.apimgt.impl.dto.APIResourceMetadataDTO;
 import org.wso2.carbon.apimgt.impl.dto.Environment;
+import org.wso2.carbon.apimgt.impl.dto.TenantConfigDTO;
 import org.wso2.carbon.apimgt.impl.dto.ThrottleProperties;
 import org.wso2.carbon.apimgt.impl.factory.KeyManagerHolder;
 import org.wso2.carbon.apimgt.impl.internal.APIManagerComponent;
@@ -149,6 +150,7 @@ import java.rmi.RemoteException;
 import java.util.*;
 import java.util.Map.Entry;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This class contains the utility methods used by the implementations of APIManager, APIProvider
@@ -172,6 +174,16 @@ public final class APIUtil {
 
     private static volatile Set<String> whiteListedScopes;
 
+    // Generation of the API resource metadata cache, incremented whenever the metadata of an API is invalidated
+    private static final AtomicLong apiResourceMetadataVersion = new AtomicLong();
+
+    // Milliseconds a snapshot of the resource metadata of an API is used for, read from the configuration when first
+    // needed
+    private static volatile long apiResourceMetadataExpiryMillis = -1;
+
+    // Generation of the tenant config cache, incremented whenever the configuration of a tenant is invalidated
+    private static final AtomicLong tenantConfigVersion = new AtomicLong();
+
     //Need tenantIdleTime to check whether the tenant is in idle state in loadTenantConfig method
     static {
         tenantIdleTimeMillis =
@@ -4868,42 +4880,12 @@ public final class APIUtil {
     }
 
     private static boolean isUnlimitedTierPaid(String tenantDomain) throws APIManagementException {
-        JSONObject apiTenantConfig = null;
-        try {
-            String content = null;
-
-            PrivilegedCarbonContext.startTenantFlow();
-            PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain(tenantDomain, true);
-
-            int tenantId = ServiceReferenceHolder.getInstance().getRealmService().getTenantManager()
-                    .getTenantId(tenantDomain);
-            Registry registry = ServiceReferenceHolder.getInstance().getRegistryService()
-                    .getConfigSystemRegistry(tenantId);
-
-            if (registry.resourceExists(APIConstants.API_TENANT_CONF_LOCATION)) {
-                Resource resource = registry.get(APIConstants.API_TENANT_CONF_LOCATION);
-                content = new String((byte[]) resource.getContent(), Charset.defaultCharset());
-            }
-
-            if (content != null) {
-                JSONParser parser = new JSONParser();
-                apiTenantConfig = (JSONObject) parser.parse(content);
-            }
-        } catch (UserStoreException e) {
-            handleException("UserStoreException thrown when getting API tenant config from registry", e);
-        } catch (RegistryException e) {
-            handleException("RegistryException thrown when getting API tenant config from registry", e);
-        } catch (ParseException e) {
-            handleException("ParseException thrown when passing API tenant config from registry", e);
-        } finally {
-            PrivilegedCarbonContext.endTenantFlow();
-        }
-
-        if (apiTenantConfig != null) {
-            Object value = apiTenantConfig.get(APIConstants.API_TENANT_CONF_IS_UNLIMITED_TIER_PAID);
+        TenantConfigDTO tenantConfig = getTenantConfig(tenantDomain);
+        if (tenantConfig.isConfigured()) {
+            Boolean value = tenantConfig.getUnlimitedTierPaid();
 
             if (value != null) {
-                return Boolean.parseBoolean(value.toString());
+                return value;
             } else {
                 throw new APIManagementException(APIConstants.API_TENANT_CONF_IS_UNLIMITED_TIER_PAID
                         + " config does not exist for tenant " + tenantDomain);
@@ -4995,6 +4977,26 @@ public final class APIUtil {
      * @return
      */
     public static HttpClient getHttpClient(int port, String protocol) {
+        ThreadSafeClientConnManager tcm = new ThreadSafeClientConnManager(getSchemeRegistry(port, protocol));
+        return new DefaultHttpClient(tcm, new BasicHttpParams());
+    }
+
+    /**
+     * Return a http client instance which keeps up to the given number of connections alive for reuse
+     *
+     * @param port           server port
+     * @param protocol       service endpoint protocol http/https
+     * @param maxConnections maximum number of connections, both in total and to the endpoint
+     * @return the http client
+     */
+    public static HttpClient getHttpClient(int port, String protocol, int maxConnections) {
+        ThreadSafeClientConnManager tcm = new ThreadSafeClientConnManager(getSchemeRegistry(port, protocol));
+        tcm.setMaxTotal(maxConnections);
+        tcm.setDefaultMaxPerRoute(maxConnections);
+        return new DefaultHttpClient(tcm, new BasicHttpParams());
+    }
+
+    private static SchemeRegistry getSchemeRegistry(int port, String protocol) {
         SchemeRegistry registry = new SchemeRegistry();
         SSLSocketFactory socketFactory = SSLSocketFactory.getSocketFactory();
         String ignoreHostnameVerification = System.getProperty("org.wso2.ignoreHostnameVerification");
@@ -5015,10 +5017,7 @@ public final class APIUtil {
                 registry.register(new Scheme(APIConstants.HTTP_PROTOCOL, 80, PlainSocketFactory.getSocketFactory()));
             }
         }
-        HttpParams params = new BasicHttpParams();
-        ThreadSafeClientConnManager tcm = new ThreadSafeClientConnManager(registry);
-        return new DefaultHttpClient(tcm, params);
-
+        return registry;
     }
 
     /**
@@ -5092,33 +5091,203 @@ public final class APIUtil {
      * @throws APIManagementException
      */
     public static JSONObject getTenantRESTAPIScopesConfig(String tenantDomain) throws APIManagementException {
-        JSONObject apiTenantConfig = null;
-        JSONObject restAPIConfigJSON = null;
-        try {
-            String content = new APIMRegistryServiceImpl().getConfigRegistryResourceContent(tenantDomain,
-                    APIConstants.API_TENANT_CONF_LOCATION);
+        TenantConfigDTO tenantConfig = getTenantConfig(tenantDomain);
+        JSONObject restAPIConfigJSON = tenantConfig.getRESTAPIScopes();
+        if (tenantConfig.isConfigured() && restAPIConfigJSON == null) {
+            throw new APIManagementException("RESTAPIScopes" + " config does not exist for tenant " + tenantDomain);
+        }
+        return restAPIConfigJSON;
+    }
 
-            if (content != null) {
-                JSONParser parser = new JSONParser();
-                apiTenantConfig = (JSONObject) parser.parse(content);
-                if (apiTenantConfig != null) {
-                    Object value = apiTenantConfig.get(APIConstants.REST_API_SCOPES_CONFIG);
-                    if (value != null) {
-                        restAPIConfigJSON = (JSONObject) value;
-                    } else {
-                        throw new APIManagementException("RESTAPIScopes" + " config does not exist for tenant "
-                                + tenantDomain);
-                    }
-                }
-            }
+    /**
+     * Returns the parsed tenant-conf.json of the tenant. The configuration is read from the config registry and parsed
+     * once, and then served from the tenant config cache until tenant-conf.json is changed in the registry, see
+     * {@link #clearTenantConfigCache(String)}.
+     *
+     * @param tenantDomain tenant domain, the super tenant if null
+     * @return the tenant configuration. It is shared with other callers and must not be modified.
+     * @throws APIManagementException if the configuration cannot be read or parsed
+     */
+    public static TenantConfigDTO getTenantConfig(String tenantDomain) throws APIManagementException {
+        return getTenantConfig(tenantDomain, new APIMRegistryServiceImpl());
+    }
+
+    /**
+     * Returns the parsed tenant-conf.json of the tenant, reading it with the given registry service if it is not
+     * cached.
+     *
+     * @param tenantDomain        tenant domain, the super tenant if null
+     * @param apimRegistryService registry service to read tenant-conf.json with
+     * @return the tenant configuration. It is shared with other callers and must not be modified.
+     * @throws APIManagementException if the configuration cannot be read or parsed
+     */
+    public static TenantConfigDTO getTenantConfig(String tenantDomain, APIMRegistryService apimRegistryService)
+            throws APIManagementException {
+        if (tenantDomain == null) {
+            tenantDomain = MultitenantConstants.SUPER_TENANT_DOMAIN_NAME;
+        }
+        TenantConfigDTO tenantConfig = null;
+        try {
+            PrivilegedCarbonContext.startTenantFlow();
+            PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain(tenantDomain, true);
+            tenantConfig = getTenantConfig(tenantDomain, apimRegistryService, getTenantConfigCache());
         } catch (UserStoreException e) {
             handleException("UserStoreException thrown when getting API tenant config from registry", e);
         } catch (RegistryException e) {
             handleException("RegistryException thrown when getting API tenant config from registry", e);
         } catch (ParseException e) {
             handleException("ParseException thrown when passing API tenant config from registry", e);
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
         }
-        return restAPIConfigJSON;
+        return tenantConfig;
+    }
+
+    static TenantConfigDTO getTenantConfig(String tenantDomain, APIMRegistryService apimRegistryService,
+                                           Cache tenantConfigCache)
+            throws UserStoreException, RegistryException, ParseException {
+        TenantConfigDTO tenantConfig = (TenantConfigDTO) tenantConfigCache.get(tenantDomain);
+        if (tenantConfig == null) {
+            long version = tenantConfigVersion.get();
+            String content = apimRegistryService.getConfigRegistryResourceContent(tenantDomain,
+                    APIConstants.API_TENANT_CONF_LOCATION);
+            tenantConfig = TenantConfigDTO.parse(content);
+            // A configuration read while the configuration of a tenant was invalidated may be the one which was
+            // replaced, so it is only returned to this caller.
+            if (version == tenantConfigVersion.get()) {
+                tenantConfigCache.put(tenantDomain, tenantConfig);
+            }
+        }
+        return tenantConfig;
+    }
+
+    /**
+     * Removes the cached tenant-conf.json of the tenant. Called when tenant-conf.json is added, updated or deleted in
+     * the registry. The cache is cluster aware, so the configuration is read again on every node.
+     *
+     * @param tenantDomain tenant domain
+     */
+    public static void clearTenantConfigCache(String tenantDomain) {
+        try {
+            PrivilegedCarbonContext.startTenantFlow();
+            PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain(tenantDomain, true);
+            clearTenantConfigCache(tenantDomain, getTenantConfigCache());
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+    }
+
+    static void clearTenantConfigCache(String tenantDomain, Cache tenantConfigCache) {
+        tenantConfigVersion.incrementAndGet();
+        tenantConfigCache.remove(tenantDomain);
+    }
+
+    private static Cache getTenantConfigCache() {
+        return Caching.getCacheManager(APIConstants.API_MANAGER_CACHE_MANAGER).
+                getCache(APIConstants.TENANT_CONFIG_CACHE);
+    }
+
+    /**
+     * Returns the resources of an API and the scopes bound to them. The metadata of an API is read from the database
+     * once and then served from the API resource metadata cache until the API is updated, see
+     * {@link #clearAPIResourceMetadataCache(String, String)}, or until it is older than
+     * CacheConfigurations/KeyManagerResourceCacheExpiry seconds. The expiry bounds how long a change is not seen by
+     * key managers which are not in the cache cluster of the publisher. Metadata of an API which has no resources,
+     * e.g. one which is not added yet, is not cached.
+     *
+     * @param apiContext context of the API
+     * @param apiVersion version of the API
+     * @return the resource metadata of the API. It is shared with other callers and must not be modified.
+     * @throws APIManagementException if the metadata cannot be read
+     */
+    public static APIResourceMetadataDTO getAPIResourceMetadata(String apiContext, String apiVersion)
+            throws APIManagementException {
+        try {
+            // APIs of all tenants are kept in the cache of the super tenant, as their contexts are unique
+            PrivilegedCarbonContext.startTenantFlow();
+            PrivilegedCarbonContext.getThreadLocalCarbonContext()
+                    .setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME, true);
+            return getAPIResourceMetadata(apiContext, apiVersion, ApiMgtDAO.getInstance(),
+                    getAPIResourceMetadataCache(), getAPIResourceMetadataExpiryMillis(), System.currentTimeMillis());
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+    }
+
+    static APIResourceMetadataDTO getAPIResourceMetadata(String apiContext, String apiVersion, ApiMgtDAO apiMgtDAO,
+                                                         Cache resourceMetadataCache, long expiryMillis,
+                                                         long currentTime) throws APIManagementException {
+        String cacheKey = getAPIResourceMetadataCacheKey(apiContext, apiVersion);
+        APIResourceMetadataDTO cachedMetadata = (APIResourceMetadataDTO) resourceMetadataCache.get(cacheKey);
+        if (cachedMetadata != null && !cachedMetadata.isExpired(currentTime, expiryMillis)) {
+            return cachedMetadata;
+        }
+        long version = apiResourceMetadataVersion.get();
+        APIResourceMetadataDTO metadata = new APIResourceMetadataDTO(apiContext, apiVersion, version, currentTime,
+                apiMgtDAO.getAllURITemplates(apiContext, apiVersion),
+                apiMgtDAO.getResourceToScopeMapping(apiContext, apiVersion));
+        // A snapshot read while the metadata of an API was invalidated may hold the metadata from before the
+        // update, so it is only returned to this caller.
+        if (metadata.hasResources() && version == apiResourceMetadataVersion.get()) {
+            resourceMetadataCache.put(cacheKey, metadata);
+        } else if (cachedMetadata != null) {
+            resourceMetadataCache.remove(cacheKey);
+        }
+        return metadata;
+    }
+
+    /**
+     * Removes the cached resource metadata of an API. Must be called whenever the resources or scopes of the API are
+     * changed, and when the API is published or deleted. The cache is cluster aware, so the metadata is read again on
+     * every node.
+     *
+     * @param apiContext context of the API
+     * @param apiVersion version of the API
+     */
+    public static void clearAPIResourceMetadataCache(String apiContext, String apiVersion) {
+        try {
+            PrivilegedCarbonContext.startTenantFlow();
+            PrivilegedCarbonContext.getThreadLocalCarbonContext()
+                    .setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME, true);
+            clearAPIResourceMetadataCache(apiContext, apiVersion, getAPIResourceMetadataCache());
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+    }
+
+    static void clearAPIResourceMetadataCache(String apiContext, String apiVersion, Cache resourceMetadataCache) {
+        apiResourceMetadataVersion.incrementAndGet();
+        resourceMetadataCache.remove(getAPIResourceMetadataCacheKey(apiContext, apiVersion));
+    }
+
+    private static long getAPIResourceMetadataExpiryMillis() {
+        long expiryMillis = apiResourceMetadataExpiryMillis;
+        if (expiryMillis < 0) {
+            long expirySeconds = APIConstants.DEFAULT_KEY_MANAGER_RESOURCE_CACHE_EXPIRY;
+            APIManagerConfiguration config = ServiceReferenceHolder.getInstance().getAPIManagerConfigurationService()
+                    .getAPIManagerConfiguration();
+            String configuredExpiry = config.getFirstProperty(APIConstants.KEY_MANAGER_RESOURCE_CACHE_EXPIRY);
+            if (configuredExpiry != null) {
+                try {
+                    expirySeconds = Long.parseLong(configuredExpiry.trim());
+                } catch (NumberFormatException e) {
+                    log.warn("Invalid " + APIConstants.KEY_MANAGER_RESOURCE_CACHE_EXPIRY + " : " + configuredExpiry
+                            + ". Using the default of " + expirySeconds + " seconds");
+                }
+            }
+            expiryMillis = TimeUnit.SECONDS.toMillis(expirySeconds);
+            apiResourceMetadataExpiryMillis = expiryMillis;
+        }
+        return expiryMillis;
+    }
+
+    private static Cache getAPIResourceMetadataCache() {
+        return Caching.getCacheManager(APIConstants.API_MANAGER_CACHE_MANAGER).
+                getCache(APIConstants.API_RESOURCE_METADATA_CACHE);
+    }
+
+    private static String getAPIResourceMetadataCacheKey(String apiContext, String apiVersion) {
+        return apiContext + ":" + apiVersion;
     }
 
     /**
@@ -5708,6 +5877,7 @@ public final class APIUtil {
                 }
             }
         }
+        clearPolicyTiersCache(tenantId);
     }
 
     /**
@@ -5749,7 +5919,91 @@ public final class APIUtil {
        return throttleProperties.isEnabledSubscriptionLevelSpikeArrest();
     }
 
+    /**
+     * Returns the tiers defined by the throttle policies of the given level of the tenant. The tiers are loaded from
+     * the database once and cached until a policy of the tenant is added, updated or deleted, see
+     * {@link #clearPolicyTiersCache(int)}.
+     *
+     * @param policyLevel policy level, one of sub, api or app
+     * @param tenantId    tenant id
+     * @return an unmodifiable map of tier names and Tier objects. The Tier objects are copies which the caller may
+     * modify without affecting the cached tiers.
+     * @throws APIManagementException if the policies cannot be read
+     */
     public static Map<String, Tier> getTiersFromPolicies(String policyLevel, int tenantId) throws APIManagementException {
+        if (!PolicyConstants.POLICY_LEVEL_SUB.equalsIgnoreCase(policyLevel)
+                && !PolicyConstants.POLICY_LEVEL_API.equalsIgnoreCase(policyLevel)
+                && !PolicyConstants.POLICY_LEVEL_APP.equalsIgnoreCase(policyLevel)) {
+            throw new APIManagementException("No such a policy type : " + policyLevel);
+        }
+
+        if (tenantId == MultitenantConstants.INVALID_TENANT_ID) {
+            return Collections.unmodifiableMap(loadTiersFromPolicies(policyLevel, tenantId));
+        }
+
+        String cacheKey = getPolicyTiersCacheKey(policyLevel, tenantId);
+        Map<String, Tier> cachedTiers;
+        try {
+            PrivilegedCarbonContext.startTenantFlow();
+            PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantId(tenantId, true);
+            Cache policyTiersCache = getPolicyTiersCache();
+            cachedTiers = (Map<String, Tier>) policyTiersCache.get(cacheKey);
+            if (cachedTiers == null) {
+                cachedTiers = Collections.unmodifiableMap(loadTiersFromPolicies(policyLevel, tenantId));
+                policyTiersCache.put(cacheKey, cachedTiers);
+            }
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+
+        Map<String, Tier> tierMap = new HashMap<String, Tier>(cachedTiers.size());
+        for (Tier tier : cachedTiers.values()) {
+            tierMap.put(tier.getName(), copyPolicyTier(tier));
+        }
+        return Collections.unmodifiableMap(tierMap);
+    }
+
+    /**
+     * Removes the cached tiers of all policy levels of the tenant. Must be called whenever a throttle policy of the
+     * tenant is added, updated or deleted. The cache is cluster aware, so the tiers are reloaded on every node.
+     *
+     * @param tenantId tenant id
+     */
+    public static void clearPolicyTiersCache(int tenantId) {
+        try {
+            PrivilegedCarbonContext.startTenantFlow();
+            PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantId(tenantId, true);
+            Cache policyTiersCache = getPolicyTiersCache();
+            policyTiersCache.remove(getPolicyTiersCacheKey(PolicyConstants.POLICY_LEVEL_SUB, tenantId));
+            policyTiersCache.remove(getPolicyTiersCacheKey(PolicyConstants.POLICY_LEVEL_API, tenantId));
+            policyTiersCache.remove(getPolicyTiersCacheKey(PolicyConstants.POLICY_LEVEL_APP, tenantId));
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+    }
+
+    private static Cache getPolicyTiersCache() {
+        return Caching.getCacheManager(APIConstants.API_MANAGER_CACHE_MANAGER).
+                getCache(APIConstants.POLICY_TIERS_CACHE);
+    }
+
+    private static String getPolicyTiersCacheKey(String policyLevel, int tenantId) {
+        return policyLevel.toLowerCase() + ":" + tenantId;
+    }
+
+    private static Tier copyPolicyTier(Tier tier) {
+        Tier copy = new Tier(tier.getName());
+        copy.setDescription(tier.getDescription());
+        copy.setDisplayName(tier.getDisplayName());
+        copy.setTimeUnit(tier.getTimeUnit());
+        copy.setUnitTime(tier.getUnitTime());
+        copy.setRequestsPerMin(tier.getRequestsPerMin());
+        copy.setRequestCount(tier.getRequestCount());
+        return copy;
+    }
+
+    private static Map<String, Tier> loadTiersFromPolicies(String policyLevel, int tenantId)
+            throws APIManagementException {
         Map<String, Tier> tierMap = new HashMap<String, Tier>();
         ApiMgtDAO apiMgtDAO = ApiMgtDAO.getInstance();
         Policy[] policies;
@@ -5757,10 +6011,8 @@ public final class APIUtil {
             policies = apiMgtDAO.getSubscriptionPolicies(tenantId);
         } else if (PolicyConstants.POLICY_LEVEL_API.equalsIgnoreCase(policyLevel)) {
             policies = apiMgtDAO.getAPIPolicies(tenantId);
-        } else if (PolicyConstants.POLICY_LEVEL_APP.equalsIgnoreCase(policyLevel)) {
-            policies = apiMgtDAO.getApplicationPolicies(tenantId);
         } else {
-            throw new APIManagementException("No such a policy type : " + policyLevel);
+            policies = apiMgtDAO.getApplicationPolicies(tenantId);
         }
 
         for (Policy policy : policies) {
@@ -0,0 +1,89 @@
+/*
+*  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.apimgt.impl.utils;
+
+import org.apache.commons.codec.binary.Base64;
+import org.json.simple.JSONArray;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+import org.wso2.carbon.apimgt.api.APIManagementException;
+
+import java.nio.charset.Charset;
+
+/**
+ * Continuation token of a listing paginated by keys rather than by offset. A token holds the sort keys of the last
+ * item of a page, and the next page starts after that item. The token is opaque to clients; they are only expected
+ * to pass back the token returned with the previous page.
+ */
+public final class PageToken {
+
+    /**
+     * Message of the exception thrown for a token which was not issued by the listing it is passed to.
+     */
+    public static final String INVALID_PAGE_TOKEN = "Invalid page token";
+
+    /**
+     * Message of the exception thrown for a page size which is not positive.
+     */
+    public static final String INVALID_PAGE_LIMIT = "Invalid page limit";
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private PageToken() {
+    }
+
+    /**
+     * @param keys sort keys of the last item of a page, which may be null
+     * @return the token from which the next page continues
+     */
+    @SuppressWarnings("unchecked")
+    public static String encode(String... keys) {
+        JSONArray array = new JSONArray();
+        for (String key : keys) {
+            array.add(key);
+        }
+        return Base64.encodeBase64URLSafeString(array.toJSONString().getBytes(UTF_8));
+    }
+
+    /**
+     * @param token    token returned with the previous page
+     * @param keyCount number of keys the listing puts in its tokens
+     * @return the sort keys held by the token, null for the keys which were null when the token was encoded
+     * @throws APIManagementException if the token is malformed or holds a different number of keys
+     */
+    public static String[] decode(String token, int keyCount) throws APIManagementException {
+        try {
+            Object parsed = new JSONParser().parse(new String(Base64.decodeBase64(token), UTF_8));
+            if (parsed instanceof JSONArray && ((JSONArray) parsed).size() == keyCount) {
+                JSONArray array = (JSONArray) parsed;
+                String[] keys = new String[keyCount];
+                for (int i = 0; i < keyCount; i++) {
+                    if (array.get(i) != null && !(array.get(i) instanceof String)) {
+                        throw new APIManagementException(INVALID_PAGE_TOKEN + " : " + token);
+                    }
+                    keys[i] = (String) array.get(i);
+                }
+                return keys;
+            }
+        } catch (ParseException e) {
+            throw new APIManagementException(INVALID_PAGE_TOKEN + " : " + token, e);
+        }
+        throw new APIManagementException(INVALID_PAGE_TOKEN + " : " + token);
+    }
+}
@@ -18,14 +18,10 @@
 
 package org.wso2.carbon.apimgt.impl.workflow;
 
+import org.apache.axiom.om.OMElement;
 import org.apache.axiom.om.util.AXIOMUtil;
 import org.apache.axis2.AxisFault;
-import org.apache.axis2.Constants;
-import org.apache.axis2.addressing.EndpointReference;
-import org.apache.axis2.client.Options;
 import org.apache.axis2.client.ServiceClient;
-import org.apache.axis2.transport.http.HTTPConstants;
-import org.apache.axis2.transport.http.HttpTransportProperties;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.apimgt.api.APIManagementException;
@@ -33,10 +29,8 @@ import org.wso2.carbon.apimgt.api.WorkflowResponse;
 import org.wso2.carbon.apimgt.api.model.Application;
 import org.wso2.carbon.apimgt.impl.dto.ApplicationRegistrationWorkflowDTO;
 import org.wso2.carbon.apimgt.impl.dto.WorkflowDTO;
-import org.wso2.carbon.apimgt.impl.internal.ServiceReferenceHolder;
 
 import javax.xml.stream.XMLStreamException;
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -48,6 +42,7 @@ public class ApplicationRegistrationWSWorkflowExecutor extends AbstractApplicati
     private String username;
     private char[] password;
     private String contentType;
+    private boolean asyncCallout;
     private static final Log log = LogFactory.getLog(ApplicationRegistrationWSWorkflowExecutor.class);
 
     @Override
@@ -57,7 +52,6 @@ public class ApplicationRegistrationWSWorkflowExecutor extends AbstractApplicati
         }
         try {
             String action = WorkflowConstants.CREATE_REGISTRATION_WS_ACTION;
-            ServiceClient client = getClient(action);
             String payload =
                     "<wor:ApplicationRegistrationWorkFlowProcessRequest xmlns:wor=\"http://workflow.application.apimgt.carbon.wso2.org\">\n"
                             + "        <wor:applicationName>$1</wor:applicationName>\n"
@@ -87,8 +81,16 @@ public class ApplicationRegistrationWSWorkflowExecutor extends AbstractApplicati
             payload = payload.replace("$8", callBackURL != null ? callBackURL : "?");
             payload = payload.replace("$9", appRegDTO.getKeyType());
 
-            client.fireAndForget(AXIOMUtil.stringToOM(payload));
-            super.execute(workflowDTO);
+            OMElement request = AXIOMUtil.stringToOM(payload);
+            if (asyncCallout) {
+                // The workflow is persisted before the callout is dispatched, so that it is found when the workflow
+                // service calls back
+                super.execute(workflowDTO);
+                sendCallout(action, request);
+            } else {
+                sendCallout(action, request);
+                super.execute(workflowDTO);
+            }
         } catch (AxisFault axisFault) {
             log.error("Error sending out message", axisFault);
             throw new WorkflowException("Error sending out message", axisFault);
@@ -138,13 +140,12 @@ public class ApplicationRegistrationWSWorkflowExecutor extends AbstractApplicati
 
         try {
             String action = WorkflowConstants.DELETE_REGISTRATION_WS_ACTION;
-            ServiceClient client = getClient(action);
             String payload = "  <p:CancelApplicationRegistrationWorkflowProcessRequest " +
                     "   xmlns:p=\"http://workflow.application.apimgt.carbon.wso2.org\">\n" +
                     "   	<p:workflowRef>" + workflowExtRef + "</p:workflowRef>\n" +
                     "   </p:CancelApplicationRegistrationWorkflowProcessRequest>";
 
-            client.fireAndForget(AXIOMUtil.stringToOM(payload));
+            sendCallout(action, AXIOMUtil.stringToOM(payload));
         } catch (AxisFault axisFault) {
             errorMsg = "Error sending out cancel pending registration approval process message. Cause: " + axisFault
                     .getMessage();
@@ -163,38 +164,25 @@ public class ApplicationRegistrationWSWorkflowExecutor extends AbstractApplicati
      * @throws AxisFault
      */
     public ServiceClient getClient(String action) throws AxisFault {
-        ServiceClient client = new ServiceClient(
-                ServiceReferenceHolder.getInstance().getContextService().getClientConfigContext(), null);
-        Options options = new Options();
-        options.setAction(action);
-        options.setTo(new EndpointReference(serviceEndpoint));
-
-        if (contentType != null) {
-            options.setProperty(Constants.Configuration.MESSAGE_TYPE, contentType);
-        } else {
-            options.setProperty(Constants.Configuration.MESSAGE_TYPE, HTTPConstants.MEDIA_TYPE_TEXT_XML);
-        }
-
-        HttpTransportProperties.Authenticator auth = new HttpTransportProperties.Authenticator();
-
-        // Assumes authentication is required if username and password is given
-        if (username != null && !username.isEmpty() && password != null && password.length != 0) {
-            auth.setUsername(username);
-            auth.setPassword(String.valueOf(password));
-            auth.setPreemptiveAuthentication(true);
-            List<String> authSchemes = new ArrayList<String>();
-            authSchemes.add(HttpTransportProperties.Authenticator.BASIC);
-            auth.setAuthSchemes(authSchemes);
+        return WorkflowServiceClientPool.getInstance().getClient(serviceEndpoint, username, password, contentType,
+                action);
+    }
 
-            if (contentType == null) {
-                options.setProperty(Constants.Configuration.MESSAGE_TYPE, HTTPConstants.MEDIA_TYPE_TEXT_XML);
-            }
-            options.setProperty(org.apache.axis2.transport.http.HTTPConstants.AUTHENTICATE, auth);
-            options.setManageSession(true);
+    /**
+     * Sends the payload to the workflow service using the pooled service clients of the endpoint, asynchronously if
+     * asyncCallout is set
+     *
+     * @param action  web service action to use
+     * @param payload payload of the callout
+     * @throws AxisFault if the payload could not be sent
+     */
+    private void sendCallout(String action, OMElement payload) throws AxisFault {
+        WorkflowServiceClientPool clientPool = WorkflowServiceClientPool.getInstance();
+        if (asyncCallout) {
+            clientPool.dispatch(serviceEndpoint, username, password, contentType, action, payload);
+        } else {
+            clientPool.fireAndForget(serviceEndpoint, username, password, contentType, action, payload);
         }
-        client.setOptions(options);
-
-        return client;
     }
 
     public String getServiceEndpoint() {
@@ -229,4 +217,11 @@ public class ApplicationRegistrationWSWorkflowExecutor extends AbstractApplicati
         this.contentType = contentType;
     }
 
+    public boolean isAsyncCallout() {
+        return asyncCallout;
+    }
+
+    public void setAsyncCallout(boolean asyncCallout) {
+        this.asyncCallout = asyncCallout;
+    }
 }
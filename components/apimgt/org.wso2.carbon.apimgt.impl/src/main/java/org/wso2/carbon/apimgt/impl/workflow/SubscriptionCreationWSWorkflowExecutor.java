@@ -18,14 +18,10 @@
 
 package org.wso2.carbon.apimgt.impl.workflow;
 
+import org.apache.axiom.om.OMElement;
 import org.apache.axiom.om.util.AXIOMUtil;
 import org.apache.axis2.AxisFault;
-import org.apache.axis2.Constants;
-import org.apache.axis2.addressing.EndpointReference;
-import org.apache.axis2.client.Options;
 import org.apache.axis2.client.ServiceClient;
-import org.apache.axis2.transport.http.HTTPConstants;
-import org.apache.axis2.transport.http.HttpTransportProperties;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.apimgt.api.APIManagementException;
@@ -34,10 +30,8 @@ import org.wso2.carbon.apimgt.impl.APIConstants;
 import org.wso2.carbon.apimgt.impl.dao.ApiMgtDAO;
 import org.wso2.carbon.apimgt.impl.dto.SubscriptionWorkflowDTO;
 import org.wso2.carbon.apimgt.impl.dto.WorkflowDTO;
-import org.wso2.carbon.apimgt.impl.internal.ServiceReferenceHolder;
 
 import javax.xml.stream.XMLStreamException;
-import java.util.ArrayList;
 import java.util.List;
 
 public class SubscriptionCreationWSWorkflowExecutor extends WorkflowExecutor {
@@ -46,6 +40,7 @@ public class SubscriptionCreationWSWorkflowExecutor extends WorkflowExecutor {
     private String username;
     private char[] password;
     private String contentType;
+    private boolean asyncCallout;
 
     @Override
     public String getWorkflowType() {
@@ -68,7 +63,6 @@ public class SubscriptionCreationWSWorkflowExecutor extends WorkflowExecutor {
     public WorkflowResponse execute(WorkflowDTO workflowDTO) throws WorkflowException {
         try {
             String action = WorkflowConstants.CREATE_SUBSCRIPTION_WS_ACTION;
-            ServiceClient client = getClient(action);
             String payload = "<wor:SubscriptionApprovalWorkFlowProcessRequest " +
                     "         xmlns:wor=\"http://workflow.subscription.apimgt.carbon.wso2.org\">\n" +
                     "         <wor:apiName>$1</wor:apiName>\n" +
@@ -95,8 +89,16 @@ public class SubscriptionCreationWSWorkflowExecutor extends WorkflowExecutor {
             payload = payload.replace("$8", subsWorkflowDTO.getExternalWorkflowReference());
             payload = payload.replace("$9", callBackURL != null ? callBackURL : "?");
 
-            client.fireAndForget(AXIOMUtil.stringToOM(payload));
-            super.execute(workflowDTO);
+            OMElement request = AXIOMUtil.stringToOM(payload);
+            if (asyncCallout) {
+                // The workflow is persisted before the callout is dispatched, so that it is found when the workflow
+                // service calls back
+                super.execute(workflowDTO);
+                sendCallout(action, request);
+            } else {
+                sendCallout(action, request);
+                super.execute(workflowDTO);
+            }
         } catch (AxisFault axisFault) {
             log.error("Error sending out message", axisFault);
             throw new WorkflowException("Error sending out message", axisFault);
@@ -142,13 +144,12 @@ public class SubscriptionCreationWSWorkflowExecutor extends WorkflowExecutor {
         super.cleanUpPendingTask(workflowExtRef);
         try {
             String action = WorkflowConstants.DELETE_SUBSCRIPTION_WS_ACTION;
-            ServiceClient client = getClient(action);
             String payload = "<wor:CancelSubscriptionApprovalWorkflowProcessRequest " +
                     "           xmlns:wor=\"http://workflow.subscription.apimgt.carbon.wso2.org\">\n" +
                     "           <wor:workflowExtRef>" + workflowExtRef + "</wor:workflowExtRef>\n" +
                     "        </wor:CancelSubscriptionApprovalWorkflowProcessRequest>";
 
-            client.fireAndForget(AXIOMUtil.stringToOM(payload));
+            sendCallout(action, AXIOMUtil.stringToOM(payload));
         } catch (AxisFault axisFault) {
             errorMsg = "Error sending out cancel pending subscription approval process message. cause: " + axisFault
                     .getMessage();
@@ -167,38 +168,25 @@ public class SubscriptionCreationWSWorkflowExecutor extends WorkflowExecutor {
      * @throws AxisFault
      */
     public ServiceClient getClient(String action) throws AxisFault {
-        ServiceClient client = new ServiceClient(
-                ServiceReferenceHolder.getInstance().getContextService().getClientConfigContext(), null);
-        Options options = new Options();
-        options.setAction(action);
-        options.setTo(new EndpointReference(serviceEndpoint));
-
-        if (contentType != null) {
-            options.setProperty(Constants.Configuration.MESSAGE_TYPE, contentType);
-        } else {
-            options.setProperty(Constants.Configuration.MESSAGE_TYPE, HTTPConstants.MEDIA_TYPE_TEXT_XML);
-        }
-
-        HttpTransportProperties.Authenticator auth = new HttpTransportProperties.Authenticator();
-
-        // Assumes authentication is required if username and password is given
-        if (username != null && !username.isEmpty() && password != null && password.length != 0) {
-            auth.setUsername(username);
-            auth.setPassword(String.valueOf(password));
-            auth.setPreemptiveAuthentication(true);
-            List<String> authSchemes = new ArrayList<String>();
-            authSchemes.add(HttpTransportProperties.Authenticator.BASIC);
-            auth.setAuthSchemes(authSchemes);
+        return WorkflowServiceClientPool.getInstance().getClient(serviceEndpoint, username, password, contentType,
+                action);
+    }
 
-            if (contentType == null) {
-                options.setProperty(Constants.Configuration.MESSAGE_TYPE, HTTPConstants.MEDIA_TYPE_TEXT_XML);
-            }
-            options.setProperty(org.apache.axis2.transport.http.HTTPConstants.AUTHENTICATE, auth);
-            options.setManageSession(true);
+    /**
+     * Sends the payload to the workflow service using the pooled service clients of the endpoint, asynchronously if
+     * asyncCallout is set
+     *
+     * @param action  web service action to use
+     * @param payload payload of the callout
+     * @throws AxisFault if the payload could not be sent
+     */
+    private void sendCallout(String action, OMElement payload) throws AxisFault {
+        WorkflowServiceClientPool clientPool = WorkflowServiceClientPool.getInstance();
+        if (asyncCallout) {
+            clientPool.dispatch(serviceEndpoint, username, password, contentType, action, payload);
+        } else {
+            clientPool.fireAndForget(serviceEndpoint, username, password, contentType, action, payload);
         }
-        client.setOptions(options);
-
-        return client;
     }
 
     public String getServiceEndpoint() {
@@ -232,4 +220,12 @@ public class SubscriptionCreationWSWorkflowExecutor extends WorkflowExecutor {
     public void setContentType(String contentType) {
         this.contentType = contentType;
     }
+
+    public boolean isAsyncCallout() {
+        return asyncCallout;
+    }
+
+    public void setAsyncCallout(boolean asyncCallout) {
+        this.asyncCallout = asyncCallout;
+    }
 }
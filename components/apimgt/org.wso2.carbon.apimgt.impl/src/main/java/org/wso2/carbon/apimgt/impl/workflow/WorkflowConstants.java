@@ -91,4 +91,16 @@ public class WorkflowConstants {
                     "         <wor:callBackURL>$4</wor:callBackURL>\n" +
                     "      </wor:UserSignupProcessRequest>";
 
+    // Maximum number of concurrent callouts, and of connections, to a workflow service endpoint
+    public static final int WS_CALLOUT_MAX_CONNECTIONS_PER_ENDPOINT = 20;
+
+    public static final int WS_CALLOUT_POOL_SIZE = 10;
+
+    public static final int WS_CALLOUT_QUEUE_SIZE = 1000;
+
+    public static final int WS_CALLOUT_RETRY_COUNT = 3;
+
+    // Delay before the first retry of a failed asynchronous callout, doubled for each further retry
+    public static final long WS_CALLOUT_RETRY_INTERVAL_MILLIS = 1000;
+
 }
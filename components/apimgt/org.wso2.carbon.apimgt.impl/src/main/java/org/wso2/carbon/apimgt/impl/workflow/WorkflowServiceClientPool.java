@@ -0,0 +1,342 @@
+/*
+*  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.apimgt.impl.workflow;
+
+import org.apache.axiom.om.OMElement;
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.Constants;
+import org.apache.axis2.addressing.EndpointReference;
+import org.apache.axis2.client.Options;
+import org.apache.axis2.client.ServiceClient;
+import org.apache.axis2.transport.http.HTTPConstants;
+import org.apache.axis2.transport.http.HttpTransportProperties;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.apimgt.impl.internal.ServiceReferenceHolder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Service clients used by the WS workflow executors to call out to their workflow services. The clients of an
+ * endpoint share one HTTP client, so connections to the endpoint are kept alive and reused across callouts, and at
+ * most {@link WorkflowConstants#WS_CALLOUT_MAX_CONNECTIONS_PER_ENDPOINT} callouts to an endpoint are in flight at a
+ * time. Service clients are reused once a callout has completed instead of being created for every callout.
+ */
+public class WorkflowServiceClientPool {
+
+    private static final Log log = LogFactory.getLog(WorkflowServiceClientPool.class);
+
+    private static volatile WorkflowServiceClientPool instance = new WorkflowServiceClientPool(
+            WorkflowConstants.WS_CALLOUT_POOL_SIZE, WorkflowConstants.WS_CALLOUT_QUEUE_SIZE,
+            WorkflowConstants.WS_CALLOUT_RETRY_INTERVAL_MILLIS);
+
+    // Keyed on a digest of the endpoint and its credentials, so that passwords are not kept as keys
+    private final ConcurrentMap<String, EndpointClients> endpoints = new ConcurrentHashMap<String, EndpointClients>();
+
+    // Runs asynchronous callouts and their retries. The number of pending callouts is bounded by a permit each; when
+    // none is left the callout is sent by the caller, so that callouts are delayed rather than dropped.
+    private final ScheduledThreadPoolExecutor calloutExecutor;
+
+    private final Semaphore pendingCallouts;
+
+    private final long retryIntervalMillis;
+
+    WorkflowServiceClientPool(int poolSize, int queueSize, long retryIntervalMillis) {
+        this.pendingCallouts = new Semaphore(queueSize);
+        this.retryIntervalMillis = retryIntervalMillis;
+        calloutExecutor = new ScheduledThreadPoolExecutor(poolSize, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r);
+                thread.setName("APIM-WorkflowCallout-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    public static WorkflowServiceClientPool getInstance() {
+        return instance;
+    }
+
+    /**
+     * Replaces the pool used by the workflow executors. Used by tests to call out to stub endpoints.
+     */
+    static void setInstance(WorkflowServiceClientPool pool) {
+        instance = pool;
+    }
+
+    /**
+     * Creates a service client for the given workflow service endpoint, sharing the connections of the endpoint. The
+     * client is owned by the caller and is not returned to the pool.
+     *
+     * @param serviceEndpoint workflow service endpoint
+     * @param username        username to authenticate with, or null if the endpoint is not secured
+     * @param password        password to authenticate with
+     * @param contentType     message type of the callouts, text/xml if null
+     * @param action          web service action to use
+     * @return configured service client
+     * @throws AxisFault if the service client could not be created
+     */
+    public ServiceClient getClient(String serviceEndpoint, String username, char[] password, String contentType,
+                                   String action) throws AxisFault {
+        ServiceClient client = getEndpointClients(serviceEndpoint, username, password, contentType).createClient();
+        client.getOptions().setAction(action);
+        return client;
+    }
+
+    /**
+     * Sends the payload to the workflow service endpoint without waiting for a response, on the calling thread.
+     *
+     * @param serviceEndpoint workflow service endpoint
+     * @param username        username to authenticate with, or null if the endpoint is not secured
+     * @param password        password to authenticate with
+     * @param contentType     message type of the callout, text/xml if null
+     * @param action          web service action to use
+     * @param payload         payload of the callout
+     * @throws AxisFault if the payload could not be sent
+     */
+    public void fireAndForget(String serviceEndpoint, String username, char[] password, String contentType,
+                              String action, OMElement payload) throws AxisFault {
+        getEndpointClients(serviceEndpoint, username, password, contentType).fireAndForget(action, payload);
+    }
+
+    /**
+     * Sends the payload to the workflow service endpoint without waiting for a response, on a callout thread. A
+     * callout which fails is retried up to {@link WorkflowConstants#WS_CALLOUT_RETRY_COUNT} times, backing off
+     * between attempts, and is logged if it still fails.
+     *
+     * @param serviceEndpoint workflow service endpoint
+     * @param username        username to authenticate with, or null if the endpoint is not secured
+     * @param password        password to authenticate with
+     * @param contentType     message type of the callout, text/xml if null
+     * @param action          web service action to use
+     * @param payload         payload of the callout
+     */
+    public void dispatch(String serviceEndpoint, String username, char[] password, String contentType,
+                         String action, OMElement payload) {
+        EndpointClients clients = getEndpointClients(serviceEndpoint, username, password, contentType);
+        if (pendingCallouts.tryAcquire()) {
+            calloutExecutor.execute(new Callout(clients, action, payload, true));
+        } else {
+            if (log.isDebugEnabled()) {
+                log.debug("Workflow callout queue is full. Sending callout to " + serviceEndpoint
+                        + " on the calling thread");
+            }
+            new Callout(clients, action, payload, false).run();
+        }
+    }
+
+    /**
+     * Stops the callout threads. Callouts which are pending or waiting to be retried are not sent.
+     */
+    void shutdown() {
+        calloutExecutor.shutdownNow();
+    }
+
+    private EndpointClients getEndpointClients(String serviceEndpoint, String username, char[] password,
+                                               String contentType) {
+        String key = getEndpointKey(serviceEndpoint, username, password, contentType);
+        EndpointClients clients = endpoints.get(key);
+        if (clients == null) {
+            clients = createEndpointClients(serviceEndpoint, username, password, contentType);
+            EndpointClients existing = endpoints.putIfAbsent(key, clients);
+            if (existing != null) {
+                clients = existing;
+            }
+        }
+        return clients;
+    }
+
+    /**
+     * Returns the key of the service clients of an endpoint and credentials, a SHA-256 digest of them.
+     */
+    static String getEndpointKey(String serviceEndpoint, String username, char[] password, String contentType) {
+        StringBuilder key = new StringBuilder();
+        key.append(serviceEndpoint).append('\n').append(contentType).append('\n').append(username).append('\n');
+        if (password != null) {
+            key.append(password);
+        }
+        return DigestUtils.sha256Hex(key.toString());
+    }
+
+    EndpointClients createEndpointClients(String serviceEndpoint, String username, char[] password,
+                                          String contentType) {
+        return new EndpointClients(serviceEndpoint, username, password, contentType);
+    }
+
+    /**
+     * Service clients of one workflow service endpoint and credentials.
+     */
+    static class EndpointClients {
+
+        private final String serviceEndpoint;
+
+        private final String contentType;
+
+        private final HttpTransportProperties.Authenticator authenticator;
+
+        private final HttpClient httpClient;
+
+        private final Semaphore permits = new Semaphore(WorkflowConstants.WS_CALLOUT_MAX_CONNECTIONS_PER_ENDPOINT);
+
+        private final BlockingQueue<ServiceClient> idleClients = new LinkedBlockingQueue<ServiceClient>();
+
+        EndpointClients(String serviceEndpoint, String username, char[] password, String contentType) {
+            this.serviceEndpoint = serviceEndpoint;
+            this.contentType = contentType;
+
+            // Assumes authentication is required if username and password is given
+            if (username != null && !username.isEmpty() && password != null && password.length != 0) {
+                authenticator = new HttpTransportProperties.Authenticator();
+                authenticator.setUsername(username);
+                authenticator.setPassword(String.valueOf(password));
+                authenticator.setPreemptiveAuthentication(true);
+                List<String> authSchemes = new ArrayList<String>();
+                authSchemes.add(HttpTransportProperties.Authenticator.BASIC);
+                authenticator.setAuthSchemes(authSchemes);
+            } else {
+                authenticator = null;
+            }
+
+            MultiThreadedHttpConnectionManager connectionManager = new MultiThreadedHttpConnectionManager();
+            connectionManager.getParams().setDefaultMaxConnectionsPerHost(
+                    WorkflowConstants.WS_CALLOUT_MAX_CONNECTIONS_PER_ENDPOINT);
+            connectionManager.getParams().setMaxTotalConnections(
+                    WorkflowConstants.WS_CALLOUT_MAX_CONNECTIONS_PER_ENDPOINT);
+            httpClient = new HttpClient(connectionManager);
+        }
+
+        ServiceClient createClient() throws AxisFault {
+            ServiceClient client = new ServiceClient(
+                    ServiceReferenceHolder.getContextService().getClientConfigContext(), null);
+            Options options = new Options();
+            options.setTo(new EndpointReference(serviceEndpoint));
+
+            if (contentType != null) {
+                options.setProperty(Constants.Configuration.MESSAGE_TYPE, contentType);
+            } else {
+                options.setProperty(Constants.Configuration.MESSAGE_TYPE, HTTPConstants.MEDIA_TYPE_TEXT_XML);
+            }
+            if (authenticator != null) {
+                options.setProperty(HTTPConstants.AUTHENTICATE, authenticator);
+                options.setManageSession(true);
+            }
+            options.setProperty(HTTPConstants.REUSE_HTTP_CLIENT, Constants.VALUE_TRUE);
+            options.setProperty(HTTPConstants.CACHED_HTTP_CLIENT, httpClient);
+            client.setOptions(options);
+            return client;
+        }
+
+        void fireAndForget(String action, OMElement payload) throws AxisFault {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AxisFault("Interrupted while waiting to call out to " + serviceEndpoint, e);
+            }
+            try {
+                ServiceClient client = idleClients.poll();
+                if (client == null) {
+                    client = createClient();
+                }
+                boolean sent = false;
+                try {
+                    client.getOptions().setAction(action);
+                    client.fireAndForget(payload);
+                    sent = true;
+                } finally {
+                    // releases the connection back to the shared HTTP client
+                    client.cleanupTransport();
+                    if (sent) {
+                        idleClients.offer(client);
+                    } else {
+                        client.cleanup();
+                    }
+                }
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * An asynchronous callout, rescheduled with a growing delay while it fails and attempts are left. A callout sent
+     * on the calling thread because the queue was full is attempted only once.
+     */
+    private class Callout implements Runnable {
+
+        private final EndpointClients clients;
+
+        private final String action;
+
+        private final OMElement payload;
+
+        private final boolean queued;
+
+        private int attempt;
+
+        Callout(EndpointClients clients, String action, OMElement payload, boolean queued) {
+            this.clients = clients;
+            this.action = action;
+            this.payload = payload;
+            this.queued = queued;
+        }
+
+        @Override
+        public void run() {
+            boolean rescheduled = false;
+            try {
+                // the payload is attached to the envelope of the message it is sent in, so each attempt sends a copy
+                clients.fireAndForget(action, payload.cloneOMElement());
+            } catch (AxisFault axisFault) {
+                if (queued && attempt < WorkflowConstants.WS_CALLOUT_RETRY_COUNT) {
+                    long delay = retryIntervalMillis << attempt;
+                    attempt++;
+                    log.warn("Error sending out message to " + clients.serviceEndpoint + ". Retrying in " + delay
+                            + " ms. cause: " + axisFault.getMessage());
+                    calloutExecutor.schedule(this, delay, TimeUnit.MILLISECONDS);
+                    rescheduled = true;
+                } else {
+                    log.error("Error sending out message to " + clients.serviceEndpoint + " after "
+                            + (attempt + 1) + " attempts", axisFault);
+                }
+            } finally {
+                if (queued && !rescheduled) {
+                    pendingCallouts.release();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,358 @@
+/*
+*  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.apimgt.impl;
+
+import junit.framework.TestCase;
+import org.wso2.carbon.apimgt.api.APIManagementException;
+import org.wso2.carbon.apimgt.api.model.API;
+import org.wso2.carbon.apimgt.api.model.APIIdentifier;
+import org.wso2.carbon.apimgt.api.model.APIStatus;
+import org.wso2.carbon.apimgt.api.model.Application;
+import org.wso2.carbon.apimgt.api.model.ApplicationProvisioningResult;
+import org.wso2.carbon.apimgt.api.model.ApplicationProvisioningResult.Status;
+import org.wso2.carbon.apimgt.api.model.SubscribedAPI;
+import org.wso2.carbon.apimgt.api.model.Subscriber;
+import org.wso2.carbon.apimgt.impl.workflow.WorkflowException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class ApplicationProvisionerTest extends TestCase {
+
+    private static final String USER = "partner";
+
+    private static final APIIdentifier PIZZASHACK = new APIIdentifier("admin", "PizzaShack", "1.0.0");
+
+    private static final APIIdentifier WEATHER = new APIIdentifier("admin", "Weather", "1.0.0");
+
+    private static final APIIdentifier PROTOTYPE = new APIIdentifier("admin", "Prototype", "1.0.0");
+
+    private final InMemoryProvisioner provisioner = new InMemoryProvisioner(100);
+
+    public void testApplicationsAreAddedInChunks() throws Exception {
+        List<ApplicationProvisioningResult> results =
+                provisioner.provision(USER, createRequest(250, PIZZASHACK, WEATHER), "PRODUCTION", null, "3600", null);
+
+        assertEquals(3, provisioner.applicationBatches.size());
+        assertEquals(100, (int) provisioner.applicationBatches.get(0));
+        assertEquals(100, (int) provisioner.applicationBatches.get(1));
+        assertEquals(50, (int) provisioner.applicationBatches.get(2));
+        assertEquals(3, provisioner.subscriptionBatches.size());
+        assertEquals(200, (int) provisioner.subscriptionBatches.get(0));
+        assertEquals(100, (int) provisioner.subscriptionBatches.get(2));
+        assertEquals(0, provisioner.singleSubscriptions);
+        assertEquals(250, provisioner.invalidatedApplications.size());
+
+        assertEquals(250, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            ApplicationProvisioningResult result = results.get(i);
+            assertEquals("app" + i, result.getApplicationName());
+            assertEquals(Status.CREATED, result.getApplicationStatus());
+            assertEquals(provisioner.applications.get("app" + i).getId(), result.getApplicationId());
+            assertEquals(Status.CREATED, result.getSubscriptionStatuses().get(PIZZASHACK));
+            assertEquals(Status.CREATED, result.getSubscriptionStatuses().get(WEATHER));
+            assertEquals(Status.CREATED, result.getKeyStatus());
+            assertEquals("key-app" + i, result.getConsumerKey());
+            assertTrue(result.isSuccessful());
+        }
+        assertEquals(500, provisioner.subscriptions.size());
+    }
+
+    public void testEachItemIsReported() throws Exception {
+        List<Application> request = createRequest(3, PIZZASHACK, PROTOTYPE);
+        // the creation workflow of app1 is rejected, and app2 is requested twice
+        provisioner.rejectedApplications.add("app1");
+        request.add(createApplication("app2", WEATHER));
+        provisioner.pendingApplications.add("app2");
+
+        List<ApplicationProvisioningResult> results =
+                provisioner.provision(USER, request, "PRODUCTION", null, "3600", null);
+
+        ApplicationProvisioningResult app0 = results.get(0);
+        assertEquals(Status.CREATED, app0.getApplicationStatus());
+        assertEquals(Status.CREATED, app0.getSubscriptionStatuses().get(PIZZASHACK));
+        assertEquals(Status.FAILED, app0.getSubscriptionStatuses().get(PROTOTYPE));
+        assertEquals(Status.CREATED, app0.getKeyStatus());
+        assertEquals(1, app0.getErrors().size());
+        assertTrue(app0.getErrors().get(0).contains(APIStatus.PROTOTYPED.getStatus()));
+
+        ApplicationProvisioningResult app1 = results.get(1);
+        assertEquals(Status.FAILED, app1.getApplicationStatus());
+        assertTrue(app1.getSubscriptionStatuses().isEmpty());
+        assertEquals(Status.SKIPPED, app1.getKeyStatus());
+        assertFalse(app1.isSuccessful());
+        assertFalse(provisioner.applications.containsKey("app1"));
+
+        // keys are not generated for an application waiting for approval
+        ApplicationProvisioningResult app2 = results.get(2);
+        assertEquals(Status.CREATED, app2.getApplicationStatus());
+        assertEquals(Status.CREATED, app2.getSubscriptionStatuses().get(PIZZASHACK));
+        assertEquals(Status.SKIPPED, app2.getKeyStatus());
+
+        ApplicationProvisioningResult app2Again = results.get(3);
+        assertEquals(Status.EXISTING, app2Again.getApplicationStatus());
+        assertEquals(app2.getApplicationId(), app2Again.getApplicationId());
+        assertEquals(Status.CREATED, app2Again.getSubscriptionStatuses().get(WEATHER));
+        assertTrue(app2Again.isSuccessful());
+
+        assertEquals(1, provisioner.applicationBatches.size());
+        assertEquals(1, provisioner.singleSubscriptions);
+        assertEquals(3, provisioner.subscriptions.size());
+    }
+
+    public void testRerunCompletesOnlyTheFailedItems() throws Exception {
+        provisioner.unavailableAPIs.add(WEATHER);
+        List<ApplicationProvisioningResult> firstRun =
+                provisioner.provision(USER, createRequest(150, PIZZASHACK, WEATHER), "PRODUCTION", null, "3600", null);
+        for (ApplicationProvisioningResult result : firstRun) {
+            assertEquals(Status.CREATED, result.getApplicationStatus());
+            assertEquals(Status.CREATED, result.getSubscriptionStatuses().get(PIZZASHACK));
+            assertEquals(Status.FAILED, result.getSubscriptionStatuses().get(WEATHER));
+            assertFalse(result.isSuccessful());
+        }
+        assertEquals(150, provisioner.subscriptions.size());
+        int applicationBatches = provisioner.applicationBatches.size();
+        int subscriptionBatches = provisioner.subscriptionBatches.size();
+        int generatedKeys = provisioner.generatedKeys;
+
+        provisioner.unavailableAPIs.clear();
+        List<ApplicationProvisioningResult> secondRun =
+                provisioner.provision(USER, createRequest(150, PIZZASHACK, WEATHER), "PRODUCTION", null, "3600", null);
+        for (int i = 0; i < secondRun.size(); i++) {
+            ApplicationProvisioningResult result = secondRun.get(i);
+            assertEquals(Status.EXISTING, result.getApplicationStatus());
+            assertEquals(firstRun.get(i).getApplicationId(), result.getApplicationId());
+            assertEquals(Status.EXISTING, result.getSubscriptionStatuses().get(PIZZASHACK));
+            assertEquals(Status.CREATED, result.getSubscriptionStatuses().get(WEATHER));
+            assertEquals(Status.EXISTING, result.getKeyStatus());
+            assertEquals(firstRun.get(i).getConsumerKey(), result.getConsumerKey());
+            assertTrue(result.isSuccessful());
+        }
+        assertEquals(applicationBatches, provisioner.applicationBatches.size());
+        assertEquals(subscriptionBatches, provisioner.subscriptionBatches.size());
+        assertEquals(generatedKeys, provisioner.generatedKeys);
+        assertEquals(300, provisioner.subscriptions.size());
+
+        // a third run finds everything in place
+        List<ApplicationProvisioningResult> thirdRun =
+                provisioner.provision(USER, createRequest(150, PIZZASHACK, WEATHER), "PRODUCTION", null, "3600", null);
+        for (ApplicationProvisioningResult result : thirdRun) {
+            assertEquals(Status.EXISTING, result.getApplicationStatus());
+            assertEquals(Status.EXISTING, result.getSubscriptionStatuses().get(WEATHER));
+            assertEquals(Status.EXISTING, result.getKeyStatus());
+        }
+        assertEquals(300, provisioner.subscriptions.size());
+    }
+
+    public void testFailedChunkDoesNotStopTheOthers() throws Exception {
+        provisioner.failingApplicationBatches.add(1);
+        List<ApplicationProvisioningResult> results =
+                provisioner.provision(USER, createRequest(250, PIZZASHACK), null, null, null, null);
+
+        for (int i = 0; i < results.size(); i++) {
+            ApplicationProvisioningResult result = results.get(i);
+            if (i >= 100 && i < 200) {
+                assertEquals(Status.FAILED, result.getApplicationStatus());
+                assertTrue(result.getSubscriptionStatuses().isEmpty());
+            } else {
+                assertEquals(Status.CREATED, result.getApplicationStatus());
+                assertEquals(Status.CREATED, result.getSubscriptionStatuses().get(PIZZASHACK));
+            }
+            // no keys are generated without a key type
+            assertEquals(Status.SKIPPED, result.getKeyStatus());
+        }
+        assertEquals(150, provisioner.applications.size());
+        assertEquals(0, provisioner.generatedKeys);
+    }
+
+    private static List<Application> createRequest(int applicationCount, APIIdentifier... apis) {
+        List<Application> applications = new ArrayList<Application>();
+        for (int i = 0; i < applicationCount; i++) {
+            applications.add(createApplication("app" + i, apis));
+        }
+        return applications;
+    }
+
+    private static Application createApplication(String name, APIIdentifier... apis) {
+        Subscriber subscriber = new Subscriber(USER);
+        Application application = new Application(name, subscriber);
+        application.setTier("Unlimited");
+        Set<SubscribedAPI> subscriptions = new HashSet<SubscribedAPI>();
+        for (APIIdentifier api : apis) {
+            SubscribedAPI subscription = new SubscribedAPI(subscriber,
+                    new APIIdentifier(api.getProviderName(), api.getApiName(), api.getVersion()));
+            subscription.setApplication(application);
+            subscriptions.add(subscription);
+        }
+        application.addSubscribedAPIs(subscriptions);
+        return application;
+    }
+
+    /**
+     * Keeps the applications, subscriptions and keys in memory and records how they were added.
+     */
+    private static class InMemoryProvisioner extends ApplicationProvisioner {
+
+        private final Map<String, Application> applications = new LinkedHashMap<String, Application>();
+        private final Set<String> subscriptions = new HashSet<String>();
+        private final Map<Integer, String> consumerKeys = new HashMap<Integer, String>();
+
+        private final List<Integer> applicationBatches = new ArrayList<Integer>();
+        private final List<Integer> subscriptionBatches = new ArrayList<Integer>();
+        private final Set<Integer> invalidatedApplications = new HashSet<Integer>();
+        private int singleSubscriptions;
+        private int generatedKeys;
+
+        private final Set<Integer> failingApplicationBatches = new HashSet<Integer>();
+        private final Set<String> rejectedApplications = new HashSet<String>();
+        private final Set<String> pendingApplications = new HashSet<String>();
+        private final Set<APIIdentifier> unavailableAPIs = new HashSet<APIIdentifier>();
+
+        private int nextId = 1;
+        private int addApplicationsCalls;
+
+        InMemoryProvisioner(int chunkSize) {
+            super(chunkSize);
+        }
+
+        @Override
+        Application[] getApplicationsWithSubscribedAPIs(Subscriber subscriber) {
+            List<Application> existing = new ArrayList<Application>();
+            for (Application stored : applications.values()) {
+                Application application = new Application(stored.getName(), subscriber);
+                application.setId(stored.getId());
+                Set<SubscribedAPI> subscribedAPIs = new HashSet<SubscribedAPI>();
+                for (String subscription : subscriptions) {
+                    String[] parts = subscription.split(":");
+                    if (Integer.parseInt(parts[0]) == stored.getId()) {
+                        SubscribedAPI subscribedAPI =
+                                new SubscribedAPI(subscriber, new APIIdentifier(parts[1], parts[2], parts[3]));
+                        subscribedAPI.setApplication(application);
+                        subscribedAPIs.add(subscribedAPI);
+                    }
+                }
+                application.addSubscribedAPIs(subscribedAPIs);
+                existing.add(application);
+            }
+            return existing.toArray(new Application[existing.size()]);
+        }
+
+        @Override
+        void addApplications(List<Application> newApplications, String userId) throws APIManagementException {
+            if (failingApplicationBatches.contains(addApplicationsCalls++)) {
+                throw new APIManagementException("Failed to add applications");
+            }
+            applicationBatches.add(newApplications.size());
+            for (Application application : newApplications) {
+                assertNull(applications.get(application.getName()));
+                application.setId(nextId++);
+                applications.put(application.getName(), application);
+            }
+        }
+
+        @Override
+        void executeApplicationCreationWorkflow(Application application, String userId) throws WorkflowException {
+            if (rejectedApplications.contains(application.getName())) {
+                throw new WorkflowException("Application creation rejected");
+            }
+        }
+
+        @Override
+        void removeApplication(Application application) {
+            applications.remove(application.getName());
+        }
+
+        @Override
+        API getAPI(APIIdentifier identifier) throws APIManagementException {
+            if (unavailableAPIs.contains(identifier)) {
+                throw new APIManagementException("API not available");
+            }
+            API api = new API(identifier);
+            api.setContext("/" + identifier.getApiName());
+            api.setStatus(PROTOTYPE.equals(identifier) ? APIStatus.PROTOTYPED : APIStatus.PUBLISHED);
+            return api;
+        }
+
+        @Override
+        int addSubscription(APIIdentifier identifier, String apiContext, int applicationId, String userId) {
+            singleSubscriptions++;
+            assertTrue(subscriptions.add(getKey(applicationId, identifier)));
+            return nextId++;
+        }
+
+        @Override
+        void addSubscriptions(List<SubscribedAPI> newSubscriptions, String userId) {
+            subscriptionBatches.add(newSubscriptions.size());
+            for (SubscribedAPI subscription : newSubscriptions) {
+                assertTrue(subscriptions.add(getKey(subscription.getApplication().getId(), subscription.getApiId())));
+                subscription.setSubscriptionId(nextId++);
+            }
+        }
+
+        @Override
+        void executeSubscriptionCreationWorkflow(SubscribedAPI subscription, API api, String userId) {
+        }
+
+        @Override
+        void removeSubscription(int subscriptionId) {
+            fail("No subscription workflow is rejected");
+        }
+
+        @Override
+        void invalidateCachedKeys(int applicationId) {
+            invalidatedApplications.add(applicationId);
+        }
+
+        @Override
+        String getConsumerKey(int applicationId, String keyType) {
+            return consumerKeys.get(applicationId);
+        }
+
+        @Override
+        String getApplicationStatus(int applicationId) {
+            for (Application application : applications.values()) {
+                if (application.getId() == applicationId) {
+                    return pendingApplications.contains(application.getName()) ?
+                            APIConstants.ApplicationStatus.APPLICATION_CREATED :
+                            APIConstants.ApplicationStatus.APPLICATION_APPROVED;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        String generateKeys(String userId, Application application, String keyType, String[] allowedDomains,
+                            String validityTime, String tokenScope) {
+            generatedKeys++;
+            String consumerKey = "key-" + application.getName();
+            consumerKeys.put(applications.get(application.getName()).getId(), consumerKey);
+            return consumerKey;
+        }
+
+        private static String getKey(int applicationId, APIIdentifier identifier) {
+            return applicationId + ":" + identifier.getProviderName() + ":" + identifier.getApiName() + ":" +
+                   identifier.getVersion();
+        }
+    }
+}
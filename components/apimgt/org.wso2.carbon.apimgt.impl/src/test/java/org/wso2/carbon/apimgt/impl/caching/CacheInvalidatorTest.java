@@ -0,0 +1,174 @@
+/*
+*  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.apimgt.impl.caching;
+
+import junit.framework.TestCase;
+import org.apache.axis2.AxisFault;
+import org.wso2.carbon.apimgt.impl.dto.Environment;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CacheInvalidatorTest extends TestCase {
+
+    private static final int BATCH_SIZE = 50;
+
+    private static final int APPLICATION_COUNT = 200;
+
+    // Longer than any test, so that invalidations only run when the test flushes them
+    private static final long NEVER = TimeUnit.HOURS.toMillis(1);
+
+    private final List<Environment> environments = new ArrayList<Environment>();
+
+    private final List<Set<Integer>> tokenQueries = Collections.synchronizedList(new ArrayList<Set<Integer>>());
+
+    private final AtomicInteger gatewayCalls = new AtomicInteger();
+
+    private final Set<Thread> tokenQueryThreads = Collections.synchronizedSet(new HashSet<Thread>());
+
+    private final Set<Thread> gatewayCallThreads = Collections.synchronizedSet(new HashSet<Thread>());
+
+    @Override
+    protected void setUp() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            Environment environment = new Environment();
+            environment.setName("environment" + i);
+            environments.add(environment);
+        }
+    }
+
+    public void testBurstOfInvalidationsIsCoalesced() throws Exception {
+        final CacheInvalidator cacheInvalidator = new TestCacheInvalidator(NEVER);
+
+        // Each application is invalidated by many concurrent callers
+        List<Thread> callers = new ArrayList<Thread>();
+        for (int i = 0; i < 10; i++) {
+            Thread caller = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int appId = 0; appId < APPLICATION_COUNT; appId++) {
+                        cacheInvalidator.invalidateCacheForApp(appId);
+                    }
+                }
+            });
+            callers.add(caller);
+            caller.start();
+        }
+        for (Thread caller : callers) {
+            caller.join();
+        }
+        assertTrue(tokenQueries.isEmpty());
+
+        cacheInvalidator.flush();
+
+        Set<Integer> queriedAppIds = new HashSet<Integer>();
+        for (Set<Integer> appIds : tokenQueries) {
+            assertEquals(BATCH_SIZE, appIds.size());
+            queriedAppIds.addAll(appIds);
+        }
+        assertEquals(APPLICATION_COUNT, queriedAppIds.size());
+        assertEquals(APPLICATION_COUNT / BATCH_SIZE, tokenQueries.size());
+        assertEquals(APPLICATION_COUNT / BATCH_SIZE * environments.size(), gatewayCalls.get());
+        // One thread runs the invalidations, however many callers there are, and a bounded pool calls the Gateways
+        assertEquals(1, tokenQueryThreads.size());
+        assertTrue(gatewayCallThreads.size() <= CacheInvalidator.MAX_GATEWAY_THREADS);
+    }
+
+    public void testInvalidationsAfterFlushAreInvalidatedInNextRun() throws Exception {
+        CacheInvalidator cacheInvalidator = new TestCacheInvalidator(NEVER);
+        for (int appId = 0; appId < 10; appId++) {
+            cacheInvalidator.invalidateCacheForApp(appId);
+        }
+        cacheInvalidator.flush();
+        for (int appId = 5; appId < 15; appId++) {
+            cacheInvalidator.invalidateCacheForApp(appId);
+        }
+        cacheInvalidator.flush();
+        // Nothing is pending
+        cacheInvalidator.flush();
+
+        assertEquals(2, tokenQueries.size());
+        assertEquals(range(0, 10), tokenQueries.get(0));
+        assertEquals(range(5, 15), tokenQueries.get(1));
+        assertEquals(2 * environments.size(), gatewayCalls.get());
+    }
+
+    public void testInvalidationRunsAtEndOfWindow() throws Exception {
+        final CountDownLatch invalidated = new CountDownLatch(environments.size());
+        CacheInvalidator cacheInvalidator = new TestCacheInvalidator(10) {
+            @Override
+            void invalidateCachedTokens(Environment environment, Set<String> activeTokens) throws AxisFault {
+                super.invalidateCachedTokens(environment, activeTokens);
+                invalidated.countDown();
+            }
+        };
+        cacheInvalidator.invalidateCacheForApp(1);
+
+        // Only waits for the window to pass; the assertions do not depend on its length
+        assertTrue(invalidated.await(10, TimeUnit.SECONDS));
+        assertEquals(Collections.singletonList(range(1, 2)), tokenQueries);
+    }
+
+    private static Set<Integer> range(int from, int to) {
+        Set<Integer> appIds = new HashSet<Integer>();
+        for (int appId = from; appId < to; appId++) {
+            appIds.add(appId);
+        }
+        return appIds;
+    }
+
+    /**
+     * Records the token queries and Gateway calls instead of reading the database and calling the Gateways.
+     */
+    private class TestCacheInvalidator extends CacheInvalidator {
+
+        TestCacheInvalidator(long coalescingWindowMillis) {
+            super(coalescingWindowMillis, BATCH_SIZE);
+        }
+
+        @Override
+        Set<String> getActiveTokens(Set<Integer> appIds) {
+            tokenQueries.add(new HashSet<Integer>(appIds));
+            tokenQueryThreads.add(Thread.currentThread());
+            Set<String> tokens = new HashSet<String>();
+            for (Integer appId : appIds) {
+                tokens.add("token" + appId);
+            }
+            return tokens;
+        }
+
+        @Override
+        Collection<Environment> getGatewayEnvironments() {
+            return environments;
+        }
+
+        @Override
+        void invalidateCachedTokens(Environment environment, Set<String> activeTokens) throws AxisFault {
+            gatewayCalls.incrementAndGet();
+            gatewayCallThreads.add(Thread.currentThread());
+        }
+    }
+}
@@ -23,6 +23,8 @@ import org.apache.axiom.om.OMElement;
 import org.apache.axiom.om.impl.builder.StAXOMBuilder;
 import org.apache.commons.dbcp.BasicDataSource;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.apimgt.api.APIManagementException;
 import org.wso2.carbon.apimgt.api.dto.UserApplicationAPIUsage;
 import org.wso2.carbon.apimgt.api.model.API;
@@ -30,6 +32,7 @@ import org.wso2.carbon.apimgt.api.model.APIIdentifier;
 import org.wso2.carbon.apimgt.api.model.APIStatus;
 import org.wso2.carbon.apimgt.api.model.Application;
 import org.wso2.carbon.apimgt.api.model.LifeCycleEvent;
+import org.wso2.carbon.apimgt.api.model.SubscribedAPI;
 import org.wso2.carbon.apimgt.api.model.Subscriber;
 import org.wso2.carbon.apimgt.api.model.policy.APIPolicy;
 import org.wso2.carbon.apimgt.api.model.policy.ApplicationPolicy;
@@ -48,6 +51,7 @@ import org.wso2.carbon.apimgt.api.model.policy.QueryParameterCondition;
 import org.wso2.carbon.apimgt.api.model.policy.QuotaPolicy;
 import org.wso2.carbon.apimgt.api.model.policy.RequestCountLimit;
 import org.wso2.carbon.apimgt.api.model.policy.SubscriptionPolicy;
+import org.wso2.carbon.apimgt.impl.APIConstants;
 import org.wso2.carbon.apimgt.impl.APIManagerConfiguration;
 import org.wso2.carbon.apimgt.impl.APIManagerConfigurationServiceImpl;
 import org.wso2.carbon.apimgt.impl.dao.ApiMgtDAO;
@@ -55,6 +59,7 @@ import org.wso2.carbon.apimgt.impl.dto.APIInfoDTO;
 import org.wso2.carbon.apimgt.impl.dto.APIKeyInfoDTO;
 import org.wso2.carbon.apimgt.impl.internal.ServiceReferenceHolder;
 import org.wso2.carbon.apimgt.impl.utils.APIMgtDBUtil;
+import org.wso2.carbon.apimgt.impl.utils.PageToken;
 import org.wso2.carbon.base.MultitenantConstants;
 import org.wso2.carbon.identity.core.util.IdentityConfigParser;
 import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
@@ -67,13 +72,24 @@ import javax.xml.stream.XMLStreamException;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public class APIMgtDAOTest extends TestCase {
 
+    private static final Log log = LogFactory.getLog(APIMgtDAOTest.class);
+
     public static ApiMgtDAO apiMgtDAO;
 
     @Override
@@ -227,6 +243,183 @@ public class APIMgtDAOTest extends TestCase {
 
     }
 
+    public void testGetAllAPIUsageByProviderMatchesSubscriptionKeys() throws Exception {
+        UserApplicationAPIUsage[] userApplicationAPIUsages = apiMgtDAO.getAllAPIUsageByProvider("SUMEDHA");
+        assertNotNull(userApplicationAPIUsages);
+        int subscriptions = 0;
+        for (UserApplicationAPIUsage usage : userApplicationAPIUsages) {
+            assertTrue(usage.getApiSubscriptions().length > 0);
+            for (SubscribedAPI subscribedAPI : usage.getApiSubscriptions()) {
+                subscriptions++;
+                assertEquals("SUMEDHA", subscribedAPI.getApiId().getProviderName());
+                // the keys reported for an application must be the ones looked up through each of its subscriptions
+                SubscribedAPI subscription = apiMgtDAO.getSubscriptionByUUID(subscribedAPI.getUUID());
+                Map<String, String> keyData = apiMgtDAO.getAccessTokenData(subscription.getSubscriptionId());
+                assertEquals(keyData.get("token"), usage.getAccessToken());
+                assertEquals(keyData.get("status"), usage.getAccessTokenStatus());
+            }
+        }
+        assertTrue(subscriptions > 0);
+    }
+
+    @SuppressWarnings("unchecked")
+    public void testGetSubscribedAPIsByPageToken() throws Exception {
+        Subscriber subscriber = new Subscriber("PRABATH");
+        Set<String> apiNames = new HashSet<String>();
+        String pageToken = null;
+        int pages = 0;
+        do {
+            Map<String, Object> page = apiMgtDAO.getSubscribedAPIsByPageToken(subscriber, "APPLICATION3", pageToken,
+                    1, null);
+            Set<SubscribedAPI> subscribedAPIs = (Set<SubscribedAPI>) page.get(APIConstants.PAGINATED_SUBSCRIBED_APIS);
+            assertTrue(subscribedAPIs.size() <= 1);
+            for (SubscribedAPI subscribedAPI : subscribedAPIs) {
+                assertTrue(apiNames.add(subscribedAPI.getApiId().getApiName()));
+            }
+            pageToken = (String) page.get(APIConstants.PAGINATION_NEXT_PAGE_TOKEN);
+            pages++;
+        } while (pageToken != null && pages < 10);
+        assertNull(pageToken);
+        // every subscription of the application is listed exactly once
+        assertEquals(apiMgtDAO.getSubscriptionCount(subscriber, "APPLICATION3", null).intValue(), apiNames.size());
+    }
+
+    public void testGetSubscribedAPIsByInvalidPageToken() throws Exception {
+        try {
+            apiMgtDAO.getSubscribedAPIsByPageToken(new Subscriber("PRABATH"), "APPLICATION3", "not-a-token", 1, null);
+            fail("An invalid page token must not be accepted");
+        } catch (APIManagementException e) {
+            assertTrue(e.getMessage().startsWith(PageToken.INVALID_PAGE_TOKEN));
+        }
+    }
+
+    public void testGetApplicationsByPageToken() throws Exception {
+        Subscriber subscriber = new Subscriber("LA_F_PAGED");
+        subscriber.setEmail("laf@wso2.com");
+        subscriber.setSubscribedDate(new Date());
+        subscriber.setTenantId(MultitenantConstants.SUPER_TENANT_ID);
+        apiMgtDAO.addSubscriber(subscriber, null);
+
+        // repeated and NULL tiers and statuses, so that pages end within runs of equal keys
+        String[] tiers = {null, "Gold", "Bronze", null, "Gold", "Unlimited", "Bronze", null};
+        String[] statuses = {"CREATED", null, "APPROVED", "CREATED", null, "REJECTED", "APPROVED", null};
+        List<Application> applications = new ArrayList<Application>();
+        for (int i = 0; i < tiers.length; i++) {
+            Application application = new Application("pagedApplication" + i, subscriber);
+            application.setTier(tiers[i]);
+            applications.add(application);
+        }
+        apiMgtDAO.addApplications(applications, subscriber.getName());
+
+        final Map<Integer, String[]> sortKeys = new HashMap<Integer, String[]>();
+        Connection connection = APIMgtDBUtil.getConnection();
+        try {
+            for (int i = 0; i < applications.size(); i++) {
+                int applicationId = applications.get(i).getId();
+                setApplicationStatus(connection, applicationId, statuses[i]);
+                sortKeys.put(applicationId, new String[]{applications.get(i).getName(), tiers[i], statuses[i]});
+            }
+            connection.commit();
+        } finally {
+            connection.close();
+        }
+
+        String[] sortColumns = {"NAME", "APPLICATION_TIER", "APPLICATION_STATUS"};
+        for (int i = 0; i < sortColumns.length; i++) {
+            final int sortKey = i;
+            List<Integer> expected = new ArrayList<Integer>(sortKeys.keySet());
+            // NULL keys first, then by key and by id
+            Collections.sort(expected, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer first, Integer second) {
+                    String firstKey = sortKeys.get(first)[sortKey];
+                    String secondKey = sortKeys.get(second)[sortKey];
+                    if (firstKey == null || secondKey == null) {
+                        if (firstKey != null || secondKey != null) {
+                            return firstKey == null ? -1 : 1;
+                        }
+                    } else if (!firstKey.equals(secondKey)) {
+                        return firstKey.compareTo(secondKey);
+                    }
+                    return first.compareTo(second);
+                }
+            });
+            List<Integer> reversed = new ArrayList<Integer>(expected);
+            Collections.reverse(reversed);
+
+            for (int limit : new int[]{1, 2, 3, expected.size(), expected.size() + 1}) {
+                assertEquals(sortColumns[i] + " asc by " + limit, expected,
+                        getApplicationIdsByPageToken(subscriber, sortColumns[i], "asc", limit));
+                assertEquals(sortColumns[i] + " desc by " + limit, reversed,
+                        getApplicationIdsByPageToken(subscriber, sortColumns[i], "desc", limit));
+            }
+        }
+    }
+
+    public void testGetApplicationsByInvalidPageToken() throws Exception {
+        Subscriber subscriber = new Subscriber("PRABATH");
+        Map<String, Object> page = apiMgtDAO.getApplicationsByPageToken(subscriber, null, null, 1, null,
+                "APPLICATION_TIER", "asc");
+        String pageToken = (String) page.get(APIConstants.PAGINATION_NEXT_PAGE_TOKEN);
+        assertNotNull(pageToken);
+        try {
+            // a token only continues the listing it was issued for
+            apiMgtDAO.getApplicationsByPageToken(subscriber, null, pageToken, 1, null, "NAME", "asc");
+            fail("A page token of another listing must not be accepted");
+        } catch (APIManagementException e) {
+            assertTrue(e.getMessage().startsWith(PageToken.INVALID_PAGE_TOKEN));
+        }
+        try {
+            apiMgtDAO.getApplicationsByPageToken(subscriber, null, "not-a-token", 1, null, "NAME", "asc");
+            fail("An invalid page token must not be accepted");
+        } catch (APIManagementException e) {
+            assertTrue(e.getMessage().startsWith(PageToken.INVALID_PAGE_TOKEN));
+        }
+    }
+
+    public void testGetApplicationsByPageTokenWithInvalidLimit() throws Exception {
+        for (int limit : new int[]{0, -1}) {
+            try {
+                apiMgtDAO.getApplicationsByPageToken(new Subscriber("PRABATH"), null, null, limit, null, null, null);
+                fail("A page of " + limit + " applications must not be listed");
+            } catch (APIManagementException e) {
+                assertTrue(e.getMessage().startsWith(PageToken.INVALID_PAGE_LIMIT));
+            }
+        }
+    }
+
+    private List<Integer> getApplicationIdsByPageToken(Subscriber subscriber, String sortColumn, String sortOrder,
+                                                      int limit) throws APIManagementException {
+        List<Integer> applicationIds = new ArrayList<Integer>();
+        String pageToken = null;
+        int pages = 0;
+        do {
+            Map<String, Object> page = apiMgtDAO.getApplicationsByPageToken(subscriber, null, pageToken, limit, null,
+                    sortColumn, sortOrder);
+            Application[] applications = (Application[]) page.get(APIConstants.PAGINATED_APPLICATIONS);
+            assertTrue(applications.length <= limit);
+            for (Application application : applications) {
+                applicationIds.add(application.getId());
+            }
+            pageToken = (String) page.get(APIConstants.PAGINATION_NEXT_PAGE_TOKEN);
+            pages++;
+        } while (pageToken != null && pages < 20);
+        assertNull(pageToken);
+        return applicationIds;
+    }
+
+    private void setApplicationStatus(Connection connection, int applicationId, String status) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(
+                "UPDATE AM_APPLICATION SET APPLICATION_STATUS = ? WHERE APPLICATION_ID = ?");
+        try {
+            statement.setString(1, status);
+            statement.setInt(2, applicationId);
+            statement.executeUpdate();
+        } finally {
+            statement.close();
+        }
+    }
+
     public void testAddSubscription() throws Exception {
         APIIdentifier apiIdentifier = new APIIdentifier("SUMEDHA", "API1", "V1.0.0");
         apiIdentifier.setApplicationId("APPLICATION99");
@@ -347,6 +540,50 @@ public class APIMgtDAOTest extends TestCase {
         assertEquals(3, events.size());
     }
 
+    public void testGetSubscriptionCountsOfAPIs() throws Exception {
+        int tenantId = 7777;
+        APIIdentifier publishedApi = addAPIInState("countprovider", "CountAPI1", "/countapi1", tenantId,
+                APIStatus.PUBLISHED);
+        APIIdentifier createdApi = addAPIInState("countprovider", "CountAPI2", "/countapi2", tenantId,
+                APIStatus.CREATED);
+        APIIdentifier unsubscribedApi = addAPIInState("countprovider", "CountAPI3", "/countapi3", tenantId,
+                APIStatus.PUBLISHED);
+        APIIdentifier otherProviderApi = addAPIInState("othercountprovider", "CountAPI4", "/countapi4", tenantId,
+                APIStatus.DEPRECATED);
+        apiMgtDAO.addSubscription(publishedApi, "/countapi1", 1, "UNBLOCKED", "admin");
+        apiMgtDAO.addSubscription(publishedApi, "/countapi1", 2, "UNBLOCKED", "admin");
+        apiMgtDAO.addSubscription(createdApi, "/countapi2", 1, "UNBLOCKED", "admin");
+        apiMgtDAO.addSubscription(otherProviderApi, "/countapi4", 3, "UNBLOCKED", "admin");
+
+        // APIs in the CREATED state and APIs without subscriptions are left out
+        Map<APIIdentifier, Long> counts = apiMgtDAO.getSubscriptionCountsOfAPIs(null, tenantId, 0, Integer.MAX_VALUE);
+        assertEquals(Arrays.asList(publishedApi, otherProviderApi), new ArrayList<APIIdentifier>(counts.keySet()));
+        assertEquals(Long.valueOf(2), counts.get(publishedApi));
+        assertEquals(Long.valueOf(1), counts.get(otherProviderApi));
+        assertFalse(counts.containsKey(unsubscribedApi));
+
+        counts = apiMgtDAO.getSubscriptionCountsOfAPIs("countprovider", tenantId, 0, Integer.MAX_VALUE);
+        assertEquals(Collections.singleton(publishedApi), counts.keySet());
+
+        counts = apiMgtDAO.getSubscriptionCountsOfAPIs(null, tenantId, 1, 2);
+        assertEquals(Collections.singleton(otherProviderApi), counts.keySet());
+
+        assertTrue(apiMgtDAO.getSubscriptionCountsOfAPIs(null, tenantId + 1, 0, Integer.MAX_VALUE).isEmpty());
+    }
+
+    private APIIdentifier addAPIInState(String provider, String name, String context, int tenantId,
+            APIStatus status) throws APIManagementException {
+        APIIdentifier apiId = new APIIdentifier(provider, name, "1.0.0");
+        API api = new API(apiId);
+        api.setContext(context);
+        api.setContextTemplate(context + "/{version}");
+        apiMgtDAO.addAPI(api, tenantId);
+        if (status != APIStatus.CREATED) {
+            apiMgtDAO.recordAPILifeCycleEvent(apiId, APIStatus.CREATED, status, "admin", tenantId);
+        }
+        return apiId;
+    }
+
     public void testAddGetApplicationByNameGroupIdNull() throws Exception {
         Subscriber subscriber = new Subscriber("LA_F_GROUP_ID_NULL");
         subscriber.setEmail("laf@wso2.com");
@@ -408,6 +645,183 @@ public class APIMgtDAOTest extends TestCase {
 
     }
 
+    public void testAddApplicationsAndSubscriptions() throws Exception {
+        Subscriber subscriber = new Subscriber("LA_F_BULK");
+        subscriber.setEmail("laf@wso2.com");
+        subscriber.setSubscribedDate(new Date());
+        subscriber.setTenantId(MultitenantConstants.SUPER_TENANT_ID);
+        apiMgtDAO.addSubscriber(subscriber, null);
+
+        List<Application> applications = new ArrayList<Application>();
+        applications.add(new Application("bulkApplication1", subscriber));
+        applications.add(new Application("bulkApplication2", subscriber));
+        int[] applicationIds = apiMgtDAO.addApplications(applications, subscriber.getName());
+        assertEquals(2, applicationIds.length);
+        for (int i = 0; i < applicationIds.length; i++) {
+            assertTrue(applicationIds[i] > 0);
+            assertEquals(applicationIds[i], applications.get(i).getId());
+            this.checkApplicationsEqual(applications.get(i), apiMgtDAO.getApplicationByName(
+                    applications.get(i).getName(), subscriber.getName(), null));
+        }
+
+        APIIdentifier apiIdentifier = new APIIdentifier("SUMEDHA", "API1", "V1.0.0");
+        apiIdentifier.setTier("T1");
+        List<SubscribedAPI> subscriptions = new ArrayList<SubscribedAPI>();
+        for (Application application : applications) {
+            SubscribedAPI subscription = new SubscribedAPI(subscriber, apiIdentifier);
+            subscription.setApplication(application);
+            subscriptions.add(subscription);
+        }
+        apiMgtDAO.addSubscriptions(subscriptions, "ON_HOLD", subscriber.getName());
+
+        Application[] added = apiMgtDAO.getApplicationsWithSubscribedAPIs(subscriber);
+        assertEquals(2, added.length);
+        for (Application application : added) {
+            assertEquals(1, application.getSubscribedAPIs().size());
+            SubscribedAPI subscription = application.getSubscribedAPIs().iterator().next();
+            assertEquals(apiIdentifier, subscription.getApiId());
+            assertEquals("ON_HOLD", subscription.getSubStatus());
+        }
+    }
+
+    public void testGetActiveTokensOfApplications() throws Exception {
+        Subscriber subscriber = new Subscriber("LA_F_TOKENS");
+        subscriber.setEmail("laf@wso2.com");
+        subscriber.setSubscribedDate(new Date());
+        subscriber.setTenantId(MultitenantConstants.SUPER_TENANT_ID);
+        apiMgtDAO.addSubscriber(subscriber, null);
+
+        List<Application> applications = new ArrayList<Application>();
+        applications.add(new Application("tokenApplication1", subscriber));
+        applications.add(new Application("tokenApplication2", subscriber));
+        applications.add(new Application("tokenApplication3", subscriber));
+        apiMgtDAO.addApplications(applications, subscriber.getName());
+
+        Connection connection = APIMgtDBUtil.getConnection();
+        try {
+            addAccessToken(connection, applications.get(0).getId(), "PRODUCTION", "TOKENCON1", "app1Token", "ACTIVE");
+            addAccessToken(connection, applications.get(0).getId(), "SANDBOX", "TOKENCON2", "app1SandboxToken",
+                           "ACTIVE");
+            addAccessToken(connection, applications.get(1).getId(), "PRODUCTION", "TOKENCON3", "app2Token", "REVOKED");
+            addAccessToken(connection, applications.get(2).getId(), "PRODUCTION", "TOKENCON4", "app3Token", "ACTIVE");
+            connection.commit();
+        } finally {
+            connection.close();
+        }
+
+        Set<Integer> applicationIds = new HashSet<Integer>();
+        applicationIds.add(applications.get(0).getId());
+        applicationIds.add(applications.get(1).getId());
+
+        Set<String> consumerKeys = apiMgtDAO.getConsumerKeysOfApplications(applicationIds);
+        assertEquals(3, consumerKeys.size());
+        assertTrue(consumerKeys.contains("TOKENCON1"));
+        assertTrue(consumerKeys.contains("TOKENCON2"));
+        assertTrue(consumerKeys.contains("TOKENCON3"));
+
+        Set<String> activeTokens = apiMgtDAO.getActiveTokensOfApplications(applicationIds);
+        assertEquals(2, activeTokens.size());
+        assertTrue(activeTokens.contains("app1Token"));
+        assertTrue(activeTokens.contains("app1SandboxToken"));
+
+        assertTrue(apiMgtDAO.getActiveTokensOfApplications(new HashSet<Integer>()).isEmpty());
+    }
+
+    private void addAccessToken(Connection connection, int applicationId, String keyType, String consumerKey,
+                                String accessToken, String tokenState) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO AM_APPLICATION_KEY_MAPPING (APPLICATION_ID, CONSUMER_KEY, KEY_TYPE, STATE) " +
+                "VALUES (?, ?, ?, 'COMPLETED')");
+        try {
+            statement.setInt(1, applicationId);
+            statement.setString(2, consumerKey);
+            statement.setString(3, keyType);
+            statement.executeUpdate();
+        } finally {
+            statement.close();
+        }
+        statement = connection.prepareStatement(
+                "INSERT INTO IDN_OAUTH_CONSUMER_APPS (CONSUMER_KEY, CONSUMER_SECRET, USERNAME, TENANT_ID) " +
+                "VALUES (?, 'secret', 'LA_F_TOKENS', -1234)");
+        try {
+            statement.setString(1, consumerKey);
+            statement.executeUpdate();
+        } finally {
+            statement.close();
+        }
+        statement = connection.prepareStatement(
+                "INSERT INTO IDN_OAUTH2_ACCESS_TOKEN (TOKEN_ID, ACCESS_TOKEN, CONSUMER_KEY_ID, AUTHZ_USER, " +
+                "TENANT_ID, TOKEN_STATE) SELECT ?, ?, ID, 'LA_F_TOKENS', -1234, ? FROM IDN_OAUTH_CONSUMER_APPS " +
+                "WHERE CONSUMER_KEY = ?");
+        try {
+            statement.setString(1, accessToken);
+            statement.setString(2, accessToken);
+            statement.setString(3, tokenState);
+            statement.setString(4, consumerKey);
+            statement.executeUpdate();
+        } finally {
+            statement.close();
+        }
+    }
+
+    public void testBulkProvisioningAgainstIndividualCalls() throws Exception {
+        int applicationCount = 200;
+        APIIdentifier apiIdentifier = new APIIdentifier("SUMEDHA", "API1", "V1.0.0");
+        apiIdentifier.setTier("T1");
+
+        Subscriber individualSubscriber = addBulkSubscriber("LA_F_INDIVIDUAL");
+        long start = System.nanoTime();
+        for (int i = 0; i < applicationCount; i++) {
+            Application application = new Application("application" + i, individualSubscriber);
+            int applicationId = apiMgtDAO.addApplication(application, individualSubscriber.getName());
+            apiMgtDAO.addSubscription(apiIdentifier, "/context1", applicationId, "ON_HOLD",
+                    individualSubscriber.getName());
+        }
+        long individualNanos = System.nanoTime() - start;
+
+        Subscriber bulkSubscriber = addBulkSubscriber("LA_F_BULK_CHUNKS");
+        start = System.nanoTime();
+        for (int chunkStart = 0; chunkStart < applicationCount;
+             chunkStart += APIConstants.APPLICATION_PROVISIONING_CHUNK_SIZE) {
+            List<Application> applications = new ArrayList<Application>();
+            List<SubscribedAPI> subscriptions = new ArrayList<SubscribedAPI>();
+            int chunkEnd = Math.min(chunkStart + APIConstants.APPLICATION_PROVISIONING_CHUNK_SIZE, applicationCount);
+            for (int i = chunkStart; i < chunkEnd; i++) {
+                applications.add(new Application("application" + i, bulkSubscriber));
+            }
+            apiMgtDAO.addApplications(applications, bulkSubscriber.getName());
+            for (Application application : applications) {
+                SubscribedAPI subscription = new SubscribedAPI(bulkSubscriber, apiIdentifier);
+                subscription.setApplication(application);
+                subscriptions.add(subscription);
+            }
+            apiMgtDAO.addSubscriptions(subscriptions, "ON_HOLD", bulkSubscriber.getName());
+        }
+        long bulkNanos = System.nanoTime() - start;
+
+        log.info("Provisioned " + applicationCount + " applications with a subscription each in " +
+                 individualNanos / 1000000 + " ms with individual calls and in " + bulkNanos / 1000000 +
+                 " ms in chunks of " + APIConstants.APPLICATION_PROVISIONING_CHUNK_SIZE);
+
+        Application[] individual = apiMgtDAO.getApplicationsWithSubscribedAPIs(individualSubscriber);
+        Application[] bulk = apiMgtDAO.getApplicationsWithSubscribedAPIs(bulkSubscriber);
+        assertEquals(applicationCount, individual.length);
+        assertEquals(applicationCount, bulk.length);
+        for (Application application : bulk) {
+            assertEquals(1, application.getSubscribedAPIs().size());
+            assertEquals(apiIdentifier, application.getSubscribedAPIs().iterator().next().getApiId());
+        }
+    }
+
+    private Subscriber addBulkSubscriber(String name) throws APIManagementException {
+        Subscriber subscriber = new Subscriber(name);
+        subscriber.setEmail("laf@wso2.com");
+        subscriber.setSubscribedDate(new Date());
+        subscriber.setTenantId(MultitenantConstants.SUPER_TENANT_ID);
+        apiMgtDAO.addSubscriber(subscriber, null);
+        return subscriber;
+    }
+
     public void testKeyForwardCompatibility() throws Exception {
         Set<APIIdentifier> apiSet = apiMgtDAO.getAPIByConsumerKey("SSDCHEJJ-AWUIS-232");
         assertEquals(1, apiSet.size());
@@ -0,0 +1,131 @@
+/*
+*  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.apimgt.impl.definitions;
+
+import junit.framework.TestCase;
+import org.wso2.carbon.apimgt.api.APIManagementException;
+import org.wso2.carbon.apimgt.api.model.API;
+import org.wso2.carbon.apimgt.api.model.APIIdentifier;
+import org.wso2.carbon.apimgt.api.model.Scope;
+import org.wso2.carbon.apimgt.api.model.URITemplate;
+import org.wso2.carbon.apimgt.impl.APIConstants;
+
+import java.util.Set;
+
+public class APIDefinitionFromSwagger20Test extends TestCase {
+
+    private static final String SWAGGER = "{\"swagger\":\"2.0\",\"paths\":{" +
+            "\"/pets\":{\"get\":{\"x-auth-type\":\"Application\",\"x-throttling-tier\":\"Gold\"," +
+            "\"x-scope\":\"read\"},\"post\":{\"x-auth-type\":\"None\",\"x-throttling-tier\":\"Unlimited\"}," +
+            "\"parameters\":[]}," +
+            "\"/pets/{id}\":{\"$ref\":\"#/paths/pet\"}," +
+            "\"x-custom\":{}}," +
+            "\"x-wso2-security\":{\"apim\":{\"x-wso2-scopes\":[" +
+            "{\"key\":\"read\",\"name\":\"Read\",\"description\":\"Read pets\",\"roles\":\"admin\"}]}}}";
+
+    private final APIDefinitionFromSwagger20 definition = new APIDefinitionFromSwagger20();
+
+    private final API api = new API(new APIIdentifier("admin", "PetStore", "1.0.0"));
+
+    public void testURITemplatesAreReadFromDefinition() throws Exception {
+        Set<URITemplate> uriTemplates = definition.getURITemplates(api, SWAGGER);
+
+        assertEquals(2, uriTemplates.size());
+        URITemplate get = getTemplate(uriTemplates, "GET");
+        assertEquals("/pets", get.getUriTemplate());
+        assertEquals(APIConstants.AUTH_APPLICATION_LEVEL_TOKEN, get.getAuthType());
+        assertEquals("Gold", get.getThrottlingTier());
+        assertEquals("read", get.getScope().getKey());
+        URITemplate post = getTemplate(uriTemplates, "POST");
+        assertEquals("/pets", post.getUriTemplate());
+        assertEquals(APIConstants.AUTH_NO_AUTHENTICATION, post.getAuthType());
+        assertNull(post.getScope());
+
+        Set<Scope> scopes = definition.getScopes(SWAGGER);
+        assertEquals(1, scopes.size());
+        Scope scope = scopes.iterator().next();
+        assertEquals("read", scope.getKey());
+        assertEquals("Read", scope.getName());
+        assertEquals("Read pets", scope.getDescription());
+        assertEquals("admin", scope.getRoles());
+    }
+
+    public void testDefinitionIsParsedOnce() throws Exception {
+        // An equal definition read separately is parsed only once
+        assertSame(Swagger20Definition.getDefinition(SWAGGER),
+                   Swagger20Definition.getDefinition(new String(SWAGGER.toCharArray())));
+        assertNotSame(Swagger20Definition.getDefinition(SWAGGER),
+                      Swagger20Definition.getDefinition(SWAGGER.replace("Gold", "Silver")));
+    }
+
+    public void testReadTemplatesAndScopesAreNotShared() throws Exception {
+        URITemplate template = getTemplate(definition.getURITemplates(api, SWAGGER), "GET");
+        template.setThrottlingTier("Bronze");
+        template.getScope().setRoles("subscriber");
+        definition.getScopes(SWAGGER).iterator().next().setName("Changed");
+
+        URITemplate readAgain = getTemplate(definition.getURITemplates(api, SWAGGER), "GET");
+        assertEquals("Gold", readAgain.getThrottlingTier());
+        assertEquals("admin", readAgain.getScope().getRoles());
+        assertEquals("Read", definition.getScopes(SWAGGER).iterator().next().getName());
+    }
+
+    public void testSavingPathEvictsItsEarlierDefinition() throws Exception {
+        String path = "/apimgt/applicationdata/provider/admin/PetStore/1.0.0/swagger.json";
+        Swagger20Definition.validateDefinitionOfPath(path, SWAGGER);
+        Swagger20Definition parsed = Swagger20Definition.getDefinition(SWAGGER);
+
+        Swagger20Definition.setDefinitionOfPath(path, SWAGGER);
+        assertSame(parsed, Swagger20Definition.getDefinition(SWAGGER));
+
+        Swagger20Definition.setDefinitionOfPath(path, SWAGGER.replace("Gold", "Silver"));
+        assertNotSame(parsed, Swagger20Definition.getDefinition(SWAGGER));
+    }
+
+    public void testScopesOfDefinitionWithMalformedPathsAreRead() throws Exception {
+        String swagger = "{\"paths\":{\"/pets\":[]},\"x-wso2-security\":{\"apim\":{\"x-wso2-scopes\":[" +
+                "{\"key\":\"read\",\"name\":\"Read\",\"roles\":\"admin\"}]}}}";
+        assertEquals(1, definition.getScopes(swagger).size());
+        try {
+            definition.getURITemplates(api, swagger);
+            fail("Malformed paths should not be read");
+        } catch (ClassCastException expected) {
+            // as when the paths were read from a definition parsed separately
+        }
+    }
+
+    public void testInvalidDefinitionIsRejected() throws Exception {
+        try {
+            definition.getScopes("{\"paths\":");
+            fail("Invalid definition should be rejected");
+        } catch (APIManagementException expected) {
+            // expected
+        }
+    }
+
+    private static URITemplate getTemplate(Set<URITemplate> uriTemplates, String httpVerb) {
+        for (URITemplate uriTemplate : uriTemplates) {
+            if (httpVerb.equals(uriTemplate.getHTTPVerb())) {
+                return uriTemplate;
+            }
+        }
+        fail("No " + httpVerb + " resource");
+        return null;
+    }
+}
@@ -0,0 +1,133 @@
+/*
+*  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.apimgt.impl.internal;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class StartupTaskRunnerTest extends TestCase {
+
+    private final List<String> runTasks = Collections.synchronizedList(new ArrayList<String>());
+
+    private StartupTaskRunner runner;
+
+    @Override
+    protected void setUp() throws Exception {
+        runner = new StartupTaskRunner("test", 4, Executors.defaultThreadFactory());
+    }
+
+    public void testTasksRunAfterTheirDependencies() throws Exception {
+        runner.addTask("c", recordingTask("c"), "a", "b");
+        runner.addTask("a", recordingTask("a"));
+        runner.addTask("b", recordingTask("b"), "a");
+        runner.addTask("d", recordingTask("d"), "c");
+        runner.run();
+
+        assertEquals(4, runTasks.size());
+        assertTrue(runTasks.indexOf("a") < runTasks.indexOf("b"));
+        assertTrue(runTasks.indexOf("b") < runTasks.indexOf("c"));
+        assertTrue(runTasks.indexOf("c") < runTasks.indexOf("d"));
+        assertTrue(runner.isCompleted("d"));
+        assertTrue(runner.getFailures().isEmpty());
+    }
+
+    public void testIndependentTasksRunConcurrently() throws Exception {
+        // Each task waits for the others, so the tasks complete only if all of them run at the same time
+        final CyclicBarrier barrier = new CyclicBarrier(3);
+        StartupTaskRunner.StartupTask task = new StartupTaskRunner.StartupTask() {
+            public void run() throws Exception {
+                barrier.await(10, TimeUnit.SECONDS);
+            }
+        };
+        runner.addTask("a", task);
+        runner.addTask("b", task);
+        runner.addTask("c", task);
+        runner.run();
+
+        assertTrue(runner.getFailures().isEmpty());
+    }
+
+    public void testDependentsOfFailedTaskAreSkipped() throws Exception {
+        final Exception failure = new Exception("failed");
+        runner.addTask("a", new StartupTaskRunner.StartupTask() {
+            public void run() throws Exception {
+                throw failure;
+            }
+        });
+        runner.addTask("b", recordingTask("b"), "a");
+        runner.addTask("c", recordingTask("c"), "b");
+        runner.addTask("d", recordingTask("d"));
+        runner.run();
+
+        assertEquals(Collections.singletonList("d"), runTasks);
+        assertEquals(Collections.<String, Throwable>singletonMap("a", failure), runner.getFailures());
+        assertFalse(runner.isCompleted("a"));
+        assertFalse(runner.isCompleted("c"));
+        assertTrue(runner.isCompleted("d"));
+    }
+
+    public void testErrorOfTaskDoesNotBlockTheStartup() throws Exception {
+        runner.addTask("a", new StartupTaskRunner.StartupTask() {
+            public void run() {
+                throw new NoClassDefFoundError("missing");
+            }
+        });
+        runner.run();
+
+        assertTrue(runner.getFailures().get("a") instanceof NoClassDefFoundError);
+    }
+
+    public void testUnknownDependencyIsRejected() throws Exception {
+        runner.addTask("a", recordingTask("a"), "b");
+        try {
+            runner.run();
+            fail("Unknown dependency should be rejected");
+        } catch (IllegalStateException expected) {
+            assertTrue(runTasks.isEmpty());
+        }
+    }
+
+    public void testCyclicDependenciesAreRejected() throws Exception {
+        runner.addTask("a", recordingTask("a"));
+        runner.addTask("b", recordingTask("b"), "a", "d");
+        runner.addTask("c", recordingTask("c"), "b");
+        runner.addTask("d", recordingTask("d"), "c");
+        try {
+            runner.run();
+            fail("Cyclic dependencies should be rejected");
+        } catch (IllegalStateException expected) {
+            assertTrue(expected.getMessage().contains("[b, c, d]"));
+            assertTrue(runTasks.isEmpty());
+        }
+    }
+
+    private StartupTaskRunner.StartupTask recordingTask(final String name) {
+        return new StartupTaskRunner.StartupTask() {
+            public void run() {
+                runTasks.add(name);
+            }
+        };
+    }
+}
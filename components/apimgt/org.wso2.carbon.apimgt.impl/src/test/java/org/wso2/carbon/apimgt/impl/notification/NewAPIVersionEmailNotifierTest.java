@@ -0,0 +1,311 @@
+/*
+ *  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.apimgt.impl.notification;
+
+import junit.framework.TestCase;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.wso2.carbon.apimgt.api.model.Subscriber;
+import org.wso2.carbon.apimgt.impl.internal.ServiceReferenceHolder;
+import org.wso2.carbon.apimgt.impl.token.ClaimsRetriever;
+import org.wso2.carbon.apimgt.impl.token.DefaultClaimsRetriever;
+import org.wso2.carbon.event.output.adapter.core.OutputEventAdapterService;
+import org.wso2.carbon.user.api.UserRealm;
+import org.wso2.carbon.user.api.UserStoreManager;
+import org.wso2.carbon.user.core.common.AbstractUserStoreManager;
+import org.wso2.carbon.user.core.model.UserClaimSearchEntry;
+import org.wso2.carbon.user.core.service.RealmService;
+import org.wso2.carbon.user.core.tenant.TenantManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyMap;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+
+public class NewAPIVersionEmailNotifierTest extends TestCase {
+
+    private static final Log log = LogFactory.getLog(NewAPIVersionEmailNotifierTest.class);
+
+    private static final int SUBSCRIBER_COUNT = 25000;
+
+    private static final int SUPER_TENANT_ID = -1234;
+
+    private static final int TENANT_ID = 1;
+
+    private final AbstractUserStoreManager superTenantUserStore = Mockito.mock(AbstractUserStoreManager.class);
+
+    private final AbstractUserStoreManager tenantUserStore = Mockito.mock(AbstractUserStoreManager.class);
+
+    private final List<String[]> superTenantLookups = new ArrayList<String[]>();
+
+    private final List<String[]> tenantLookups = new ArrayList<String[]>();
+
+    private OutputEventAdapterService outputEventAdapterService;
+
+    private RealmService realmService;
+
+    @Override
+    protected void setUp() throws Exception {
+        outputEventAdapterService = ServiceReferenceHolder.getInstance().getOutputEventAdapterService();
+        realmService = ServiceReferenceHolder.getInstance().getRealmService();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        ServiceReferenceHolder.getInstance().setOutputEventAdapterService(outputEventAdapterService);
+        ServiceReferenceHolder.getInstance().setRealmService(realmService);
+    }
+
+    public void testRecipientsAreResolvedWithASingleClaimsRetriever() throws Exception {
+        FakeClaimsRetriever.initCount.set(0);
+        NotificationDTO notificationDTO = createNotificationDTO(SUBSCRIBER_COUNT, "100");
+
+        Set<String> emails = new NewAPIVersionEmailNotifier().getNotifierSet(notificationDTO);
+
+        assertEquals(SUBSCRIBER_COUNT, emails.size());
+        assertEquals(1, FakeClaimsRetriever.initCount.get());
+    }
+
+    public void testEmailsArePublishedInBatches() throws Exception {
+        final AtomicInteger publishCount = new AtomicInteger();
+        final Set<String> recipients = new HashSet<String>();
+        OutputEventAdapterService fakeMailAdapter = Mockito.mock(OutputEventAdapterService.class);
+        Mockito.doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                Map<String, String> properties = (Map<String, String>) invocation.getArguments()[1];
+                String[] addresses = properties.get(NotifierConstants.EMAIL_ADDRESS_KEY).split(",");
+                assertTrue(addresses.length <= 100);
+                for (String address : addresses) {
+                    assertTrue("Duplicate recipient " + address, recipients.add(address));
+                }
+                publishCount.incrementAndGet();
+                return null;
+            }
+        }).when(fakeMailAdapter).publish(anyString(), anyMap(), any());
+        ServiceReferenceHolder.getInstance().setOutputEventAdapterService(fakeMailAdapter);
+
+        NewAPIVersionEmailNotifier notifier = new NewAPIVersionEmailNotifier();
+        NotificationDTO notificationDTO = createNotificationDTO(SUBSCRIBER_COUNT, "100");
+        notificationDTO.setNotifierSet(notifier.getNotifierSet(notificationDTO));
+        notificationDTO.setTitle("Version 2.0.0 of TestAPI Released");
+        notificationDTO.setMessage("<html><body>TestAPI 2.0.0</body></html>");
+
+        long start = System.nanoTime();
+        notifier.sendEmails(notificationDTO, NotifierConstants.ADAPTER_NAME + "carbon.super");
+        long elapsedMillis = (System.nanoTime() - start) / 1000000;
+        log.info("Published " + SUBSCRIBER_COUNT + " recipients in " + publishCount.get() + " batches in " +
+                elapsedMillis + " ms");
+
+        assertEquals(SUBSCRIBER_COUNT / 100, publishCount.get());
+        assertEquals(SUBSCRIBER_COUNT, recipients.size());
+    }
+
+    public void testInvalidBatchSizeFallsBackToDefault() throws Exception {
+        final AtomicInteger publishCount = new AtomicInteger();
+        OutputEventAdapterService fakeMailAdapter = Mockito.mock(OutputEventAdapterService.class);
+        Mockito.doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                publishCount.incrementAndGet();
+                return null;
+            }
+        }).when(fakeMailAdapter).publish(anyString(), anyMap(), any());
+        ServiceReferenceHolder.getInstance().setOutputEventAdapterService(fakeMailAdapter);
+
+        NewAPIVersionEmailNotifier notifier = new NewAPIVersionEmailNotifier();
+        NotificationDTO notificationDTO = createNotificationDTO(250, "invalid");
+        notificationDTO.setNotifierSet(notifier.getNotifierSet(notificationDTO));
+
+        notifier.sendEmails(notificationDTO, NotifierConstants.ADAPTER_NAME + "carbon.super");
+
+        assertEquals(3, publishCount.get());
+    }
+
+    public void testEmailsOfEachTenantAreReadInOneLookup() throws Exception {
+        setUserStoreManagers(superTenantUserStore, tenantUserStore);
+
+        Set<Subscriber> subscribers = new HashSet<Subscriber>();
+        for (int i = 0; i < SUBSCRIBER_COUNT; i++) {
+            subscribers.add(new Subscriber("subscriber" + i));
+            subscribers.add(new Subscriber("subscriber" + i + "@wso2.com"));
+        }
+        Set<String> emails = new BulkLookupNotifier().getNotifierSet(createNotificationDTO(subscribers,
+                DefaultClaimsRetriever.class.getName(), "100"));
+
+        // one lookup per tenant, for all the subscribers of the tenant
+        assertEquals(1, superTenantLookups.size());
+        assertEquals(SUBSCRIBER_COUNT, superTenantLookups.get(0).length);
+        assertEquals(1, tenantLookups.size());
+        assertEquals(SUBSCRIBER_COUNT, tenantLookups.get(0).length);
+
+        assertEquals(2 * SUBSCRIBER_COUNT, emails.size());
+        assertTrue(emails.contains("subscriber0@carbon.super.example.com"));
+        assertTrue(emails.contains("subscriber0@wso2.com.example.com"));
+    }
+
+    public void testSubscribersAreLookedUpInTheirOwnTenant() throws Exception {
+        setUserStoreManagers(superTenantUserStore, tenantUserStore);
+
+        Set<Subscriber> subscribers = new HashSet<Subscriber>();
+        subscribers.add(new Subscriber("admin"));
+        subscribers.add(new Subscriber("admin@wso2.com"));
+        subscribers.add(new Subscriber("alice@wso2.com"));
+        Set<String> emails = new BulkLookupNotifier().getNotifierSet(createNotificationDTO(subscribers,
+                DefaultClaimsRetriever.class.getName(), "100"));
+
+        // the user stores are given tenant aware user names, and only those of their own tenant
+        assertEquals(Arrays.asList("admin"), Arrays.asList(superTenantLookups.get(0)));
+        List<String> tenantUsers = new ArrayList<String>(Arrays.asList(tenantLookups.get(0)));
+        Collections.sort(tenantUsers);
+        assertEquals(Arrays.asList("admin", "alice"), tenantUsers);
+        assertEquals(new HashSet<String>(Arrays.asList("admin@carbon.super.example.com",
+                "admin@wso2.com.example.com", "alice@wso2.com.example.com")), emails);
+    }
+
+    public void testEmailsAreReadPerUserFromOtherUserStores() throws Exception {
+        UserStoreManager userStore = Mockito.mock(UserStoreManager.class);
+        Mockito.when(userStore.getUserClaimValue(anyString(), eq(NotifierConstants.EMAIL_CLAIM), anyString()))
+                .thenAnswer(new Answer<String>() {
+                    @Override
+                    public String answer(InvocationOnMock invocation) {
+                        String userName = (String) invocation.getArguments()[0];
+                        // users without an email address are not notified
+                        return "nomail".equals(userName) ? null : userName + "@example.com";
+                    }
+                });
+        setUserStoreManagers(userStore, tenantUserStore);
+
+        Set<Subscriber> subscribers = new HashSet<Subscriber>();
+        subscribers.add(new Subscriber("admin"));
+        subscribers.add(new Subscriber("nomail"));
+        Set<String> emails = new BulkLookupNotifier().getNotifierSet(createNotificationDTO(subscribers,
+                DefaultClaimsRetriever.class.getName(), "100"));
+
+        assertEquals(new HashSet<String>(Arrays.asList("admin@example.com")), emails);
+        assertTrue(tenantLookups.isEmpty());
+    }
+
+    private void setUserStoreManagers(UserStoreManager superTenantStore, UserStoreManager tenantStore)
+            throws Exception {
+        UserRealm superTenantRealm = Mockito.mock(UserRealm.class);
+        Mockito.when(superTenantRealm.getUserStoreManager()).thenReturn(superTenantStore);
+        UserRealm tenantRealm = Mockito.mock(UserRealm.class);
+        Mockito.when(tenantRealm.getUserStoreManager()).thenReturn(tenantStore);
+
+        TenantManager tenantManager = Mockito.mock(TenantManager.class);
+        Mockito.when(tenantManager.getTenantId("carbon.super")).thenReturn(SUPER_TENANT_ID);
+        Mockito.when(tenantManager.getTenantId("wso2.com")).thenReturn(TENANT_ID);
+
+        RealmService fakeRealmService = Mockito.mock(RealmService.class);
+        Mockito.when(fakeRealmService.getTenantManager()).thenReturn(tenantManager);
+        Mockito.when(fakeRealmService.getTenantUserRealm(SUPER_TENANT_ID)).thenReturn(superTenantRealm);
+        Mockito.when(fakeRealmService.getTenantUserRealm(TENANT_ID)).thenReturn(tenantRealm);
+        ServiceReferenceHolder.getInstance().setRealmService(fakeRealmService);
+    }
+
+    /**
+     * Reads the email claims of many users in one lookup, as {@link AbstractUserStoreManager} does, recording the
+     * user names of each lookup. The email address of a user is the user name at the tenant domain followed by
+     * .example.com.
+     */
+    private class BulkLookupNotifier extends NewAPIVersionEmailNotifier {
+
+        @Override
+        UserClaimSearchEntry[] getEmailClaims(AbstractUserStoreManager userStoreManager,
+                                              String[] tenantAwareUserNames) {
+            String tenantDomain;
+            if (userStoreManager == superTenantUserStore) {
+                superTenantLookups.add(tenantAwareUserNames);
+                tenantDomain = "carbon.super";
+            } else {
+                assertSame(tenantUserStore, userStoreManager);
+                tenantLookups.add(tenantAwareUserNames);
+                tenantDomain = "wso2.com";
+            }
+            UserClaimSearchEntry[] entries = new UserClaimSearchEntry[tenantAwareUserNames.length];
+            for (int i = 0; i < tenantAwareUserNames.length; i++) {
+                Map<String, String> claims = new HashMap<String, String>();
+                claims.put(NotifierConstants.EMAIL_CLAIM,
+                        tenantAwareUserNames[i] + "@" + tenantDomain + ".example.com");
+                entries[i] = new UserClaimSearchEntry();
+                entries[i].setUserName(tenantAwareUserNames[i]);
+                entries[i].setClaims(claims);
+            }
+            return entries;
+        }
+    }
+
+    private static NotificationDTO createNotificationDTO(int subscriberCount, String batchSize) {
+        Set<Subscriber> subscribers = new HashSet<Subscriber>();
+        for (int i = 0; i < subscriberCount; i++) {
+            subscribers.add(new Subscriber("subscriber" + i));
+        }
+        return createNotificationDTO(subscribers, FakeClaimsRetriever.class.getName(), batchSize);
+    }
+
+    private static NotificationDTO createNotificationDTO(Set<Subscriber> subscribers, String claimsRetrieverClass,
+                                                         String batchSize) {
+        Properties properties = new Properties();
+        properties.put(NotifierConstants.SUBSCRIBERS_PER_API, subscribers);
+        properties.put(NotifierConstants.CLAIMS_RETRIEVER_IMPL_CLASS, claimsRetrieverClass);
+        properties.put(NotifierConstants.BATCH_SIZE_KEY, batchSize);
+        NotificationDTO notificationDTO = new NotificationDTO(properties,
+                NotifierConstants.NOTIFICATION_TYPE_NEW_VERSION);
+        notificationDTO.setTenantDomain("carbon.super");
+        return notificationDTO;
+    }
+
+    public static class FakeClaimsRetriever implements ClaimsRetriever {
+
+        static final AtomicInteger initCount = new AtomicInteger();
+
+        @Override
+        public void init() {
+            initCount.incrementAndGet();
+        }
+
+        @Override
+        public SortedMap<String, String> getClaims(String endUserName) {
+            SortedMap<String, String> claims = new TreeMap<String, String>();
+            claims.put(NotifierConstants.EMAIL_CLAIM, endUserName + "@example.com");
+            return claims;
+        }
+
+        @Override
+        public String getDialectURI(String endUserName) {
+            return DEFAULT_DIALECT_URI;
+        }
+    }
+}
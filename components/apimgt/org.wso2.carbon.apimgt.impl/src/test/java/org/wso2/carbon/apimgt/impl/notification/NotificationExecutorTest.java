@@ -0,0 +1,110 @@
+/*
+*  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.apimgt.impl.notification;
+
+import junit.framework.TestCase;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+public class NotificationExecutorTest extends TestCase {
+
+    public void testNotificationsAreSentByPoolThreads() throws Exception {
+        ThreadPoolExecutor pool = NotificationExecutor.createNotificationPool(2, 10);
+        try {
+            final List<Thread> senders = new CopyOnWriteArrayList<Thread>();
+            final CountDownLatch sent = new CountDownLatch(5);
+            for (int i = 0; i < 5; i++) {
+                pool.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        senders.add(Thread.currentThread());
+                        sent.countDown();
+                    }
+                });
+            }
+            assertTrue(sent.await(10, TimeUnit.SECONDS));
+            for (Thread sender : senders) {
+                assertTrue(sender.getName().startsWith("APIM-Notification-"));
+                // notification threads do not keep the server from shutting down
+                assertTrue(sender.isDaemon());
+            }
+            assertTrue(pool.getLargestPoolSize() <= 2);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    public void testCallerSendsNotificationWhenPoolIsFull() throws Exception {
+        ThreadPoolExecutor pool = NotificationExecutor.createNotificationPool(1, 1);
+        final CountDownLatch release = new CountDownLatch(1);
+        try {
+            final List<String> sent = new CopyOnWriteArrayList<String>();
+            final CountDownLatch started = new CountDownLatch(1);
+            // the only thread of the pool is kept busy and the queue is filled
+            pool.execute(new Runnable() {
+                @Override
+                public void run() {
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    sent.add("busy");
+                }
+            });
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            pool.execute(new Runnable() {
+                @Override
+                public void run() {
+                    sent.add("queued");
+                }
+            });
+
+            final Thread caller = Thread.currentThread();
+            final List<Thread> overflowSenders = new CopyOnWriteArrayList<Thread>();
+            pool.execute(new Runnable() {
+                @Override
+                public void run() {
+                    overflowSenders.add(Thread.currentThread());
+                    sent.add("overflow");
+                }
+            });
+            // the notification is not dropped, it is sent by the caller before execute returns
+            assertEquals(1, overflowSenders.size());
+            assertSame(caller, overflowSenders.get(0));
+            assertEquals(1, pool.getQueue().size());
+
+            release.countDown();
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+            assertEquals(3, sent.size());
+            assertTrue(sent.contains("busy"));
+            assertTrue(sent.contains("queued"));
+            assertTrue(sent.contains("overflow"));
+        } finally {
+            release.countDown();
+            pool.shutdownNow();
+        }
+    }
+}
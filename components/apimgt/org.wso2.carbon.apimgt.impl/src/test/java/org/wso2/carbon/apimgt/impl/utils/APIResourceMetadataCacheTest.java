@@ -0,0 +1,150 @@
+/*
+*  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.apimgt.impl.utils;
+
+import junit.framework.TestCase;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.wso2.carbon.apimgt.api.model.URITemplate;
+import org.wso2.carbon.apimgt.impl.dao.ApiMgtDAO;
+import org.wso2.carbon.apimgt.impl.dto.APIResourceMetadataDTO;
+
+import javax.cache.Cache;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+
+public class APIResourceMetadataCacheTest extends TestCase {
+
+    private static final String CONTEXT = "/pizzashack";
+
+    private static final String VERSION = "1.0.0";
+
+    private static final String RESOURCE_KEY = APIUtil.getResourceKey(CONTEXT, VERSION, "/menu", "GET");
+
+    private static final long EXPIRY_MILLIS = 15000;
+
+    private final Map<Object, Object> cachedMetadata = new ConcurrentHashMap<Object, Object>();
+
+    private final Map<String, String> resourceScopes = new ConcurrentHashMap<String, String>();
+
+    private final AtomicInteger databaseReads = new AtomicInteger();
+
+    private Cache resourceMetadataCache;
+
+    private ApiMgtDAO apiMgtDAO;
+
+    @Override
+    protected void setUp() throws Exception {
+        resourceMetadataCache = Mockito.mock(Cache.class);
+        Mockito.when(resourceMetadataCache.get(any())).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) {
+                return cachedMetadata.get(invocation.getArguments()[0]);
+            }
+        });
+        Mockito.doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                cachedMetadata.put(invocation.getArguments()[0], invocation.getArguments()[1]);
+                return null;
+            }
+        }).when(resourceMetadataCache).put(any(), any());
+        Mockito.when(resourceMetadataCache.remove(any())).thenAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) {
+                return cachedMetadata.remove(invocation.getArguments()[0]) != null;
+            }
+        });
+
+        apiMgtDAO = Mockito.mock(ApiMgtDAO.class);
+        Mockito.when(apiMgtDAO.getAllURITemplates(anyString(), anyString()))
+                .thenAnswer(new Answer<ArrayList<URITemplate>>() {
+                    @Override
+                    public ArrayList<URITemplate> answer(InvocationOnMock invocation) {
+                        databaseReads.incrementAndGet();
+                        URITemplate template = new URITemplate();
+                        template.setUriTemplate("/menu");
+                        template.setHTTPVerb("GET");
+                        ArrayList<URITemplate> templates = new ArrayList<URITemplate>();
+                        templates.add(template);
+                        return templates;
+                    }
+                });
+        Mockito.when(apiMgtDAO.getResourceToScopeMapping(anyString(), anyString()))
+                .thenAnswer(new Answer<Map<String, String>>() {
+                    @Override
+                    public Map<String, String> answer(InvocationOnMock invocation) {
+                        return new ConcurrentHashMap<String, String>(resourceScopes);
+                    }
+                });
+    }
+
+    public void testMetadataIsReadOnceWithinExpiry() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            assertTrue(getMetadata(i * 100).hasResources());
+        }
+        assertEquals(1, databaseReads.get());
+    }
+
+    public void testScopeAddedAfterFirstValidationIsEnforcedAfterExpiry() throws Exception {
+        // The key manager is not in the cache cluster of the publisher, so the cache is not cleared
+        assertNull(getMetadata(0).getResourceScope(RESOURCE_KEY));
+        resourceScopes.put(RESOURCE_KEY, "menu_read");
+
+        assertNull(getMetadata(EXPIRY_MILLIS - 1).getResourceScope(RESOURCE_KEY));
+        assertEquals("menu_read", getMetadata(EXPIRY_MILLIS).getResourceScope(RESOURCE_KEY));
+        assertEquals("menu_read", getMetadata(EXPIRY_MILLIS + 1).getResourceScope(RESOURCE_KEY));
+        assertEquals(2, databaseReads.get());
+    }
+
+    public void testScopeAddedAfterFirstValidationIsEnforcedOnceCleared() throws Exception {
+        assertNull(getMetadata(0).getResourceScope(RESOURCE_KEY));
+        resourceScopes.put(RESOURCE_KEY, "menu_read");
+        APIUtil.clearAPIResourceMetadataCache(CONTEXT, VERSION, resourceMetadataCache);
+
+        assertEquals("menu_read", getMetadata(1).getResourceScope(RESOURCE_KEY));
+    }
+
+    public void testMetadataReadWhileClearedIsNotCached() throws Exception {
+        Mockito.when(apiMgtDAO.getResourceToScopeMapping(anyString(), anyString()))
+                .thenAnswer(new Answer<Map<String, String>>() {
+                    @Override
+                    public Map<String, String> answer(InvocationOnMock invocation) {
+                        // The scope is added, and the cache cleared, after the resources were read
+                        Map<String, String> scopes = new ConcurrentHashMap<String, String>(resourceScopes);
+                        resourceScopes.put(RESOURCE_KEY, "menu_read");
+                        APIUtil.clearAPIResourceMetadataCache(CONTEXT, VERSION, resourceMetadataCache);
+                        return scopes;
+                    }
+                });
+        assertNull(getMetadata(0).getResourceScope(RESOURCE_KEY));
+        assertTrue(cachedMetadata.isEmpty());
+    }
+
+    private APIResourceMetadataDTO getMetadata(long currentTime) throws Exception {
+        return APIUtil.getAPIResourceMetadata(CONTEXT, VERSION, apiMgtDAO, resourceMetadataCache, EXPIRY_MILLIS,
+                currentTime);
+    }
+}
@@ -0,0 +1,138 @@
+/*
+*  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.apimgt.impl.utils;
+
+import junit.framework.TestCase;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.wso2.carbon.apimgt.impl.APIConstants;
+import org.wso2.carbon.apimgt.impl.APIMRegistryService;
+import org.wso2.carbon.apimgt.impl.dto.TenantConfigDTO;
+
+import javax.cache.Cache;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+
+public class TenantConfigCacheTest extends TestCase {
+
+    private static final String TENANT_DOMAIN = "wso2.com";
+
+    private static final int REQUEST_COUNT = 10000;
+
+    private final Map<Object, Object> cachedConfigs = new ConcurrentHashMap<Object, Object>();
+
+    private final AtomicInteger registryReads = new AtomicInteger();
+
+    private Cache tenantConfigCache;
+
+    private APIMRegistryService registryService;
+
+    private volatile String tenantConf = "{\"EnableMonetization\" : true}";
+
+    @Override
+    protected void setUp() throws Exception {
+        tenantConfigCache = Mockito.mock(Cache.class);
+        Mockito.when(tenantConfigCache.get(any())).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) {
+                return cachedConfigs.get(invocation.getArguments()[0]);
+            }
+        });
+        Mockito.doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                cachedConfigs.put(invocation.getArguments()[0], invocation.getArguments()[1]);
+                return null;
+            }
+        }).when(tenantConfigCache).put(any(), any());
+        Mockito.when(tenantConfigCache.remove(any())).thenAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) {
+                return cachedConfigs.remove(invocation.getArguments()[0]) != null;
+            }
+        });
+
+        registryService = Mockito.mock(APIMRegistryService.class);
+        Mockito.when(registryService.getConfigRegistryResourceContent(anyString(), anyString()))
+                .thenAnswer(new Answer<String>() {
+                    @Override
+                    public String answer(InvocationOnMock invocation) {
+                        assertEquals(APIConstants.API_TENANT_CONF_LOCATION, invocation.getArguments()[1]);
+                        registryReads.incrementAndGet();
+                        return tenantConf;
+                    }
+                });
+    }
+
+    public void testRegistryIsNotReadInSteadyState() throws Exception {
+        assertTrue(getTenantConfig().getMonetizationEnabled());
+        assertEquals(1, registryReads.get());
+
+        for (int i = 0; i < REQUEST_COUNT; i++) {
+            assertTrue(getTenantConfig().getMonetizationEnabled());
+        }
+        assertEquals(1, registryReads.get());
+    }
+
+    public void testConfigIsReadAgainOnceCleared() throws Exception {
+        assertTrue(getTenantConfig().getMonetizationEnabled());
+
+        tenantConf = "{\"EnableMonetization\" : false}";
+        APIUtil.clearTenantConfigCache(TENANT_DOMAIN, tenantConfigCache);
+
+        assertFalse(getTenantConfig().getMonetizationEnabled());
+        assertFalse(getTenantConfig().getMonetizationEnabled());
+        assertEquals(2, registryReads.get());
+    }
+
+    public void testConfigReadWhileClearedIsNotCached() throws Exception {
+        // tenant-conf.json is replaced, and the cache cleared, after this caller read the old configuration
+        Mockito.doAnswer(new Answer<String>() {
+            @Override
+            public String answer(InvocationOnMock invocation) {
+                registryReads.incrementAndGet();
+                String content = tenantConf;
+                tenantConf = "{\"EnableMonetization\" : false}";
+                APIUtil.clearTenantConfigCache(TENANT_DOMAIN, tenantConfigCache);
+                return content;
+            }
+        }).when(registryService).getConfigRegistryResourceContent(anyString(), anyString());
+        assertTrue(getTenantConfig().getMonetizationEnabled());
+        assertTrue(cachedConfigs.isEmpty());
+        assertFalse(getTenantConfig().getMonetizationEnabled());
+        assertEquals(2, registryReads.get());
+    }
+
+    public void testTenantWithoutConfigIsCached() throws Exception {
+        tenantConf = null;
+        for (int i = 0; i < REQUEST_COUNT; i++) {
+            assertFalse(getTenantConfig().isConfigured());
+        }
+        assertEquals(1, registryReads.get());
+    }
+
+    private TenantConfigDTO getTenantConfig() throws Exception {
+        return APIUtil.getTenantConfig(TENANT_DOMAIN, registryService, tenantConfigCache);
+    }
+}
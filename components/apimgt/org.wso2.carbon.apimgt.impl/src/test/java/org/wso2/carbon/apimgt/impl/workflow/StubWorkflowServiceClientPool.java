@@ -0,0 +1,132 @@
+/*
+*  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.apimgt.impl.workflow;
+
+import org.apache.axiom.om.OMElement;
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.client.Options;
+import org.apache.axis2.client.ServiceClient;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Matchers.any;
+
+/**
+ * Workflow service client pool whose service clients record the callouts instead of sending them. Callouts can be
+ * made to fail and to take time, as a slow or unavailable workflow service would.
+ */
+class StubWorkflowServiceClientPool extends WorkflowServiceClientPool {
+
+    final AtomicInteger createdClients = new AtomicInteger();
+
+    final AtomicInteger attempts = new AtomicInteger();
+
+    final AtomicInteger remainingFailures = new AtomicInteger();
+
+    final AtomicInteger maxInFlightCallouts = new AtomicInteger();
+
+    final List<Callout> sentCallouts = Collections.synchronizedList(new ArrayList<Callout>());
+
+    volatile long latencyMillis;
+
+    private final AtomicInteger inFlightCallouts = new AtomicInteger();
+
+    StubWorkflowServiceClientPool(int poolSize, int queueSize, long retryIntervalMillis) {
+        super(poolSize, queueSize, retryIntervalMillis);
+    }
+
+    @Override
+    EndpointClients createEndpointClients(String serviceEndpoint, String username, char[] password,
+                                          String contentType) {
+        return new EndpointClients(serviceEndpoint, username, password, contentType) {
+            @Override
+            ServiceClient createClient() throws AxisFault {
+                createdClients.incrementAndGet();
+                final Options options = new Options();
+                ServiceClient client = Mockito.mock(ServiceClient.class);
+                Mockito.when(client.getOptions()).thenReturn(options);
+                Mockito.doAnswer(new Answer<Void>() {
+                    @Override
+                    public Void answer(InvocationOnMock invocation) throws Throwable {
+                        send(options.getAction(), (OMElement) invocation.getArguments()[0]);
+                        return null;
+                    }
+                }).when(client).fireAndForget(any(OMElement.class));
+                return client;
+            }
+        };
+    }
+
+    /**
+     * Waits until the given number of callouts are sent.
+     *
+     * @return whether the callouts were sent in time
+     */
+    boolean waitForCallouts(int count, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (sentCallouts.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        return sentCallouts.size() >= count;
+    }
+
+    private void send(String action, OMElement payload) throws AxisFault {
+        attempts.incrementAndGet();
+        int inFlight = inFlightCallouts.incrementAndGet();
+        try {
+            int max = maxInFlightCallouts.get();
+            while (inFlight > max && !maxInFlightCallouts.compareAndSet(max, inFlight)) {
+                max = maxInFlightCallouts.get();
+            }
+            if (latencyMillis > 0) {
+                Thread.sleep(latencyMillis);
+            }
+            if (remainingFailures.getAndDecrement() > 0) {
+                throw new AxisFault("Connection refused");
+            }
+            sentCallouts.add(new Callout(action, payload.toString(), Thread.currentThread().getName()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AxisFault("Interrupted", e);
+        } finally {
+            inFlightCallouts.decrementAndGet();
+        }
+    }
+
+    static class Callout {
+
+        final String action;
+
+        final String payload;
+
+        final String threadName;
+
+        Callout(String action, String payload, String threadName) {
+            this.action = action;
+            this.payload = payload;
+            this.threadName = threadName;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+*  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.apimgt.impl.workflow;
+
+import junit.framework.TestCase;
+
+/**
+ * Sends the callouts of the WS workflow executors through a pool of stub service clients.
+ */
+public class WSWorkflowExecutorCalloutTest extends TestCase {
+
+    private static final String ENDPOINT = "http://localhost:9765/services/WorkFlowProcess/";
+
+    private WorkflowServiceClientPool defaultPool;
+
+    private StubWorkflowServiceClientPool pool;
+
+    @Override
+    protected void setUp() throws Exception {
+        defaultPool = WorkflowServiceClientPool.getInstance();
+        pool = new StubWorkflowServiceClientPool(2, 10, 10);
+        WorkflowServiceClientPool.setInstance(pool);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        WorkflowServiceClientPool.setInstance(defaultPool);
+        pool.shutdown();
+    }
+
+    public void testSubscriptionCreationCallouts() throws Exception {
+        SubscriptionCreationWSWorkflowExecutor executor = new SubscriptionCreationWSWorkflowExecutor();
+        executor.setServiceEndpoint(ENDPOINT);
+        executor.setUsername("admin");
+        executor.setPassword("admin".toCharArray());
+
+        executor.cleanUpPendingTask("ref-1");
+        assertSentByCaller(0, WorkflowConstants.DELETE_SUBSCRIPTION_WS_ACTION, "ref-1");
+
+        executor.setAsyncCallout(true);
+        executor.cleanUpPendingTask("ref-2");
+        assertSentByCalloutThread(1, WorkflowConstants.DELETE_SUBSCRIPTION_WS_ACTION, "ref-2");
+        assertEquals(1, pool.createdClients.get());
+    }
+
+    public void testApplicationCreationCallouts() throws Exception {
+        ApplicationCreationWSWorkflowExecutor executor = new ApplicationCreationWSWorkflowExecutor();
+        executor.setServiceEndpoint(ENDPOINT);
+
+        executor.cleanUpPendingTask("ref-1");
+        assertSentByCaller(0, WorkflowConstants.DELETE_APPLICATION_WS_ACTION, "ref-1");
+
+        executor.setAsyncCallout(true);
+        executor.cleanUpPendingTask("ref-2");
+        assertSentByCalloutThread(1, WorkflowConstants.DELETE_APPLICATION_WS_ACTION, "ref-2");
+    }
+
+    public void testApplicationRegistrationCallouts() throws Exception {
+        ApplicationRegistrationWSWorkflowExecutor executor = new ApplicationRegistrationWSWorkflowExecutor();
+        executor.setServiceEndpoint(ENDPOINT);
+
+        executor.cleanUpPendingTask("ref-1");
+        assertSentByCaller(0, WorkflowConstants.DELETE_REGISTRATION_WS_ACTION, "ref-1");
+
+        executor.setAsyncCallout(true);
+        executor.cleanUpPendingTask("ref-2");
+        assertSentByCalloutThread(1, WorkflowConstants.DELETE_REGISTRATION_WS_ACTION, "ref-2");
+    }
+
+    public void testUserSignUpCallouts() throws Exception {
+        UserSignUpWSWorkflowExecutor executor = new UserSignUpWSWorkflowExecutor();
+        executor.setServiceEndpoint(ENDPOINT);
+
+        executor.cleanUpPendingTask("ref-1");
+        assertSentByCaller(0, WorkflowConstants.DELETE_USER_WS_ACTION, "ref-1");
+
+        executor.setAsyncCallout(true);
+        executor.cleanUpPendingTask("ref-2");
+        assertSentByCalloutThread(1, WorkflowConstants.DELETE_USER_WS_ACTION, "ref-2");
+    }
+
+    public void testFailedCalloutIsReportedToTheCaller() throws Exception {
+        SubscriptionCreationWSWorkflowExecutor executor = new SubscriptionCreationWSWorkflowExecutor();
+        executor.setServiceEndpoint(ENDPOINT);
+        pool.remainingFailures.set(1);
+        try {
+            executor.cleanUpPendingTask("ref-1");
+            fail("The failed callout is not reported");
+        } catch (WorkflowException expected) {
+            // the workflow service refused the callout
+        }
+        assertTrue(pool.sentCallouts.isEmpty());
+    }
+
+    public void testFailedAsyncCalloutIsRetried() throws Exception {
+        SubscriptionCreationWSWorkflowExecutor executor = new SubscriptionCreationWSWorkflowExecutor();
+        executor.setServiceEndpoint(ENDPOINT);
+        executor.setAsyncCallout(true);
+        pool.remainingFailures.set(1);
+
+        executor.cleanUpPendingTask("ref-1");
+        assertSentByCalloutThread(0, WorkflowConstants.DELETE_SUBSCRIPTION_WS_ACTION, "ref-1");
+        assertEquals(2, pool.attempts.get());
+    }
+
+    private void assertSentByCaller(int index, String action, String workflowRef) {
+        assertEquals(index + 1, pool.sentCallouts.size());
+        assertSent(pool.sentCallouts.get(index), action, workflowRef);
+        assertEquals(Thread.currentThread().getName(), pool.sentCallouts.get(index).threadName);
+    }
+
+    private void assertSentByCalloutThread(int index, String action, String workflowRef) throws Exception {
+        assertTrue(pool.waitForCallouts(index + 1, 10000));
+        assertSent(pool.sentCallouts.get(index), action, workflowRef);
+        assertTrue(pool.sentCallouts.get(index).threadName.startsWith("APIM-WorkflowCallout-"));
+    }
+
+    private static void assertSent(StubWorkflowServiceClientPool.Callout callout, String action, String workflowRef) {
+        assertEquals(action, callout.action);
+        assertTrue(callout.payload, callout.payload.contains(">" + workflowRef + "<"));
+    }
+}
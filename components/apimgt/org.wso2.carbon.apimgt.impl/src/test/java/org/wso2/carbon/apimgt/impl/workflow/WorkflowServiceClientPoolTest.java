@@ -0,0 +1,168 @@
+/*
+*  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.apimgt.impl.workflow;
+
+import junit.framework.TestCase;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.util.AXIOMUtil;
+import org.apache.axis2.AxisFault;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+public class WorkflowServiceClientPoolTest extends TestCase {
+
+    private static final String ENDPOINT = "http://localhost:9765/services/SubscriptionApprovalWorkFlowProcess/";
+
+    private static final String ACTION = WorkflowConstants.CREATE_SUBSCRIPTION_WS_ACTION;
+
+    private StubWorkflowServiceClientPool pool;
+
+    @Override
+    protected void setUp() throws Exception {
+        pool = new StubWorkflowServiceClientPool(2, 10, 10);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        pool.shutdown();
+    }
+
+    public void testClientIsReusedAcrossCallouts() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            pool.fireAndForget(ENDPOINT, "admin", "admin".toCharArray(), null, ACTION, createPayload(i));
+        }
+        assertEquals(100, pool.sentCallouts.size());
+        assertEquals(1, pool.createdClients.get());
+        assertEquals(ACTION, pool.sentCallouts.get(99).action);
+    }
+
+    public void testFailedClientIsNotReused() throws Exception {
+        pool.remainingFailures.set(1);
+        try {
+            pool.fireAndForget(ENDPOINT, null, null, null, ACTION, createPayload(0));
+            fail("The failed callout is not reported");
+        } catch (AxisFault expected) {
+            // the callout was refused
+        }
+        pool.fireAndForget(ENDPOINT, null, null, null, ACTION, createPayload(1));
+        assertEquals(1, pool.sentCallouts.size());
+        assertEquals(2, pool.createdClients.get());
+    }
+
+    public void testClientsAreSharedOnlyWithTheSameCredentials() throws Exception {
+        pool.fireAndForget(ENDPOINT, "admin", "admin".toCharArray(), null, ACTION, createPayload(0));
+        pool.fireAndForget(ENDPOINT, "admin", "admin".toCharArray(), null, ACTION, createPayload(1));
+        pool.fireAndForget(ENDPOINT, "admin", "changed".toCharArray(), null, ACTION, createPayload(2));
+        assertEquals(2, pool.createdClients.get());
+    }
+
+    public void testEndpointKeyDoesNotContainThePassword() {
+        String key = WorkflowServiceClientPool.getEndpointKey(ENDPOINT, "admin", "s3cret".toCharArray(), null);
+        assertFalse(key.contains("s3cret"));
+        assertEquals(key, WorkflowServiceClientPool.getEndpointKey(ENDPOINT, "admin", "s3cret".toCharArray(), null));
+        assertFalse(key.equals(
+                WorkflowServiceClientPool.getEndpointKey(ENDPOINT, "admin", "s3cret2".toCharArray(), null)));
+        assertFalse(key.equals(
+                WorkflowServiceClientPool.getEndpointKey(ENDPOINT, "admin", "s3cret".toCharArray(), "text/xml")));
+    }
+
+    public void testConcurrentCalloutsToAnEndpointAreBounded() throws Exception {
+        final int callers = WorkflowConstants.WS_CALLOUT_MAX_CONNECTIONS_PER_ENDPOINT * 3;
+        pool.latencyMillis = 20;
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Throwable> errors = new ArrayList<Throwable>();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < callers; i++) {
+            final int id = i;
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        pool.fireAndForget(ENDPOINT, null, null, null, ACTION, createPayload(id));
+                    } catch (Throwable e) {
+                        synchronized (errors) {
+                            errors.add(e);
+                        }
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join(30000);
+        }
+
+        assertTrue(errors.toString(), errors.isEmpty());
+        assertEquals(callers, pool.sentCallouts.size());
+        assertTrue(pool.maxInFlightCallouts.get() <= WorkflowConstants.WS_CALLOUT_MAX_CONNECTIONS_PER_ENDPOINT);
+        assertTrue(pool.createdClients.get() <= WorkflowConstants.WS_CALLOUT_MAX_CONNECTIONS_PER_ENDPOINT);
+    }
+
+    public void testFailedAsyncCalloutIsRetried() throws Exception {
+        pool.remainingFailures.set(2);
+        pool.dispatch(ENDPOINT, null, null, null, ACTION, createPayload(7));
+
+        assertTrue(pool.waitForCallouts(1, 10000));
+        assertEquals(3, pool.attempts.get());
+        // every attempt sends a copy of the payload, so the payload sent last is complete
+        assertTrue(pool.sentCallouts.get(0).payload.contains(">7<"));
+    }
+
+    public void testAsyncCalloutIsGivenUpAfterTheLastRetry() throws Exception {
+        pool.remainingFailures.set(Integer.MAX_VALUE);
+        pool.dispatch(ENDPOINT, null, null, null, ACTION, createPayload(0));
+
+        // retried after 10, 20 and 40 ms
+        long deadline = System.currentTimeMillis() + 10000;
+        while (pool.attempts.get() < 1 + WorkflowConstants.WS_CALLOUT_RETRY_COUNT &&
+               System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(500);
+        assertEquals(1 + WorkflowConstants.WS_CALLOUT_RETRY_COUNT, pool.attempts.get());
+        assertTrue(pool.sentCallouts.isEmpty());
+    }
+
+    public void testCalloutIsSentByTheCallerWhenTheQueueIsFull() throws Exception {
+        pool.latencyMillis = 50;
+        for (int i = 0; i < 30; i++) {
+            pool.dispatch(ENDPOINT, null, null, null, ACTION, createPayload(i));
+        }
+        assertTrue(pool.waitForCallouts(30, 10000));
+
+        int sentByCaller = 0;
+        for (StubWorkflowServiceClientPool.Callout callout : pool.sentCallouts) {
+            if (Thread.currentThread().getName().equals(callout.threadName)) {
+                sentByCaller++;
+            }
+        }
+        assertTrue(sentByCaller > 0);
+        assertTrue(sentByCaller < 30);
+    }
+
+    private static OMElement createPayload(int id) throws Exception {
+        return AXIOMUtil.stringToOM("<wor:workflowExternalRef xmlns:wor=\"http://workflow.subscription.apimgt.carbon" +
+                                    ".wso2.org\">" + id + "</wor:workflowExternalRef>");
+    }
+}
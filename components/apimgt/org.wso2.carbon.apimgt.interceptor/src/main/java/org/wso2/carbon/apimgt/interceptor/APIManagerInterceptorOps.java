@@ -31,6 +31,7 @@ import org.wso2.carbon.apimgt.impl.APIConstants;
 import org.wso2.carbon.apimgt.impl.dto.APIKeyValidationInfoDTO;
 import org.wso2.carbon.apimgt.interceptor.utils.APIManagetInterceptorUtils;
 import org.wso2.carbon.apimgt.interceptor.valve.APIFaultException;
+import org.wso2.carbon.apimgt.interceptor.valve.APIManagerInterceptorPipeline;
 import org.wso2.carbon.apimgt.interceptor.valve.APIThrottleHandler;
 import org.wso2.carbon.apimgt.interceptor.valve.internal.DataHolder;
 import org.wso2.carbon.apimgt.usage.publisher.APIMgtUsageDataPublisher;
@@ -45,11 +46,18 @@ import org.wso2.carbon.identity.core.util.IdentityTenantUtil;
 public class APIManagerInterceptorOps {
 
 	private APIKeyValidationInfoDTO apiKeyValidationDTO;
-	
+
+	/** Shared per webapp components. Null when the operations are not backed by a cached pipeline */
+	private final APIManagerInterceptorPipeline pipeline;
 	
 	private static final Log log = LogFactory.getLog(APIManagerInterceptorOps.class);
 
-	public APIManagerInterceptorOps() {			
+	public APIManagerInterceptorOps() {
+		this.pipeline = null;
+	}
+
+	public APIManagerInterceptorOps(APIManagerInterceptorPipeline pipeline) {
+		this.pipeline = pipeline;
 	}
 
 	/**
@@ -71,7 +79,7 @@ public class APIManagerInterceptorOps {
 		if (APIConstants.AUTH_NO_AUTHENTICATION.equals(requiredAuthenticationLevel)) {
 			return true;
 		}
-		APITokenValidator tokenValidator = new APITokenValidator();
+		APITokenValidator tokenValidator = pipeline != null ? pipeline.getTokenValidator() : new APITokenValidator();
 		apiKeyValidationDTO = tokenValidator.validateKey(context, version, accessToken,
 		                                                 requiredAuthenticationLevel);
 		if (apiKeyValidationDTO.isAuthorized()) {
@@ -100,17 +108,21 @@ public class APIManagerInterceptorOps {
 
 		String apiName = request.getContextPath();
 		String apiVersion = APIManagetInterceptorUtils.getAPIVersion(request);
-		String apiIdentifier = apiName + "-" + apiVersion;
 
 		APIThrottleHandler throttleHandler = null;
-		ConfigurationContext cc = DataHolder.getServerConfigContext();
-
-		if (cc.getProperty(apiIdentifier) == null) {
-			throttleHandler = new APIThrottleHandler();
-			/* Add the Throttle handler to ConfigContext against API Identifier */
-			cc.setProperty(apiIdentifier, throttleHandler);
+		if (pipeline != null) {
+			throttleHandler = pipeline.getThrottleHandler(apiVersion);
 		} else {
-			throttleHandler = (APIThrottleHandler) cc.getProperty(apiIdentifier);
+			String apiIdentifier = apiName + "-" + apiVersion;
+			ConfigurationContext cc = DataHolder.getServerConfigContext();
+
+			if (cc.getProperty(apiIdentifier) == null) {
+				throttleHandler = new APIThrottleHandler();
+				/* Add the Throttle handler to ConfigContext against API Identifier */
+				cc.setProperty(apiIdentifier, throttleHandler);
+			} else {
+				throttleHandler = (APIThrottleHandler) cc.getProperty(apiIdentifier);
+			}
 		}
 
 		if (throttleHandler.doThrottle(request, apiKeyValidationDTO, accessToken)) {
@@ -132,17 +144,21 @@ public class APIManagerInterceptorOps {
 
 		String apiName = request.getContextPath();
 		String apiVersion = APIManagetInterceptorUtils.getAPIVersion(request);
-		String apiIdentifier = apiName + "-" + apiVersion;
 
 		APIThrottleHandler throttleHandler = null;
-		ConfigurationContext cc = DataHolder.getServerConfigContext();
-
-		if (cc.getProperty(apiIdentifier) == null) {
-			throttleHandler = new APIThrottleHandler();
-			/* Add the Throttle handler to ConfigContext against API Identifier */
-			cc.setProperty(apiIdentifier, throttleHandler);
+		if (pipeline != null) {
+			throttleHandler = pipeline.getThrottleHandler(apiVersion);
 		} else {
-			throttleHandler = (APIThrottleHandler) cc.getProperty(apiIdentifier);
+			String apiIdentifier = apiName + "-" + apiVersion;
+			ConfigurationContext cc = DataHolder.getServerConfigContext();
+
+			if (cc.getProperty(apiIdentifier) == null) {
+				throttleHandler = new APIThrottleHandler();
+				/* Add the Throttle handler to ConfigContext against API Identifier */
+				cc.setProperty(apiIdentifier, throttleHandler);
+			} else {
+				throttleHandler = (APIThrottleHandler) cc.getProperty(apiIdentifier);
+			}
 		}
 
 		if (throttleHandler.doThrottle(request, apiKeyValidationDTO, accessToken)) {
@@ -166,12 +182,22 @@ public class APIManagerInterceptorOps {
 	 */
 	public boolean publishStatistics(HttpServletRequest request, long requestTime, boolean response) throws APIManagementException {	
 			
-		UsageStatConfiguration statConf= new UsageStatConfiguration();
-		APIMgtUsageDataPublisher publisher = statConf.getPublisher() ;
-		if (publisher != null) {
-			publisher.init();
-			APIStatsPublisher statsPublisher =  new APIStatsPublisher(publisher,
-			                                                         statConf.getHostName());
+		if (apiKeyValidationDTO == null) {
+			/* Nothing to publish for resources which do not require authentication */
+			return false;
+		}
+		APIStatsPublisher statsPublisher = null;
+		if (pipeline != null) {
+			statsPublisher = pipeline.getStatsPublisher();
+		} else {
+			UsageStatConfiguration statConf = DataHolder.getUsageStatConfiguration();
+			APIMgtUsageDataPublisher publisher = statConf.getPublisher();
+			if (publisher != null) {
+				publisher.init();
+				statsPublisher = new APIStatsPublisher(publisher, statConf.getHostName());
+			}
+		}
+		if (statsPublisher != null) {
 			if (response) {
 				statsPublisher.publishResponseStatistics(apiKeyValidationDTO,
 				                                         request.getRequestURI(),
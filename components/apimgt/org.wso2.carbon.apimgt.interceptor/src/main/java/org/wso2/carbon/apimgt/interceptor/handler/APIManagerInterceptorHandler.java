@@ -43,6 +43,7 @@ import org.wso2.carbon.apimgt.interceptor.UsageStatConfiguration;
 import org.wso2.carbon.apimgt.interceptor.utils.APIManagerInterceptorConstant;
 import org.wso2.carbon.apimgt.interceptor.utils.APIManagetInterceptorUtils;
 import org.wso2.carbon.apimgt.interceptor.valve.APIFaultException;
+import org.wso2.carbon.apimgt.interceptor.valve.internal.DataHolder;
 
 /**
  * Axis2 handler to intercept all incoming requests for axis services and do
@@ -148,7 +149,7 @@ public class APIManagerInterceptorHandler extends AbstractHandler {
 							               APIManagerErrorConstants.API_THROTTLE_NS_PREFIX, msgContext);						
 							return InvocationResponse.ABORT;
 						}
-						UsageStatConfiguration statConfiguration = new UsageStatConfiguration();
+						UsageStatConfiguration statConfiguration = DataHolder.getUsageStatConfiguration();
 						if (statConfiguration.isStatsPublishingEnabled()) {
 							try {
 								interceptorOps.publishStatistics(request, requestTime, false);
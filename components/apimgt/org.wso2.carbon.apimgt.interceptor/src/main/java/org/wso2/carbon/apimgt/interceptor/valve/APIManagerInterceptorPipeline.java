@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.interceptor.valve;
+
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.apimgt.core.authenticate.APITokenValidator;
+import org.wso2.carbon.apimgt.core.gateway.APITokenAuthenticator;
+import org.wso2.carbon.apimgt.core.usage.APIStatsPublisher;
+import org.wso2.carbon.apimgt.interceptor.APIManagerInterceptorOps;
+import org.wso2.carbon.apimgt.interceptor.UsageStatConfiguration;
+import org.wso2.carbon.apimgt.interceptor.valve.internal.DataHolder;
+import org.wso2.carbon.apimgt.usage.publisher.APIMgtUsageDataPublisher;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The API management operations of a single deployed webapp, built once per webapp context and shared by all
+ * requests to it. The authenticator, token validator, throttle handlers and usage publisher are created when the
+ * pipeline is built and reused until the webapp is redeployed, at which point
+ * {@link #isBuiltFor(Object)} returns false and the valve builds a new pipeline.
+ */
+public final class APIManagerInterceptorPipeline {
+
+    private static final Log log = LogFactory.getLog(APIManagerInterceptorPipeline.class);
+
+    private final String context;
+
+    /** The Tomcat context this pipeline was built for. Held weakly so an undeployed webapp can be collected */
+    private final WeakReference<Object> webappContext;
+
+    private final APITokenAuthenticator authenticator;
+
+    private final APITokenValidator tokenValidator;
+
+    private final APIStatsPublisher statsPublisher;
+
+    /** Throttle handlers keyed by API version */
+    private final ConcurrentMap<String, APIThrottleHandler> throttleHandlers =
+            new ConcurrentHashMap<String, APIThrottleHandler>();
+
+    public APIManagerInterceptorPipeline(String context, Object webappContext) {
+        this.context = context;
+        this.webappContext = new WeakReference<Object>(webappContext);
+        this.authenticator = new APITokenAuthenticator();
+        this.tokenValidator = new APITokenValidator();
+        this.statsPublisher = createStatsPublisher(DataHolder.getUsageStatConfiguration());
+        if (log.isDebugEnabled()) {
+            log.debug("Built API management pipeline for context " + context);
+        }
+    }
+
+    private static APIStatsPublisher createStatsPublisher(UsageStatConfiguration statConfiguration) {
+        if (statConfiguration == null || !statConfiguration.isStatsPublishingEnabled()) {
+            return null;
+        }
+        APIMgtUsageDataPublisher publisher = statConfiguration.getPublisher();
+        if (publisher == null) {
+            return null;
+        }
+        publisher.init();
+        return new APIStatsPublisher(publisher, statConfiguration.getHostName());
+    }
+
+    /**
+     * @param webappContext the Tomcat context currently serving the request
+     * @return true if this pipeline was built for the given deployment of the webapp
+     */
+    public boolean isBuiltFor(Object webappContext) {
+        return this.webappContext.get() == webappContext;
+    }
+
+    public String getContext() {
+        return context;
+    }
+
+    public APITokenAuthenticator getAuthenticator() {
+        return authenticator;
+    }
+
+    public APITokenValidator getTokenValidator() {
+        return tokenValidator;
+    }
+
+    public boolean isStatsPublishingEnabled() {
+        return statsPublisher != null;
+    }
+
+    public APIStatsPublisher getStatsPublisher() {
+        return statsPublisher;
+    }
+
+    /**
+     * Returns the throttle handler of the given API version. Handlers are shared with the Axis2 interceptor
+     * handler through the server configuration context, and cached here so that subsequent requests do not
+     * go through the configuration context.
+     *
+     * @param apiVersion version of the API
+     * @return throttle handler of the API version
+     */
+    public APIThrottleHandler getThrottleHandler(String apiVersion) {
+        APIThrottleHandler throttleHandler = throttleHandlers.get(apiVersion);
+        if (throttleHandler != null) {
+            return throttleHandler;
+        }
+        String apiIdentifier = context + "-" + apiVersion;
+        ConfigurationContext cc = DataHolder.getServerConfigContext();
+        synchronized (cc) {
+            throttleHandler = (APIThrottleHandler) cc.getProperty(apiIdentifier);
+            if (throttleHandler == null) {
+                throttleHandler = new APIThrottleHandler();
+                cc.setProperty(apiIdentifier, throttleHandler);
+            }
+        }
+        APIThrottleHandler existing = throttleHandlers.putIfAbsent(apiVersion, throttleHandler);
+        return existing != null ? existing : throttleHandler;
+    }
+
+    /**
+     * @return a new set of per request operations backed by this pipeline
+     */
+    public APIManagerInterceptorOps newOps() {
+        return new APIManagerInterceptorOps(this);
+    }
+}
@@ -19,6 +19,7 @@
 package org.wso2.carbon.apimgt.interceptor.valve;
 
 import org.apache.axis2.Constants;
+import org.apache.catalina.Context;
 import org.apache.catalina.connector.Request;
 import org.apache.catalina.connector.Response;
 import org.apache.commons.logging.Log;
@@ -31,12 +32,13 @@ import org.wso2.carbon.apimgt.impl.APIConstants;
 import org.wso2.carbon.apimgt.impl.dao.ApiMgtDAO;
 import org.wso2.carbon.apimgt.impl.utils.APIUtil;
 import org.wso2.carbon.apimgt.interceptor.APIManagerInterceptorOps;
-import org.wso2.carbon.apimgt.interceptor.UsageStatConfiguration;
 import org.wso2.carbon.apimgt.interceptor.utils.APIManagetInterceptorUtils;
 import org.wso2.carbon.tomcat.ext.valves.CarbonTomcatValve;
 import org.wso2.carbon.tomcat.ext.valves.CompositeValve;
 
 import java.util.Enumeration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * APIManagerInterceptorValve is exposed as a CarbonTomatValve and it filters 
@@ -48,11 +50,26 @@ public class APIManagerInterceptorValve extends CarbonTomcatValve {
 	private static final Log log = LogFactory.getLog(APIManagerInterceptorValve.class);
     //Cache contextCache = null;
 
-    APITokenAuthenticator authenticator;
+    /** API management pipelines keyed by webapp context path */
+    private final ConcurrentMap<String, APIManagerInterceptorPipeline> pipelines =
+            new ConcurrentHashMap<String, APIManagerInterceptorPipeline>();
 
     public APIManagerInterceptorValve () {            
             //contextCache = APIUtil.getAPIContextCache();
-            authenticator = new APITokenAuthenticator();     
+    }
+
+    /**
+     * Returns the pipeline of the webapp serving the request, building it on the first request to the webapp and
+     * again whenever the webapp has been redeployed.
+     */
+    APIManagerInterceptorPipeline getPipeline(Request request, String context) {
+        Context webappContext = request.getContext();
+        APIManagerInterceptorPipeline pipeline = pipelines.get(context);
+        if (pipeline == null || !pipeline.isBuiltFor(webappContext)) {
+            pipeline = new APIManagerInterceptorPipeline(context, webappContext);
+            pipelines.put(context, pipeline);
+        }
+        return pipeline;
     }
 
     public void invoke(Request request, Response response, CompositeValve compositeValve) {
@@ -85,8 +102,9 @@ public class APIManagerInterceptorValve extends CarbonTomcatValve {
         handleWSDLGetRequest( request,  response,  compositeValve, context );
         
         long requestTime = System.currentTimeMillis();
-        APIManagerInterceptorOps interceptorOps = new APIManagerInterceptorOps(); 
-        UsageStatConfiguration statConfiguration = new UsageStatConfiguration();
+        APIManagerInterceptorPipeline pipeline = getPipeline(request, context);
+        APITokenAuthenticator authenticator = pipeline.getAuthenticator();
+        APIManagerInterceptorOps interceptorOps = pipeline.newOps();
         if (contextExist) {
         	//Use embedded API Management
 			if (log.isDebugEnabled()) {
@@ -142,7 +160,7 @@ public class APIManagerInterceptorValve extends CarbonTomcatValve {
 			    return;
 			}
             /* Publish Statistic if enabled*/
-            if (statConfiguration.isStatsPublishingEnabled()) {
+            if (pipeline.isStatsPublishingEnabled()) {
             	try {
 	                interceptorOps.publishStatistics(request, requestTime,false);
                 }catch (APIManagementException e) {
@@ -155,7 +173,7 @@ public class APIManagerInterceptorValve extends CarbonTomcatValve {
         getNext().invoke(request, response, compositeValve);
 
         //Handle Responses
-        if (contextExist && statConfiguration.isStatsPublishingEnabled()) {
+        if (contextExist && pipeline.isStatsPublishingEnabled()) {
         	try {
 	            interceptorOps.publishStatistics(request, requestTime, true);
             } catch (APIManagementException e) {
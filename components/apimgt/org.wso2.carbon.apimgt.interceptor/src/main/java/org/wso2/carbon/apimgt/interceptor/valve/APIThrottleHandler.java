@@ -56,9 +56,11 @@ public class APIThrottleHandler {
    /** The property key that used when the ConcurrentAccessController
    look up from ConfigurationContext */
    private static final String key = ThrottleConstants.THROTTLE_PROPERTY_PREFIX + id + ThrottleConstants.CAC_SUFFIX;
+
+   /** Access rate controllers are reused across requests, as the synapse throttle mediator does */
+   private final ThrottleManager throttleManager = new ThrottleManager(id, key);
    
    public boolean doThrottle(HttpServletRequest request, APIKeyValidationInfoDTO apiKeyValidationInfoDTO, String accessToken) {
-	   ThrottleManager throttleManager = new ThrottleManager(id, key);
 		ConfigurationContext cc = DataHolder.getServerConfigContext();
 		ClusteringAgent clusteringAgent = cc.getAxisConfiguration().getClusteringAgent();
        if (clusteringAgent != null && clusteringAgent.getStateManager() != null) {
@@ -95,6 +95,7 @@ public class APIManagerInterceptorComponent {
 		statconf.setHostName(hostName);		
 		statconf.setStatsPublishingEnabled(statsPublishingEnabled);
 		statconf.setPublisher(publisher);
+		DataHolder.setUsageStatConfiguration(statconf);
 	}
 
     protected void deactivate(ComponentContext componentContext) {
@@ -19,6 +19,7 @@
 package org.wso2.carbon.apimgt.interceptor.valve.internal;
 
 import org.apache.axis2.context.ConfigurationContext;
+import org.wso2.carbon.apimgt.interceptor.UsageStatConfiguration;
 import org.wso2.carbon.registry.core.service.RegistryService;
 import org.wso2.carbon.utils.CarbonUtils;
 
@@ -29,6 +30,8 @@ public class DataHolder {
     private static ConfigurationContext serverConfigContext;
     
     private static RegistryService registryService;
+
+    private static UsageStatConfiguration usageStatConfiguration = new UsageStatConfiguration();
     
     public static void setServerConfigContext(ConfigurationContext serverConfigContext) {
         DataHolder.serverConfigContext = serverConfigContext;
@@ -46,4 +49,12 @@ public class DataHolder {
 	public static RegistryService getRegistryService() {
 		return registryService;
 	}
+
+	public static void setUsageStatConfiguration(UsageStatConfiguration usageStatConfiguration) {
+		DataHolder.usageStatConfiguration = usageStatConfiguration;
+	}
+
+	public static UsageStatConfiguration getUsageStatConfiguration() {
+		return usageStatConfiguration;
+	}
 }
@@ -202,6 +202,11 @@ public class JMSConstants {
      * prevent many longer running threads - default is unlimited (i.e. a worker task will live forever)
      */
     public static final String PARAM_MAX_MSGS_PER_TASK = "transport.jms.MaxMessagesPerTask";
+    /**
+     * The maximum number of messages already available, which a polling worker task receives and handles together -
+     * default is 100, and 1 handles messages one by one
+     */
+    public static final String PARAM_MAX_MSGS_PER_BATCH = "transport.jms.MaxMessagesPerBatch";
     /**
      * Number of milliseconds before the first reconnection attempt is tried, on detection of an
      * error. Subsequent retries follow a geometric series, where the
@@ -31,132 +31,191 @@ import javax.jms.JMSException;
 import javax.jms.MapMessage;
 import javax.jms.Message;
 import javax.jms.MessageListener;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
-import java.util.Enumeration;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class JMSMessageListener implements MessageListener {
 
     private static final Log log = LogFactory.getLog(JMSMessageListener.class);
 
-    // These patterns will be used to determine for which type of keys the throttling condition has occurred.
-    private Pattern apiPattern = Pattern.compile("/.*/(.*):\\1_(condition_(\\d*)|default)");
-    private static final int API_PATTERN_GROUPS = 3;
-    private static final int API_PATTERN_CONDITION_INDEX = 2;
+    private final AtomicLong receivedMessageCount = new AtomicLong();
 
-    private Pattern resourcePattern = Pattern.compile("/.*/(.*)/\\1(.*)?:[A-Z]{0,5}_(condition_(\\d*)|default)");
-    public static final int RESOURCE_PATTERN_GROUPS = 4;
-    public static final int RESOURCE_PATTERN_CONDITION_INDEX = 3;
+    private final AtomicLong receivedBatchCount = new AtomicLong();
+
+    private final AtomicLong maxLagMillis = new AtomicLong();
+
+    private volatile long lastLagMillis;
 
     public JMSMessageListener(ThrottleDataHolder throttleDataHolder) {
     }
 
 
     public void onMessage(Message message) {
-        try {
-            if (message != null) {
-                if (log.isDebugEnabled()) {
-                    log.debug("Event received in JMS Event Receiver - " + message);
-                }
+        onMessages(Collections.singletonList(message));
+    }
 
-                if (message instanceof MapMessage) {
-                    MapMessage mapMessage = (MapMessage) message;
-                    Map<String, Object> map = new HashMap<String, Object>();
-                    Enumeration enumeration = mapMessage.getMapNames();
-                    while (enumeration.hasMoreElements()) {
-                        String key = (String) enumeration.nextElement();
-                        map.put(key, mapMessage.getObject(key));
-                    }
+    /**
+     * Handles messages received together. The throttle decisions in them are applied to the throttle data holder at
+     * once, and the blocking conditions and key templates in the order they were received.
+     *
+     * @param messages messages in the order they were received
+     */
+    public void onMessages(List<Message> messages) {
+        ThrottleUpdateBatch throttleUpdates = new ThrottleUpdateBatch();
+        List<MapMessage> conditionMessages = null;
+        long latestTimestamp = 0;
 
-                    if (map.get(APIConstants.THROTTLE_KEY) != null) {
-                        /**
-                         * This message contains throttle data in map which contains Keys
-                         * throttleKey - Key of particular throttling level
-                         * isThrottled - Whether message has throttled or not
-                         * expiryTimeStamp - When the throttling time window will expires
-                         */
-                        handleThrottleUpdateMessage(map);
-                    } else if (map.get(APIConstants.BLOCKING_CONDITION_KEY) != null) {
-                        /**
-                         * This message contains blocking condition data
-                         * blockingCondition - Blocking condition type
-                         * conditionValue - blocking condition value
-                         * state - State whether blocking condition is enabled or not
-                         */
-                        handleBlockingMessage(map);
-                    } else if (map.get(APIConstants.POLICY_TEMPLATE_KEY) != null) {
-                        /**
-                         * This message contains key template data
-                         * keyTemplateValue - Value of key template
-                         * keyTemplateState - whether key template active or not
-                         */
-                        handleKeyTemplateMessage(map);
+        for (Message message : messages) {
+            try {
+                if (message != null) {
+                    if (log.isDebugEnabled()) {
+                        log.debug("Event received in JMS Event Receiver - " + message);
                     }
+                    latestTimestamp = Math.max(latestTimestamp, message.getJMSTimestamp());
 
+                    if (message instanceof MapMessage) {
+                        MapMessage mapMessage = (MapMessage) message;
+                        if (mapMessage.getObject(APIConstants.THROTTLE_KEY) != null) {
+                            /**
+                             * This message contains throttle data in map which contains Keys
+                             * throttleKey - Key of particular throttling level
+                             * isThrottled - Whether message has throttled or not
+                             * expiryTimeStamp - When the throttling time window will expires
+                             */
+                            addThrottleUpdate(mapMessage, throttleUpdates);
+                        } else if (mapMessage.getObject(APIConstants.BLOCKING_CONDITION_KEY) != null ||
+                                   mapMessage.getObject(APIConstants.POLICY_TEMPLATE_KEY) != null) {
+                            if (conditionMessages == null) {
+                                conditionMessages = new ArrayList<MapMessage>();
+                            }
+                            conditionMessages.add(mapMessage);
+                        }
+
+                    } else {
+                        log.warn("Event dropped due to unsupported message type " + message.getClass());
+                    }
                 } else {
-                    log.warn("Event dropped due to unsupported message type " + message.getClass());
+                    log.warn("Dropping the empty/null event received through jms receiver");
                 }
-            } else {
-                log.warn("Dropping the empty/null event received through jms receiver");
+            } catch (JMSException e) {
+                log.error("JMSException occurred when processing the received message ", e);
+            } catch (RuntimeException e) {
+                // Dropped alone, rather than with the rest of the messages received together
+                log.error("Dropping the malformed event received through jms receiver", e);
+            }
+        }
+
+        if (!throttleUpdates.isEmpty()) {
+            throttleUpdates.apply(ServiceReferenceHolder.getInstance().getThrottleDataHolder());
+        }
+        if (conditionMessages != null) {
+            handleConditionMessages(conditionMessages);
+        }
+        recordReceipt(messages.size(), latestTimestamp);
+    }
+
+    /**
+     * @return number of messages received
+     */
+    public long getReceivedMessageCount() {
+        return receivedMessageCount.get();
+    }
+
+    /**
+     * @return number of times messages were received together
+     */
+    public long getReceivedBatchCount() {
+        return receivedBatchCount.get();
+    }
+
+    /**
+     * @return milliseconds between the latest message received being sent by the traffic manager and being applied,
+     * as per the clocks of the traffic manager and this node
+     */
+    public long getLastLagMillis() {
+        return lastLagMillis;
+    }
+
+    /**
+     * @return the highest lag of the messages received, see {@link #getLastLagMillis()}
+     */
+    public long getMaxLagMillis() {
+        return maxLagMillis.get();
+    }
+
+    private void recordReceipt(int messageCount, long latestTimestamp) {
+        receivedMessageCount.addAndGet(messageCount);
+        receivedBatchCount.incrementAndGet();
+        // The timestamp is 0 if the sender disabled message timestamps
+        if (latestTimestamp > 0) {
+            long lag = Math.max(0, System.currentTimeMillis() - latestTimestamp);
+            lastLagMillis = lag;
+            long maxLag = maxLagMillis.get();
+            while (lag > maxLag && !maxLagMillis.compareAndSet(maxLag, lag)) {
+                maxLag = maxLagMillis.get();
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Applied " + messageCount + " events received through jms receiver, lag : " + lag + "ms");
             }
-        } catch (JMSException e) {
-            log.error("JMSException occurred when processing the received message ", e);
         }
     }
 
-    private void handleThrottleUpdateMessage(Map<String, Object> map) {
+    private void addThrottleUpdate(MapMessage message, ThrottleUpdateBatch throttleUpdates) throws JMSException {
 
-        String throttleKey = map.get(APIThrottleConstants.THROTTLE_KEY).toString();
-        String throttleState = map.get(APIThrottleConstants.IS_THROTTLED).toString();
-        Long timeStamp = Long.parseLong(map.get(APIThrottleConstants.EXPIRY_TIMESTAMP).toString());
+        String throttleKey = message.getObject(APIThrottleConstants.THROTTLE_KEY).toString();
+        String throttleState = message.getObject(APIThrottleConstants.IS_THROTTLED).toString();
+        long timeStamp = Long.parseLong(message.getObject(APIThrottleConstants.EXPIRY_TIMESTAMP).toString());
 
         if (log.isDebugEnabled()) {
             log.debug("Received Key -  throttleKey : " + throttleKey + " , " +
                       "isThrottled :" + throttleState + " , expiryTime : " + new Date(timeStamp).toString());
         }
 
-        if (ThrottleConstants.TRUE.equalsIgnoreCase(throttleState)) {
-            ServiceReferenceHolder.getInstance().getThrottleDataHolder().
-                    addThrottleData(throttleKey, timeStamp);
-
-            String extractedKey = extractAPIorResourceKey(throttleKey);
-            if (extractedKey != null) {
-                if(!ServiceReferenceHolder.getInstance().getThrottleDataHolder().isAPIThrottled(extractedKey)){
-                    ServiceReferenceHolder.getInstance().getThrottleDataHolder().addThrottledAPIKey(extractedKey, timeStamp);
-                    if (log.isDebugEnabled()) {
-                        log.debug("Adding throttling key : " + extractedKey);
-                    }
-                }
+        throttleUpdates.add(throttleKey, ThrottleConstants.TRUE.equalsIgnoreCase(throttleState), timeStamp);
+    }
 
-            }
-        } else {
-            ServiceReferenceHolder.getInstance().getThrottleDataHolder().
-                    removeThrottleData(throttleKey);
-            String extractedKey = extractAPIorResourceKey(throttleKey);
-            if (extractedKey != null) {
-                if (log.isDebugEnabled()) {
-                    log.debug("Removing throttling key : " + extractedKey);
+    //Synchronized due to blocking data contains or not can updated by multiple threads. Will not be a performance isssue
+    //as this will not happen more frequently
+    private synchronized void handleConditionMessages(List<MapMessage> messages) {
+        for (MapMessage message : messages) {
+            try {
+                if (message.getObject(APIConstants.BLOCKING_CONDITION_KEY) != null) {
+                    /**
+                     * This message contains blocking condition data
+                     * blockingCondition - Blocking condition type
+                     * conditionValue - blocking condition value
+                     * state - State whether blocking condition is enabled or not
+                     */
+                    handleBlockingMessage(message);
+                } else {
+                    /**
+                     * This message contains key template data
+                     * keyTemplateValue - Value of key template
+                     * keyTemplateState - whether key template active or not
+                     */
+                    handleKeyTemplateMessage(message);
                 }
-                ServiceReferenceHolder.getInstance().getThrottleDataHolder().removeThrottledAPIKey(extractedKey);
+            } catch (JMSException e) {
+                log.error("JMSException occurred when processing the received message ", e);
+            } catch (RuntimeException e) {
+                log.error("Dropping the malformed event received through jms receiver", e);
             }
         }
     }
 
-    //Synchronized due to blocking data contains or not can updated by multiple threads. Will not be a performance isssue
-    //as this will not happen more frequently
-    private synchronized void handleBlockingMessage(Map<String, Object> map) {
+    private void handleBlockingMessage(MapMessage map) throws JMSException {
         if (log.isDebugEnabled()) {
-            log.debug("Received Key -  blockingCondition : " + map.get(APIConstants.BLOCKING_CONDITION_KEY).toString() + " , " +
-                      "conditionValue :" + map.get(APIConstants.BLOCKING_CONDITION_VALUE).toString() + " , " +
-                      "tenantDomain : " + map.get(APIConstants.BLOCKING_CONDITION_DOMAIN));
+            log.debug("Received Key -  blockingCondition : " + map.getObject(APIConstants.BLOCKING_CONDITION_KEY).toString() + " , " +
+                      "conditionValue :" + map.getObject(APIConstants.BLOCKING_CONDITION_VALUE).toString() + " , " +
+                      "tenantDomain : " + map.getObject(APIConstants.BLOCKING_CONDITION_DOMAIN));
         }
 
-        String condition = map.get(APIConstants.BLOCKING_CONDITION_KEY).toString();
-        String conditionValue = map.get(APIConstants.BLOCKING_CONDITION_VALUE).toString();
-        String conditionState = map.get(APIConstants.BLOCKING_CONDITION_STATE).toString();
+        String condition = map.getObject(APIConstants.BLOCKING_CONDITION_KEY).toString();
+        String conditionValue = map.getObject(APIConstants.BLOCKING_CONDITION_VALUE).toString();
+        String conditionState = map.getObject(APIConstants.BLOCKING_CONDITION_STATE).toString();
 
         if (APIConstants.BLOCKING_CONDITIONS_APPLICATION.equals(condition)) {
             if (ThrottleConstants.TRUE.equals(conditionState)) {
@@ -185,33 +244,12 @@ public class JMSMessageListener implements MessageListener {
         }
     }
 
-    private String extractAPIorResourceKey(String throttleKey) {
-        Matcher m = resourcePattern.matcher(throttleKey);
-        if (m.matches()) {
-            if (m.groupCount() == RESOURCE_PATTERN_GROUPS) {
-                String condition = m.group(RESOURCE_PATTERN_CONDITION_INDEX);
-                String resourceKey = throttleKey.substring(0, throttleKey.indexOf("_" + condition));
-                return resourceKey;
-            }
-        } else {
-            m = apiPattern.matcher(throttleKey);
-            if (m.matches()) {
-                if (m.groupCount() == API_PATTERN_GROUPS) {
-                    String condition = m.group(API_PATTERN_CONDITION_INDEX);
-                    String resourceKey = throttleKey.substring(0, throttleKey.indexOf("_" + condition));
-                    return resourceKey;
-                }
-            }
-        }
-        return null;
-    }
-
-    private synchronized void handleKeyTemplateMessage(Map<String, Object> map) {
+    private void handleKeyTemplateMessage(MapMessage map) throws JMSException {
         if (log.isDebugEnabled()) {
-            log.debug("Received Key -  KeyTemplate : " + map.get(APIConstants.POLICY_TEMPLATE_KEY).toString());
+            log.debug("Received Key -  KeyTemplate : " + map.getObject(APIConstants.POLICY_TEMPLATE_KEY).toString());
         }
-        String keyTemplateValue = map.get(APIConstants.POLICY_TEMPLATE_KEY).toString();
-        String keyTemplateState = map.get(APIConstants.TEMPLATE_KEY_STATE).toString();
+        String keyTemplateValue = map.getObject(APIConstants.POLICY_TEMPLATE_KEY).toString();
+        String keyTemplateState = map.getObject(APIConstants.TEMPLATE_KEY_STATE).toString();
         if (ThrottleConstants.ADD.equals(keyTemplateState)) {
             ServiceReferenceHolder.getInstance().getThrottleDataHolder()
                     .addKeyTemplate(keyTemplateValue, keyTemplateValue);
@@ -143,6 +143,10 @@ public class JMSTaskManager {
      * The maximum number of successful message receipts for a task - to limit thread life span
      */
     private int maxMessagesPerTask = -1;    // default is unlimited
+    /**
+     * The maximum number of messages already available to a task, received and handed to the listener together
+     */
+    private int maxMessagesPerBatch = 100;
     /**
      * The default receive timeout - a negative value means wait forever, zero dont wait at all
      */
@@ -537,10 +541,11 @@ public class JMSTaskManager {
                     if (message != null) {
                         idle = false;
                         idleExecutionCount = 0;
-                        messageCount++;
-                        // I will be busy now while processing this message, so start another if needed
+                        List<Message> messages = receiveAvailableMessages(message, messageCount);
+                        messageCount += messages.size();
+                        // I will be busy now while processing these messages, so start another if needed
                         scheduleNewTaskIfAppropriate();
-                        handleMessage(message, ut);
+                        handleMessages(messages, ut);
 
                     } else {
                         idle = true;
@@ -623,14 +628,51 @@ public class JMSTaskManager {
         }
 
         /**
-         * Invoke ultimate message handler/listener and ack message and/or
-         * commit/rollback transactions
+         * Receive the messages already available after the given one, without waiting, up to the batch size and
+         * the messages this task may still process
          *
-         * @param message the JMS message received
-         * @param ut      the UserTransaction used to receive this message, or null
+         * @param message      the message received
+         * @param messageCount the number of messages this task processed before the given one
+         * @return the given message followed by the ones received after it
          */
-        private void handleMessage(Message message, UserTransaction ut) {
+        private List<Message> receiveAvailableMessages(Message message, int messageCount) {
+            int maxMessages = getMaxMessagesPerBatch();
+            if (getMaxMessagesPerTask() >= 0) {
+                maxMessages = Math.min(maxMessages, getMaxMessagesPerTask() - messageCount);
+            }
+            List<Message> messages = new ArrayList<Message>();
+            messages.add(message);
+            try {
+                while (messages.size() < maxMessages) {
+                    Message next = consumer.receiveNoWait();
+                    if (next == null) {
+                        break;
+                    }
+                    messages.add(next);
+                }
+            } catch (IllegalStateException ignore) {
+                // probably the consumer (shared) was closed.. the messages already read are still handled
+            } catch (JMSException e) {
+                logError("Error receiving message for " + jmsConsumerName, e);
+            }
+            if (log.isTraceEnabled() && messages.size() > 1) {
+                log.trace("Read " + messages.size() + " messages together from : " + destination +
+                          " by Thread ID : " + Thread.currentThread().getId());
+            }
+            return messages;
+        }
+
+        /**
+         * Invoke ultimate message handler/listener and ack messages and/or
+         * commit/rollback transactions once for the messages received together
+         *
+         * @param messages the JMS messages received
+         * @param ut       the UserTransaction used to receive these messages, or null
+         */
+        private void handleMessages(List<Message> messages, UserTransaction ut) {
 
+            // Acknowledging the last message in the session acknowledges all the messages received before it
+            Message message = messages.get(messages.size() - 1);
             String messageId = null;
             try {
                 messageId = message.getJMSMessageID();
@@ -641,7 +683,7 @@ public class JMSTaskManager {
             try {
 
 
-                jmsMessageListener.onMessage(message);
+                jmsMessageListener.onMessages(messages);
 
             } finally {
 
@@ -1309,6 +1351,14 @@ public class JMSTaskManager {
         this.maxMessagesPerTask = maxMessagesPerTask;
     }
 
+    public int getMaxMessagesPerBatch() {
+        return maxMessagesPerBatch;
+    }
+
+    public void setMaxMessagesPerBatch(int maxMessagesPerBatch) {
+        this.maxMessagesPerBatch = maxMessagesPerBatch;
+    }
+
     public String getUserTransactionJNDIName() {
         return userTransactionJNDIName;
     }
@@ -112,6 +112,10 @@ public class JMSTaskManagerFactory {
         if (value != null) {
             stm.setMaxMessagesPerTask(value);
         }
+        value = getOptionalIntProperty(JMSConstants.PARAM_MAX_MSGS_PER_BATCH, svc, cf);
+        if (value != null) {
+            stm.setMaxMessagesPerBatch(value);
+        }
 
         value = getOptionalIntProperty(JMSConstants.PARAM_RECON_INIT_DURATION, svc, cf);
         if (value != null) {
@@ -146,6 +150,7 @@ public class JMSTaskManagerFactory {
         stm.removeJmsProperties(JMSConstants.PARAM_MAX_CONSUMERS);
         stm.removeJmsProperties(JMSConstants.PARAM_IDLE_TASK_LIMIT);
         stm.removeJmsProperties(JMSConstants.PARAM_MAX_MSGS_PER_TASK);
+        stm.removeJmsProperties(JMSConstants.PARAM_MAX_MSGS_PER_BATCH);
         stm.removeJmsProperties(JMSConstants.PARAM_RECON_INIT_DURATION);
         stm.removeJmsProperties(JMSConstants.PARAM_RECON_MAX_DURATION);
         stm.removeJmsProperties(JMSConstants.PARAM_RECON_FACTOR);
@@ -27,13 +27,20 @@ import org.wso2.carbon.apimgt.impl.dto.ThrottleProperties;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 public class JMSTransportHandler {
     private static final Log log = LogFactory.getLog(JMSTransportHandler.class);
     private ThrottleProperties.JMSConnectionProperties jmsConnectionProperties;
     private JMSConnectionFactory jmsConnectionFactory;
     private JMSListener jmsListener;
+    private JMSMessageListener jmsMessageListener;
     private boolean stopIssued = false;
+    private ScheduledExecutorService metricsReporter;
+    private long reportedMessageCount;
 
     public JMSTransportHandler() {
         if (ServiceReferenceHolder.getInstance().getAPIMConfiguration() != null) {
@@ -77,13 +84,14 @@ public class JMSTransportHandler {
                                                                                               new NativeWorkerPool(minThreadPoolSize, maxThreadPoolSize,
                                                                                                                    keepAliveTimeInMillis, jobQueueSize, "JMS Threads",
                                                                                                                    "JMSThreads" + UUID.randomUUID().toString()), messageConfig);
-            jmsTaskManager.setJmsMessageListener(new JMSMessageListener(ServiceReferenceHolder.getInstance()
-                                                                                .getThrottleDataHolder()));
+            jmsMessageListener = new JMSMessageListener(ServiceReferenceHolder.getInstance().getThrottleDataHolder());
+            jmsTaskManager.setJmsMessageListener(jmsMessageListener);
 
             jmsListener = new JMSListener(ListenerConstants.CONNECTION_FACTORY_NAME + "#" + destination,
                                           jmsTaskManager);
             jmsListener.startListener();
             log.info("Starting jms topic consumer thread...");
+            startMetricsReporter();
 
         } catch (IOException e) {
             log.error("Cannot read properties file from resources. " + e.getMessage(), e);
@@ -105,9 +113,69 @@ public class JMSTransportHandler {
                     log.debug("JMS Listener Stopped");
                     jmsConnectionFactory.stop();
                     log.debug("JMS Connection Factory Stopped");
+                    if (metricsReporter != null) {
+                        metricsReporter.shutdownNow();
+                    }
+                    logMetrics();
                 }
             }
         }
     }
 
+    /**
+     * Logs the counts and lag of the throttle events received every
+     * {@link ListenerConstants#METRICS_REPORT_INTERVAL_PROPERTY} seconds, so that they can be followed without
+     * access to the listener.
+     */
+    private void startMetricsReporter() {
+        int interval = Integer.getInteger(ListenerConstants.METRICS_REPORT_INTERVAL_PROPERTY,
+                                          ListenerConstants.DEFAULT_METRICS_REPORT_INTERVAL_SECONDS);
+        if (interval <= 0) {
+            return;
+        }
+        metricsReporter = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "JMSListenerMetricsReporter");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        metricsReporter.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    logMetrics();
+                } catch (RuntimeException e) {
+                    log.error("Error while reporting the throttle events received through jms receiver", e);
+                }
+            }
+        }, interval, interval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Logs the counts and lag of the throttle events received, unless no events were received since the last report.
+     */
+    synchronized void logMetrics() {
+        if (jmsMessageListener == null) {
+            return;
+        }
+        long messageCount = jmsMessageListener.getReceivedMessageCount();
+        if (messageCount == reportedMessageCount) {
+            return;
+        }
+        reportedMessageCount = messageCount;
+        log.info("Throttle events received through jms receiver - events : " + messageCount + " , batches : " +
+                 jmsMessageListener.getReceivedBatchCount() + " , last lag : " +
+                 jmsMessageListener.getLastLagMillis() + "ms , max lag : " + jmsMessageListener.getMaxLagMillis() +
+                 "ms");
+    }
+
+    /**
+     * @return the listener of the throttle events, with the counts and lag of the events received, or null if not
+     * subscribed
+     */
+    public JMSMessageListener getJmsMessageListener() {
+        return jmsMessageListener;
+    }
 }
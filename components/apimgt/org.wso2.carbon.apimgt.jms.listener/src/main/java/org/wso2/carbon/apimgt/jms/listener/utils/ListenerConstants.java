@@ -30,4 +30,8 @@ public class ListenerConstants {
 
     public static final String MB_PROPERTIES = "mb.properties";
     public static final String CONNECTION_FACTORY_NAME = "Siddhi-JMS-Consumer";
+
+    /** System property with the seconds between the reports of the throttle events received, 0 to disable them */
+    public static final String METRICS_REPORT_INTERVAL_PROPERTY = "jmsListenerMetricsReportInterval";
+    public static final int DEFAULT_METRICS_REPORT_INTERVAL_SECONDS = 300;
 }
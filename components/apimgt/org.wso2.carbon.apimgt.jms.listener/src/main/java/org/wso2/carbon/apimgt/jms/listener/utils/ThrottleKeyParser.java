@@ -0,0 +1,161 @@
+/*
+*  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.apimgt.jms.listener.utils;
+
+/**
+ * Reads the API or resource key out of the throttle key of an API or resource level throttling condition, without
+ * regular expressions and without allocating anything but the returned key.
+ *
+ * The keys are matched as by the patterns earlier used for them, i.e.
+ * <pre>
+ * resource: /.&#42;/(.&#42;)/\1(.&#42;)?:[A-Z]{0,5}_(condition_(\d&#42;)|default)
+ * api:      /.&#42;/(.&#42;):\1_(condition_(\d&#42;)|default)
+ * </pre>
+ * e.g. /pizzashack/1.0.0/1.0.0/menu:GET_condition_0 for a resource of version 1.0.0 of the API with context
+ * /pizzashack/1.0.0, and /pizzashack/1.0.0:1.0.0_default for the API itself.
+ */
+public final class ThrottleKeyParser {
+
+    private static final String DEFAULT_CONDITION = "_default";
+
+    private static final String CONDITION_PREFIX = "_condition_";
+
+    private static final int MAX_HTTP_VERB_LENGTH = 5;
+
+    private ThrottleKeyParser() {
+    }
+
+    /**
+     * Returns the API or resource key of a throttle key, which is the throttle key up to the first occurrence of
+     * its condition suffix.
+     *
+     * @param throttleKey throttle key received from the traffic manager
+     * @return the API or resource key, or null if the throttle key is not of an API or a resource
+     */
+    public static String extractAPIorResourceKey(String throttleKey) {
+        int conditionIndex = getConditionIndex(throttleKey);
+        if (conditionIndex < 0 || containsLineTerminator(throttleKey)) {
+            return null;
+        }
+        if (isResourceKey(throttleKey, conditionIndex) || isAPIKey(throttleKey, conditionIndex)) {
+            return throttleKey.substring(0, indexOfSuffix(throttleKey, conditionIndex));
+        }
+        return null;
+    }
+
+    /**
+     * @return index of the _default or _condition_{n} suffix which ends the key, or -1 if there is none
+     */
+    private static int getConditionIndex(String key) {
+        if (key.endsWith(DEFAULT_CONDITION)) {
+            return key.length() - DEFAULT_CONDITION.length();
+        }
+        int digitsIndex = key.length();
+        while (digitsIndex > 0 && isDigit(key.charAt(digitsIndex - 1))) {
+            digitsIndex--;
+        }
+        int conditionIndex = digitsIndex - CONDITION_PREFIX.length();
+        if (conditionIndex >= 0 && key.startsWith(CONDITION_PREFIX, conditionIndex)) {
+            return conditionIndex;
+        }
+        return -1;
+    }
+
+    /**
+     * Matches /{any}/{version}/{version}{any}:{verb} followed by the condition suffix.
+     */
+    private static boolean isResourceKey(String key, int conditionIndex) {
+        // The verb and the condition do not contain ':', so the verb follows the last ':'
+        int verbIndex = key.lastIndexOf(':') + 1;
+        if (verbIndex == 0 || conditionIndex - verbIndex > MAX_HTTP_VERB_LENGTH || key.charAt(0) != '/') {
+            return false;
+        }
+        for (int i = verbIndex; i < conditionIndex; i++) {
+            char c = key.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                return false;
+            }
+        }
+        int pathEnd = verbIndex - 1;
+        for (int versionStart = key.indexOf('/', 1) + 1; versionStart > 0 && versionStart < pathEnd;
+             versionStart = key.indexOf('/', versionStart) + 1) {
+            for (int versionEnd = key.indexOf('/', versionStart); versionEnd >= 0; versionEnd =
+                    key.indexOf('/', versionEnd + 1)) {
+                int versionLength = versionEnd - versionStart;
+                if (versionEnd + 1 + versionLength > pathEnd) {
+                    break;
+                }
+                if (key.regionMatches(versionEnd + 1, key, versionStart, versionLength)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Matches /{any}/{version}:{version} followed by the condition suffix.
+     */
+    private static boolean isAPIKey(String key, int conditionIndex) {
+        if (key.charAt(0) != '/') {
+            return false;
+        }
+        for (int versionLength = 0; ; versionLength++) {
+            int colonIndex = conditionIndex - versionLength - 1;
+            int slashIndex = colonIndex - versionLength - 1;
+            if (slashIndex < 1) {
+                return false;
+            }
+            if (key.charAt(colonIndex) == ':' && key.charAt(slashIndex) == '/' &&
+                key.regionMatches(slashIndex + 1, key, colonIndex + 1, versionLength)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return index of the first occurrence of the suffix starting at suffixIndex
+     */
+    private static int indexOfSuffix(String key, int suffixIndex) {
+        int suffixLength = key.length() - suffixIndex;
+        for (int i = 0; i < suffixIndex; i++) {
+            if (key.regionMatches(i, key, suffixIndex, suffixLength)) {
+                return i;
+            }
+        }
+        return suffixIndex;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Line terminators are not matched by '.' in the patterns, nor by any other part of them.
+     */
+    private static boolean containsLineTerminator(String key) {
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
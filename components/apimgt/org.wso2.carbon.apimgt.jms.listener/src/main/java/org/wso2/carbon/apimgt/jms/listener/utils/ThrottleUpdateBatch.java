@@ -0,0 +1,117 @@
+/*
+*  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.apimgt.jms.listener.utils;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.apimgt.gateway.throttling.ThrottleDataHolder;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Throttle decisions received together from the traffic manager, applied to the {@link ThrottleDataHolder} at once.
+ * Only the last decision on each throttle key is applied, and the throttled API and resource keys end up as they would
+ * if the decisions were applied one after the other.
+ */
+public class ThrottleUpdateBatch {
+
+    private static final Log log = LogFactory.getLog(ThrottleUpdateBatch.class);
+
+    private final Map<String, Long> throttledKeys = new HashMap<String, Long>();
+
+    private final Set<String> unthrottledKeys = new HashSet<String>();
+
+    private final Map<String, APIKeyUpdate> apiKeyUpdates = new HashMap<String, APIKeyUpdate>();
+
+    /**
+     * Adds a throttle decision, later than the ones already added.
+     *
+     * @param throttleKey     key of the throttling level
+     * @param throttled       whether the key is throttled
+     * @param expiryTimestamp when the throttling time window expires
+     */
+    public void add(String throttleKey, boolean throttled, long expiryTimestamp) {
+        if (throttled) {
+            throttledKeys.put(throttleKey, expiryTimestamp);
+            unthrottledKeys.remove(throttleKey);
+        } else {
+            throttledKeys.remove(throttleKey);
+            unthrottledKeys.add(throttleKey);
+        }
+
+        String apiKey = ThrottleKeyParser.extractAPIorResourceKey(throttleKey);
+        if (apiKey != null) {
+            APIKeyUpdate update = apiKeyUpdates.get(apiKey);
+            if (update == null) {
+                update = new APIKeyUpdate();
+                apiKeyUpdates.put(apiKey, update);
+            }
+            if (!throttled) {
+                update.removed = true;
+                update.expiryTimestamp = null;
+            } else if (update.expiryTimestamp == null || update.expiryTimestamp < System.currentTimeMillis()) {
+                // A throttled API key is kept until it is removed or expires
+                update.expiryTimestamp = expiryTimestamp;
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return throttledKeys.isEmpty() && unthrottledKeys.isEmpty();
+    }
+
+    /**
+     * Applies the throttle decisions added to the given holder.
+     */
+    public void apply(ThrottleDataHolder throttleDataHolder) {
+        throttleDataHolder.addThrottleDataFromMap(throttledKeys);
+        throttleDataHolder.removeThrottleData(unthrottledKeys);
+
+        for (Map.Entry<String, APIKeyUpdate> entry : apiKeyUpdates.entrySet()) {
+            String apiKey = entry.getKey();
+            APIKeyUpdate update = entry.getValue();
+            if (update.expiryTimestamp == null) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Removing throttling key : " + apiKey);
+                }
+                throttleDataHolder.removeThrottledAPIKey(apiKey);
+            } else if (update.removed || !throttleDataHolder.isAPIThrottled(apiKey)) {
+                // Replaced directly if removed in between, so that the key is not unthrottled meanwhile
+                throttleDataHolder.addThrottledAPIKey(apiKey, update.expiryTimestamp);
+                if (log.isDebugEnabled()) {
+                    log.debug("Adding throttling key : " + apiKey);
+                }
+            }
+        }
+    }
+
+    /**
+     * Net update of a throttled API or resource key, i.e. whether it is removed, and the expiry time it is throttled
+     * until after the last removal.
+     */
+    private static class APIKeyUpdate {
+
+        private boolean removed;
+
+        private Long expiryTimestamp;
+    }
+}
@@ -0,0 +1,110 @@
+/*
+*  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.apimgt.jms.listener.utils;
+
+import junit.framework.TestCase;
+
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class ThrottleKeyParserTest extends TestCase {
+
+    // The patterns the keys were earlier extracted with
+    private static final Pattern API_PATTERN = Pattern.compile("/.*/(.*):\\1_(condition_(\\d*)|default)");
+
+    private static final Pattern RESOURCE_PATTERN =
+            Pattern.compile("/.*/(.*)/\\1(.*)?:[A-Z]{0,5}_(condition_(\\d*)|default)");
+
+    private static final String[] PARTS = {"/", ":", "_", "1.0.0", "v1", "GET", "DELETE", "", "default",
+            "condition_", "condition_1", "_default", "_condition_12", "pizzashack", "/menu", "a", "\n", "//", "3"};
+
+    private static final String[] ENDINGS = {"_default", "_condition_", "_condition_7", "default", "_condition_x",
+            ""};
+
+    public void testResourceKeyIsExtracted() {
+        assertEquals("/pizzashack/1.0.0/1.0.0/menu:GET",
+                ThrottleKeyParser.extractAPIorResourceKey("/pizzashack/1.0.0/1.0.0/menu:GET_condition_0"));
+        assertEquals("/t/wso2.com/pizzashack/1.0.0/1.0.0/order/{orderId}:PUT",
+                ThrottleKeyParser.extractAPIorResourceKey(
+                        "/t/wso2.com/pizzashack/1.0.0/1.0.0/order/{orderId}:PUT_default"));
+    }
+
+    public void testAPIKeyIsExtracted() {
+        assertEquals("/pizzashack/1.0.0:1.0.0",
+                ThrottleKeyParser.extractAPIorResourceKey("/pizzashack/1.0.0:1.0.0_default"));
+        assertEquals("/pizzashack/1.0.0:1.0.0",
+                ThrottleKeyParser.extractAPIorResourceKey("/pizzashack/1.0.0:1.0.0_condition_12"));
+    }
+
+    public void testOtherKeysAreNotExtracted() {
+        assertNull(ThrottleKeyParser.extractAPIorResourceKey("admin:app1_default"));
+        assertNull(ThrottleKeyParser.extractAPIorResourceKey("/pizzashack/1.0.0/2.0.0/menu:GET_default"));
+        assertNull(ThrottleKeyParser.extractAPIorResourceKey("/pizzashack/1.0.0/1.0.0/menu:PATCHES_default"));
+        assertNull(ThrottleKeyParser.extractAPIorResourceKey("/pizzashack/1.0.0:1.0.0_condition_x"));
+        assertNull(ThrottleKeyParser.extractAPIorResourceKey(""));
+    }
+
+    public void testKeyEndsAtFirstOccurrenceOfCondition() {
+        assertEquals("/p/v/v",
+                ThrottleKeyParser.extractAPIorResourceKey("/p/v/v_default/x:GET_default"));
+    }
+
+    public void testKeysAreExtractedAsByPatterns() {
+        Random random = new Random(1);
+        for (int i = 0; i < 200000; i++) {
+            String key = buildKey(random);
+            assertEquals(key, extractWithPatterns(key), ThrottleKeyParser.extractAPIorResourceKey(key));
+        }
+    }
+
+    private static String buildKey(Random random) {
+        StringBuilder key = new StringBuilder();
+        if (random.nextInt(4) > 0) {
+            key.append('/');
+        }
+        int partCount = random.nextInt(9);
+        for (int i = 0; i < partCount; i++) {
+            key.append(PARTS[random.nextInt(PARTS.length)]);
+        }
+        if (random.nextBoolean()) {
+            String version = PARTS[random.nextInt(PARTS.length)];
+            key.append('/').append(version).append(random.nextBoolean() ? ':' : '/').append(version);
+            if (random.nextBoolean()) {
+                key.append(PARTS[random.nextInt(PARTS.length)]);
+            }
+            if (random.nextBoolean()) {
+                key.append(':').append(PARTS[random.nextInt(7)]);
+            }
+        }
+        return key.append(ENDINGS[random.nextInt(ENDINGS.length)]).toString();
+    }
+
+    private static String extractWithPatterns(String throttleKey) {
+        Matcher m = RESOURCE_PATTERN.matcher(throttleKey);
+        if (m.matches()) {
+            return throttleKey.substring(0, throttleKey.indexOf("_" + m.group(3)));
+        }
+        m = API_PATTERN.matcher(throttleKey);
+        if (m.matches()) {
+            return throttleKey.substring(0, throttleKey.indexOf("_" + m.group(2)));
+        }
+        return null;
+    }
+}
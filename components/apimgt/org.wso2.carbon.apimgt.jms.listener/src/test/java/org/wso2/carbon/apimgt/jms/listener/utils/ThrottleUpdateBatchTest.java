@@ -0,0 +1,131 @@
+/*
+*  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.apimgt.jms.listener.utils;
+
+import junit.framework.TestCase;
+import org.wso2.carbon.apimgt.gateway.throttling.ThrottleDataHolder;
+
+import java.util.Random;
+
+public class ThrottleUpdateBatchTest extends TestCase {
+
+    private static final String[] THROTTLE_KEYS = {"/pizzashack/1.0.0:1.0.0_default",
+            "/pizzashack/1.0.0:1.0.0_condition_0", "/pizzashack/1.0.0/1.0.0/menu:GET_default",
+            "/pizzashack/1.0.0/1.0.0/menu:GET_condition_1", "admin:app1_default"};
+
+    private static final String[] API_KEYS = {"/pizzashack/1.0.0:1.0.0", "/pizzashack/1.0.0/1.0.0/menu:GET"};
+
+    private final long expiry = System.currentTimeMillis() + 60000;
+
+    public void testLastDecisionOnKeyIsApplied() {
+        ThrottleDataHolder holder = new ThrottleDataHolder();
+        ThrottleUpdateBatch batch = new ThrottleUpdateBatch();
+        batch.add(THROTTLE_KEYS[0], true, expiry);
+        batch.add(THROTTLE_KEYS[0], false, 0);
+        batch.add(THROTTLE_KEYS[2], false, 0);
+        batch.add(THROTTLE_KEYS[2], true, expiry);
+        batch.apply(holder);
+
+        assertFalse(holder.isThrottled(THROTTLE_KEYS[0]));
+        assertFalse(holder.isAPIThrottled(API_KEYS[0]));
+        assertTrue(holder.isThrottled(THROTTLE_KEYS[2]));
+        assertTrue(holder.isAPIThrottled(API_KEYS[1]));
+    }
+
+    public void testThrottledAPIKeyKeepsFirstExpiry() {
+        ThrottleDataHolder holder = new ThrottleDataHolder();
+        holder.addThrottledAPIKey(API_KEYS[0], expiry);
+        ThrottleUpdateBatch batch = new ThrottleUpdateBatch();
+        batch.add(THROTTLE_KEYS[1], true, expiry + 1000);
+        batch.apply(holder);
+
+        assertTrue(holder.isThrottled(THROTTLE_KEYS[1]));
+        assertEquals(expiry + 1000, holder.getThrottleNextAccessTimestamp(THROTTLE_KEYS[1]));
+        assertTrue(holder.isAPIThrottled(API_KEYS[0]));
+
+        // Removed in between, the API key is throttled until the first expiry after the removal
+        batch = new ThrottleUpdateBatch();
+        batch.add(THROTTLE_KEYS[0], false, 0);
+        batch.add(THROTTLE_KEYS[1], true, expiry + 2000);
+        batch.add(THROTTLE_KEYS[0], true, expiry + 3000);
+        batch.apply(holder);
+        assertTrue(holder.isAPIThrottled(API_KEYS[0]));
+
+        ThrottleDataHolder sequentialHolder = new ThrottleDataHolder();
+        sequentialHolder.addThrottledAPIKey(API_KEYS[0], expiry);
+        applyOneByOne(sequentialHolder, THROTTLE_KEYS[1], true, expiry + 1000);
+        applyOneByOne(sequentialHolder, THROTTLE_KEYS[0], false, 0);
+        applyOneByOne(sequentialHolder, THROTTLE_KEYS[1], true, expiry + 2000);
+        applyOneByOne(sequentialHolder, THROTTLE_KEYS[0], true, expiry + 3000);
+        assertSameState(sequentialHolder, holder);
+    }
+
+    public void testBatchIsAppliedAsOneByOne() {
+        Random random = new Random(1);
+        for (int run = 0; run < 1000; run++) {
+            ThrottleDataHolder holder = new ThrottleDataHolder();
+            ThrottleDataHolder sequentialHolder = new ThrottleDataHolder();
+            for (int round = 0; round < 3; round++) {
+                ThrottleUpdateBatch batch = new ThrottleUpdateBatch();
+                int size = 1 + random.nextInt(10);
+                for (int i = 0; i < size; i++) {
+                    String throttleKey = THROTTLE_KEYS[random.nextInt(THROTTLE_KEYS.length)];
+                    boolean throttled = random.nextBoolean();
+                    long expiryTimestamp = expiry + random.nextInt(1000);
+                    batch.add(throttleKey, throttled, expiryTimestamp);
+                    applyOneByOne(sequentialHolder, throttleKey, throttled, expiryTimestamp);
+                }
+                batch.apply(holder);
+                assertSameState(sequentialHolder, holder);
+            }
+        }
+    }
+
+    /**
+     * Applies a decision as the listener did before decisions were batched.
+     */
+    private static void applyOneByOne(ThrottleDataHolder holder, String throttleKey, boolean throttled,
+                                      long expiryTimestamp) {
+        String apiKey = ThrottleKeyParser.extractAPIorResourceKey(throttleKey);
+        if (throttled) {
+            holder.addThrottleData(throttleKey, expiryTimestamp);
+            if (apiKey != null && !holder.isAPIThrottled(apiKey)) {
+                holder.addThrottledAPIKey(apiKey, expiryTimestamp);
+            }
+        } else {
+            holder.removeThrottleData(throttleKey);
+            if (apiKey != null) {
+                holder.removeThrottledAPIKey(apiKey);
+            }
+        }
+    }
+
+    private static void assertSameState(ThrottleDataHolder expected, ThrottleDataHolder actual) {
+        for (String throttleKey : THROTTLE_KEYS) {
+            assertEquals(throttleKey, expected.isThrottled(throttleKey), actual.isThrottled(throttleKey));
+            if (expected.isThrottled(throttleKey)) {
+                assertEquals(throttleKey, expected.getThrottleNextAccessTimestamp(throttleKey),
+                        actual.getThrottleNextAccessTimestamp(throttleKey));
+            }
+        }
+        for (String apiKey : API_KEYS) {
+            assertEquals(apiKey, expected.isAPIThrottled(apiKey), actual.isAPIThrottled(apiKey));
+        }
+    }
+}
@@ -25,13 +25,16 @@ import org.wso2.carbon.apimgt.api.model.AccessTokenInfo;
 import org.wso2.carbon.apimgt.impl.APIConstants;
 import org.wso2.carbon.apimgt.impl.factory.KeyManagerHolder;
 import org.wso2.carbon.apimgt.impl.dto.APIKeyValidationInfoDTO;
+import org.wso2.carbon.apimgt.impl.dto.APIResourceMetadataDTO;
 import org.wso2.carbon.apimgt.impl.utils.APIUtil;
 import org.wso2.carbon.apimgt.keymgt.APIKeyMgtException;
 import org.wso2.carbon.apimgt.keymgt.service.TokenValidationContext;
+import org.wso2.carbon.apimgt.keymgt.util.APIKeyMgtDataHolder;
 import org.wso2.carbon.identity.application.authentication.framework.model.AuthenticatedUser;
 import org.wso2.carbon.identity.oauth.config.OAuthServerConfiguration;
 import org.wso2.carbon.identity.oauth2.IdentityOAuth2Exception;
 import org.wso2.carbon.identity.oauth2.model.AccessTokenDO;
+import org.wso2.carbon.identity.oauth2.validators.JDBCScopeValidator;
 import org.wso2.carbon.identity.oauth2.validators.OAuth2ScopeValidator;
 
 import java.util.Arrays;
@@ -145,14 +148,6 @@ public class DefaultKeyValidationHandler extends AbstractKeyValidationHandler {
             }
         }
 
-        AuthenticatedUser user = new AuthenticatedUser();
-        user.setUserName(apiKeyValidationInfoDTO.getEndUserName());
-        AccessTokenDO accessTokenDO = new AccessTokenDO(apiKeyValidationInfoDTO.getConsumerKey(), user, scopes, null,
-                null, apiKeyValidationInfoDTO.getValidityPeriod(), apiKeyValidationInfoDTO.getValidityPeriod(),
-                apiKeyValidationInfoDTO.getType());
-
-        accessTokenDO.setAccessToken(validationContext.getAccessToken());
-
         String actualVersion = validationContext.getVersion();
         //Check if the api version has been prefixed with _default_
         if (actualVersion != null && actualVersion.startsWith(APIConstants.DEFAULT_VERSION_PREFIX)) {
@@ -164,6 +159,38 @@ public class DefaultKeyValidationHandler extends AbstractKeyValidationHandler {
                 + ":" +
                 validationContext.getHttpVerb();
 
+        // The default scope validator allows a resource without a scope and rejects a token which does not have the
+        // scope of the resource. Both can be decided from the cached resource scopes of the API, so the scope
+        // validator only has to be called to check the roles of the scope.
+        if (APIKeyMgtDataHolder.isResourceCacheEnabledKeyMgt() && scopeValidator instanceof JDBCScopeValidator) {
+            try {
+                APIResourceMetadataDTO resourceMetadata =
+                        APIUtil.getAPIResourceMetadata(validationContext.getContext(), actualVersion);
+                if (resourceMetadata.hasResources()) {
+                    String resourceScope = resourceMetadata.getResourceScope(resource);
+                    if (resourceScope == null) {
+                        return true;
+                    }
+                    if (scopesSet == null || !scopesSet.contains(resourceScope)) {
+                        apiKeyValidationInfoDTO.setAuthorized(false);
+                        apiKeyValidationInfoDTO.setValidationStatus(APIConstants.KeyValidationStatus.INVALID_SCOPE);
+                        return false;
+                    }
+                }
+            } catch (APIManagementException e) {
+                log.error("Error while reading the resource scopes of " + validationContext.getContext() + ":"
+                        + actualVersion + ". Validating the scope with the scope validator", e);
+            }
+        }
+
+        AuthenticatedUser user = new AuthenticatedUser();
+        user.setUserName(apiKeyValidationInfoDTO.getEndUserName());
+        AccessTokenDO accessTokenDO = new AccessTokenDO(apiKeyValidationInfoDTO.getConsumerKey(), user, scopes, null,
+                null, apiKeyValidationInfoDTO.getValidityPeriod(), apiKeyValidationInfoDTO.getValidityPeriod(),
+                apiKeyValidationInfoDTO.getType());
+
+        accessTokenDO.setAccessToken(validationContext.getAccessToken());
+
         try {
             if(scopeValidator != null){
                 if(scopeValidator.validateScope(accessTokenDO,
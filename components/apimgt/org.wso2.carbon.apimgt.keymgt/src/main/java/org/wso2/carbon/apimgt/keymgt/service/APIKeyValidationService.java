@@ -217,7 +217,12 @@ public class APIKeyValidationService extends AbstractAdmin {
         Timer timer6 = MetricManager.timer(org.wso2.carbon.metrics.manager.Level.INFO, MetricManager.name(
                 APIConstants.METRICS_PREFIX, this.getClass().getSimpleName(), "GET_URI_TEMPLATE"));
         Timer.Context timerContext6 = timer6.start();
-        ArrayList<URITemplate> templates = ApiMgtDAO.getInstance().getAllURITemplates(context, version);
+        ArrayList<URITemplate> templates;
+        if (APIKeyMgtDataHolder.isResourceCacheEnabledKeyMgt()) {
+            templates = new ArrayList<URITemplate>(APIUtil.getAPIResourceMetadata(context, version).getURITemplates());
+        } else {
+            templates = ApiMgtDAO.getInstance().getAllURITemplates(context, version);
+        }
         timerContext6.stop();
         return templates;
     }
@@ -35,6 +35,7 @@ public class APIKeyMgtDataHolder {
     private static RealmService realmService;
     private static APIManagerConfigurationService amConfigService;
     private static Boolean isKeyCacheEnabledKeyMgt = true;
+    private static boolean isResourceCacheEnabledKeyMgt = false;
     private static Boolean isThriftServerEnabled = true;
     private static TokenGenerator tokenGenerator;
     private static boolean jwtGenerationEnabled = false;
@@ -51,6 +52,17 @@ public class APIKeyMgtDataHolder {
         isKeyCacheEnabledKeyMgt = keyCacheEnabledKeyMgt;
     }
 
+    /**
+     * @return whether the resources and resource scopes of APIs are served from the API resource metadata cache
+     */
+    public static boolean isResourceCacheEnabledKeyMgt() {
+        return isResourceCacheEnabledKeyMgt;
+    }
+
+    public static void setResourceCacheEnabledKeyMgt(boolean resourceCacheEnabledKeyMgt) {
+        isResourceCacheEnabledKeyMgt = resourceCacheEnabledKeyMgt;
+    }
+
 
     public static APIManagerConfigurationService getAmConfigService() {
         return amConfigService;
@@ -89,6 +101,8 @@ public class APIKeyMgtDataHolder {
     public static void initData() {
         try {
             APIKeyMgtDataHolder.isKeyCacheEnabledKeyMgt = getInitValues(APIConstants.KEY_MANAGER_TOKEN_CACHE);
+            APIKeyMgtDataHolder.isResourceCacheEnabledKeyMgt =
+                    getInitValues(APIConstants.KEY_MANAGER_RESOURCE_CACHE);
             APIKeyMgtDataHolder.isThriftServerEnabled = getInitValues(APIConstants.API_KEY_VALIDATOR_ENABLE_THRIFT_SERVER);
 
             APIManagerConfiguration configuration = org.wso2.carbon.apimgt.impl.internal.ServiceReferenceHolder.getInstance()
@@ -47,10 +47,11 @@ public class ApplicationsApi  {
     @ApiParam(value = "**Search condition**.\n\nYou can search for an application by specifying the name as \"query\" attribute.\n\nEg.\n\"app1\" will match an application if the name is exactly \"app1\".\n\nCurrently this does not support wildcards. Given name must exactly match the application name.\n") @QueryParam("query") String query,
     @ApiParam(value = "Maximum size of resource array to return.\n", defaultValue="25") @QueryParam("limit") Integer limit,
     @ApiParam(value = "Starting point within the complete list of items qualified.\n", defaultValue="0") @QueryParam("offset") Integer offset,
+    @ApiParam(value = "Token of the page to return, taken from the \"next\" link of the previous page.\n\nWhen this is given the applications are listed by name from the given page, and \"offset\" is not used.\nAn empty token returns the first page. Unlike \"offset\", the cost of a page does not grow with its\nposition in the list.\n") @QueryParam("pageToken") String pageToken,
     @ApiParam(value = "Media types acceptable for the response. Default is JSON.\n"  , defaultValue="JSON")@HeaderParam("Accept") String accept,
     @ApiParam(value = "Validator for conditional requests; based on the ETag of the formerly retrieved\nvariant of the resourec.\n"  )@HeaderParam("If-None-Match") String ifNoneMatch)
     {
-    return delegate.applicationsGet(groupId,query,limit,offset,accept,ifNoneMatch);
+    return delegate.applicationsGet(groupId,query,limit,offset,pageToken,accept,ifNoneMatch);
     }
     @POST
     
@@ -17,7 +17,7 @@ import org.apache.cxf.jaxrs.ext.multipart.Attachment;
 import javax.ws.rs.core.Response;
 
 public abstract class ApplicationsApiService {
-    public abstract Response applicationsGet(String groupId,String query,Integer limit,Integer offset,String accept,String ifNoneMatch);
+    public abstract Response applicationsGet(String groupId,String query,Integer limit,Integer offset,String pageToken,String accept,String ifNoneMatch);
     public abstract Response applicationsPost(ApplicationDTO body,String contentType);
     public abstract Response applicationsGenerateKeysPost(String applicationId,ApplicationKeyGenerateRequestDTO body,String contentType,String ifMatch,String ifUnmodifiedSince);
     public abstract Response applicationsApplicationIdGet(String applicationId,String accept,String ifNoneMatch,String ifModifiedSince);
@@ -31,6 +31,7 @@ import org.wso2.carbon.apimgt.api.model.Tier;
 import org.wso2.carbon.apimgt.impl.APIConstants;
 import org.wso2.carbon.apimgt.impl.APIManagerFactory;
 import org.wso2.carbon.apimgt.impl.utils.APIUtil;
+import org.wso2.carbon.apimgt.impl.utils.PageToken;
 import org.wso2.carbon.apimgt.rest.api.store.ApplicationsApiService;
 import org.wso2.carbon.apimgt.rest.api.store.dto.ApplicationDTO;
 import org.wso2.carbon.apimgt.rest.api.store.dto.ApplicationKeyDTO;
@@ -61,13 +62,14 @@ public class ApplicationsApiServiceImpl extends ApplicationsApiService {
      * @param query       search condition
      * @param limit       max number of objects returns
      * @param offset      starting index
+     * @param pageToken   token of the page to return, or an empty token for the first page
      * @param accept      accepted media type of the client
      * @param ifNoneMatch If-None-Match header value
      * @return Response object containing resulted applications
      */
     @Override
-    public Response applicationsGet(String groupId, String query, Integer limit, Integer offset, String accept,
-            String ifNoneMatch) {
+    public Response applicationsGet(String groupId, String query, Integer limit, Integer offset, String pageToken,
+            String accept, String ifNoneMatch) {
         String username = RestApiUtil.getLoggedInUsername();
 
         // currently groupId is taken from the user so that groupId coming as a query parameter is not honored.
@@ -80,6 +82,16 @@ public class ApplicationsApiServiceImpl extends ApplicationsApiService {
         ApplicationListDTO applicationListDTO;
         try {
             APIConsumer apiConsumer = APIManagerFactory.getInstance().getAPIConsumer(username);
+            if (pageToken != null && StringUtils.isBlank(query)) {
+                Map<String, Object> page = apiConsumer.getApplicationsByPageToken(new Subscriber(username), groupId,
+                        StringUtils.isEmpty(pageToken) ? null : pageToken, limit, null, "NAME", "asc");
+                applicationListDTO = ApplicationMappingUtil
+                        .fromApplicationsToDTO((Application[]) page.get(APIConstants.PAGINATED_APPLICATIONS));
+                ApplicationMappingUtil.setPageTokenParams(applicationListDTO, groupId, limit,
+                        (String) page.get(APIConstants.PAGINATION_NEXT_PAGE_TOKEN));
+                return Response.ok().entity(applicationListDTO).build();
+            }
+
             Application[] allMatchedApps = new Application[0];
             if (StringUtils.isBlank(query)) {
                 allMatchedApps = apiConsumer.getApplications(new Subscriber(username), groupId);
@@ -98,8 +110,14 @@ public class ApplicationsApiServiceImpl extends ApplicationsApiService {
 
             return Response.ok().entity(applicationListDTO).build();
         } catch (APIManagementException e) {
-            RestApiUtil
-                    .handleInternalServerError("Error while retrieving applications of the user " + username, e, log);
+            if (RestApiUtil.rootCauseMessageMatches(e, PageToken.INVALID_PAGE_TOKEN)) {
+                RestApiUtil.handleBadRequest("Invalid page token " + pageToken, log);
+            } else if (RestApiUtil.rootCauseMessageMatches(e, PageToken.INVALID_PAGE_LIMIT)) {
+                RestApiUtil.handleBadRequest("Invalid limit " + limit, log);
+            } else {
+                RestApiUtil.handleInternalServerError("Error while retrieving applications of the user " + username,
+                        e, log);
+            }
         }
         return null;
     }
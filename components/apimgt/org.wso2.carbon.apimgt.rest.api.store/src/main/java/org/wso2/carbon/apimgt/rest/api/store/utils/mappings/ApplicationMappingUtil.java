@@ -91,6 +91,33 @@ public class ApplicationMappingUtil {
         return applicationListDTO;
     }
 
+    /** Converts a page of applications into a corresponding ApplicationListDTO
+     *
+     * @param applications the applications of the page
+     * @return ApplicationListDTO object corresponding to Application[] array
+     */
+    public static ApplicationListDTO fromApplicationsToDTO(Application[] applications) {
+        return fromApplicationsToDTO(applications, applications.length, 0);
+    }
+
+    /** Sets the next page url for a ApplicationListDTO object listed from a page token. A page listed from a token
+     * has no previous page url.
+     *
+     * @param applicationListDTO a ApplicationListDTO object
+     * @param groupId group id of the applications to be returned
+     * @param limit max number of objects returned
+     * @param nextPageToken token of the next page, or null if there is no next page
+     */
+    public static void setPageTokenParams(ApplicationListDTO applicationListDTO, String groupId, int limit,
+            String nextPageToken) {
+        String paginatedNext = "";
+        if (nextPageToken != null) {
+            paginatedNext = RestApiUtil.getApplicationPageTokenURL(nextPageToken, limit, groupId);
+        }
+        applicationListDTO.setNext(paginatedNext);
+        applicationListDTO.setPrevious("");
+    }
+
     /** Sets pagination urls for a ApplicationListDTO object given pagination parameters and url parameters
      *
      * @param applicationListDTO a SubscriptionListDTO object
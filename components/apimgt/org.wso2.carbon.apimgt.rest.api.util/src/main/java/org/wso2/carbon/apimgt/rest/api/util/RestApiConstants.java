@@ -52,6 +52,7 @@ public final class RestApiConstants {
     public static final String QUERY_PARAM = "{query}";
     public static final String LIMIT_PARAM = "{limit}";
     public static final String OFFSET_PARAM = "{offset}";
+    public static final String PAGE_TOKEN_PARAM = "{pageToken}";
     public static final String TYPE_PARAM = "{type}";
     public static final String TIER_LEVEL_PARAM = "{tierLevel}";
     public static final String SUBSCRIBER_PARAM = "{subscriber}";
@@ -114,6 +115,10 @@ public final class RestApiConstants {
             RESOURCE_PATH_APPLICATIONS + "?limit=" + LIMIT_PARAM + "&offset=" + OFFSET_PARAM + "&groupId="
                     + GROUPID_PARAM;
 
+    public static final String APPLICATIONS_GET_PAGE_TOKEN_URL =
+            RESOURCE_PATH_APPLICATIONS + "?limit=" + LIMIT_PARAM + "&pageToken=" + PAGE_TOKEN_PARAM + "&groupId="
+                    + GROUPID_PARAM;
+
     public static final String SUBSCRIPTIONS_GET_PAGINATION_URL_APIID =
             RESOURCE_PATH_SUBSCRIPTIONS + "?limit=" + LIMIT_PARAM + "&offset=" + OFFSET_PARAM + "&apiId="
                     + APIID_PARAM + "&groupId=" + GROUPID_PARAM;
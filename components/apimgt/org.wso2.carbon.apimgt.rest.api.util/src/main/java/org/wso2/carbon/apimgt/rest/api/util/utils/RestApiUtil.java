@@ -764,6 +764,22 @@ public class RestApiUtil {
         return paginatedURL;
     }
 
+    /** Returns the url of the Applications API page which follows the page the given token was returned with
+     *
+     * @param pageToken token of the page
+     * @param limit max number of objects returned
+     * @param groupId groupId of the Application
+     * @return constructed paginated url
+     */
+    public static String getApplicationPageTokenURL(String pageToken, Integer limit, String groupId) {
+        groupId = groupId == null ? "" : groupId;
+        String paginatedURL = RestApiConstants.APPLICATIONS_GET_PAGE_TOKEN_URL;
+        paginatedURL = paginatedURL.replace(RestApiConstants.LIMIT_PARAM, String.valueOf(limit));
+        paginatedURL = paginatedURL.replace(RestApiConstants.PAGE_TOKEN_PARAM, pageToken);
+        paginatedURL = paginatedURL.replace(RestApiConstants.GROUPID_PARAM, groupId);
+        return paginatedURL;
+    }
+
     /** Returns the paginated url for subscriptions for a particular API identifier
      * 
      * @param offset starting index
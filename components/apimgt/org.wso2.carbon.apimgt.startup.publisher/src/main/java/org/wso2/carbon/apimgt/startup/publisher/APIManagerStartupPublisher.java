@@ -36,6 +36,7 @@ import org.wso2.carbon.apimgt.impl.dao.ApiMgtDAO;
 import org.wso2.carbon.apimgt.impl.utils.APIUtil;
 import org.wso2.carbon.apimgt.startup.publisher.internal.DataHolder;
 import org.wso2.carbon.apimgt.startup.publisher.internal.ServiceReferenceHolder;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.core.ServerStartupHandler;
 import org.wso2.carbon.governance.api.generic.GenericArtifactManager;
 import org.wso2.carbon.governance.api.generic.dataobjects.GenericArtifact;
@@ -55,19 +56,39 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.util.ArrayList;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class APIManagerStartupPublisher implements ServerStartupHandler {
 	private static final Log log = LogFactory
 			.getLog(APIManagerStartupPublisher.class);
-	Cache contextCache = APIUtil.getAPIContextCache();
-	APIProvider provider;
-	protected Registry registry;
 	private static final String httpPort = "mgt.transport.http.port";
 	private static final String hostName = "carbon.local.ip";
 
+	private final int provisioningThreads;
+	private final ThreadFactory threadFactory;
+
+	public APIManagerStartupPublisher() {
+		this(APIStartupPublisherConstants.PROVISIONING_THREADS, null);
+	}
+
+	/**
+	 * @param provisioningThreads maximum number of APIs created at the same time
+	 * @param threadFactory       creates the threads the APIs are created on, or null to run them in the tenant flow
+	 *                            of the thread invoking the publisher
+	 */
+	APIManagerStartupPublisher(int provisioningThreads, ThreadFactory threadFactory) {
+		this.provisioningThreads = provisioningThreads;
+		this.threadFactory = threadFactory;
+	}
+
 	@Override
 	public void invoke() {
 		if (log.isDebugEnabled()) {
@@ -114,113 +135,165 @@ public class APIManagerStartupPublisher implements ServerStartupHandler {
                 log.error("Invalid StartupAPIPublisher configuration");
                 return;
             }
-			
-			if (apiContexts != null) {
-				/* Create APIs*/
-				for (int i = 0; i < apiContexts.size(); i++) {
-					try {
-						String apiContext = apiContexts.get(i);
-						String apiProvider = apiProviders.get(i);
-						String apiVersion = apiVersions.get(i);
-						String apiEndpoint = apiEndpoints.get(i);
-						String iconPath = apiIconPaths.get(i);
-						String documentURL = apiDocumentURLs.get(i);
-						String authType = apiAuthTypes.get(i);
-						
-						String apiName;
-
-						if (apiProvider == null || apiVersion == null || apiContext == null || apiEndpoint == null
-								|| iconPath == null || documentURL == null || authType == null) {
-							log.error("Invalid StartupAPIPublisher configuration");
-							return;
-						}
 
-						/*
-						 * API Context validations and initialize apiName to context
-						 * without slash
-						 */
-						if (!apiContext.startsWith("/")) {
-							apiName = apiContext;
-							apiContext = "/" + apiContext;
-						} else {
-							apiName = apiContext.substring(1);
-						}
+			/* The APIs configured before an invalid one are still created */
+			List<StartupAPI> apis = new ArrayList<StartupAPI>();
+			if (readAPIs(apis, apiContexts, apiProviders, apiVersions, apiEndpoints, apiIconPaths,
+					apiDocumentURLs, apiAuthTypes)) {
+				readAPIs(apis, localAPIContexts, localAPIProviders, localAPIVersions, null, localAPIIconPaths,
+						localAPIDocumentURLs, localAPIAuthTypes);
+			}
+			createAPIs(apis);
+		}
+	}
 
-						createAPIAtServerStartup(apiName, apiProvider, apiVersion,
-								apiEndpoint, apiContext, iconPath, documentURL, authType);
-					} catch (IndexOutOfBoundsException e) {
-						log.error("Invalid StartupAPIPublisher configuration", e);
-					}
+	/**
+	 * Reads the configured APIs, up to the first one which is not valid.
+	 *
+	 * @param apiEndpoints endpoints of the APIs, or null for local APIs, the endpoints of which are computed
+	 * @return false if an API is not valid
+	 */
+	private boolean readAPIs(List<StartupAPI> apis, List<String> apiContexts, List<String> apiProviders,
+			List<String> apiVersions, List<String> apiEndpoints, List<String> apiIconPaths,
+			List<String> apiDocumentURLs, List<String> apiAuthTypes) {
+		if (apiContexts == null) {
+			return true;
+		}
+		for (int i = 0; i < apiContexts.size(); i++) {
+			try {
+				String apiContext = apiContexts.get(i);
+				String apiProvider = apiProviders.get(i);
+				String apiVersion = apiVersions.get(i);
+				String apiEndpoint = apiEndpoints != null ? apiEndpoints.get(i) : null;
+				String iconPath = apiIconPaths.get(i);
+				String documentURL = apiDocumentURLs.get(i);
+				String authType = apiAuthTypes.get(i);
+
+				String apiName;
+
+				if (apiProvider == null || apiVersion == null || apiContext == null
+						|| (apiEndpoints != null && apiEndpoint == null) || iconPath == null || documentURL == null
+						|| authType == null) {
+					log.error("Invalid StartupAPIPublisher configuration");
+					return false;
 				}
+
+				/*
+				 * API Context validations and initialize apiName to context
+				 * without slash
+				 */
+				if (!apiContext.startsWith("/")) {
+					apiName = apiContext;
+					apiContext = "/" + apiContext;
+				} else {
+					apiName = apiContext.substring(1);
+				}
+
+				if (apiEndpoints == null) {
+					/* This is an internal API. So we will compute the Endpoint. */
+					apiEndpoint = "http://" + System.getProperty(hostName)
+							+ ":" + System.getProperty(httpPort) + apiContext;
+				}
+
+				apis.add(new StartupAPI(apiName, apiProvider, apiVersion, apiEndpoint, apiContext, iconPath,
+						documentURL, authType));
+			} catch (IndexOutOfBoundsException e) {
+				log.error("Invalid StartupAPIPublisher configuration", e);
 			}
-			
-			if (localAPIContexts != null) {
-				/* Create LocalAPIs*/
-				for (int i = 0; i < localAPIContexts.size(); i++) {
-					try {
-						String apiContext = localAPIContexts.get(i);
-						String apiProvider = localAPIProviders.get(i);
-						String apiVersion = localAPIVersions.get(i);
-						String iconPath = localAPIIconPaths.get(i);
-						String documentURL = localAPIDocumentURLs.get(i);
-						String authType = localAPIAuthTypes.get(i);
-						
-						String apiName;
-
-						if (apiProvider == null || apiVersion == null || apiContext == null || iconPath == null
-								|| documentURL == null || authType == null) {
-							log.error("Invalid StartupAPIPublisher configuration");
-							return;
-						}
+		}
+		return true;
+	}
 
-						/*
-						 * API Context validations and initialize apiName to context
-						 * without slash
-						 */
-						if (!apiContext.startsWith("/")) {
-							apiName = apiContext;
-							apiContext = "/" + apiContext;
-						} else {
-							apiName = apiContext.substring(1);
-						}
+	/**
+	 * Creates the APIs in parallel, skipping the ones whose context exists. An API created by an earlier startup,
+	 * including one which failed part way through, has its context in the database, so a startup resumes with the
+	 * APIs not created yet. Returns once all the APIs are processed.
+	 *
+	 * @param apis APIs to create
+	 */
+	void createAPIs(List<StartupAPI> apis) {
+		if (apis.isEmpty()) {
+			return;
+		}
 
-						/* This is an internal API. So we will compute the Endpoint. */
-						String apiEndpoint = "http://" + System.getProperty(hostName)
-									+ ":" + System.getProperty(httpPort) + apiContext;
-						
-						createAPIAtServerStartup(apiName, apiProvider, apiVersion,
-								apiEndpoint, apiContext, iconPath, documentURL, authType);
-					} catch (IndexOutOfBoundsException e) {
-						log.error("Invalid StartupAPIPublisher configuration", e);
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(provisioningThreads, apis.size()),
+				threadFactory != null ? threadFactory : new StartupAPIThreadFactory());
+		try {
+			for (final StartupAPI api : apis) {
+				executor.execute(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							createAPIAtServerStartup(api);
+						} catch (RuntimeException e) {
+							log.error("Error while creating API " + api, e);
+						}
 					}
-				}
+				});
 			}
+		} finally {
+			executor.shutdown();
+		}
+		try {
+			while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+				log.info("Waiting for the startup APIs to be created");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			log.warn("Interrupted while waiting for the startup APIs to be created");
 		}
 	}
 
-    private void createAPIAtServerStartup(String apiName, String apiProvider, String apiVersion, String apiEndpoint,
-            String apiContext, String iconPath, String documentURL, String authType) {
+	/**
+	 * Creates an API, unless an API with the same context exists.
+	 *
+	 * @param startupAPI API to create
+	 * @return true if the API is created or exists, false if the API could not be created
+	 */
+	boolean createAPIAtServerStartup(StartupAPI startupAPI) {
+		String apiContext = startupAPI.getContext();
 		/* Check whether API already published */
-		if (contextCache.get(apiContext) != null
-				|| ApiMgtDAO.getInstance().isContextExist(apiContext)) {
+		if (isContextExist(apiContext)) {
 			if (log.isDebugEnabled()) {
 				log.info("API Context " + apiContext + " already exists");
 			}
-			return;
+			return true;
 		}
+		return createAPI(startupAPI);
+	}
 
+	/**
+	 * Creates an API in the registry and the database.
+	 *
+	 * @param startupAPI API to create
+	 * @return true if the API is created, false if it could not be created
+	 */
+	boolean createAPI(StartupAPI startupAPI) {
+		String apiContext = startupAPI.getContext();
 		try {
-			API api = createAPIModel(apiName, apiProvider, apiVersion,
-					apiEndpoint, apiContext, iconPath, documentURL, authType);
+			API api = createAPIModel(startupAPI.getName(), startupAPI.getProvider(), startupAPI.getVersion(),
+					startupAPI.getEndpoint(), apiContext, startupAPI.getIconPath(), startupAPI.getDocumentURL(),
+					startupAPI.getAuthType());
 			if (api != null) {
-				addAPI(api, documentURL);
-				log.info("Successfully Created API " + apiName + "-" + apiVersion);
+				addAPI(api, startupAPI.getDocumentURL(), APIUtil.getAPIContextCache());
+				log.info("Successfully Created API " + startupAPI.getName() + "-" + startupAPI.getVersion());
+				return true;
 			}
 		} catch (APIManagementException e) {
 			log.error(e);
 		} catch (RegistryException e) {
 			log.error(e);
 		}
+		return false;
+	}
+
+	/**
+	 * @param apiContext context of an API
+	 * @return true if an API with the context exists
+	 */
+	boolean isContextExist(String apiContext) {
+		return APIUtil.getAPIContextCache().get(apiContext) != null
+				|| ApiMgtDAO.getInstance().isContextExist(apiContext);
 	}
 
     private API createAPIModel(String apiName, String apiProvider, String apiVersion, String apiEndpoint,
@@ -229,7 +302,7 @@ public class APIManagerStartupPublisher implements ServerStartupHandler {
 		RandomAccessFile randomAccessFile = null;
         FileInputStream fileInputStream = null;
 		try {
-			provider = APIManagerFactory.getInstance().getAPIProvider(
+			APIProvider provider = APIManagerFactory.getInstance().getAPIProvider(
 					apiProvider);
 			APIIdentifier identifier = new APIIdentifier(apiProvider, apiName,
 					apiVersion);
@@ -288,13 +361,16 @@ public class APIManagerStartupPublisher implements ServerStartupHandler {
 		return api;
 	}
 
-	private void addAPI(API api, String documentURL) throws RegistryException,
+	private void addAPI(API api, String documentURL, Cache contextCache) throws RegistryException,
 			APIManagementException {
 		ApiMgtDAO apiMgtDAO = ApiMgtDAO.getInstance();
 		try {
-			this.registry = DataHolder.getRegistryService()
+			Registry registry = DataHolder.getRegistryService()
 					.getGovernanceSystemRegistry();
-			createAPIArtifact(api);
+			/* The artifact exists if an earlier startup failed after creating it, in which case it is reused */
+			if (!registry.resourceExists(APIUtil.getAPIPath(api.getId()))) {
+				createAPIArtifact(api, registry);
+			}
 
 			int tenantId = -1234;
             String tenantDomain = MultitenantUtils
@@ -311,7 +387,7 @@ public class APIManagerStartupPublisher implements ServerStartupHandler {
 						APIStartupPublisherConstants.API_DOCUMENTATION_NAME);
 				doc.setSourceType(Documentation.DocumentSourceType.URL);
 				doc.setSourceUrl(documentURL);
-				createDocumentation(api, doc);
+				createDocumentation(api, doc, registry);
 			}
 			
 			if (APIUtil.isAPIManagementEnabled()) {
@@ -340,10 +416,12 @@ public class APIManagerStartupPublisher implements ServerStartupHandler {
 	 * 
 	 * @param api
 	 *            API
+	 * @param registry
+	 *            governance registry of the API
 	 * @throws APIManagementException
 	 *             if failed to create API
 	 */
-	private void createAPIArtifact(API api) throws APIManagementException {
+	private void createAPIArtifact(API api, Registry registry) throws APIManagementException {
 		GenericArtifactManager artifactManager = APIUtil.getArtifactManager(
 				registry, APIConstants.API_KEY);
 		try {
@@ -377,7 +455,7 @@ public class APIManagerStartupPublisher implements ServerStartupHandler {
 			// querying APIs using custom query (SQL)
 			// to gain performance
 			String apiStatus = api.getStatus().getStatus();
-			saveAPIStatus(artifactPath, apiStatus);
+			saveAPIStatus(artifactPath, apiStatus, registry);
 			String visibleRolesList = api.getVisibleRoles();
 			String[] visibleRoles = new String[0];
 			if (visibleRolesList != null) {
@@ -412,7 +490,7 @@ public class APIManagerStartupPublisher implements ServerStartupHandler {
 	 * @throws APIManagementException
 	 *             if failed to create API
 	 */
-	private void createDocumentation(API api, Documentation documentation)
+	private void createDocumentation(API api, Documentation documentation, Registry registry)
             throws APIManagementException {
         try {
         	APIIdentifier apiId = api.getId();
@@ -449,10 +527,12 @@ public class APIManagerStartupPublisher implements ServerStartupHandler {
 	 *            API artifact ID
 	 * @param apiStatus
 	 *            Current status of the API
+	 * @param registry
+	 *            governance registry of the API
 	 * @throws APIManagementException
 	 *             on error
 	 */
-	private void saveAPIStatus(String artifactId, String apiStatus)
+	private void saveAPIStatus(String artifactId, String apiStatus, Registry registry)
 			throws APIManagementException {
 		try {
 			Resource resource = registry.get(artifactId);
@@ -540,4 +620,50 @@ public class APIManagerStartupPublisher implements ServerStartupHandler {
         return docsType;
     }
 
-}
+	/**
+	 * Creates the threads the APIs are created on, which run in the tenant flow of the thread invoking the publisher.
+	 */
+	private static class StartupAPIThreadFactory implements ThreadFactory {
+
+		private final AtomicInteger threadCount = new AtomicInteger();
+
+		private final int tenantId;
+
+		private final String tenantDomain;
+
+		private final String username;
+
+		private StartupAPIThreadFactory() {
+			PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+			tenantId = carbonContext.getTenantId();
+			tenantDomain = carbonContext.getTenantDomain();
+			username = carbonContext.getUsername();
+		}
+
+		@Override
+		public Thread newThread(final Runnable r) {
+			Thread thread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					PrivilegedCarbonContext.startTenantFlow();
+					try {
+						PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+						carbonContext.setTenantId(tenantId);
+						if (tenantDomain != null) {
+							carbonContext.setTenantDomain(tenantDomain);
+						}
+						if (username != null) {
+							carbonContext.setUsername(username);
+						}
+						r.run();
+					} finally {
+						PrivilegedCarbonContext.endTenantFlow();
+					}
+				}
+			});
+			thread.setName("StartupAPIPublisher-" + threadCount.incrementAndGet());
+			return thread;
+		}
+	}
+
+}
\ No newline at end of file
@@ -63,6 +63,9 @@ public class APIStartupPublisherConstants {
     public static final String API_ICON_PATH_AND_DOCUMENT_URL_DEFAULT = "none";
     
     public static final String API_DOCUMENTATION_NAME = "Wiki Documentation";
+
+    /* Maximum number of startup APIs created at the same time */
+    public static final int PROVISIONING_THREADS = 4;
     
     private APIStartupPublisherConstants(){
         
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.apimgt.startup.publisher;
+
+/**
+ * An API configured in api-manager.xml to be created at server startup.
+ */
+public class StartupAPI {
+
+    private final String name;
+    private final String provider;
+    private final String version;
+    private final String endpoint;
+    private final String context;
+    private final String iconPath;
+    private final String documentURL;
+    private final String authType;
+
+    public StartupAPI(String name, String provider, String version, String endpoint, String context, String iconPath,
+            String documentURL, String authType) {
+        this.name = name;
+        this.provider = provider;
+        this.version = version;
+        this.endpoint = endpoint;
+        this.context = context;
+        this.iconPath = iconPath;
+        this.documentURL = documentURL;
+        this.authType = authType;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getProvider() {
+        return provider;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public String getContext() {
+        return context;
+    }
+
+    public String getIconPath() {
+        return iconPath;
+    }
+
+    public String getDocumentURL() {
+        return documentURL;
+    }
+
+    public String getAuthType() {
+        return authType;
+    }
+
+    @Override
+    public String toString() {
+        return name + "-" + version;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.apimgt.startup.publisher;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class APIManagerStartupPublisherTest extends TestCase {
+
+    private static final int THREADS = 3;
+
+    private final List<String> createdContexts = Collections.synchronizedList(new ArrayList<String>());
+
+    private final Set<String> failingContexts = Collections.synchronizedSet(new HashSet<String>());
+
+    // Contexts of the APIs in the database
+    private final Set<String> existingContexts = Collections.synchronizedSet(new HashSet<String>());
+
+    private final AtomicInteger runningCreations = new AtomicInteger();
+
+    private final AtomicInteger maxRunningCreations = new AtomicInteger();
+
+    private APIManagerStartupPublisher publisher;
+
+    @Override
+    protected void setUp() throws Exception {
+        // Creating an API is stubbed, and takes a while, so that the creations overlap
+        publisher = new APIManagerStartupPublisher(THREADS, Executors.defaultThreadFactory()) {
+            @Override
+            boolean createAPI(StartupAPI api) {
+                int running = runningCreations.incrementAndGet();
+                synchronized (maxRunningCreations) {
+                    maxRunningCreations.set(Math.max(maxRunningCreations.get(), running));
+                }
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    runningCreations.decrementAndGet();
+                }
+                if (failingContexts.contains(api.getContext())) {
+                    return false;
+                }
+                createdContexts.add(api.getContext());
+                existingContexts.add(api.getContext());
+                return true;
+            }
+
+            @Override
+            boolean isContextExist(String apiContext) {
+                return existingContexts.contains(apiContext);
+            }
+        };
+    }
+
+    public void testAPIsAreCreatedInParallel() throws Exception {
+        publisher.createAPIs(createAPIs(10));
+
+        assertEquals(10, createdContexts.size());
+        assertEquals(10, existingContexts.size());
+        assertTrue(maxRunningCreations.get() > 1);
+        assertTrue(maxRunningCreations.get() <= THREADS);
+    }
+
+    public void testCreatedAPIsAreSkipped() throws Exception {
+        publisher.createAPIs(createAPIs(5));
+        createdContexts.clear();
+
+        publisher.createAPIs(createAPIs(5));
+        assertTrue(createdContexts.isEmpty());
+    }
+
+    public void testExistingAPIsAreLeftUnchanged() throws Exception {
+        // APIs with the contexts of the startup APIs were added by other means
+        existingContexts.add("/api1");
+        existingContexts.add("/api3");
+        publisher.createAPIs(createAPIs(5));
+        assertEquals(new HashSet<String>(Arrays.asList("/api0", "/api2", "/api4")),
+                new HashSet<String>(createdContexts));
+    }
+
+    public void testDeletedAPIsAreCreatedAgain() throws Exception {
+        publisher.createAPIs(createAPIs(5));
+        createdContexts.clear();
+
+        existingContexts.remove("/api1");
+        existingContexts.remove("/api4");
+        publisher.createAPIs(createAPIs(5));
+        assertEquals(new HashSet<String>(Arrays.asList("/api1", "/api4")),
+                new HashSet<String>(createdContexts));
+        assertEquals(5, existingContexts.size());
+    }
+
+    public void testFailedStartupIsResumed() throws Exception {
+        failingContexts.add("/api3");
+        failingContexts.add("/api7");
+        publisher.createAPIs(createAPIs(10));
+        assertEquals(8, existingContexts.size());
+        assertFalse(existingContexts.contains("/api3"));
+
+        createdContexts.clear();
+        failingContexts.clear();
+        publisher.createAPIs(createAPIs(10));
+        assertEquals(new HashSet<String>(Arrays.asList("/api3", "/api7")),
+                new HashSet<String>(createdContexts));
+        assertEquals(10, existingContexts.size());
+    }
+
+    private static List<StartupAPI> createAPIs(int count) {
+        List<StartupAPI> apis = new ArrayList<StartupAPI>();
+        for (int i = 0; i < count; i++) {
+            apis.add(new StartupAPI("api" + i, "admin", "1.0.0", "http://localhost:8280", "/api" + i, "none", "none",
+                    "Any"));
+        }
+        return apis;
+    }
+}
@@ -7,6 +7,7 @@ import org.wso2.carbon.throttle.service.factories.BlockApiServiceFactory;
 import io.swagger.annotations.ApiParam;
 
 import org.wso2.carbon.throttle.service.dto.BlockConditionsDTO;
+import org.wso2.carbon.throttle.service.dto.BlockConditionsDeltaDTO;
 
 import java.util.List;
 
@@ -37,5 +38,17 @@ public class BlockApi  {
     {
     return delegate.blockGet();
     }
+    @GET
+    @Path("/delta")
+    
+    @Produces({ "application/json" })
+    @io.swagger.annotations.ApiOperation(value = "Changes to the blocking conditions since a revision", notes = "This will provide the blocking conditions added and removed since the given revision, or all the blocking\nconditions if the changes since the revision are no longer known.", response = BlockConditionsDeltaDTO.class)
+    @io.swagger.annotations.ApiResponses(value = { 
+        @io.swagger.annotations.ApiResponse(code = 200, message = "Blocking conditions changed since the revision") })
+
+    public Response blockDeltaGet(@ApiParam(value = "Revision returned by the previous call. All the blocking conditions are returned if it is not given.") @QueryParam("revision") String revision)
+    {
+    return delegate.blockDeltaGet(revision);
+    }
 }
 
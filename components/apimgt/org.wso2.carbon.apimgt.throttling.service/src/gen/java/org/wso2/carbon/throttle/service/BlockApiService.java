@@ -4,6 +4,7 @@ import org.wso2.carbon.throttle.service.*;
 import org.wso2.carbon.throttle.service.dto.*;
 
 import org.wso2.carbon.throttle.service.dto.BlockConditionsDTO;
+import org.wso2.carbon.throttle.service.dto.BlockConditionsDeltaDTO;
 
 import java.util.List;
 
@@ -14,5 +15,6 @@ import javax.ws.rs.core.Response;
 
 public abstract class BlockApiService {
     public abstract Response blockGet();
+    public abstract Response blockDeltaGet(String revision);
 }
 
@@ -7,6 +7,7 @@ import org.wso2.carbon.throttle.service.factories.KeyTemplatesApiServiceFactory;
 import io.swagger.annotations.ApiParam;
 
 import org.wso2.carbon.throttle.service.dto.ErrorDTO;
+import org.wso2.carbon.throttle.service.dto.KeyTemplatesDeltaDTO;
 
 import java.util.List;
 
@@ -39,5 +40,17 @@ public class KeyTemplatesApi  {
     {
     return delegate.keyTemplatesGet();
     }
+    @GET
+    @Path("/delta")
+    
+    @Produces({ "application/json" })
+    @io.swagger.annotations.ApiOperation(value = "Changes to the key templates since a revision", notes = "This will provide the key templates added and removed since the given revision, or all the key templates\nif the changes since the revision are no longer known.", response = KeyTemplatesDeltaDTO.class)
+    @io.swagger.annotations.ApiResponses(value = { 
+        @io.swagger.annotations.ApiResponse(code = 200, message = "Key templates changed since the revision") })
+
+    public Response keyTemplatesDeltaGet(@ApiParam(value = "Revision returned by the previous call. All the key templates are returned if it is not given.") @QueryParam("revision") String revision)
+    {
+    return delegate.keyTemplatesDeltaGet(revision);
+    }
 }
 
@@ -4,6 +4,7 @@ import org.wso2.carbon.throttle.service.*;
 import org.wso2.carbon.throttle.service.dto.*;
 
 import org.wso2.carbon.throttle.service.dto.ErrorDTO;
+import org.wso2.carbon.throttle.service.dto.KeyTemplatesDeltaDTO;
 
 import java.util.List;
 
@@ -14,5 +15,6 @@ import javax.ws.rs.core.Response;
 
 public abstract class KeyTemplatesApiService {
     public abstract Response keyTemplatesGet();
+    public abstract Response keyTemplatesDeltaGet(String revision);
 }
 
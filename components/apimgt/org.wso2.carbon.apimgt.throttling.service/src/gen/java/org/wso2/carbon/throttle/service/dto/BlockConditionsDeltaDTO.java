@@ -0,0 +1,92 @@
+package org.wso2.carbon.throttle.service.dto;
+
+import org.wso2.carbon.throttle.service.dto.BlockConditionsDTO;
+
+import io.swagger.annotations.*;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import javax.validation.constraints.NotNull;
+
+
+
+@ApiModel(description = "")
+public class BlockConditionsDeltaDTO  {
+  
+  
+  
+  private String revision = null;
+  
+  
+  private Boolean fullSnapshot = null;
+  
+  
+  private BlockConditionsDTO added = null;
+  
+  
+  private BlockConditionsDTO removed = null;
+
+  
+  /**
+   * Revision to be given in the next call.
+   **/
+  @ApiModelProperty(value = "Revision to be given in the next call.")
+  @JsonProperty("revision")
+  public String getRevision() {
+    return revision;
+  }
+  public void setRevision(String revision) {
+    this.revision = revision;
+  }
+
+  
+  /**
+   * True if added contains all the blocking conditions, and anything else is to be removed.
+   **/
+  @ApiModelProperty(value = "True if added contains all the blocking conditions, and anything else is to be removed.")
+  @JsonProperty("fullSnapshot")
+  public Boolean getFullSnapshot() {
+    return fullSnapshot;
+  }
+  public void setFullSnapshot(Boolean fullSnapshot) {
+    this.fullSnapshot = fullSnapshot;
+  }
+
+  
+  /**
+   **/
+  @ApiModelProperty(value = "")
+  @JsonProperty("added")
+  public BlockConditionsDTO getAdded() {
+    return added;
+  }
+  public void setAdded(BlockConditionsDTO added) {
+    this.added = added;
+  }
+
+  
+  /**
+   **/
+  @ApiModelProperty(value = "")
+  @JsonProperty("removed")
+  public BlockConditionsDTO getRemoved() {
+    return removed;
+  }
+  public void setRemoved(BlockConditionsDTO removed) {
+    this.removed = removed;
+  }
+
+  
+
+  @Override
+  public String toString()  {
+    StringBuilder sb = new StringBuilder();
+    sb.append("class BlockConditionsDeltaDTO {\n");
+    
+    sb.append("  revision: ").append(revision).append("\n");
+    sb.append("  fullSnapshot: ").append(fullSnapshot).append("\n");
+    sb.append("  added: ").append(added).append("\n");
+    sb.append("  removed: ").append(removed).append("\n");
+    sb.append("}\n");
+    return sb.toString();
+  }
+}
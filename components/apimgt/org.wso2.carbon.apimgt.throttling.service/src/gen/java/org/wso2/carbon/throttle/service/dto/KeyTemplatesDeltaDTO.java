@@ -0,0 +1,92 @@
+package org.wso2.carbon.throttle.service.dto;
+
+import java.util.*;
+
+import io.swagger.annotations.*;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import javax.validation.constraints.NotNull;
+
+
+
+@ApiModel(description = "")
+public class KeyTemplatesDeltaDTO  {
+  
+  
+  
+  private String revision = null;
+  
+  
+  private Boolean fullSnapshot = null;
+  
+  
+  private List<String> added = new ArrayList<String>();
+  
+  
+  private List<String> removed = new ArrayList<String>();
+
+  
+  /**
+   * Revision to be given in the next call.
+   **/
+  @ApiModelProperty(value = "Revision to be given in the next call.")
+  @JsonProperty("revision")
+  public String getRevision() {
+    return revision;
+  }
+  public void setRevision(String revision) {
+    this.revision = revision;
+  }
+
+  
+  /**
+   * True if added contains all the key templates, and anything else is to be removed.
+   **/
+  @ApiModelProperty(value = "True if added contains all the key templates, and anything else is to be removed.")
+  @JsonProperty("fullSnapshot")
+  public Boolean getFullSnapshot() {
+    return fullSnapshot;
+  }
+  public void setFullSnapshot(Boolean fullSnapshot) {
+    this.fullSnapshot = fullSnapshot;
+  }
+
+  
+  /**
+   **/
+  @ApiModelProperty(value = "")
+  @JsonProperty("added")
+  public List<String> getAdded() {
+    return added;
+  }
+  public void setAdded(List<String> added) {
+    this.added = added;
+  }
+
+  
+  /**
+   **/
+  @ApiModelProperty(value = "")
+  @JsonProperty("removed")
+  public List<String> getRemoved() {
+    return removed;
+  }
+  public void setRemoved(List<String> removed) {
+    this.removed = removed;
+  }
+
+  
+
+  @Override
+  public String toString()  {
+    StringBuilder sb = new StringBuilder();
+    sb.append("class KeyTemplatesDeltaDTO {\n");
+    
+    sb.append("  revision: ").append(revision).append("\n");
+    sb.append("  fullSnapshot: ").append(fullSnapshot).append("\n");
+    sb.append("  added: ").append(added).append("\n");
+    sb.append("  removed: ").append(removed).append("\n");
+    sb.append("}\n");
+    return sb.toString();
+  }
+}
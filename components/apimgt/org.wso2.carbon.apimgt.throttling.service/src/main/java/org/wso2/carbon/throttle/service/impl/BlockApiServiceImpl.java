@@ -1,5 +1,7 @@
 package org.wso2.carbon.throttle.service.impl;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.throttle.service.*;
 import org.wso2.carbon.throttle.service.dto.*;
 
@@ -9,14 +11,28 @@ import org.wso2.carbon.throttle.service.dto.BlockConditionsDTO;
 import java.util.List;
 
 import java.io.InputStream;
+import java.sql.SQLException;
 import org.apache.cxf.jaxrs.ext.multipart.Attachment;
 
 import javax.ws.rs.core.Response;
 
 public class BlockApiServiceImpl extends BlockApiService {
+
+    private static final Log log = LogFactory.getLog(BlockApiServiceImpl.class);
+
     @Override
     public Response blockGet(){
 
         return Response.ok().entity(BlockConditionDBUtil.getBlockConditionsDTO()).build();
     }
+
+    @Override
+    public Response blockDeltaGet(String revision) {
+        try {
+            return Response.ok().entity(BlockConditionDBUtil.getBlockConditionsDelta(revision)).build();
+        } catch (SQLException e) {
+            log.error("Error while retrieving the blocking conditions changed since revision " + revision, e);
+            return Response.serverError().build();
+        }
+    }
 }
@@ -22,6 +22,8 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.springframework.core.io.ClassPathResource;
 import org.wso2.carbon.throttle.service.dto.BlockConditionsDTO;
+import org.wso2.carbon.throttle.service.dto.BlockConditionsDeltaDTO;
+import org.wso2.carbon.throttle.service.dto.KeyTemplatesDeltaDTO;
 
 import javax.naming.Context;
 import javax.naming.InitialContext;
@@ -45,6 +47,9 @@ public final class BlockConditionDBUtil {
     private static BlockConditionsDTO blockConditionsDTO = null;
     private static Set<String> keyTemplates;
     private static final String GET_GLOBAL_POLICY_KEY_TEMPLATES = " SELECT KEY_TEMPLATE FROM AM_POLICY_GLOBAL";
+    private static final String BLOCK_CONDITION_TYPE_SEPARATOR = ":";
+    private static final RevisionLog blockConditionsRevisionLog = new RevisionLog();
+    private static final RevisionLog keyTemplatesRevisionLog = new RevisionLog();
 
     public static void initialize() throws Exception {
         if (dataSource != null) {
@@ -95,14 +100,45 @@ public final class BlockConditionDBUtil {
     }
 
     public static BlockConditionsDTO getBlockConditions() {
+        Set<String> blockConditions = new HashSet<>();
+        try {
+            readBlockConditions(blockConditions);
+        } catch (SQLException e) {
+            log.error("Error while executing SQL", e);
+        }
+        BlockConditionDBUtil.blockConditionsDTO = toBlockConditionsDTO(blockConditions);
+        return blockConditionsDTO;
+    }
+
+    /**
+     * Retrieves the blocking conditions added and removed since the given revision
+     *
+     * @param revision revision returned by an earlier call, or null to get all the blocking conditions
+     * @return blocking conditions changed since the revision
+     * @throws SQLException if the blocking conditions could not be read
+     */
+    public static BlockConditionsDeltaDTO getBlockConditionsDelta(String revision) throws SQLException {
+        Set<String> blockConditions = new HashSet<>();
+        readBlockConditions(blockConditions);
+        RevisionLog.Delta delta = blockConditionsRevisionLog.update(blockConditions, revision);
+        BlockConditionsDeltaDTO blockConditionsDeltaDTO = new BlockConditionsDeltaDTO();
+        blockConditionsDeltaDTO.setRevision(delta.getRevision());
+        blockConditionsDeltaDTO.setFullSnapshot(delta.isFullSnapshot());
+        blockConditionsDeltaDTO.setAdded(toBlockConditionsDTO(delta.getAdded()));
+        blockConditionsDeltaDTO.setRemoved(toBlockConditionsDTO(delta.getRemoved()));
+        return blockConditionsDeltaDTO;
+    }
+
+    /**
+     * Reads the enabled blocking conditions, each prefixed with its type
+     *
+     * @param blockConditions set to add the blocking conditions to
+     * @throws SQLException if the blocking conditions could not be read
+     */
+    private static void readBlockConditions(Set<String> blockConditions) throws SQLException {
         Connection conn = null;
         PreparedStatement ps = null;
         ResultSet rs = null;
-        List api = new ArrayList();
-        List application = new ArrayList();
-        List ip = new ArrayList();
-        List user = new ArrayList();
-        List custom = new ArrayList();
         String sqlQuery = "select * from AM_BLOCK_CONDITIONS";
         try {
             conn = BlockConditionDBUtil.getConnection();
@@ -114,25 +150,40 @@ public final class BlockConditionDBUtil {
                 String enabled = rs.getString("ENABLED");
                 String tenantDomain = rs.getString("DOMAIN");
                 if (Boolean.parseBoolean(enabled)) {
-                    if ("API".equals(type)) {
-                        api.add(value);
-                    } else if ("APPLICATION".equals(type)) {
-                        application.add(value);
-                    } else if ("IP".equals(type)) {
-                        ip.add(tenantDomain + ":" + value);
-                    } else if ("USER".equals(type)) {
-                        user.add(value);
-                    } else if ("CUSTOM".equals(type)) {
-                        custom.add(value);
+                    if ("IP".equals(type)) {
+                        value = tenantDomain + ":" + value;
                     }
+                    blockConditions.add(type + BLOCK_CONDITION_TYPE_SEPARATOR + value);
                 }
             }
-        } catch (SQLException e) {
-            log.error("Error while executing SQL", e);
         } finally {
             BlockConditionDBUtil.closeAllConnections(ps, conn, rs);
         }
-        BlockConditionDBUtil.blockConditionsDTO = new BlockConditionsDTO();
+    }
+
+    private static BlockConditionsDTO toBlockConditionsDTO(Set<String> blockConditions) {
+        List api = new ArrayList();
+        List application = new ArrayList();
+        List ip = new ArrayList();
+        List user = new ArrayList();
+        List custom = new ArrayList();
+        for (String blockCondition : blockConditions) {
+            int separatorIndex = blockCondition.indexOf(BLOCK_CONDITION_TYPE_SEPARATOR);
+            String type = blockCondition.substring(0, separatorIndex);
+            String value = blockCondition.substring(separatorIndex + 1);
+            if ("API".equals(type)) {
+                api.add(value);
+            } else if ("APPLICATION".equals(type)) {
+                application.add(value);
+            } else if ("IP".equals(type)) {
+                ip.add(value);
+            } else if ("USER".equals(type)) {
+                user.add(value);
+            } else if ("CUSTOM".equals(type)) {
+                custom.add(value);
+            }
+        }
+        BlockConditionsDTO blockConditionsDTO = new BlockConditionsDTO();
         blockConditionsDTO.setApi(api);
         blockConditionsDTO.setApplication(application);
         blockConditionsDTO.setIp(ip);
@@ -207,6 +258,25 @@ public final class BlockConditionDBUtil {
 
     }
 
+    /**
+     * Retrieves the key templates added and removed since the given revision
+     *
+     * @param revision revision returned by an earlier call, or null to get all the key templates
+     * @return key templates changed since the revision
+     * @throws SQLException if the key templates could not be read
+     */
+    public static KeyTemplatesDeltaDTO getKeyTemplatesDelta(String revision) throws SQLException {
+        Set<String> globalPolicyKeyTemplates = new HashSet<>();
+        readGlobalPolicyKeyTemplates(globalPolicyKeyTemplates);
+        RevisionLog.Delta delta = keyTemplatesRevisionLog.update(globalPolicyKeyTemplates, revision);
+        KeyTemplatesDeltaDTO keyTemplatesDeltaDTO = new KeyTemplatesDeltaDTO();
+        keyTemplatesDeltaDTO.setRevision(delta.getRevision());
+        keyTemplatesDeltaDTO.setFullSnapshot(delta.isFullSnapshot());
+        keyTemplatesDeltaDTO.setAdded(new ArrayList<String>(delta.getAdded()));
+        keyTemplatesDeltaDTO.setRemoved(new ArrayList<String>(delta.getRemoved()));
+        return keyTemplatesDeltaDTO;
+    }
+
     /**
      * Retrieves global policy key templates for the given tenantID
      *
@@ -215,6 +285,15 @@ public final class BlockConditionDBUtil {
     public static Set<String> getGlobalPolicyKeyTemplates() {
 
         keyTemplates = new HashSet<>();
+        try {
+            readGlobalPolicyKeyTemplates(keyTemplates);
+        } catch (SQLException e) {
+            log.error("Error while executing SQL", e);
+        }
+        return keyTemplates;
+    }
+
+    private static void readGlobalPolicyKeyTemplates(Set<String> globalPolicyKeyTemplates) throws SQLException {
         Connection conn = null;
         PreparedStatement ps = null;
         ResultSet rs = null;
@@ -227,13 +306,10 @@ public final class BlockConditionDBUtil {
             ps = conn.prepareStatement(sqlQuery);
             rs = ps.executeQuery();
             while (rs.next()) {
-                keyTemplates.add(rs.getString("KEY_TEMPLATE"));
+                globalPolicyKeyTemplates.add(rs.getString("KEY_TEMPLATE"));
             }
-        } catch (SQLException e) {
-            log.error("Error while executing SQL", e);
         } finally {
             BlockConditionDBUtil.closeAllConnections(ps, conn, rs);
         }
-        return keyTemplates;
     }
 }
@@ -1,12 +1,28 @@
 package org.wso2.carbon.throttle.service.impl;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.throttle.service.KeyTemplatesApiService;
 
+import java.sql.SQLException;
 import javax.ws.rs.core.Response;
 
 public class KeyTemplatesApiServiceImpl extends KeyTemplatesApiService {
+
+    private static final Log log = LogFactory.getLog(KeyTemplatesApiServiceImpl.class);
+
     @Override
     public Response keyTemplatesGet(){
         return Response.ok().entity(BlockConditionDBUtil.getKeyTemplates()).build();
     }
+
+    @Override
+    public Response keyTemplatesDeltaGet(String revision) {
+        try {
+            return Response.ok().entity(BlockConditionDBUtil.getKeyTemplatesDelta(revision)).build();
+        } catch (SQLException e) {
+            log.error("Error while retrieving the key templates changed since revision " + revision, e);
+            return Response.serverError().build();
+        }
+    }
 }
@@ -0,0 +1,175 @@
+/*
+*  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.throttle.service.impl;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Keeps the latest snapshot of a set of throttle data entries, such as blocking conditions or key templates, and the
+ * changes made to it in the last {@link #MAX_RETAINED_CHANGES} revisions. Each change to the snapshot gets the next
+ * revision, so that a Gateway which has seen a revision can be sent only what changed after it.
+ * <p/>
+ * Revisions are only meaningful within this instance. A revision handed out by another instance, e.g. before the
+ * web app was restarted, is answered with the full snapshot.
+ */
+public class RevisionLog {
+
+    static final int MAX_RETAINED_CHANGES = 100;
+
+    private static final char REVISION_SEPARATOR = ':';
+
+    private final String epoch = UUID.randomUUID().toString();
+
+    private final LinkedList<Change> changes = new LinkedList<>();
+
+    private Set<String> snapshot = Collections.emptySet();
+
+    private long revision;
+
+    /**
+     * Records the latest snapshot, and returns what changed since the given revision.
+     *
+     * @param latestSnapshot entries as they are now
+     * @param sinceRevision  revision returned by an earlier call, or null to get all the entries
+     * @return entries added and removed since the revision, or all the entries if the changes since the revision are
+     * not known
+     */
+    public synchronized Delta update(Set<String> latestSnapshot, String sinceRevision) {
+        Set<String> added = new HashSet<>(latestSnapshot);
+        added.removeAll(snapshot);
+        Set<String> removed = new HashSet<>(snapshot);
+        removed.removeAll(latestSnapshot);
+        if (!added.isEmpty() || !removed.isEmpty()) {
+            revision++;
+            changes.addLast(new Change(revision, added, removed));
+            if (changes.size() > MAX_RETAINED_CHANGES) {
+                changes.removeFirst();
+            }
+            snapshot = new HashSet<>(latestSnapshot);
+        }
+        return getDelta(sinceRevision);
+    }
+
+    private Delta getDelta(String sinceRevision) {
+        String currentRevision = epoch + REVISION_SEPARATOR + revision;
+        long since = parseRevision(sinceRevision);
+        // The changes since the revision are known if no change after it has been dropped from the log
+        long oldestKnownRevision = changes.isEmpty() ? revision : changes.getFirst().revision - 1;
+        if (since < oldestKnownRevision || since > revision) {
+            return new Delta(currentRevision, true, new HashSet<>(snapshot), Collections.<String>emptySet());
+        }
+
+        Set<String> added = new HashSet<>();
+        Set<String> removed = new HashSet<>();
+        for (Change change : changes) {
+            if (change.revision <= since) {
+                continue;
+            }
+            for (String entry : change.added) {
+                // An entry removed and added back after the revision is unchanged
+                if (!removed.remove(entry)) {
+                    added.add(entry);
+                }
+            }
+            for (String entry : change.removed) {
+                // An entry added and removed again after the revision is unchanged
+                if (!added.remove(entry)) {
+                    removed.add(entry);
+                }
+            }
+        }
+        return new Delta(currentRevision, false, added, removed);
+    }
+
+    /**
+     * @return the revision number of a revision handed out by this instance, or -1 if it was not handed out by this
+     * instance
+     */
+    private long parseRevision(String sinceRevision) {
+        if (sinceRevision == null) {
+            return -1;
+        }
+        int separatorIndex = sinceRevision.lastIndexOf(REVISION_SEPARATOR);
+        if (separatorIndex < 0 || !epoch.equals(sinceRevision.substring(0, separatorIndex))) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(sinceRevision.substring(separatorIndex + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static final class Change {
+
+        private final long revision;
+        private final Set<String> added;
+        private final Set<String> removed;
+
+        private Change(long revision, Set<String> added, Set<String> removed) {
+            this.revision = revision;
+            this.added = added;
+            this.removed = removed;
+        }
+    }
+
+    /**
+     * Entries changed since a revision.
+     */
+    public static final class Delta {
+
+        private final String revision;
+        private final boolean fullSnapshot;
+        private final Set<String> added;
+        private final Set<String> removed;
+
+        Delta(String revision, boolean fullSnapshot, Set<String> added, Set<String> removed) {
+            this.revision = revision;
+            this.fullSnapshot = fullSnapshot;
+            this.added = added;
+            this.removed = removed;
+        }
+
+        /**
+         * @return revision to be given to get the next delta
+         */
+        public String getRevision() {
+            return revision;
+        }
+
+        /**
+         * @return true if {@link #getAdded()} contains all the entries, and any other entry is to be removed
+         */
+        public boolean isFullSnapshot() {
+            return fullSnapshot;
+        }
+
+        public Set<String> getAdded() {
+            return added;
+        }
+
+        public Set<String> getRemoved() {
+            return removed;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+*  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.throttle.service.impl;
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+public class RevisionLogTest extends TestCase {
+
+    public void testFirstCallReturnsFullSnapshot() {
+        RevisionLog revisionLog = new RevisionLog();
+        RevisionLog.Delta delta = revisionLog.update(entries("a", "b"), null);
+        assertTrue(delta.isFullSnapshot());
+        assertEquals(entries("a", "b"), delta.getAdded());
+        assertTrue(delta.getRemoved().isEmpty());
+    }
+
+    public void testUnchangedSnapshotReturnsEmptyDeltaWithSameRevision() {
+        RevisionLog revisionLog = new RevisionLog();
+        String revision = revisionLog.update(entries("a", "b"), null).getRevision();
+        RevisionLog.Delta delta = revisionLog.update(entries("a", "b"), revision);
+        assertFalse(delta.isFullSnapshot());
+        assertEquals(revision, delta.getRevision());
+        assertTrue(delta.getAdded().isEmpty());
+        assertTrue(delta.getRemoved().isEmpty());
+    }
+
+    public void testChangesAreMergedSinceRevision() {
+        RevisionLog revisionLog = new RevisionLog();
+        String revision = revisionLog.update(entries("a", "b", "c"), null).getRevision();
+        revisionLog.update(entries("a", "c", "d"), null);
+        revisionLog.update(entries("a", "b", "c", "d", "e"), null);
+        RevisionLog.Delta delta = revisionLog.update(entries("c", "d", "e", "f"), revision);
+        assertFalse(delta.isFullSnapshot());
+        // "b" was removed and added back, so it is only removed by the last change
+        assertEquals(entries("d", "e", "f"), delta.getAdded());
+        assertEquals(entries("a", "b"), delta.getRemoved());
+        assertFalse(revision.equals(delta.getRevision()));
+    }
+
+    public void testEntryAddedAndRemovedSinceRevisionIsNotReported() {
+        RevisionLog revisionLog = new RevisionLog();
+        String revision = revisionLog.update(entries("a"), null).getRevision();
+        revisionLog.update(entries("a", "b"), null);
+        RevisionLog.Delta delta = revisionLog.update(entries("a"), revision);
+        assertFalse(delta.isFullSnapshot());
+        assertTrue(delta.getAdded().isEmpty());
+        assertTrue(delta.getRemoved().isEmpty());
+    }
+
+    public void testRevisionOlderThanRetainedChangesReturnsFullSnapshot() {
+        RevisionLog revisionLog = new RevisionLog();
+        String revision = revisionLog.update(entries("initial"), null).getRevision();
+        for (int i = 0; i <= RevisionLog.MAX_RETAINED_CHANGES; i++) {
+            revisionLog.update(entries("initial", "entry" + i), null);
+        }
+        RevisionLog.Delta delta = revisionLog.update(entries("initial", "last"), revision);
+        assertTrue(delta.isFullSnapshot());
+        assertEquals(entries("initial", "last"), delta.getAdded());
+    }
+
+    public void testRevisionOfAnotherInstanceReturnsFullSnapshot() {
+        String revision = new RevisionLog().update(entries("a"), null).getRevision();
+        RevisionLog.Delta delta = new RevisionLog().update(entries("a", "b"), revision);
+        assertTrue(delta.isFullSnapshot());
+        assertEquals(entries("a", "b"), delta.getAdded());
+
+        delta = new RevisionLog().update(entries("a"), "not a revision");
+        assertTrue(delta.isFullSnapshot());
+    }
+
+    public void testEmptySnapshotIsReportedAsFullSnapshot() {
+        RevisionLog revisionLog = new RevisionLog();
+        RevisionLog.Delta delta = revisionLog.update(Collections.<String>emptySet(), null);
+        assertTrue(delta.isFullSnapshot());
+        assertTrue(delta.getAdded().isEmpty());
+    }
+
+    private static Set<String> entries(String... entries) {
+        return new HashSet<String>(Arrays.asList(entries));
+    }
+}
@@ -813,7 +813,7 @@ public abstract class APIUsageStatisticsClient {
                     String user = configs.getDasServerUser();
                     char[] pass = configs.getDasServerPassword().toCharArray();
                     //crete new restClient instance
-                    alertRestClient = new DASRestClient(url, user, pass);
+                    alertRestClient = DASRestClient.getInstance(url, user, pass);
                 }
             }
             result = alertRestClient.doPost(request);
@@ -852,7 +852,7 @@ public abstract class APIUsageStatisticsClient {
                     String user = configs.getDasServerUser();
                     char[] pass = configs.getDasServerPassword().toCharArray();
                     //crete new restClient instance
-                    alertRestClient = new DASRestClient(url, user, pass);
+                    alertRestClient = DASRestClient.getInstance(url, user, pass);
                 }
             }
             result = alertRestClient.doPost(request);
@@ -20,39 +20,61 @@ package org.wso2.carbon.apimgt.usage.client;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
-import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
 import org.apache.axis2.util.URL;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.apache.http.HttpResponse;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.client.protocol.HttpClientContext;
-import org.apache.http.entity.StringEntity;
+import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
 import org.wso2.carbon.apimgt.impl.utils.APIUtil;
 import org.wso2.carbon.apimgt.usage.client.bean.*;
 import org.wso2.carbon.apimgt.usage.client.util.RestClientUtil;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 /**
  * This class contain the actual Client side implementation for the DAS rest client.
+ * <p/>
+ * Connections to DAS are pooled and kept alive between requests, so a client is meant to be shared through
+ * {@link #getInstance(String, String, char[])}. Responses are deserialized as they are read from the connection.
+ * Identical requests made while one is in progress wait for its response instead of being sent again.
  */
 public class DASRestClient {
+    private static final Log log = LogFactory.getLog(DASRestClient.class);
+
+    private static final int MAX_CONNECTIONS = 20;
+
+    /** Time for which the result of a table existence check is reused */
+    private static final long TABLE_EXISTENCE_CACHE_TIMEOUT = 60 * 1000;
+
+    private static final String CHARSET = "UTF-8";
+
+    private static final ConcurrentMap<String, DASRestClient> clients = new ConcurrentHashMap<String, DASRestClient>();
+
     private CloseableHttpClient httpClient;
     private String dasUrl;
     private String user;
     private char[] pass;
     private final Gson gson = new Gson();
-    private static final Log log = LogFactory.getLog(DASRestClient.class);
+    private final ConcurrentMap<String, FutureTask<?>> inFlightRequests = new ConcurrentHashMap<String, FutureTask<?>>();
+    private final ConcurrentMap<String, TableExistence> tableExistences =
+            new ConcurrentHashMap<String, TableExistence>();
 
     /**
      * get instance providing DAS configuration
@@ -63,12 +85,34 @@ public class DASRestClient {
      */
     public DASRestClient(String url, String user, char[] pass) {
         URL dasURL = new URL(url);
-        httpClient = (CloseableHttpClient) APIUtil.getHttpClient(dasURL.getPort(), dasURL.getProtocol());
+        httpClient = (CloseableHttpClient) APIUtil.getHttpClient(dasURL.getPort(), dasURL.getProtocol(),
+                MAX_CONNECTIONS);
         this.dasUrl = url;
         this.user = user;
         this.pass = pass;
     }
 
+    /**
+     * Returns the client shared by all the callers of the DAS REST API at the given location
+     *
+     * @param url  DAS rest api location
+     * @param user DAS rest api username
+     * @param pass DAs rest api password
+     * @return the shared client
+     */
+    public static DASRestClient getInstance(String url, String user, char[] pass) {
+        String key = url + '\n' + user;
+        DASRestClient client = clients.get(key);
+        if (client == null) {
+            client = new DASRestClient(url, user, pass);
+            DASRestClient existingClient = clients.putIfAbsent(key, client);
+            if (existingClient != null) {
+                client = existingClient;
+            }
+        }
+        return client;
+    }
+
     /**
      * Do a post request to the DAS REST
      *
@@ -82,18 +126,12 @@ public class DASRestClient {
             log.debug("Sending Lucene Query : " + json);
         }
         HttpPost postRequest = new HttpPost(url);
-        HttpContext context = HttpClientContext.create();
-
-        //get the encoded basic authentication
-        String cred = RestClientUtil.encodeCredentials(this.user, this.pass);
-        postRequest.addHeader(APIUsageStatisticsClientConstants.HTTP_AUTH_HEADER_NAME,
-                APIUsageStatisticsClientConstants.HTTP_AUTH_HEADER_TYPE + ' ' + cred);
-        StringEntity input = new StringEntity(json);
+        ByteArrayEntity input = new ByteArrayEntity(json.getBytes(CHARSET));
         input.setContentType(APIUsageStatisticsClientConstants.APPLICATION_JSON);
         postRequest.setEntity(input);
 
         //send the request
-        return httpClient.execute(postRequest, context);
+        return execute(postRequest);
     }
 
     /**
@@ -107,34 +145,7 @@ public class DASRestClient {
      * @throws IOException           throws if connection error occur
      */
     <T> List<Result<T>> parse(CloseableHttpResponse response, Type type) throws IllegalStateException, IOException {
-        BufferedReader reader = null;
-        List<Result<T>> obj;
-        try {
-            //get the buffed reader form the HttpResponse
-            reader = new BufferedReader(new InputStreamReader(response.getEntity().getContent()));
-            //conversion from the json to JAVA objects
-            obj = gson.fromJson(reader, type);
-        } finally {
-            if (reader != null) {
-                try {
-                    //close the buffered reader
-                    reader.close();
-                } catch (IOException e) {
-                    //this is logged and the process is continued because parsing is done
-                    log.error("Error occurred while closing the buffers reader.", e);
-                }
-            }
-            if (response != null) {
-                try {
-                    //close the response reader
-                    response.close();
-                } catch (IOException e) {
-                    //this is logged and the process is continued because parsing is done
-                    log.error("Error occurred while closing the response.", e);
-                }
-            }
-        }
-        return obj;
+        return readJson(response, type);
     }
 
     /**
@@ -147,22 +158,31 @@ public class DASRestClient {
      * @throws JsonSyntaxException throws if error occur parsing response back to the java
      * @throws IOException         throws if connection error occur to the REST API
      */
-    public <T> List<Result<T>> doPost(SearchRequestBean request, Type type) throws JsonSyntaxException, IOException {
+    public <T> List<Result<T>> doPost(final SearchRequestBean request, final Type type)
+            throws JsonSyntaxException, IOException {
         //get the json string of the request object
-        String json = gson.toJson(request);
+        final String json = gson.toJson(request);
+        final String url = dasUrl + APIUsageStatisticsClientConstants.DAS_AGGREGATES_SEARCH_REST_API_URL;
 
-        //doing a post request on the aggregate REST API
-        CloseableHttpResponse response = post(json,
-                dasUrl + APIUsageStatisticsClientConstants.DAS_AGGREGATES_SEARCH_REST_API_URL);
+        List<Result<T>> results = executeOnce(url + '\n' + type + '\n' + json, new Callable<List<Result<T>>>() {
+            @Override
+            public List<Result<T>> call() throws IOException {
+                //doing a post request on the aggregate REST API
+                CloseableHttpResponse response = post(json, url);
 
-        //check the status code of the response
-        if (response.getStatusLine().getStatusCode() == 500) {
-            log.warn("DAS internal Server Error, Table '" + request.getTableName() + "' may not contain any Records.");
-            return new ArrayList<Result<T>>();
-        }
+                //check the status code of the response
+                if (response.getStatusLine().getStatusCode() == 500) {
+                    release(response);
+                    log.warn("DAS internal Server Error, Table '" + request.getTableName() +
+                            "' may not contain any Records.");
+                    return new ArrayList<Result<T>>();
+                }
 
-        //parse the response back to the java objects
-        return parse(response, type);
+                //parse the response back to the java objects
+                return parse(response, type);
+            }
+        });
+        return copyOf(results);
     }
 
     /**
@@ -175,16 +195,20 @@ public class DASRestClient {
      * @throws JsonSyntaxException throws if error occur parsing response back to the java
      * @throws IOException         throws if connection error occur to the REST API
      */
-    public <T> List<Result<T>> doPost(RequestSearchBean request, Type type)
+    public <T> List<Result<T>> doPost(RequestSearchBean request, final Type type)
             throws JsonSyntaxException, IOException {
         //get the json string of the request object
-        String json = gson.toJson(request);
+        final String json = gson.toJson(request);
+        final String url = dasUrl + APIUsageStatisticsClientConstants.DAS_SEARCH_REST_API_URL;
 
-        //doing a post request on the Search REST API
-        CloseableHttpResponse response = post(json, dasUrl + APIUsageStatisticsClientConstants.DAS_SEARCH_REST_API_URL);
-
-        //parse the response back to the java objects
-        return parse(response, type);
+        List<Result<T>> results = executeOnce(url + '\n' + type + '\n' + json, new Callable<List<Result<T>>>() {
+            @Override
+            public List<Result<T>> call() throws IOException {
+                //doing a post request on the Search REST API and parse the response back to the java objects
+                return parse(post(json, url), type);
+            }
+        });
+        return copyOf(results);
     }
 
     /**
@@ -195,13 +219,8 @@ public class DASRestClient {
      * @throws IOException
      */
     public String doPost(RequestSortBean request) throws JsonSyntaxException, IOException {
-        //get the json string of the request object
-        String json = gson.toJson(request);
-
         //doing a post request on the Search REST API
-        CloseableHttpResponse response = post(json, dasUrl + APIUsageStatisticsClientConstants.DAS_SEARCH_REST_API_URL);
-        BufferedReader reader = null;
-        return getResponseString(response, reader);
+        return postForString(gson.toJson(request), dasUrl + APIUsageStatisticsClientConstants.DAS_SEARCH_REST_API_URL);
     }
 
     /**
@@ -212,58 +231,38 @@ public class DASRestClient {
      * @throws IOException
      */
     public String doPost(RequestSearchCountBean searchCountBean) throws JsonSyntaxException, IOException {
-        //get the json string of the request object
-        String json = gson.toJson(searchCountBean);
-
         //doing a post request on the Search REST API for the count
-        CloseableHttpResponse response = post(json, dasUrl + APIUsageStatisticsClientConstants.DAS_SEARCH_COUNT_REST_API_URL);
-        BufferedReader reader = null;
-        return getResponseString(response, reader);
+        return postForString(gson.toJson(searchCountBean),
+                dasUrl + APIUsageStatisticsClientConstants.DAS_SEARCH_COUNT_REST_API_URL);
+    }
+
+    private String postForString(final String json, final String url) throws IOException {
+        return executeOnce(url + '\n' + json, new Callable<String>() {
+            @Override
+            public String call() throws IOException {
+                return getResponseString(post(json, url));
+            }
+        });
     }
 
     /**
      * Returns the response as a string.
      * @param response CloseableHttpResponse response
-     * @param reader Buffered Reader
      * @return the response as a string
      * @throws IOException
      */
-    private String getResponseString(CloseableHttpResponse response, BufferedReader reader) throws IOException {
-        String result;
+    private String getResponseString(CloseableHttpResponse response) throws IOException {
         try {
-            // convert the response to a string
-            reader = new BufferedReader(new InputStreamReader(response.getEntity().getContent()));
-            StringBuilder builder = new StringBuilder();
-            String aux;
-            while ((aux = reader.readLine()) != null) {
-                builder.append(aux);
-            }
-            result = builder.toString();
+            // reading the entity to the end releases the connection to be reused
+            return EntityUtils.toString(response.getEntity(), CHARSET);
         } finally {
-            if (reader != null) {
-                try {
-                    //close the buffered reader
-                    reader.close();
-                } catch (IOException e) {
-                    //this is logged and the process is continued because parsing is done
-                    log.error("Error occurred while closing the buffers reader.", e);
-                }
-            }
-            if (response != null) {
-                try {
-                    //close the response reader
-                    response.close();
-                } catch (IOException e) {
-                    //this is logged and the process is continued because parsing is done
-                    log.error("Error occurred while closing the response.", e);
-                }
-            }
+            close(response);
         }
-        return result;
     }
 
     /**
-     * use to check provided Table is present in the DAS Data access layer
+     * use to check provided Table is present in the DAS Data access layer. The result is reused for
+     * {@link #TABLE_EXISTENCE_CACHE_TIMEOUT} milliseconds.
      *
      * @param name Table name
      * @return TableExistResponseBean which contain the row response from the REST API
@@ -271,41 +270,120 @@ public class DASRestClient {
      * @throws IOException         throws if connection problem occur
      */
     public TableExistResponseBean isTableExist(String name) throws JsonSyntaxException, IOException {
+        TableExistence tableExistence = tableExistences.get(name);
+        if (tableExistence != null && tableExistence.expiryTime > System.currentTimeMillis()) {
+            return tableExistence.response;
+        }
+
         //crete the http get request method to REST API
         HttpGet getRequest = new HttpGet(
                 dasUrl + APIUsageStatisticsClientConstants.DAS_TABLE_EXIST_REST_API_URL + "?table=" + name);
 
-        //get the encoded REST API credentials
+        //get the response and pass to java object
+        TableExistResponseBean obj = readJson(execute(getRequest), TableExistResponseBean.class);
+        tableExistences.put(name, new TableExistence(obj, System.currentTimeMillis() + TABLE_EXISTENCE_CACHE_TIMEOUT));
+        return obj;
+    }
+
+    private CloseableHttpResponse execute(HttpUriRequest request) throws IOException {
+        //get the encoded basic authentication
         String cred = RestClientUtil.encodeCredentials(this.user, this.pass);
-        getRequest.addHeader(APIUsageStatisticsClientConstants.HTTP_AUTH_HEADER_NAME,
+        request.addHeader(APIUsageStatisticsClientConstants.HTTP_AUTH_HEADER_NAME,
                 APIUsageStatisticsClientConstants.HTTP_AUTH_HEADER_TYPE + ' ' + cred);
-        TableExistResponseBean obj = null;
-        BufferedReader reader = null;
+        return httpClient.execute(request, HttpClientContext.create());
+    }
+
+    /**
+     * Converts the json of the response to java objects while it is being read from the connection
+     */
+    private <T> T readJson(CloseableHttpResponse response, Type type) throws IOException {
         try {
-            //get the response
-            HttpResponse response = httpClient.execute(getRequest);
+            JsonReader reader = new JsonReader(new InputStreamReader(response.getEntity().getContent(), CHARSET));
+            T obj = gson.fromJson(reader, type);
+            release(response);
+            return obj;
+        } finally {
+            close(response);
+        }
+    }
 
-            //get the buffered reader
-            reader = new BufferedReader(new InputStreamReader(response.getEntity().getContent()));
+    /**
+     * Reads what is left of the response, so that the connection is kept alive to be reused
+     */
+    private void release(CloseableHttpResponse response) throws IOException {
+        EntityUtils.consume(response.getEntity());
+        close(response);
+    }
 
-            //get the expected result type
-            Type type = new TypeToken<TableExistResponseBean>() {
-            }.getType();
+    private void close(CloseableHttpResponse response) {
+        try {
+            //closing the response before it is read to the end drops the connection
+            response.close();
+        } catch (IOException e) {
+            //this is logged and the process is continued because parsing is done
+            log.error("Error occurred while closing the response.", e);
+        }
+    }
 
-            //pass to java object
-            obj = gson.fromJson(reader, type);
-        } finally {
-            if (reader != null) {
-                try {
-                    //close the reader when done
-                    reader.close();
-                } catch (IOException e) {
-                    //this is logged and the process is continued because parsing is done
-                    log.error("Error occurred while closing the buffers reader.", e);
-                }
+    /**
+     * Sends a request, unless an identical request is in progress in which case its response is returned
+     *
+     * @param key     identifies identical requests
+     * @param request sends the request and reads the response
+     * @return the response
+     * @throws IOException if the request failed
+     */
+    private <V> V executeOnce(String key, Callable<V> request) throws IOException {
+        FutureTask<V> task = new FutureTask<V>(request);
+        @SuppressWarnings("unchecked")
+        FutureTask<V> inFlightRequest = (FutureTask<V>) inFlightRequests.putIfAbsent(key, task);
+        if (inFlightRequest == null) {
+            try {
+                task.run();
+            } finally {
+                inFlightRequests.remove(key, task);
             }
+            inFlightRequest = task;
+        } else if (log.isDebugEnabled()) {
+            log.debug("Waiting for the response of an identical request in progress : " + key);
         }
-        return obj;
+
+        try {
+            return inFlightRequest.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the response of DAS REST API");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException("Error occurred while sending the request to DAS REST API", cause);
+        }
+    }
+
+    /**
+     * Results of a request may be shared by the callers of identical requests, so each of them gets its own list
+     */
+    private static <T> List<Result<T>> copyOf(List<Result<T>> results) {
+        if (results == null) {
+            return null;
+        }
+        return new ArrayList<Result<T>>(results);
     }
 
+    private static final class TableExistence {
+
+        private final TableExistResponseBean response;
+        private final long expiryTime;
+
+        private TableExistence(TableExistResponseBean response, long expiryTime) {
+            this.response = response;
+            this.expiryTime = expiryTime;
+        }
+    }
 }
@@ -23,8 +23,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.apimgt.api.APIManagementException;
 import org.wso2.carbon.apimgt.api.APIProvider;
-import org.wso2.carbon.apimgt.api.model.API;
-import org.wso2.carbon.apimgt.api.model.APIStatus;
+import org.wso2.carbon.apimgt.api.model.APIIdentifier;
 import org.wso2.carbon.apimgt.impl.APIConstants;
 import org.wso2.carbon.apimgt.impl.APIManagerConfiguration;
 import org.wso2.carbon.apimgt.impl.APIManagerFactory;
@@ -36,7 +35,6 @@ import org.wso2.carbon.apimgt.usage.client.dto.ApisByTimeDTO;
 import org.wso2.carbon.apimgt.usage.client.dto.DeveloperListDTO;
 import org.wso2.carbon.apimgt.usage.client.exception.APIMgtUsageQueryServiceClientException;
 import org.wso2.carbon.apimgt.usage.client.pojo.SubscriberCountByAPIs;
-import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
 import org.wso2.carbon.utils.multitenancy.MultitenantUtils;
 
@@ -50,6 +48,7 @@ import java.sql.Timestamp;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -144,60 +143,42 @@ public class UsageClient {
      */
     public static List<SubscriberCountByAPIs> getSubscriberCountByAPIs(String loggedUser, boolean isAllStatistics)
             throws APIManagementException {
+        return getSubscriberCountByAPIs(loggedUser, isAllStatistics, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Get a page of the Subscriber count and information related to the APIs. The counts of all the APIs are taken in
+     * a single query, ordered by provider, name and version of the APIs.
+     *
+     * @param loggedUser      user of the current session
+     * @param isAllStatistics whether to include the APIs of all the providers of the tenant
+     * @param start           index of the first API of the page
+     * @param end             index after the last API of the page
+     * @return return list of SubscriberCountByAPIs objects. which contain the list of apis and related subscriber counts
+     * @throws APIManagementException throws exception if error occur
+     */
+    public static List<SubscriberCountByAPIs> getSubscriberCountByAPIs(String loggedUser, boolean isAllStatistics,
+            int start, int end) throws APIManagementException {
 
         APIProvider apiProvider = APIManagerFactory.getInstance().getAPIProvider(loggedUser);
         String providerName = null;
-        if (isAllStatistics) {
-            providerName = "__all_providers__";
-        } else {
-            providerName = loggedUser;
+        if (!isAllStatistics) {
+            providerName = APIUtil.replaceEmailDomain(loggedUser);
         }
 
         List<SubscriberCountByAPIs> list = new ArrayList<SubscriberCountByAPIs>();
-        boolean isTenantFlowStarted = false;
-        try {
-            loggedUser = APIUtil.replaceEmailDomain(loggedUser);
-            String tenantDomain = MultitenantUtils.getTenantDomain(APIUtil.replaceEmailDomainBack(loggedUser));
-            if (tenantDomain != null && !MultitenantConstants.SUPER_TENANT_DOMAIN_NAME.equals(tenantDomain)) {
-                PrivilegedCarbonContext.startTenantFlow();
-                isTenantFlowStarted = true;
-                PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain(tenantDomain, true);
-            }
-
-            if (providerName != null) {
-                List<API> apiSet;
-                //get the apis
-                if (providerName.equals("__all_providers__")) {
-                    apiSet = apiProvider.getAllAPIs();
-                } else {
-                    apiSet = apiProvider.getAPIsByProvider(APIUtil.replaceEmailDomain(loggedUser));
-                }
-                //iterate over apis
-                for (API api : apiSet) {
-                    //ignore created apis
-                    if (api.getStatus() == APIStatus.CREATED) {
-                        continue;
-                    }
-                    //ignore 0 counts
-                    long count = apiProvider.getAPISubscriptionCountByAPI(api.getId());
-                    if (count == 0) {
-                        continue;
-                    }
-                    SubscriberCountByAPIs apiSub = new SubscriberCountByAPIs();
-                    List<String> apiName = new ArrayList<String>();
-                    apiName.add(api.getId().getApiName());
-                    apiName.add(api.getId().getVersion());
-                    apiName.add(api.getId().getProviderName());
-
-                    apiSub.setCount(count);
-                    apiSub.setApiName(apiName);
-                    list.add(apiSub);
-                }
-            }
-        } finally {
-            if (isTenantFlowStarted) {
-                PrivilegedCarbonContext.endTenantFlow();
-            }
+        Map<APIIdentifier, Long> subscriptionCounts = apiProvider.getSubscriptionCountsOfAPIs(providerName, start,
+                end);
+        for (Map.Entry<APIIdentifier, Long> entry : subscriptionCounts.entrySet()) {
+            SubscriberCountByAPIs apiSub = new SubscriberCountByAPIs();
+            List<String> apiName = new ArrayList<String>();
+            apiName.add(entry.getKey().getApiName());
+            apiName.add(entry.getKey().getVersion());
+            apiName.add(entry.getKey().getProviderName());
+
+            apiSub.setCount(entry.getValue());
+            apiSub.setApiName(apiName);
+            list.add(apiSub);
         }
         return list;
     }
@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+package org.wso2.carbon.apimgt.usage.client.test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import junit.framework.TestCase;
+import org.wso2.carbon.apimgt.usage.client.APIUsageStatisticsClientConstants;
+import org.wso2.carbon.apimgt.usage.client.DASRestClient;
+import org.wso2.carbon.apimgt.usage.client.bean.RequestSearchCountBean;
+import org.wso2.carbon.apimgt.usage.client.bean.TableExistResponseBean;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests {@link DASRestClient} against a stub of the DAS REST API.
+ */
+public class DASRestClientTestCase extends TestCase {
+
+    private HttpServer server;
+
+    private ExecutorService serverExecutor;
+
+    private DASRestClient client;
+
+    private final AtomicInteger countRequests = new AtomicInteger();
+
+    private final AtomicInteger tableExistRequests = new AtomicInteger();
+
+    private final Set<Integer> clientPorts = Collections.synchronizedSet(new HashSet<Integer>());
+
+    private volatile CountDownLatch countRequestReceived = new CountDownLatch(0);
+
+    private volatile CountDownLatch countResponseReleased = new CountDownLatch(0);
+
+    @Override
+    protected void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.createContext(APIUsageStatisticsClientConstants.DAS_SEARCH_COUNT_REST_API_URL, new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                countRequests.incrementAndGet();
+                clientPorts.add(exchange.getRemoteAddress().getPort());
+                String request = read(exchange.getRequestBody());
+                countRequestReceived.countDown();
+                try {
+                    countResponseReleased.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                // the request is echoed back
+                respond(exchange, request);
+            }
+        });
+        server.createContext(APIUsageStatisticsClientConstants.DAS_TABLE_EXIST_REST_API_URL, new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                tableExistRequests.incrementAndGet();
+                respond(exchange, "{\"status\":\"success\",\"message\":\"Table exists\"}");
+            }
+        });
+        server.start();
+        client = new DASRestClient("http://localhost:" + server.getAddress().getPort(), "admin",
+                "admin".toCharArray());
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    public void testRequestAndResponseAreUTF8() throws Exception {
+        String response = client.doPost(new RequestSearchCountBean("API_REQUEST_SUMMARY", "api:\u03a9mega"));
+        assertTrue(response, response.contains("api:\u03a9mega"));
+    }
+
+    public void testConnectionIsReused() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            client.doPost(new RequestSearchCountBean("API_REQUEST_SUMMARY", "query" + i));
+        }
+        assertEquals(5, countRequests.get());
+        assertEquals(1, clientPorts.size());
+    }
+
+    public void testTableExistenceIsCached() throws Exception {
+        TableExistResponseBean response = client.isTableExist("API_REQUEST_SUMMARY");
+        assertEquals("success", response.getStatus());
+        assertEquals("success", client.isTableExist("API_REQUEST_SUMMARY").getStatus());
+        assertEquals(1, tableExistRequests.get());
+
+        client.isTableExist("API_FAULT_SUMMARY");
+        assertEquals(2, tableExistRequests.get());
+    }
+
+    public void testIdenticalConcurrentRequestsAreCoalesced() throws Exception {
+        countRequestReceived = new CountDownLatch(1);
+        countResponseReleased = new CountDownLatch(1);
+        int callers = 5;
+        final String[] responses = new String[callers];
+        Thread[] threads = new Thread[callers];
+        for (int i = 0; i < callers; i++) {
+            final int caller = i;
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        responses[caller] = client.doPost(new RequestSearchCountBean("API_REQUEST_SUMMARY", "*:*"));
+                    } catch (IOException e) {
+                        responses[caller] = e.toString();
+                    }
+                }
+            };
+            threads[i].start();
+        }
+
+        assertTrue(countRequestReceived.await(10, TimeUnit.SECONDS));
+        // the response is held back until the other callers wait for the request in progress
+        long deadline = System.currentTimeMillis() + 10000;
+        while (countWaiting(threads) < callers - 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        countResponseReleased.countDown();
+        for (Thread thread : threads) {
+            thread.join(10000);
+        }
+
+        assertEquals(1, countRequests.get());
+        for (String response : responses) {
+            assertEquals(responses[0], response);
+        }
+        assertTrue(responses[0].contains("API_REQUEST_SUMMARY"));
+    }
+
+    private static int countWaiting(Thread[] threads) {
+        int waiting = 0;
+        for (Thread thread : threads) {
+            if (thread.getState() == Thread.State.WAITING) {
+                waiting++;
+            }
+        }
+        return waiting;
+    }
+
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toString("UTF-8");
+    }
+
+    private static void respond(HttpExchange exchange, String body) throws IOException {
+        byte[] bytes = body.getBytes("UTF-8");
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        OutputStream out = exchange.getResponseBody();
+        out.write(bytes);
+        out.close();
+    }
+}
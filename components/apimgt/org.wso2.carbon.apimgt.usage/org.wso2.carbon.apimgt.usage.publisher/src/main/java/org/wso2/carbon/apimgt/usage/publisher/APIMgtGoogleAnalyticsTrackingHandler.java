@@ -2,10 +2,15 @@ package org.wso2.carbon.apimgt.usage.publisher;
 
 import java.io.UnsupportedEncodingException;
 import java.math.BigInteger;
+import java.net.URLEncoder;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
-import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.xml.namespace.QName;
 
@@ -26,6 +31,8 @@ import org.wso2.carbon.apimgt.gateway.handlers.security.AuthenticationContext;
 import org.wso2.carbon.ganalytics.publisher.GoogleAnalyticsConstants;
 import org.wso2.carbon.ganalytics.publisher.GoogleAnalyticsData;
 import org.wso2.carbon.ganalytics.publisher.GoogleAnalyticsDataPublisher;
+import org.wso2.carbon.utils.multitenancy.MultitenantConstants;
+import org.wso2.carbon.utils.multitenancy.MultitenantUtils;
 
 public class APIMgtGoogleAnalyticsTrackingHandler extends AbstractHandler {
 
@@ -37,6 +44,15 @@ public class APIMgtGoogleAnalyticsTrackingHandler extends AbstractHandler {
 	private static final String COOKIE_NAME = "__utmmobile";
 
 	private static final String ANONYMOUS_USER_ID = "anonymous";
+
+	private static final String USER_AGENT_OVERRIDE_PARAM = "&ua=";
+
+	/**
+	 * Hit publisher of each tenant, shared by all API handler instances of the tenant so that the worker pool and
+	 * queue are bounded per tenant
+	 */
+	private static final ConcurrentMap<String, TenantHitPublisher> hitPublishers =
+			new ConcurrentHashMap<String, TenantHitPublisher>();
 	
 	/** The key for getting the google analytics configuration - key refers to a/an [registry] entry    */
     private String configKey = null;
@@ -76,7 +92,7 @@ public class APIMgtGoogleAnalyticsTrackingHandler extends AbstractHandler {
                 return false;
             }
         	version = entry.getVersion();
-            config = new GoogleAnalyticsConfig((OMElement)entryValue);
+            config = new GoogleAnalyticsConfig((OMElement)entryValue, version);
         }
         
         if (config == null) {
@@ -96,9 +112,8 @@ public class APIMgtGoogleAnalyticsTrackingHandler extends AbstractHandler {
 	}
 
 	/**
-	 * Track a page view, updates all the cookies and campaign tracker, makes a
-	 * server side request to Google Analytics and writes the transparent gif
-	 * byte data to the response.
+	 * Track a page view, updates all the cookies and campaign tracker and
+	 * queues the hit to be sent to Google Analytics asynchronously.
 	 * 
 	 * @throws Exception
 	 */
@@ -153,12 +168,102 @@ public class APIMgtGoogleAnalyticsTrackingHandler extends AbstractHandler {
                 .setDocumentHostName(domainName)
                 .setDocumentTitle(httpMethod)
                 .setSessionControl("end")
-                .setCacheBuster(getCacheBusterId())
                 .setIPOverride(userIP)
                 .build();
 
-        String payload = GoogleAnalyticsDataPublisher.buildPayloadString(data);
-        GoogleAnalyticsDataPublisher.publishGET(payload, userAgent, false);
+        /* Hits are sent in batches from a background thread, so the user agent travels with each hit */
+        String payload = GoogleAnalyticsDataPublisher.buildPayloadString(data) + USER_AGENT_OVERRIDE_PARAM
+                + URLEncoder.encode(userAgent, "UTF-8");
+        String tenantDomain = MultitenantUtils.getTenantDomainFromRequestURL(path);
+        if (tenantDomain == null) {
+            tenantDomain = MultitenantConstants.SUPER_TENANT_DOMAIN_NAME;
+        }
+        getHitPublisher(tenantDomain, config.version, config.batchEndpoint, config.queueSize,
+                config.publisherThreads, config.batchSize).publish(payload);
+	}
+
+	/**
+	 * Returns the hit publisher of a tenant, creating it on first use. When the publisher settings of the tenant
+	 * change, the publisher is replaced by one with the new settings and the old one is shut down in the background
+	 * once its queued hits are sent. Handlers still holding a configuration older than the one the publisher was
+	 * created from keep using the current publisher.
+	 *
+	 * @param tenantDomain  tenant of the API
+	 * @param configVersion version of the Google Analytics configuration entry the settings were read from
+	 */
+	static GoogleAnalyticsHitPublisher getHitPublisher(String tenantDomain, long configVersion, String endpoint,
+			int queueSize, int publisherThreads, int batchSize) {
+		String publisherKey = endpoint + '|' + queueSize + '|' + publisherThreads + '|' + batchSize;
+		TenantHitPublisher current = hitPublishers.get(tenantDomain);
+		if (current != null && (current.publisherKey.equals(publisherKey) || configVersion < current.configVersion)) {
+			return current.publisher;
+		}
+		TenantHitPublisher stale;
+		synchronized (hitPublishers) {
+			current = hitPublishers.get(tenantDomain);
+			if (current != null
+					&& (current.publisherKey.equals(publisherKey) || configVersion < current.configVersion)) {
+				return current.publisher;
+			}
+			TenantHitPublisher created = new TenantHitPublisher(publisherKey, configVersion,
+					new GoogleAnalyticsHitPublisher(endpoint, queueSize, publisherThreads, batchSize));
+			hitPublishers.put(tenantDomain, created);
+			stale = current;
+			current = created;
+		}
+		if (stale != null) {
+			if (log.isDebugEnabled()) {
+				log.debug("Google Analytics publisher settings of tenant " + tenantDomain + " changed to "
+						+ publisherKey + ". Shutting down the previous publisher");
+			}
+			shutdownInBackground(stale.publisher);
+		}
+		return current.publisher;
+	}
+
+	private static void shutdownInBackground(final GoogleAnalyticsHitPublisher publisher) {
+		publisher.stop();
+		Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				publisher.awaitTermination(GoogleAnalyticsHitPublisher.SHUTDOWN_TIMEOUT_MILLIS);
+			}
+		}, "GoogleAnalyticsHitPublisherShutdown");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Returns the hit publishers of the tenants. Exposes the sent and dropped hit counters for monitoring.
+	 */
+	public static Collection<GoogleAnalyticsHitPublisher> getHitPublishers() {
+		List<GoogleAnalyticsHitPublisher> publishers = new ArrayList<GoogleAnalyticsHitPublisher>();
+		for (TenantHitPublisher tenantHitPublisher : hitPublishers.values()) {
+			publishers.add(tenantHitPublisher.publisher);
+		}
+		return publishers;
+	}
+
+	/**
+	 * Shuts down the hit publishers of all the tenants, once the hits queued on them are sent. Called when the
+	 * gateway stops. Publishers are created again if hits are tracked afterwards.
+	 */
+	public static void shutdownHitPublishers() {
+		List<GoogleAnalyticsHitPublisher> publishers = new ArrayList<GoogleAnalyticsHitPublisher>();
+		synchronized (hitPublishers) {
+			for (TenantHitPublisher tenantHitPublisher : hitPublishers.values()) {
+				publishers.add(tenantHitPublisher.publisher);
+			}
+			hitPublishers.clear();
+		}
+		// All the publishers send their queued hits at the same time, within a single shutdown timeout
+		for (GoogleAnalyticsHitPublisher publisher : publishers) {
+			publisher.stop();
+		}
+		long deadline = System.currentTimeMillis() + GoogleAnalyticsHitPublisher.SHUTDOWN_TIMEOUT_MILLIS;
+		for (GoogleAnalyticsHitPublisher publisher : publishers) {
+			publisher.awaitTermination(Math.max(0, deadline - System.currentTimeMillis()));
+		}
 	}
 
 	/**
@@ -213,19 +318,66 @@ public class APIMgtGoogleAnalyticsTrackingHandler extends AbstractHandler {
         throw new SynapseException(msg);
     }
 	
-	private class GoogleAnalyticsConfig {
+	private static class GoogleAnalyticsConfig {
 		private boolean enabled;
 		private String googleAnalyticsTrackingID;
+		private String batchEndpoint = GoogleAnalyticsHitPublisher.DEFAULT_BATCH_ENDPOINT;
+		private int queueSize = GoogleAnalyticsHitPublisher.DEFAULT_QUEUE_SIZE;
+		private int publisherThreads = GoogleAnalyticsHitPublisher.DEFAULT_WORKER_COUNT;
+		private int batchSize = GoogleAnalyticsHitPublisher.MAX_BATCH_SIZE;
+		/** Version of the configuration entry the settings were read from */
+		private final long version;
 		
-		public GoogleAnalyticsConfig(OMElement config) {
+		public GoogleAnalyticsConfig(OMElement config, long version) {
+			this.version = version;
 			googleAnalyticsTrackingID = config.getFirstChildWithName(new QName(
 					APIMgtUsagePublisherConstants.API_GOOGLE_ANALYTICS_TRACKING_ID)).getText();
             String googleAnalyticsEnabledStr = config.getFirstChildWithName(new QName(
             		APIMgtUsagePublisherConstants.API_GOOGLE_ANALYTICS_TRACKING_ENABLED)).getText();
             enabled =  googleAnalyticsEnabledStr != null && JavaUtils.isTrueExplicitly(googleAnalyticsEnabledStr);
+
+            OMElement endpointElement = config.getFirstChildWithName(new QName(
+                    APIMgtUsagePublisherConstants.API_GOOGLE_ANALYTICS_BATCH_ENDPOINT));
+            if (endpointElement != null && !isEmpty(endpointElement.getText())) {
+                batchEndpoint = endpointElement.getText().trim();
+            }
+            queueSize = getIntValue(config, APIMgtUsagePublisherConstants.API_GOOGLE_ANALYTICS_QUEUE_SIZE, queueSize);
+            publisherThreads = getIntValue(config, APIMgtUsagePublisherConstants.API_GOOGLE_ANALYTICS_PUBLISHER_THREADS,
+                    publisherThreads);
+            batchSize = getIntValue(config, APIMgtUsagePublisherConstants.API_GOOGLE_ANALYTICS_BATCH_SIZE, batchSize);
+		}
+
+		private static int getIntValue(OMElement config, String name, int defaultValue) {
+			OMElement element = config.getFirstChildWithName(new QName(name));
+			if (element == null || isEmpty(element.getText())) {
+				return defaultValue;
+			}
+			try {
+				int value = Integer.parseInt(element.getText().trim());
+				return value > 0 ? value : defaultValue;
+			} catch (NumberFormatException e) {
+				log.warn("Invalid value " + element.getText() + " for Google Analytics configuration " + name
+						+ ". Using default " + defaultValue);
+				return defaultValue;
+			}
 		}
 	}
 	
+	/**
+	 * Hit publisher of a tenant, with the settings and configuration version it was created from
+	 */
+	private static final class TenantHitPublisher {
+		private final String publisherKey;
+		private final long configVersion;
+		private final GoogleAnalyticsHitPublisher publisher;
+
+		private TenantHitPublisher(String publisherKey, long configVersion, GoogleAnalyticsHitPublisher publisher) {
+			this.publisherKey = publisherKey;
+			this.configVersion = configVersion;
+			this.publisher = publisher;
+		}
+	}
+
 	public String getConfigKey() {
 		return configKey;
 	}
@@ -233,33 +385,5 @@ public class APIMgtGoogleAnalyticsTrackingHandler extends AbstractHandler {
 	public void setConfigKey(String configKey) {
 		this.configKey = configKey;
 	}
-	
-    /**
-     * Generates a 32 character length random number for cacheBusterId
-     * @return cacheBusterId
-     * @throws NoSuchAlgorithmException
-     * @throws UnsupportedEncodingException
-     */
-    private static String getCacheBusterId() throws NoSuchAlgorithmException, UnsupportedEncodingException {
-        String message = getRandomNumber() + UUID.randomUUID().toString();
-        MessageDigest m = MessageDigest.getInstance("MD5");
-        m.update(message.getBytes("UTF-8"), 0, message.length());
-        byte[] sum = m.digest();
-        BigInteger messageAsNumber = new BigInteger(1, sum);
-        String md5String = messageAsNumber.toString(16);
-        /* Pad to make sure id is 32 characters long. */
-        while (md5String.length() < 32) {
-            md5String = "0" + md5String;
-        }
-        return "0x" + md5String.substring(0, 16);
-    }
-
-    /**
-     * Generate a random number
-     * @return random number
-     */
-    private static String getRandomNumber() {
-        return Integer.toString((int) (Math.random() * 0x7fffffff));
-    }
 
 }
@@ -36,14 +36,25 @@ public class APIMgtUsageDataBridgeDataPublisher implements APIMgtUsageDataPublis
 
     private static final Log log   = LogFactory.getLog(APIMgtUsageDataBridgeDataPublisher.class);
 
+    /** Meta data of the request and response events, which is the same for every event */
+    private static final Object[] EXTERNAL_CLIENT_META_DATA = new Object[]{"external"};
+
     private DataPublisher dataPublisher;
 
+    private String requestStreamID;
+
+    private String responseStreamID;
+
     public void init(){
         try {
             if(log.isDebugEnabled()){
                 log.debug("Initializing APIMgtUsageDataBridgeDataPublisher");
             }
 
+            requestStreamID = DataPublisherUtil.getApiManagerAnalyticsConfiguration().getRequestStreamName() + ":" +
+                    DataPublisherUtil.getApiManagerAnalyticsConfiguration().getRequestStreamVersion();
+            responseStreamID = DataPublisherUtil.getApiManagerAnalyticsConfiguration().getResponseStreamName() + ":" +
+                    DataPublisherUtil.getApiManagerAnalyticsConfiguration().getResponseStreamVersion();
             this.dataPublisher = getDataPublisher();
 
         }catch (Exception e){
@@ -52,15 +63,10 @@ public class APIMgtUsageDataBridgeDataPublisher implements APIMgtUsageDataPublis
     }
 
     public void publishEvent(RequestPublisherDTO requestPublisherDTO) {
-        DataBridgeRequestPublisherDTO dataBridgeRequestPublisherDTO = new DataBridgeRequestPublisherDTO(requestPublisherDTO);
         try {
-
-            String streamID= DataPublisherUtil.getApiManagerAnalyticsConfiguration().getRequestStreamName()+":"
-                             +DataPublisherUtil.getApiManagerAnalyticsConfiguration().getRequestStreamVersion();
-            //Publish Request Data
-            dataPublisher.tryPublish( streamID ,
-                                  System.currentTimeMillis(), new Object[]{"external"}, null,
-                                  (Object[]) dataBridgeRequestPublisherDTO.createPayload());
+            //Publish Request Data. The payload is taken straight from the event, without copying it to another DTO
+            dataPublisher.tryPublish(requestStreamID, System.currentTimeMillis(), EXTERNAL_CLIENT_META_DATA, null,
+                                  DataBridgeRequestPublisherDTO.createPayload(requestPublisherDTO));
         } catch(Exception e){
             log.error("Error while publishing Request event", e);
         }
@@ -70,12 +76,9 @@ public class APIMgtUsageDataBridgeDataPublisher implements APIMgtUsageDataPublis
     public void publishEvent(ResponsePublisherDTO responsePublisherDTO) {
         DataBridgeResponsePublisherDTO dataBridgeResponsePublisherDTO = new DataBridgeResponsePublisherDTO(responsePublisherDTO);
         try {
-            String streamID = DataPublisherUtil.getApiManagerAnalyticsConfiguration().getResponseStreamName() + ":"
-                              + DataPublisherUtil.getApiManagerAnalyticsConfiguration().getResponseStreamVersion();
-            dataBridgeResponsePublisherDTO.createPayload();
             //Publish Response Data
-            dataPublisher.tryPublish(streamID,
-                                  System.currentTimeMillis(), new Object[]{"external"}, null,
+            dataPublisher.tryPublish(responseStreamID,
+                                  System.currentTimeMillis(), EXTERNAL_CLIENT_META_DATA, null,
                                   (Object[]) dataBridgeResponsePublisherDTO.createPayload());
 
         } catch (Exception e) {
@@ -35,7 +35,6 @@ import org.wso2.carbon.apimgt.usage.publisher.internal.UsageComponent;
 import org.wso2.carbon.utils.multitenancy.MultitenantUtils;
 
 import java.util.Map;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class APIMgtUsageHandler extends AbstractHandler {
@@ -45,6 +44,12 @@ public class APIMgtUsageHandler extends AbstractHandler {
 
     private volatile APIMgtUsageDataPublisher publisher;
 
+    /**
+     * Details of the API derived from its name, which are the same for every request. A handler is engaged on a
+     * single API, so these are computed on the first request only.
+     */
+    private volatile APIEventInfo apiEventInfo;
+
     public boolean handleRequest(MessageContext mc) {
 
         boolean enabled = APIUtil.isAnalyticsEnabled();
@@ -59,13 +64,14 @@ public class APIMgtUsageHandler extends AbstractHandler {
         synapse to enable or disable destination based stat publishing*/
         mc.setProperty("isStatEnabled", Boolean.toString(enabled));
 
-        String publisherClass = UsageComponent.getAmConfigService().getAPIAnalyticsConfiguration().getPublisherClass();
         try {
             long currentTime = System.currentTimeMillis();
             if (publisher == null) {
                 // The publisher initializes in the first request only
                 synchronized (this) {
                     if (publisher == null) {
+                        String publisherClass = UsageComponent.getAmConfigService().getAPIAnalyticsConfiguration()
+                                .getPublisherClass();
                         try {
                             log.debug("Instantiating Data Publisher");
 
@@ -84,78 +90,84 @@ public class APIMgtUsageHandler extends AbstractHandler {
                 }
             }
 
-            AuthenticationContext authContext = APISecurityUtils.getAuthenticationContext(mc);
-            String consumerKey = "";
-            String username = "";
-            String applicationName = "";
-            String applicationId = "";
-            String applicationOwner = "";
-            String tier = "";
-            if (authContext != null) {
-                consumerKey = authContext.getConsumerKey();
-                username = authContext.getUsername();
-                applicationName = authContext.getApplicationName();
-                applicationId = authContext.getApplicationId();
-                tier = authContext.getTier();
-                applicationOwner = authContext.getSubscriber();
-            }
-            String hostName = DataPublisherUtil.getHostAddress();
-            org.apache.axis2.context.MessageContext axis2MsgContext =
-                    ((Axis2MessageContext) mc).getAxis2MessageContext();
-            Map headers =
-                    (Map) (axis2MsgContext).getProperty(org.apache.axis2.context.MessageContext.TRANSPORT_HEADERS);
-            String userAgent = (String) headers.get(APIConstants.USER_AGENT);
-            String context = (String) mc.getProperty(RESTConstants.REST_API_CONTEXT);
-            String apiVersion = (String) mc.getProperty(RESTConstants.SYNAPSE_REST_API);
-            String fullRequestPath = (String) mc.getProperty(RESTConstants.REST_FULL_REQUEST_PATH);
-            String apiPublisher = (String) mc.getProperty(APIMgtGatewayConstants.API_PUBLISHER);
-
-            String tenantDomain = MultitenantUtils.getTenantDomainFromRequestURL(fullRequestPath);
-            if (apiPublisher == null) {
-                apiPublisher = APIUtil.getAPIProviderFromRESTAPI(apiVersion, tenantDomain);
-            }
-
-            String api = APIUtil.getAPINamefromRESTAPI(apiVersion);
-            String version = (String) mc.getProperty(RESTConstants.SYNAPSE_REST_API_VERSION);
-            String resource = extractResource(mc);
-            String resourceTemplate = (String) mc.getProperty(APIConstants.API_ELECTED_RESOURCE);
-
-            String method = (String) (axis2MsgContext.getProperty(Constants.Configuration.HTTP_METHOD));
-
-            Object throttleOutProperty = mc.getProperty(APIConstants.API_USAGE_THROTTLE_OUT_PROPERTY_KEY);
-            boolean throttleOutHappened = false;
-            if (throttleOutProperty instanceof Boolean) {
-                throttleOutHappened = (Boolean) throttleOutProperty;
-            }
-            String clientIp = DataPublisherUtil.getClientIp(axis2MsgContext);
-            RequestPublisherDTO requestPublisherDTO = new RequestPublisherDTO();
-            requestPublisherDTO.setConsumerKey(consumerKey);
-            requestPublisherDTO.setContext(context);
-            requestPublisherDTO.setApiVersion(apiVersion);
-            requestPublisherDTO.setApi(api);
-            requestPublisherDTO.setVersion(version);
-            requestPublisherDTO.setResourcePath(resource);
-            requestPublisherDTO.setResourceTemplate(resourceTemplate);
-            requestPublisherDTO.setMethod(method);
-            requestPublisherDTO.setRequestTime(currentTime);
-            requestPublisherDTO.setUsername(username);
-            requestPublisherDTO.setTenantDomain(MultitenantUtils.getTenantDomain(apiPublisher));
-            requestPublisherDTO.setHostName(hostName);
-            requestPublisherDTO.setApiPublisher(apiPublisher);
-            requestPublisherDTO.setApplicationName(applicationName);
-            requestPublisherDTO.setApplicationId(applicationId);
-            requestPublisherDTO.setUserAgent(userAgent);
-            requestPublisherDTO.setTier(tier);
-            requestPublisherDTO.setContinuedOnThrottleOut(throttleOutHappened);
-            requestPublisherDTO.setClientIp(clientIp);
-            requestPublisherDTO.setApplicationOwner(applicationOwner);
-            publisher.publishEvent(requestPublisherDTO);
+            publisher.publishEvent(createRequestEvent(mc, currentTime));
         } catch (Exception e) {
             log.error("Cannot publish event. " + e.getMessage(), e);
         }
         return true;
     }
 
+    /**
+     * Captures the usage event of a request.
+     *
+     * @param mc          message context of the request
+     * @param currentTime time the request was received at
+     * @return the request event to be published
+     */
+    public RequestPublisherDTO createRequestEvent(MessageContext mc, long currentTime) {
+        AuthenticationContext authContext = APISecurityUtils.getAuthenticationContext(mc);
+        String consumerKey = "";
+        String username = "";
+        String applicationName = "";
+        String applicationId = "";
+        String applicationOwner = "";
+        String tier = "";
+        if (authContext != null) {
+            consumerKey = authContext.getConsumerKey();
+            username = authContext.getUsername();
+            applicationName = authContext.getApplicationName();
+            applicationId = authContext.getApplicationId();
+            tier = authContext.getTier();
+            applicationOwner = authContext.getSubscriber();
+        }
+        String hostName = DataPublisherUtil.getHostAddress();
+        org.apache.axis2.context.MessageContext axis2MsgContext =
+                ((Axis2MessageContext) mc).getAxis2MessageContext();
+        Map headers =
+                (Map) (axis2MsgContext).getProperty(org.apache.axis2.context.MessageContext.TRANSPORT_HEADERS);
+        String userAgent = (String) headers.get(APIConstants.USER_AGENT);
+        String context = (String) mc.getProperty(RESTConstants.REST_API_CONTEXT);
+        String apiVersion = (String) mc.getProperty(RESTConstants.SYNAPSE_REST_API);
+        String fullRequestPath = (String) mc.getProperty(RESTConstants.REST_FULL_REQUEST_PATH);
+        APIEventInfo apiInfo = getAPIEventInfo(apiVersion,
+                (String) mc.getProperty(APIMgtGatewayConstants.API_PUBLISHER), fullRequestPath);
+
+        String version = (String) mc.getProperty(RESTConstants.SYNAPSE_REST_API_VERSION);
+        String resource = extractResource(fullRequestPath);
+        String resourceTemplate = (String) mc.getProperty(APIConstants.API_ELECTED_RESOURCE);
+
+        String method = (String) (axis2MsgContext.getProperty(Constants.Configuration.HTTP_METHOD));
+
+        Object throttleOutProperty = mc.getProperty(APIConstants.API_USAGE_THROTTLE_OUT_PROPERTY_KEY);
+        boolean throttleOutHappened = false;
+        if (throttleOutProperty instanceof Boolean) {
+            throttleOutHappened = (Boolean) throttleOutProperty;
+        }
+        String clientIp = DataPublisherUtil.getClientIp(axis2MsgContext);
+        RequestPublisherDTO requestPublisherDTO = new RequestPublisherDTO();
+        requestPublisherDTO.setConsumerKey(consumerKey);
+        requestPublisherDTO.setContext(context);
+        requestPublisherDTO.setApiVersion(apiVersion);
+        requestPublisherDTO.setApi(apiInfo.api);
+        requestPublisherDTO.setVersion(version);
+        requestPublisherDTO.setResourcePath(resource);
+        requestPublisherDTO.setResourceTemplate(resourceTemplate);
+        requestPublisherDTO.setMethod(method);
+        requestPublisherDTO.setRequestTime(currentTime);
+        requestPublisherDTO.setUsername(username);
+        requestPublisherDTO.setTenantDomain(apiInfo.tenantDomain);
+        requestPublisherDTO.setHostName(hostName);
+        requestPublisherDTO.setApiPublisher(apiInfo.apiPublisher);
+        requestPublisherDTO.setApplicationName(applicationName);
+        requestPublisherDTO.setApplicationId(applicationId);
+        requestPublisherDTO.setUserAgent(userAgent);
+        requestPublisherDTO.setTier(tier);
+        requestPublisherDTO.setContinuedOnThrottleOut(throttleOutHappened);
+        requestPublisherDTO.setClientIp(clientIp);
+        requestPublisherDTO.setApplicationOwner(applicationOwner);
+        return requestPublisherDTO;
+    }
+
 //moving to APIUTil
 
     public boolean handleResponse(MessageContext mc) {
@@ -163,13 +175,70 @@ public class APIMgtUsageHandler extends AbstractHandler {
 
     }
 
-    private String extractResource(MessageContext mc) {
-        String resource = "/";
-        Matcher matcher = resourcePattern.matcher((String) mc.getProperty(RESTConstants.REST_FULL_REQUEST_PATH));
-        if (matcher.find()) {
-            resource = matcher.group(1);
+    private APIEventInfo getAPIEventInfo(String apiVersion, String apiPublisherProperty, String fullRequestPath) {
+        APIEventInfo apiInfo = apiEventInfo;
+        if (apiInfo == null || !apiInfo.isOf(apiVersion, apiPublisherProperty)) {
+            String apiPublisher = apiPublisherProperty;
+            if (apiPublisher == null) {
+                String tenantDomain = MultitenantUtils.getTenantDomainFromRequestURL(fullRequestPath);
+                apiPublisher = APIUtil.getAPIProviderFromRESTAPI(apiVersion, tenantDomain);
+            }
+            apiInfo = new APIEventInfo(apiVersion, apiPublisherProperty, APIUtil.getAPINamefromRESTAPI(apiVersion),
+                    apiPublisher, MultitenantUtils.getTenantDomain(apiPublisher));
+            apiEventInfo = apiInfo;
+        }
+        return apiInfo;
+    }
+
+    /**
+     * Returns the part of the request path after the context and the version, as {@link #resourcePattern} matches
+     * it, without going through the regular expression engine on every request.
+     *
+     * @param fullRequestPath request path, starting with the context of the API
+     * @return the resource path, or "/" if the request is for the root of the API
+     */
+    static String extractResource(String fullRequestPath) {
+        int length = fullRequestPath.length();
+        if (length == 0 || fullRequestPath.charAt(0) != '/') {
+            return "/";
+        }
+        // the first and the second segment have at least a character each
+        int separator = fullRequestPath.indexOf('/', 2);
+        if (separator < 0) {
+            return "/";
+        }
+        for (int i = separator + 2; i < length - 1; i++) {
+            char c = fullRequestPath.charAt(i);
+            if (c == '/' || c == '?') {
+                return fullRequestPath.substring(i);
+            }
         }
-        return resource;
+        return "/";
     }
 
+    private static final class APIEventInfo {
+
+        private final String apiVersion;
+        private final String apiPublisherProperty;
+        private final String api;
+        private final String apiPublisher;
+        private final String tenantDomain;
+
+        private APIEventInfo(String apiVersion, String apiPublisherProperty, String api, String apiPublisher,
+                String tenantDomain) {
+            this.apiVersion = apiVersion;
+            this.apiPublisherProperty = apiPublisherProperty;
+            this.api = api;
+            this.apiPublisher = apiPublisher;
+            this.tenantDomain = tenantDomain;
+        }
+
+        private boolean isOf(String apiVersion, String apiPublisherProperty) {
+            return isEqual(this.apiVersion, apiVersion) && isEqual(this.apiPublisherProperty, apiPublisherProperty);
+        }
+
+        private static boolean isEqual(String a, String b) {
+            return a == null ? b == null : a.equals(b);
+        }
+    }
 }
@@ -27,5 +27,9 @@ public final class APIMgtUsagePublisherConstants {
 
     public static final String API_GOOGLE_ANALYTICS_TRACKING_ENABLED = "Enabled";
     public static final String API_GOOGLE_ANALYTICS_TRACKING_ID = "TrackingID";
+    public static final String API_GOOGLE_ANALYTICS_BATCH_ENDPOINT = "BatchEndpoint";
+    public static final String API_GOOGLE_ANALYTICS_QUEUE_SIZE = "QueueSize";
+    public static final String API_GOOGLE_ANALYTICS_PUBLISHER_THREADS = "PublisherThreads";
+    public static final String API_GOOGLE_ANALYTICS_BATCH_SIZE = "BatchSize";
     public static final String X_FORWARDED_FOR_HEADER = "X-Forwarded-For";
 }
@@ -0,0 +1,237 @@
+/*
+*  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.apimgt.usage.publisher;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.tsccm.ThreadSafeClientConnManager;
+import org.apache.http.util.EntityUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes Google Analytics hits off the request path. Hits are placed on a bounded queue which is drained by a
+ * small pool of worker threads, each of which sends up to {@code batchSize} hits in a single request to the
+ * measurement protocol batch endpoint. When the queue is full the oldest pending hit is discarded, so a slow or
+ * unreachable analytics endpoint never blocks the gateway. On shutdown the workers send the hits still queued
+ * before they stop.
+ */
+public class GoogleAnalyticsHitPublisher {
+
+    private static final Log log = LogFactory.getLog(GoogleAnalyticsHitPublisher.class);
+
+    public static final String DEFAULT_BATCH_ENDPOINT = "https://www.google-analytics.com/batch";
+
+    public static final int DEFAULT_QUEUE_SIZE = 10000;
+
+    public static final int DEFAULT_WORKER_COUNT = 2;
+
+    /** Measurement protocol does not accept more than 20 hits per batch request */
+    public static final int MAX_BATCH_SIZE = 20;
+
+    private static final long POLL_TIMEOUT_MILLIS = 1000;
+
+    static final long SHUTDOWN_TIMEOUT_MILLIS = 30000;
+
+    private final String endpoint;
+
+    private final int batchSize;
+
+    private final BlockingQueue<String> queue;
+
+    private final ExecutorService workers;
+
+    private final HttpClient httpClient;
+
+    private final AtomicLong sentCount = new AtomicLong();
+
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    private final AtomicLong failedCount = new AtomicLong();
+
+    private volatile boolean running = true;
+
+    public GoogleAnalyticsHitPublisher(String endpoint, int queueSize, int workerCount, int batchSize) {
+        this.endpoint = endpoint;
+        this.batchSize = Math.max(1, Math.min(batchSize, MAX_BATCH_SIZE));
+        this.queue = new ArrayBlockingQueue<String>(queueSize);
+
+        ThreadSafeClientConnManager connectionManager = new ThreadSafeClientConnManager();
+        connectionManager.setMaxTotal(workerCount);
+        connectionManager.setDefaultMaxPerRoute(workerCount);
+        this.httpClient = new DefaultHttpClient(connectionManager);
+
+        this.workers = Executors.newFixedThreadPool(workerCount, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "GoogleAnalyticsHitPublisher-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        for (int i = 0; i < workerCount; i++) {
+            workers.execute(new HitSender());
+        }
+    }
+
+    /**
+     * Queues a hit payload for publishing. Never blocks; if the queue is full the oldest queued hit is dropped to
+     * make room.
+     *
+     * @param payload measurement protocol payload of a single hit
+     */
+    public void publish(String payload) {
+        if (!running) {
+            // The publisher was replaced or is shutting down, and its workers may have already exited
+            droppedCount.incrementAndGet();
+            return;
+        }
+        while (!queue.offer(payload)) {
+            if (queue.poll() != null) {
+                droppedCount.incrementAndGet();
+            }
+        }
+    }
+
+    public long getSentCount() {
+        return sentCount.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    /**
+     * Stops the publisher once the queued hits are sent, waiting at most {@link #SHUTDOWN_TIMEOUT_MILLIS} for them.
+     * Hits which could not be sent in that time are dropped.
+     */
+    public void shutdown() {
+        stop();
+        awaitTermination(SHUTDOWN_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Stops accepting hits without waiting. The workers send the hits still queued and then exit, see
+     * {@link #awaitTermination(long)}.
+     */
+    public void stop() {
+        running = false;
+        workers.shutdown();
+    }
+
+    /**
+     * Waits for the workers of a stopped publisher to send the queued hits, and releases the connections of the
+     * publisher. Hits which could not be sent in the given time are dropped.
+     *
+     * @param timeoutMillis maximum time to wait for the queued hits to be sent
+     */
+    public void awaitTermination(long timeoutMillis) {
+        try {
+            if (!workers.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                log.warn(queue.size() + " Google Analytics hits were not sent before the publisher was shut down");
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        } finally {
+            httpClient.getConnectionManager().shutdown();
+        }
+    }
+
+    public boolean isShutdown() {
+        return !running;
+    }
+
+    private void send(List<String> batch) {
+        StringBuilder body = new StringBuilder();
+        for (String payload : batch) {
+            body.append(payload).append('\n');
+        }
+        HttpPost post = new HttpPost(endpoint);
+        try {
+            post.setEntity(new StringEntity(body.toString(), "UTF-8"));
+            HttpResponse response = httpClient.execute(post);
+            EntityUtils.consume(response.getEntity());
+            int status = response.getStatusLine().getStatusCode();
+            if (status >= 200 && status < 300) {
+                sentCount.addAndGet(batch.size());
+            } else {
+                failedCount.addAndGet(batch.size());
+                log.warn("Google Analytics endpoint " + endpoint + " responded with status " + status);
+            }
+        } catch (Exception e) {
+            post.abort();
+            failedCount.addAndGet(batch.size());
+            log.error("Error while publishing " + batch.size() + " hits to Google Analytics", e);
+        }
+    }
+
+    private class HitSender implements Runnable {
+
+        @Override
+        public void run() {
+            List<String> batch = new ArrayList<String>(batchSize);
+            while (true) {
+                try {
+                    // Once shut down, the queue is drained without waiting for new hits
+                    String first = running ? queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS) : queue.poll();
+                    if (first == null) {
+                        if (running) {
+                            continue;
+                        }
+                        return;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    send(batch);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } finally {
+                    batch.clear();
+                }
+            }
+        }
+    }
+}
@@ -89,12 +89,27 @@ public class DataBridgeRequestPublisherDTO extends RequestPublisherDTO {
     }
 
     public Object createPayload(){
-        return new Object[]{getConsumerKey(), getContext(), getApiVersion(), getApi(), getResourcePath(),
-                            getResourceTemplate(), getMethod(), getVersion(), getRequestCount(), getRequestTime(),
-                            getUsername(), getTenantDomain(), getHostName(), getApiPublisher(), getApplicationName(),
-                            getApplicationId(), getUserAgent(), getTier(), isContinuedOnThrottleOut(), getClientIp(),
-                getApplicationOwner()};
+        return createPayload(this);
+    }
 
+    /**
+     * Creates the payload of the request stream directly from a request event, without copying the event first.
+     *
+     * @param requestPublisherDTO the request event
+     * @return the payload of the event
+     */
+    public static Object[] createPayload(RequestPublisherDTO requestPublisherDTO) {
+        return new Object[]{requestPublisherDTO.getConsumerKey(), requestPublisherDTO.getContext(),
+                requestPublisherDTO.getApiVersion(), requestPublisherDTO.getApi(),
+                requestPublisherDTO.getResourcePath(), requestPublisherDTO.getResourceTemplate(),
+                requestPublisherDTO.getMethod(), requestPublisherDTO.getVersion(),
+                requestPublisherDTO.getRequestCount(), requestPublisherDTO.getRequestTime(),
+                requestPublisherDTO.getUsername(), requestPublisherDTO.getTenantDomain(),
+                DataPublisherUtil.getHostAddress(), requestPublisherDTO.getApiPublisher(),
+                requestPublisherDTO.getApplicationName(), requestPublisherDTO.getApplicationId(),
+                requestPublisherDTO.getUserAgent(), requestPublisherDTO.getTier(),
+                requestPublisherDTO.isContinuedOnThrottleOut(), requestPublisherDTO.getClientIp(),
+                requestPublisherDTO.getApplicationOwner()};
     }
 
 }
@@ -21,6 +21,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.osgi.service.component.ComponentContext;
 import org.wso2.carbon.apimgt.impl.APIManagerConfigurationService;
+import org.wso2.carbon.apimgt.usage.publisher.APIMgtGoogleAnalyticsTrackingHandler;
 import org.wso2.carbon.apimgt.usage.publisher.DataPublisherUtil;
 import org.wso2.carbon.base.ServerConfiguration;
 import org.wso2.carbon.databridge.agent.DataPublisher;
@@ -60,7 +61,8 @@ public class UsageComponent {
     }
 
     protected void deactivate(ComponentContext ctx) {
-
+        // Sends the Google Analytics hits still queued before the gateway stops
+        APIMgtGoogleAnalyticsTrackingHandler.shutdownHitPublishers();
     }
 
     protected void setAPIManagerConfigurationService(APIManagerConfigurationService service) {
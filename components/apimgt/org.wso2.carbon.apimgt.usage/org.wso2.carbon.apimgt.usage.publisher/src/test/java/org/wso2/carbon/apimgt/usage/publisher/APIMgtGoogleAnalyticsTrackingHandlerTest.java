@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.usage.publisher;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.Scanner;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Checks the lifecycle of the per tenant hit publishers of the Google Analytics tracking handler, against a local
+ * stub of the Google Analytics batch endpoint.
+ */
+public class APIMgtGoogleAnalyticsTrackingHandlerTest {
+
+    private HttpServer server;
+
+    private String endpoint;
+
+    private final AtomicInteger receivedHits = new AtomicInteger();
+
+    @Before
+    public void startStubEndpoint() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/batch", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                String body = new Scanner(exchange.getRequestBody(), "UTF-8").useDelimiter("\\A").next();
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                receivedHits.addAndGet(body.trim().split("\n").length);
+                exchange.sendResponseHeaders(200, -1);
+                exchange.close();
+            }
+        });
+        server.start();
+        endpoint = "http://localhost:" + server.getAddress().getPort() + "/batch";
+    }
+
+    @After
+    public void stopStubEndpoint() {
+        APIMgtGoogleAnalyticsTrackingHandler.shutdownHitPublishers();
+        server.stop(0);
+    }
+
+    @Test
+    public void testPublisherIsSharedWithinTenant() {
+        GoogleAnalyticsHitPublisher publisher = getHitPublisher("a.com", 1, 100);
+        Assert.assertSame(publisher, getHitPublisher("a.com", 1, 100));
+        Assert.assertNotSame(publisher, getHitPublisher("b.com", 1, 100));
+        Assert.assertEquals(2, APIMgtGoogleAnalyticsTrackingHandler.getHitPublishers().size());
+    }
+
+    @Test
+    public void testStalePublisherIsShutDownWhenSettingsChange() throws Exception {
+        GoogleAnalyticsHitPublisher stale = getHitPublisher("a.com", 1, 100);
+        for (int i = 0; i < 10; i++) {
+            stale.publish("v=1&tid=UA-1-1&cid=" + i + "&t=pageview");
+        }
+
+        GoogleAnalyticsHitPublisher current = getHitPublisher("a.com", 2, 200);
+        Assert.assertNotSame(stale, current);
+        Assert.assertTrue(stale.isShutdown());
+        Assert.assertFalse(current.isShutdown());
+        Assert.assertEquals(1, APIMgtGoogleAnalyticsTrackingHandler.getHitPublishers().size());
+
+        // The hits queued on the replaced publisher are still sent
+        long deadline = System.currentTimeMillis() + 30000;
+        while (stale.getSentCount() < 10 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        Assert.assertEquals(10, stale.getSentCount());
+
+        // A handler which has not read the changed configuration yet keeps to the current publisher
+        Assert.assertSame(current, getHitPublisher("a.com", 1, 100));
+    }
+
+    @Test
+    public void testQueuedHitsAreSentWhenPublishersAreShutDown() {
+        GoogleAnalyticsHitPublisher first = getHitPublisher("a.com", 1, 100);
+        GoogleAnalyticsHitPublisher second = getHitPublisher("b.com", 1, 100);
+        for (int i = 0; i < 20; i++) {
+            (i % 2 == 0 ? first : second).publish("v=1&tid=UA-1-1&cid=" + i + "&t=pageview");
+        }
+
+        APIMgtGoogleAnalyticsTrackingHandler.shutdownHitPublishers();
+        Assert.assertTrue(first.isShutdown());
+        Assert.assertTrue(second.isShutdown());
+        Assert.assertEquals(20, first.getSentCount() + second.getSentCount());
+        Assert.assertEquals(20, receivedHits.get());
+        Assert.assertTrue(APIMgtGoogleAnalyticsTrackingHandler.getHitPublishers().isEmpty());
+
+        // Hits published to a publisher after it is shut down are counted as dropped
+        first.publish("v=1&tid=UA-1-1&cid=20&t=pageview");
+        Assert.assertEquals(1, first.getDroppedCount());
+    }
+
+    private GoogleAnalyticsHitPublisher getHitPublisher(String tenantDomain, long configVersion, int queueSize) {
+        return APIMgtGoogleAnalyticsTrackingHandler.getHitPublisher(tenantDomain, configVersion, endpoint, queueSize,
+                1, 20);
+    }
+}
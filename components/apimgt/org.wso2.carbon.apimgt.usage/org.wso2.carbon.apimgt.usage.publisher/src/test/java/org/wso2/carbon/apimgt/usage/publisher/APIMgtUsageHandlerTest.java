@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.apimgt.usage.publisher;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.regex.Matcher;
+
+public class APIMgtUsageHandlerTest {
+
+    @Test
+    public void testExtractResourceMatchesResourcePattern() {
+        String[] paths = {"/pizzashack/1.0.0/menu", "/pizzashack/1.0.0/menu/12?size=large", "/pizzashack/1.0.0",
+                "/pizzashack/1.0.0/", "/pizzashack/1.0.0?q=1", "/pizzashack/1.0.0/m", "/t/wso2.com/api/1.0.0/a/b",
+                "/a/b/c", "/a/b/", "/a/bc", "/a/b", "/a//b/c", "//a/b", "/ab", "/", "", "a/b/c/d",
+                "/api/v1?x/y", "/api/v1/?", "/api/v1//"};
+        for (String path : paths) {
+            Matcher matcher = APIMgtUsageHandler.resourcePattern.matcher(path);
+            String expected = matcher.find() ? matcher.group(1) : "/";
+            Assert.assertEquals(path, expected, APIMgtUsageHandler.extractResource(path));
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+*  Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.apimgt.usage.publisher;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Scanner;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Publishes hits to a local stub of the Google Analytics batch endpoint which responds after an injected delay.
+ */
+public class GoogleAnalyticsHitPublisherTest {
+
+    private static final long ENDPOINT_LATENCY_MILLIS = 500;
+
+    private HttpServer server;
+
+    private String endpoint;
+
+    private final AtomicInteger receivedRequests = new AtomicInteger();
+
+    private final AtomicInteger receivedHits = new AtomicInteger();
+
+    private final List<Integer> receivedClientIds = Collections.synchronizedList(new ArrayList<Integer>());
+
+    @Before
+    public void startStubEndpoint() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/batch", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                String body = new Scanner(exchange.getRequestBody(), "UTF-8").useDelimiter("\\A").next();
+                try {
+                    Thread.sleep(ENDPOINT_LATENCY_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                receivedRequests.incrementAndGet();
+                String[] hits = body.trim().split("\n");
+                for (String hit : hits) {
+                    int start = hit.indexOf("&cid=") + "&cid=".length();
+                    receivedClientIds.add(Integer.parseInt(hit.substring(start, hit.indexOf('&', start))));
+                }
+                receivedHits.addAndGet(hits.length);
+                exchange.sendResponseHeaders(200, -1);
+                exchange.close();
+            }
+        });
+        server.start();
+        endpoint = "http://localhost:" + server.getAddress().getPort() + "/batch";
+    }
+
+    @After
+    public void stopStubEndpoint() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testPublishDoesNotWaitForEndpoint() throws Exception {
+        GoogleAnalyticsHitPublisher publisher = new GoogleAnalyticsHitPublisher(endpoint, 1000, 2, 20);
+        try {
+            long start = System.currentTimeMillis();
+            for (int i = 0; i < 100; i++) {
+                publisher.publish("v=1&tid=UA-1-1&cid=" + i + "&t=pageview");
+            }
+            long elapsed = System.currentTimeMillis() - start;
+            Assert.assertTrue("Publishing blocked for " + elapsed + "ms", elapsed < ENDPOINT_LATENCY_MILLIS);
+
+            waitForSentCount(publisher, 100, 30000);
+            Assert.assertEquals(100, publisher.getSentCount());
+            Assert.assertEquals(0, publisher.getDroppedCount());
+            Assert.assertEquals(100, receivedHits.get());
+            Assert.assertTrue("Hits were not batched", receivedRequests.get() < 100);
+        } finally {
+            publisher.shutdown();
+        }
+    }
+
+    @Test
+    public void testOldestHitsDroppedWhenQueueFull() throws Exception {
+        GoogleAnalyticsHitPublisher publisher = new GoogleAnalyticsHitPublisher(endpoint, 10, 1, 1);
+        try {
+            for (int i = 0; i < 50; i++) {
+                publisher.publish("v=1&tid=UA-1-1&cid=" + i + "&t=pageview");
+            }
+            Assert.assertTrue(publisher.getPendingCount() <= 10);
+            // ten hits fit in the queue and the single worker may be holding one more
+            Assert.assertTrue(publisher.getDroppedCount() >= 39);
+        } finally {
+            publisher.shutdown();
+        }
+        // The worker sent the first hits it took before the queue filled up, the oldest queued hits were dropped and
+        // the newest ten were sent on shutdown
+        int taken = 40 - (int) publisher.getDroppedCount();
+        List<Integer> expected = new ArrayList<Integer>();
+        for (int i = 0; i < taken; i++) {
+            expected.add(i);
+        }
+        for (int i = 40; i < 50; i++) {
+            expected.add(i);
+        }
+        Assert.assertEquals(expected, receivedClientIds);
+        Assert.assertEquals(50, publisher.getSentCount() + publisher.getDroppedCount());
+    }
+
+    @Test
+    public void testQueuedHitsAreSentOnShutdown() throws Exception {
+        GoogleAnalyticsHitPublisher publisher = new GoogleAnalyticsHitPublisher(endpoint, 1000, 1, 20);
+        for (int i = 0; i < 50; i++) {
+            publisher.publish("v=1&tid=UA-1-1&cid=" + i + "&t=pageview");
+        }
+        publisher.shutdown();
+        Assert.assertEquals(50, publisher.getSentCount());
+        Assert.assertEquals(0, publisher.getPendingCount());
+        Assert.assertEquals(50, receivedHits.get());
+    }
+
+    private void waitForSentCount(GoogleAnalyticsHitPublisher publisher, long expected, long timeoutMillis)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (publisher.getSentCount() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+    }
+}
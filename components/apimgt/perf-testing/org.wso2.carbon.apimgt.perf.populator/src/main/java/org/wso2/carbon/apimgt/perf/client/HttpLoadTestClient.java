@@ -16,170 +16,212 @@
 
 package org.wso2.carbon.apimgt.perf.client;
 
-import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
-import org.apache.http.client.HttpRequestRetryHandler;
-import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.HttpUriRequest;
-import org.apache.http.conn.scheme.PlainSocketFactory;
-import org.apache.http.conn.scheme.Scheme;
-import org.apache.http.conn.scheme.SchemeRegistry;
-import org.apache.http.conn.scheme.SocketFactory;
-import org.apache.http.impl.client.DefaultHttpClient;
-import org.apache.http.impl.conn.tsccm.ThreadSafeClientConnManager;
-import org.apache.http.params.HttpConnectionParams;
-import org.apache.http.params.HttpParams;
-import org.apache.http.protocol.HttpContext;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.util.concurrent.atomic.AtomicInteger;
-
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open loop load generator. Requests are sent at a constant rate whatever the latency of the server, on a non
+ * blocking HTTP client, so that a slow server is seen as growing response times rather than as a lower request
+ * rate. Latencies are measured from the time each request was scheduled to be sent; see {@link LatencyReport}.
+ *
+ * Configured through system properties:
+ * <pre>
+ *   baseUrl         - URL the request paths are relative to (default http://localhost:8280)
+ *   requestFile     - file describing the mix of requests to send, see {@link RequestMix}
+ *   endpoint        - path requested when no request file is given (default /pizzashack/menu/1.0.0)
+ *   accessToken     - token sent with the endpoint when no request file is given
+ *   rate            - requests per second (default 1000)
+ *   warmupSeconds   - period at the start of the run which is not measured (default 10)
+ *   durationSeconds - measured period (default 60)
+ *   connections     - maximum number of connections to the server (default 200)
+ *   ioThreads       - number of I/O dispatch threads (default number of processors)
+ *   timeoutMillis   - connect, socket and connection pool timeout (default 30000)
+ *   seed            - seed of the request mix (default 1)
+ *   report          - prefix of the report files (default load-test)
+ *   label           - label of the run in the summary file (default run)
+ *   stub            - if true, starts a local {@link StubServer} and sends the load to it instead of baseUrl
+ *   stubLatencyMillis - response delay of the local stub (default 0)
+ * </pre>
+ */
 public class HttpLoadTestClient {
 
-    private static AtomicInteger counter = new AtomicInteger(0);
-
-    private static int PIT_STOP = 1000;
-
-    public static void main(String[] args) {
-        int concurrency = 10;
-        int count = 50;
-        //String apiEndpoint = "http://localhost:8280/ticker/1.0.0?symbol=IBM";
-        //String apiEndpoint = "http://localhost:8280/pizzashack/menu/1.0.0";
-        String directEndpoint = "http://localhost:9764/pizzashack-api-1.0.0/api/menu";
-
-        String apiEndpoint = "http://10.100.3.235:8290/pizzashack/menu/1.0.0";
-
-
+    private final CloseableHttpAsyncClient client;
+
+    private final RequestMix requestMix;
+
+    private final LatencyReport report;
+
+    private final AtomicLong outstanding = new AtomicLong();
+
+    /** Requests scheduled at or after this time are measured */
+    private volatile long measureFromNanos = Long.MAX_VALUE;
+
+    public HttpLoadTestClient(RequestMix requestMix, LatencyReport report, int connections, int ioThreads,
+                              int timeoutMillis) throws IOException {
+        this.requestMix = requestMix;
+        this.report = report;
+
+        IOReactorConfig ioReactorConfig = IOReactorConfig.custom()
+                .setIoThreadCount(ioThreads)
+                .setConnectTimeout(timeoutMillis)
+                .setSoTimeout(timeoutMillis)
+                .setTcpNoDelay(true)
+                .build();
+        PoolingNHttpClientConnectionManager connectionManager =
+                new PoolingNHttpClientConnectionManager(new DefaultConnectingIOReactor(ioReactorConfig));
+        connectionManager.setMaxTotal(connections);
+        connectionManager.setDefaultMaxPerRoute(connections);
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(timeoutMillis)
+                .setSocketTimeout(timeoutMillis)
+                .setConnectionRequestTimeout(timeoutMillis)
+                .build();
+        this.client = HttpAsyncClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .build();
+    }
 
-        ClientWorker[] workers = new ClientWorker[concurrency];
-        for (int i = 0; i < concurrency; i++) {
-            workers[i] = new ClientWorker(count, apiEndpoint, directEndpoint);
-            workers[i].start();
+    public static void main(String[] args) throws Exception {
+        String baseUrl = System.getProperty("baseUrl", "http://localhost:8280");
+        String requestFile = System.getProperty("requestFile");
+        int rate = Integer.getInteger("rate", 1000);
+        int warmupSeconds = Integer.getInteger("warmupSeconds", 10);
+        int durationSeconds = Integer.getInteger("durationSeconds", 60);
+        int connections = Integer.getInteger("connections", 200);
+        int ioThreads = Integer.getInteger("ioThreads", Runtime.getRuntime().availableProcessors());
+        int timeoutMillis = Integer.getInteger("timeoutMillis", 30000);
+        long seed = Long.getLong("seed", 1);
+        String reportPrefix = System.getProperty("report", "load-test");
+        String label = System.getProperty("label", "run");
+
+        StubServer stub = null;
+        if (Boolean.getBoolean("stub")) {
+            stub = new StubServer(0, Long.getLong("stubLatencyMillis", 0), Math.max(connections, 1));
+            stub.start();
+            baseUrl = "http://localhost:" + stub.getPort();
+            System.out.println("Sending load to local stub server at " + baseUrl);
         }
 
-        int success = 0;
-        int failures = 0;
-        long totalTime = 0L;
-        for (int i = 0; i < concurrency; i++) {
-            try {
-                workers[i].join();
-            } catch (InterruptedException ignored) {
-
-            }
-            success += workers[i].getSuccess();
-            failures += workers[i].getFailures();
-            totalTime += workers[i].getTimeElapsedForAPICall();
+        RequestMix requestMix;
+        if (requestFile != null) {
+            requestMix = RequestMix.fromFile(requestFile, baseUrl, seed);
+        } else {
+            requestMix = RequestMix.single("GET", baseUrl, System.getProperty("endpoint", "/pizzashack/menu/1.0.0"),
+                    System.getProperty("accessToken"), seed);
         }
 
-        int total = concurrency * count;
-        double time = totalTime/1000.0;
-        System.out.println("\n\nSuccessful invocations: " + success + "/" + total);
-        System.out.println("Failed invocations: " + failures + "/" + total);
-        if (time > 0) {
-            System.out.println("Throughput: " + (total/time) + " TPS");
+        LatencyReport report = new LatencyReport(reportPrefix);
+        HttpLoadTestClient loadTestClient = new HttpLoadTestClient(requestMix, report, connections, ioThreads,
+                timeoutMillis);
+        try {
+            loadTestClient.run(rate, warmupSeconds, durationSeconds, timeoutMillis);
+            report.finish(System.out, label, rate, durationSeconds);
+        } finally {
+            loadTestClient.close();
+            if (stub != null) {
+                stub.stop();
+            }
         }
     }
 
-    private static class ClientWorker extends Thread {
-
-        private int count;
-        private String apiEndpoint;
-        private String directEndpoint;
-
-        private int success = 0;
-        private int failures = 0;
-
-        private int rollingCounter = 0;
-        private long timeElapsedForAPICall;
-        private long timeElapsedForDirectCall;
-
-        public ClientWorker(int count, String apiEndpoint, String directEndpoint) {
-            this.count = count;
-            this.apiEndpoint = apiEndpoint;
-            this.directEndpoint = directEndpoint;
-        }
-
-        @Override
-        public void run() {
-            SchemeRegistry supportedSchemes = new SchemeRegistry();
-            SocketFactory sf = PlainSocketFactory.getSocketFactory();
-            supportedSchemes.register(new Scheme("http", sf, 80));
-            ThreadSafeClientConnManager connManager = new ThreadSafeClientConnManager(supportedSchemes);
-            connManager.setDefaultMaxPerRoute(1000);
-            DefaultHttpClient client = new DefaultHttpClient(connManager);
-            HttpParams params = client.getParams();
-            HttpConnectionParams.setConnectionTimeout(params, 30000);
-            HttpConnectionParams.setSoTimeout(params, 30000);
-            client.setHttpRequestRetryHandler(new HttpRequestRetryHandler() {
-                public boolean retryRequest(IOException e, int i, HttpContext httpContext) {
-                    return false;
-                }
-            });
-            //test API call
-            long t1 = System.currentTimeMillis();
-            testEndpoint(client,apiEndpoint);
-            long t2 = System.currentTimeMillis();
-            timeElapsedForAPICall = t2 - t1;
-
-
-        }
-
-        private void testEndpoint(DefaultHttpClient client,String endpoint) {
-            for (int i = 0; i < count; i++) {
-                HttpUriRequest request = new HttpGet(endpoint);
-                request.addHeader("Authorization", "Bearer " + getNextKey());
-                //request.addHeader("BypassTokenCache","true");
-                try {
-                    HttpResponse response = client.execute(request);
-                    int statusCode = response.getStatusLine().getStatusCode();
-                    HttpEntity entity = response.getEntity();
-                    if (entity != null) {
-                        InputStream in = entity.getContent();
-                        try {
-                            byte[] data = new byte[8096];
-                            while ((in.read(data)) != -1);
-                        } finally {
-                            in.close();
-                        }
-                    }
-                    if (statusCode == 200) {
-                        success++;
-                    } else {
-                        failures++;
-                    }
-                } catch (IOException e) {
-                    System.err.println("I/O error while executing request: " + e.getMessage());
-                    e.printStackTrace();
-                    failures++;
-                } finally {
-                    int current = counter.incrementAndGet();
-                    if (current % PIT_STOP == 0) {
-                        System.out.println("Completed " + current + " requests");
+    /**
+     * Sends requests at the given rate for the warm up and measured periods, then waits for the outstanding
+     * requests to complete.
+     */
+    public void run(int rate, int warmupSeconds, int durationSeconds, int timeoutMillis) throws InterruptedException {
+        client.start();
+        System.out.println("Sending " + rate + " requests/s drawn from " + requestMix.size()
+                + " request(s), warm up " + warmupSeconds + "s, measuring " + durationSeconds + "s");
+
+        long startNanos = System.nanoTime();
+        long measureStartNanos = startNanos + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long endNanos = measureStartNanos + TimeUnit.SECONDS.toNanos(durationSeconds);
+        double intervalNanos = TimeUnit.SECONDS.toNanos(1) / (double) rate;
+
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor();
+        boolean measuring = false;
+        for (long i = 0; ; i++) {
+            long intendedNanos = startNanos + (long) (i * intervalNanos);
+            if (intendedNanos >= endNanos) {
+                break;
+            }
+            if (!measuring && intendedNanos >= measureStartNanos) {
+                measuring = true;
+                measureFromNanos = measureStartNanos;
+                report.start();
+                reporter.scheduleAtFixedRate(new Runnable() {
+                    @Override
+                    public void run() {
+                        report.reportInterval(System.out);
                     }
-                }
+                }, 1, 1, TimeUnit.SECONDS);
+            }
+            long now;
+            while ((now = System.nanoTime()) < intendedNanos) {
+                LockSupport.parkNanos(intendedNanos - now);
             }
+            // requests which fell behind schedule are sent immediately, keeping their scheduled time
+            send(intendedNanos);
         }
 
-        public long getTimeElapsedForAPICall() {
-            return timeElapsedForAPICall;
+        long drainDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (outstanding.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(10);
         }
-
-        public int getSuccess() {
-            return success;
+        reporter.shutdownNow();
+        reporter.awaitTermination(5, TimeUnit.SECONDS);
+        if (outstanding.get() > 0) {
+            System.out.println(outstanding.get() + " requests were still outstanding at the end of the run");
         }
+    }
 
-        public int getFailures() {
-            return failures;
-        }
+    private void send(final long intendedNanos) {
+        HttpUriRequest request = requestMix.next();
+        final long sentNanos = System.nanoTime();
+        outstanding.incrementAndGet();
+        client.execute(request, new FutureCallback<HttpResponse>() {
+            @Override
+            public void completed(HttpResponse response) {
+                int status = response.getStatusLine().getStatusCode();
+                done(status >= 200 && status < 300);
+            }
 
-        private String getNextKey() {
-            if (rollingCounter == 10000) {
-                rollingCounter = 0;
+            @Override
+            public void failed(Exception e) {
+                done(false);
             }
-            //return "9nEQnijLZ0Gi0gZ6a3pZIC" + rollingCounter++;
-            return "9_xeV6fkaeyrqvZuo6mbuAaKvtUa";
-            //return "mBPSeDRGyc1Q3dx5fiNN8ujXv2Qa";
-        }
+
+            @Override
+            public void cancelled() {
+                done(false);
+            }
+
+            private void done(boolean success) {
+                long doneNanos = System.nanoTime();
+                if (intendedNanos >= measureFromNanos) {
+                    report.record(intendedNanos, sentNanos, doneNanos, success);
+                }
+                outstanding.decrementAndGet();
+            }
+        });
+    }
+
+    public void close() throws IOException {
+        client.close();
     }
 }
@@ -0,0 +1,187 @@
+/*
+ *  Copyright WSO2 Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.wso2.carbon.apimgt.perf.client;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the throughput of a webapp deployed on a local Tomcat with the API Manager interceptor valve, compared
+ * with a webapp served by the same Tomcat which is not an API and therefore skips the valve. The difference between
+ * the two is the cost of the valve's authentication, throttling and statistics pipeline.
+ *
+ * Configured through system properties:
+ * <pre>
+ *   apiEndpoint      - URL of the API webapp (default http://localhost:9763/pizzashack-api-1.0.0/api/menu)
+ *   baselineEndpoint - URL of a webapp which is not an API (optional)
+ *   accessToken      - token sent as the bearer token to the API webapp
+ *   threads          - number of concurrent client threads (default 20)
+ *   warmupSeconds    - warm up period which is not measured (default 10)
+ *   durationSeconds  - measured period (default 60)
+ * </pre>
+ */
+public class InterceptorValveBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        String apiEndpoint = System.getProperty("apiEndpoint", "http://localhost:9763/pizzashack-api-1.0.0/api/menu");
+        String baselineEndpoint = System.getProperty("baselineEndpoint");
+        String accessToken = System.getProperty("accessToken");
+        int threads = Integer.getInteger("threads", 20);
+        int warmupSeconds = Integer.getInteger("warmupSeconds", 10);
+        int durationSeconds = Integer.getInteger("durationSeconds", 60);
+
+        PoolingHttpClientConnectionManager connManager = new PoolingHttpClientConnectionManager();
+        connManager.setMaxTotal(threads * 2);
+        connManager.setDefaultMaxPerRoute(threads * 2);
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(30000)
+                .setSocketTimeout(30000)
+                .build();
+        CloseableHttpClient client = HttpClients.custom()
+                .setConnectionManager(connManager)
+                .setDefaultRequestConfig(requestConfig)
+                .build();
+
+        try {
+            Result api = run(client, apiEndpoint, accessToken, threads, warmupSeconds, durationSeconds);
+            System.out.println("API webapp      : " + api);
+            if (baselineEndpoint != null) {
+                Result baseline = run(client, baselineEndpoint, null, threads, warmupSeconds, durationSeconds);
+                System.out.println("Baseline webapp : " + baseline);
+            }
+        } finally {
+            client.close();
+        }
+    }
+
+    private static Result run(CloseableHttpClient client, String endpoint, String accessToken, int threads,
+                              int warmupSeconds, int durationSeconds) throws InterruptedException {
+        Worker[] workers = new Worker[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Worker(client, endpoint, accessToken);
+            workers[i].start();
+        }
+        Thread.sleep(warmupSeconds * 1000L);
+        for (Worker worker : workers) {
+            worker.reset();
+        }
+        long start = System.nanoTime();
+        Thread.sleep(durationSeconds * 1000L);
+        long elapsedNanos = System.nanoTime() - start;
+
+        Result result = new Result(elapsedNanos);
+        for (Worker worker : workers) {
+            result.add(worker);
+            worker.finish();
+        }
+        for (Worker worker : workers) {
+            worker.join();
+        }
+        return result;
+    }
+
+    private static class Worker extends Thread {
+
+        private final CloseableHttpClient client;
+        private final String endpoint;
+        private final String accessToken;
+
+        private volatile boolean running = true;
+        private final AtomicLong success = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong latencyNanos = new AtomicLong();
+
+        Worker(CloseableHttpClient client, String endpoint, String accessToken) {
+            this.client = client;
+            this.endpoint = endpoint;
+            this.accessToken = accessToken;
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                HttpGet request = new HttpGet(endpoint);
+                if (accessToken != null) {
+                    request.addHeader("Authorization", "Bearer " + accessToken);
+                }
+                long start = System.nanoTime();
+                try {
+                    CloseableHttpResponse response = client.execute(request);
+                    try {
+                        EntityUtils.consume(response.getEntity());
+                        if (response.getStatusLine().getStatusCode() == 200) {
+                            success.incrementAndGet();
+                        } else {
+                            failures.incrementAndGet();
+                        }
+                    } finally {
+                        response.close();
+                    }
+                } catch (IOException e) {
+                    request.abort();
+                    failures.incrementAndGet();
+                }
+                latencyNanos.addAndGet(System.nanoTime() - start);
+            }
+        }
+
+        void reset() {
+            success.set(0);
+            failures.set(0);
+            latencyNanos.set(0);
+        }
+
+        void finish() {
+            running = false;
+        }
+    }
+
+    private static class Result {
+
+        private final long elapsedNanos;
+        private long success;
+        private long failures;
+        private long latencyNanos;
+
+        Result(long elapsedNanos) {
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        void add(Worker worker) {
+            success += worker.success.get();
+            failures += worker.failures.get();
+            latencyNanos += worker.latencyNanos.get();
+        }
+
+        @Override
+        public String toString() {
+            long total = success + failures;
+            double seconds = elapsedNanos / 1e9;
+            double avgLatencyMillis = total > 0 ? latencyNanos / 1e6 / total : 0;
+            return String.format("%d requests (%d failed), %.1f TPS, %.3f ms average latency", total, failures,
+                    success / seconds, avgLatencyMillis);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ *  Copyright WSO2 Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.wso2.carbon.apimgt.perf.client;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records the latencies of a load test run and writes them out in forms which can be compared across runs.
+ *
+ * Two latencies are recorded for each request. The response time is measured from the time the request was
+ * scheduled to be sent, so a stalled server is charged for every request which should have been sent while it was
+ * stalled rather than only for the request it stalled on. The service time is measured from the time the request
+ * was actually handed to the HTTP client. Latencies are recorded in microseconds.
+ *
+ * For a report prefix {@code p} a run writes
+ * <ul>
+ *   <li>{@code p.hlog} - per second response time histograms, readable by HdrHistogram's HistogramLogProcessor</li>
+ *   <li>{@code p.hgrm} - the percentile distribution of the response time over the whole run, in milliseconds</li>
+ *   <li>{@code p-summary.csv} - one line per run, appended so that successive runs can be compared</li>
+ * </ul>
+ */
+public class LatencyReport {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private static final String SUMMARY_HEADER = "time,label,targetRate,durationSeconds,requests,errors,achievedRate,"
+            + "p50Millis,p90Millis,p99Millis,p99.9Millis,p99.99Millis,maxMillis,serviceP99Millis";
+
+    private final Recorder responseTimes = new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+
+    private final Recorder serviceTimes = new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+
+    private final Histogram totalResponseTimes = new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+
+    private final Histogram totalServiceTimes = new Histogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+
+    private final AtomicLong errors = new AtomicLong();
+
+    private final String prefix;
+
+    private final HistogramLogWriter logWriter;
+
+    private Histogram intervalResponseTimes;
+
+    private Histogram intervalServiceTimes;
+
+    private long startMillis;
+
+    private long lastIntervalErrors;
+
+    public LatencyReport(String prefix) throws IOException {
+        this.prefix = prefix;
+        this.logWriter = new HistogramLogWriter(new File(prefix + ".hlog"));
+    }
+
+    /**
+     * Starts the measured part of the run. Requests scheduled during warm up must not be recorded.
+     */
+    public synchronized void start() {
+        startMillis = System.currentTimeMillis();
+        // begins the first interval
+        intervalResponseTimes = responseTimes.getIntervalHistogram();
+        intervalServiceTimes = serviceTimes.getIntervalHistogram();
+        logWriter.outputLogFormatVersion();
+        logWriter.outputStartTime(startMillis);
+        logWriter.outputBaseTime(startMillis);
+        logWriter.outputLegend();
+    }
+
+    /**
+     * Records a completed request. Called concurrently from the I/O threads of the HTTP client.
+     *
+     * @param intendedNanos time the request was scheduled to be sent
+     * @param sentNanos     time the request was handed to the HTTP client
+     * @param doneNanos     time the response was received or the request failed
+     * @param success       whether a 2xx response was received
+     */
+    public void record(long intendedNanos, long sentNanos, long doneNanos, boolean success) {
+        responseTimes.recordValue(toMicros(doneNanos - intendedNanos));
+        serviceTimes.recordValue(toMicros(doneNanos - sentNanos));
+        if (!success) {
+            errors.incrementAndGet();
+        }
+    }
+
+    private static long toMicros(long nanos) {
+        return Math.max(0, Math.min(TimeUnit.NANOSECONDS.toMicros(nanos), HIGHEST_TRACKABLE_MICROS));
+    }
+
+    /**
+     * Closes the current interval, logging its histogram and printing a one line summary of it.
+     */
+    public synchronized void reportInterval(PrintStream out) {
+        intervalResponseTimes = responseTimes.getIntervalHistogram(intervalResponseTimes);
+        intervalServiceTimes = serviceTimes.getIntervalHistogram(intervalServiceTimes);
+        totalResponseTimes.add(intervalResponseTimes);
+        totalServiceTimes.add(intervalServiceTimes);
+        logWriter.outputIntervalHistogram(intervalResponseTimes);
+
+        long currentErrors = errors.get();
+        double seconds = (intervalResponseTimes.getEndTimeStamp() - intervalResponseTimes.getStartTimeStamp()) / 1000.0;
+        out.println(String.format("%6.1fs  %8.1f req/s  p50 %8.3f  p99 %8.3f  p99.9 %8.3f  max %8.3f ms  errors %d",
+                (System.currentTimeMillis() - startMillis) / 1000.0,
+                seconds > 0 ? intervalResponseTimes.getTotalCount() / seconds : 0,
+                millis(intervalResponseTimes.getValueAtPercentile(50)),
+                millis(intervalResponseTimes.getValueAtPercentile(99)),
+                millis(intervalResponseTimes.getValueAtPercentile(99.9)),
+                millis(intervalResponseTimes.getMaxValue()),
+                currentErrors - lastIntervalErrors));
+        lastIntervalErrors = currentErrors;
+    }
+
+    /**
+     * Prints the summary of the run and writes the percentile distribution and the summary line.
+     */
+    public synchronized void finish(PrintStream out, String label, int targetRate, int durationSeconds)
+            throws IOException {
+        reportInterval(out);
+        logWriter.close();
+
+        long requests = totalResponseTimes.getTotalCount();
+        String summary = String.format("%s,%s,%d,%d,%d,%d,%.1f,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f",
+                new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss").format(new Date(startMillis)), label, targetRate,
+                durationSeconds, requests, errors.get(), requests / (double) durationSeconds,
+                millis(totalResponseTimes.getValueAtPercentile(50)),
+                millis(totalResponseTimes.getValueAtPercentile(90)),
+                millis(totalResponseTimes.getValueAtPercentile(99)),
+                millis(totalResponseTimes.getValueAtPercentile(99.9)),
+                millis(totalResponseTimes.getValueAtPercentile(99.99)),
+                millis(totalResponseTimes.getMaxValue()),
+                millis(totalServiceTimes.getValueAtPercentile(99)));
+
+        out.println();
+        out.println("Requests: " + requests + " (" + errors.get() + " failed)");
+        out.println("Response time percentiles (ms), measured from the scheduled send time:");
+        totalResponseTimes.outputPercentileDistribution(out, 1000.0);
+
+        PrintStream distribution = new PrintStream(new FileOutputStream(prefix + ".hgrm"), false, "UTF-8");
+        try {
+            totalResponseTimes.outputPercentileDistribution(distribution, 1000.0);
+        } finally {
+            distribution.close();
+        }
+
+        File summaryFile = new File(prefix + "-summary.csv");
+        boolean newFile = !summaryFile.exists();
+        PrintStream summaryOut = new PrintStream(new FileOutputStream(summaryFile, true), false, "UTF-8");
+        try {
+            if (newFile) {
+                summaryOut.println(SUMMARY_HEADER);
+            }
+            summaryOut.println(summary);
+        } finally {
+            summaryOut.close();
+        }
+        out.println("Reports written to " + prefix + ".hlog, " + prefix + ".hgrm and " + summaryFile.getPath());
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ *  Copyright WSO2 Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.wso2.carbon.apimgt.perf.client;
+
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.methods.RequestBuilder;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The requests sent by the load generator. Each line of a request file describes one kind of request:
+ * <pre>
+ *   # method  path or URL                  access token (optional)
+ *   GET       /pizzashack/menu/1.0.0       9_xeV6fkaeyrqvZuo6mbuAaKvtUa
+ *   POST      /calc/1.0/add?x=1&amp;y=2        mBPSeDRGyc1Q3dx5fiNN8ujXv2Qa
+ * </pre>
+ * Requests are drawn uniformly at random, so a line can be repeated to send that request more often. The draw uses
+ * a fixed seed, so every run with the same file sends the same sequence of requests.
+ */
+public class RequestMix {
+
+    private final List<RequestTemplate> templates;
+
+    private final Random random;
+
+    public RequestMix(List<RequestTemplate> templates, long seed) {
+        if (templates.isEmpty()) {
+            throw new IllegalArgumentException("The request mix does not contain any requests");
+        }
+        this.templates = templates;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Reads a request file. Blank lines and lines starting with # are ignored.
+     *
+     * @param file    path of the request file
+     * @param baseUrl URL relative paths in the file are resolved against, e.g. http://localhost:8280
+     * @param seed    seed of the random draw
+     */
+    public static RequestMix fromFile(String file, String baseUrl, long seed) throws IOException {
+        List<RequestTemplate> templates = new ArrayList<RequestTemplate>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+        try {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("\\s+");
+                if (fields.length < 2 || fields.length > 3) {
+                    throw new IOException("Invalid request at line " + lineNumber + " of " + file + ": " + line);
+                }
+                templates.add(new RequestTemplate(fields[0].toUpperCase(), resolve(baseUrl, fields[1]),
+                        fields.length == 3 ? fields[2] : null));
+            }
+        } finally {
+            reader.close();
+        }
+        return new RequestMix(templates, seed);
+    }
+
+    /**
+     * @return a mix consisting of a single request
+     */
+    public static RequestMix single(String method, String baseUrl, String path, String accessToken, long seed) {
+        List<RequestTemplate> templates = new ArrayList<RequestTemplate>();
+        templates.add(new RequestTemplate(method, resolve(baseUrl, path), accessToken));
+        return new RequestMix(templates, seed);
+    }
+
+    private static String resolve(String baseUrl, String path) {
+        if (path.startsWith("http://") || path.startsWith("https://")) {
+            return path;
+        }
+        if (baseUrl.endsWith("/") && path.startsWith("/")) {
+            return baseUrl + path.substring(1);
+        }
+        return baseUrl + path;
+    }
+
+    public int size() {
+        return templates.size();
+    }
+
+    /**
+     * Creates the next request. Not thread safe; requests are drawn by the single scheduling thread.
+     */
+    public HttpUriRequest next() {
+        return templates.get(random.nextInt(templates.size())).newRequest();
+    }
+
+    static class RequestTemplate {
+
+        private final String method;
+
+        private final String url;
+
+        private final String authorization;
+
+        RequestTemplate(String method, String url, String accessToken) {
+            this.method = method;
+            this.url = url;
+            this.authorization = accessToken != null ? "Bearer " + accessToken : null;
+        }
+
+        HttpUriRequest newRequest() {
+            RequestBuilder builder = RequestBuilder.create(method).setUri(url);
+            if (authorization != null) {
+                builder.addHeader("Authorization", authorization);
+            }
+            return builder.build();
+        }
+    }
+}
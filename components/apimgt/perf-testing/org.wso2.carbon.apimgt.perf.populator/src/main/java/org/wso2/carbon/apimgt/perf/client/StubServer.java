@@ -0,0 +1,100 @@
+/*
+ *  Copyright WSO2 Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.wso2.carbon.apimgt.perf.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A back end which answers every request with a small JSON payload after a fixed delay. Used as the target of the
+ * load generator, or as the endpoint of the APIs of a local gateway, when no real back end is available.
+ *
+ * Configured through system properties:
+ * <pre>
+ *   port          - port to listen on (default 9000, 0 for any free port)
+ *   latencyMillis - delay before each response (default 0)
+ *   threads       - number of threads serving requests (default 200)
+ * </pre>
+ */
+public class StubServer {
+
+    private static final byte[] RESPONSE = ("{\"name\":\"BBQ Chicken Bacon\",\"description\":\"Grilled white chicken, "
+            + "hickory-smoked bacon and fresh sliced onions in barbeque sauce\",\"price\":\"24.99\"}").getBytes();
+
+    private final HttpServer server;
+
+    private final ExecutorService executor;
+
+    public StubServer(int port, final long latencyMillis, int threads) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(port), 1024);
+        executor = Executors.newFixedThreadPool(threads);
+        server.setExecutor(executor);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                InputStream in = exchange.getRequestBody();
+                byte[] buffer = new byte[4096];
+                while (in.read(buffer) != -1) {
+                    // discard the request payload
+                }
+                if (latencyMillis > 0) {
+                    try {
+                        Thread.sleep(latencyMillis);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, RESPONSE.length);
+                OutputStream out = exchange.getResponseBody();
+                try {
+                    out.write(RESPONSE);
+                } finally {
+                    out.close();
+                }
+            }
+        });
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public static void main(String[] args) throws IOException {
+        StubServer stub = new StubServer(Integer.getInteger("port", 9000), Long.getLong("latencyMillis", 0),
+                Integer.getInteger("threads", 200));
+        stub.start();
+        System.out.println("Stub server listening on port " + stub.getPort());
+    }
+}
@@ -0,0 +1,317 @@
+/*
+ *  Copyright WSO2 Inc.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.wso2.carbon.apimgt.perf.client;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.BasicHttpClientConnectionManager;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the cost of the callouts of the WS workflow executors to their workflow service, against a stub workflow
+ * endpoint. Three ways of calling out are compared:
+ * <ul>
+ *   <li>per callout - a new HTTP client, and so a new connection, for every callout, on the calling thread. This is
+ *   what the executors did when they created a service client for every callout.</li>
+ *   <li>pooled - the connections of the endpoint are shared by all callouts, at most {@code maxConnections} at a
+ *   time, as by the workflow service client pool.</li>
+ *   <li>pooled async - as pooled, but the callouts are sent by {@code calloutThreads} callout threads, or by the
+ *   caller once {@code queueSize} callouts are pending, as with asynchronous callouts enabled.</li>
+ * </ul>
+ * For each way the time callers are held by a callout, and the time to send all the callouts, are reported.
+ *
+ * Configured through system properties:
+ * <pre>
+ *   endpoint       - URL of the workflow endpoint (default a {@link StubServer} started on a free port)
+ *   latencyMillis  - response delay of the started stub endpoint (default 20)
+ *   callers        - number of concurrent callers (default 20)
+ *   callouts       - number of callouts sent by each caller (default 100)
+ *   maxConnections - connections to the endpoint of the pooled callouts (default 20)
+ *   calloutThreads - threads sending the pooled async callouts (default 10)
+ *   queueSize      - pending pooled async callouts (default 1000)
+ * </pre>
+ */
+public class WorkflowCalloutBenchmark {
+
+    private static final String ACTION = "http://workflow.subscription.apimgt.carbon.wso2.org/initiate";
+
+    private static final String PAYLOAD = "<soapenv:Envelope "
+            + "xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\"><soapenv:Body>"
+            + "<wor:SubscriptionApprovalWorkFlowProcessRequest "
+            + "xmlns:wor=\"http://workflow.subscription.apimgt.carbon.wso2.org\">"
+            + "<wor:apiName>PizzaShackAPI</wor:apiName><wor:apiVersion>1.0.0</wor:apiVersion>"
+            + "<wor:apiContext>/pizzashack/1.0.0</wor:apiContext><wor:apiProvider>admin</wor:apiProvider>"
+            + "<wor:subscriber>subscriber</wor:subscriber><wor:applicationName>DefaultApplication</wor:applicationName>"
+            + "<wor:tierName>Gold</wor:tierName><wor:workflowExternalRef>%d</wor:workflowExternalRef>"
+            + "<wor:callBackURL>?</wor:callBackURL></wor:SubscriptionApprovalWorkFlowProcessRequest>"
+            + "</soapenv:Body></soapenv:Envelope>";
+
+    private static final RequestConfig REQUEST_CONFIG = RequestConfig.custom()
+            .setConnectTimeout(30000)
+            .setSocketTimeout(30000)
+            .build();
+
+    public static void main(String[] args) throws Exception {
+        String endpoint = System.getProperty("endpoint");
+        int callers = Integer.getInteger("callers", 20);
+        int callouts = Integer.getInteger("callouts", 100);
+        int maxConnections = Integer.getInteger("maxConnections", 20);
+        int calloutThreads = Integer.getInteger("calloutThreads", 10);
+        int queueSize = Integer.getInteger("queueSize", 1000);
+
+        StubServer stub = null;
+        if (endpoint == null) {
+            stub = new StubServer(0, Long.getLong("latencyMillis", 20), 200);
+            stub.start();
+            endpoint = "http://localhost:" + stub.getPort() + "/services/SubscriptionApprovalWorkFlowProcess/";
+        }
+        try {
+            System.out.println("Per callout   : " + run(new PerCalloutSender(endpoint), callers, callouts));
+
+            PooledSender pooled = new PooledSender(endpoint, maxConnections);
+            try {
+                System.out.println("Pooled        : " + run(pooled, callers, callouts));
+                AsyncSender async = new AsyncSender(pooled, calloutThreads, queueSize);
+                System.out.println("Pooled async  : " + run(async, callers, callouts));
+            } finally {
+                pooled.close();
+            }
+        } finally {
+            if (stub != null) {
+                stub.stop();
+            }
+        }
+    }
+
+    private static Result run(final Sender sender, int callers, final int callouts) throws InterruptedException {
+        final long[] holdNanos = new long[callers * callouts];
+        final AtomicLong failures = new AtomicLong();
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[callers];
+        for (int i = 0; i < callers; i++) {
+            final int caller = i;
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int j = 0; j < callouts; j++) {
+                        int id = caller * callouts + j;
+                        long calloutStart = System.nanoTime();
+                        try {
+                            sender.send(String.format(PAYLOAD, id));
+                        } catch (IOException e) {
+                            failures.incrementAndGet();
+                        }
+                        holdNanos[id] = System.nanoTime() - calloutStart;
+                    }
+                }
+            });
+            threads[i].start();
+        }
+
+        long startNanos = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long callersNanos = System.nanoTime() - startNanos;
+        sender.awaitSent();
+        long sentNanos = System.nanoTime() - startNanos;
+        return new Result(holdNanos, failures.get() + sender.getFailures(), callersNanos, sentNanos);
+    }
+
+    private interface Sender {
+
+        void send(String payload) throws IOException;
+
+        /** Waits until the callouts accepted by {@link #send(String)} are sent */
+        void awaitSent() throws InterruptedException;
+
+        long getFailures();
+    }
+
+    private static void post(CloseableHttpClient client, String endpoint, String payload) throws IOException {
+        HttpPost post = new HttpPost(endpoint);
+        post.setHeader("SOAPAction", ACTION);
+        post.setEntity(new StringEntity(payload, ContentType.TEXT_XML));
+        CloseableHttpResponse response = client.execute(post);
+        try {
+            EntityUtils.consume(response.getEntity());
+            if (response.getStatusLine().getStatusCode() >= 300) {
+                throw new IOException("Workflow endpoint responded with " + response.getStatusLine());
+            }
+        } finally {
+            response.close();
+        }
+    }
+
+    private static class PerCalloutSender implements Sender {
+
+        private final String endpoint;
+
+        PerCalloutSender(String endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        @Override
+        public void send(String payload) throws IOException {
+            CloseableHttpClient client = HttpClients.custom()
+                    .setConnectionManager(new BasicHttpClientConnectionManager())
+                    .setDefaultRequestConfig(REQUEST_CONFIG)
+                    .build();
+            try {
+                post(client, endpoint, payload);
+            } finally {
+                client.close();
+            }
+        }
+
+        @Override
+        public void awaitSent() {
+        }
+
+        @Override
+        public long getFailures() {
+            return 0;
+        }
+    }
+
+    private static class PooledSender implements Sender {
+
+        private final String endpoint;
+
+        private final CloseableHttpClient client;
+
+        PooledSender(String endpoint, int maxConnections) {
+            this.endpoint = endpoint;
+            PoolingHttpClientConnectionManager connManager = new PoolingHttpClientConnectionManager();
+            connManager.setMaxTotal(maxConnections);
+            connManager.setDefaultMaxPerRoute(maxConnections);
+            client = HttpClients.custom()
+                    .setConnectionManager(connManager)
+                    .setDefaultRequestConfig(REQUEST_CONFIG)
+                    .build();
+        }
+
+        @Override
+        public void send(String payload) throws IOException {
+            post(client, endpoint, payload);
+        }
+
+        @Override
+        public void awaitSent() {
+        }
+
+        @Override
+        public long getFailures() {
+            return 0;
+        }
+
+        void close() throws IOException {
+            client.close();
+        }
+    }
+
+    private static class AsyncSender implements Sender {
+
+        private final PooledSender pooled;
+
+        private final ThreadPoolExecutor executor;
+
+        private final AtomicLong failures = new AtomicLong();
+
+        AsyncSender(PooledSender pooled, int calloutThreads, int queueSize) {
+            this.pooled = pooled;
+            // once the queue is full the caller sends the callout itself, as the workflow service client pool does
+            executor = new ThreadPoolExecutor(calloutThreads, calloutThreads, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<Runnable>(queueSize), new ThreadPoolExecutor.CallerRunsPolicy());
+        }
+
+        @Override
+        public void send(final String payload) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        pooled.send(payload);
+                    } catch (IOException e) {
+                        failures.incrementAndGet();
+                    }
+                }
+            });
+        }
+
+        @Override
+        public void awaitSent() throws InterruptedException {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.HOURS);
+        }
+
+        @Override
+        public long getFailures() {
+            return failures.get();
+        }
+    }
+
+    private static class Result {
+
+        private final long[] holdNanos;
+        private final long failures;
+        private final long callersNanos;
+        private final long sentNanos;
+
+        Result(long[] holdNanos, long failures, long callersNanos, long sentNanos) {
+            this.holdNanos = holdNanos;
+            this.failures = failures;
+            this.callersNanos = callersNanos;
+            this.sentNanos = sentNanos;
+            Arrays.sort(this.holdNanos);
+        }
+
+        @Override
+        public String toString() {
+            long total = 0;
+            for (long nanos : holdNanos) {
+                total += nanos;
+            }
+            double avgHoldMillis = holdNanos.length > 0 ? total / 1e6 / holdNanos.length : 0;
+            double p99HoldMillis = holdNanos.length > 0 ? holdNanos[(int) (holdNanos.length * 0.99)] / 1e6 : 0;
+            return String.format("%d callouts (%d failed), caller held %.3f ms average, %.3f ms p99, callers done in "
+                    + "%d ms, all sent in %d ms, %.1f callouts/s", holdNanos.length, failures, avgHoldMillis,
+                    p99HoldMillis, callersNanos / 1000000, sentNanos / 1000000,
+                    holdNanos.length / (sentNanos / 1e9));
+        }
+    }
+}
@@ -57,6 +57,21 @@ public class ForumConstants {
 
     public static final String OVERVIEW_TOPIC_TIMESTAMP = "overview_timestamp";
 
+    public static final String OVERVIEW_AVERAGE_RATING = "overview_averageRating";
+
+    public static final String TOPIC_INDEX_REFRESH_INTERVAL_PROPERTY = "forum.topicIndex.refreshInterval";
+
+    /**
+     * Seconds after which the topic index is reloaded from the registry. Changes made through other nodes of a
+     * cluster are not listed until then.
+     */
+    public static final long DEFAULT_TOPIC_INDEX_REFRESH_INTERVAL = 30;
+
+    public static final String TOPIC_DESCRIPTION_CACHE_SIZE_PROPERTY = "forum.topicIndex.descriptionCacheSize";
+
+    /** Number of topic contents kept in memory per tenant */
+    public static final int DEFAULT_TOPIC_DESCRIPTION_CACHE_SIZE = 1000;
+
     public static void main(String args[]){
 
         List<String> dates = new ArrayList<String>();
@@ -0,0 +1,445 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.carbon.forum.registry;
+
+import org.wso2.carbon.forum.ForumException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In memory index of the forum topics of a tenant, by resource identifier, timestamp and subject terms. Listing and
+ * searching topics is served from the index, so a page of topics costs no registry search regardless of the number
+ * of topics in the forum.
+ *
+ * The index is loaded from the registry on first use and kept up to date with the changes made through this node.
+ * It is reloaded periodically to pick up changes made through other nodes of a cluster, so on a cluster a topic added,
+ * updated or deleted through another node is listed as before for up to the refresh interval (30 seconds by default,
+ * see {@link ForumConstants#TOPIC_INDEX_REFRESH_INTERVAL_PROPERTY}).
+ *
+ * Topic contents are not part of the index. The contents of the most recently listed topics are kept, up to
+ * {@link ForumConstants#TOPIC_DESCRIPTION_CACHE_SIZE_PROPERTY} topics, and the others are read from the registry.
+ */
+final class ForumTopicIndex {
+
+    private static final ConcurrentMap<String, ForumTopicIndex> indexes =
+            new ConcurrentHashMap<String, ForumTopicIndex>();
+
+    /** Latest topics first */
+    private static final Comparator<TopicEntry> TOPIC_ORDER = new Comparator<TopicEntry>() {
+        @Override
+        public int compare(TopicEntry first, TopicEntry second) {
+            if (first.timestamp != second.timestamp) {
+                return first.timestamp > second.timestamp ? -1 : 1;
+            }
+            return first.topicId.compareTo(second.topicId);
+        }
+    };
+
+    private final long refreshIntervalMillis;
+
+    private final int maxDescriptions;
+
+    private final ReentrantLock loadLock = new ReentrantLock();
+
+    private Map<String, TopicEntry> topicsById = new HashMap<String, TopicEntry>();
+
+    private TreeSet<TopicEntry> topics = new TreeSet<TopicEntry>(TOPIC_ORDER);
+
+    private Map<String, TreeSet<TopicEntry>> topicsByResource = new HashMap<String, TreeSet<TopicEntry>>();
+
+    private Map<String, Set<TopicEntry>> topicsByTerm = new HashMap<String, Set<TopicEntry>>();
+
+    private volatile long loadedTime = -1;
+
+    private boolean reloading;
+
+    /** Changes made while the index is being reloaded; a null value marks a removed topic */
+    private final Map<String, TopicEntry> changesDuringReload = new LinkedHashMap<String, TopicEntry>();
+
+    /** Contents of the most recently used topics, least recently used first */
+    private final Map<String, String> descriptions = new LinkedHashMap<String, String>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > maxDescriptions;
+        }
+    };
+
+    ForumTopicIndex(long refreshIntervalMillis, int maxDescriptions) {
+        this.refreshIntervalMillis = refreshIntervalMillis;
+        this.maxDescriptions = maxDescriptions;
+    }
+
+    /**
+     * Returns the topic index of the given tenant.
+     * @param tenantDomain Tenant domain.
+     * @return Index of the topics of the tenant, which may not have been loaded yet.
+     */
+    static ForumTopicIndex getIndex(String tenantDomain) {
+        ForumTopicIndex index = indexes.get(tenantDomain);
+        if (index == null) {
+            long refreshInterval = TimeUnit.SECONDS.toMillis(Long.getLong(
+                    ForumConstants.TOPIC_INDEX_REFRESH_INTERVAL_PROPERTY,
+                    ForumConstants.DEFAULT_TOPIC_INDEX_REFRESH_INTERVAL));
+            int maxDescriptions = Integer.getInteger(ForumConstants.TOPIC_DESCRIPTION_CACHE_SIZE_PROPERTY,
+                    ForumConstants.DEFAULT_TOPIC_DESCRIPTION_CACHE_SIZE);
+            ForumTopicIndex newIndex = new ForumTopicIndex(refreshInterval, maxDescriptions);
+            index = indexes.putIfAbsent(tenantDomain, newIndex);
+            if (index == null) {
+                index = newIndex;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Loads the index if it has not been loaded yet, waiting for a load in progress, or reloads it if it is older
+     * than the refresh interval and no other thread is already reloading it.
+     * @param loader Source of the topics.
+     * @throws ForumException If the topics cannot be loaded.
+     */
+    void ensureLoaded(TopicLoader loader) throws ForumException {
+        if (loadedTime < 0) {
+            loadLock.lock();
+            try {
+                if (loadedTime < 0) {
+                    reload(loader);
+                }
+            } finally {
+                loadLock.unlock();
+            }
+        } else if (System.currentTimeMillis() - loadedTime > refreshIntervalMillis && loadLock.tryLock()) {
+            try {
+                if (System.currentTimeMillis() - loadedTime > refreshIntervalMillis) {
+                    reload(loader);
+                }
+            } finally {
+                loadLock.unlock();
+            }
+        }
+    }
+
+    private void reload(TopicLoader loader) throws ForumException {
+        synchronized (this) {
+            reloading = true;
+            changesDuringReload.clear();
+            // Contents changed through other nodes are read again; those stored from now on are current.
+            descriptions.clear();
+        }
+        Collection<TopicEntry> loadedTopics = null;
+        try {
+            loadedTopics = loader.loadTopics();
+        } finally {
+            synchronized (this) {
+                if (loadedTopics != null) {
+                    topicsById = new HashMap<String, TopicEntry>();
+                    topics = new TreeSet<TopicEntry>(TOPIC_ORDER);
+                    topicsByResource = new HashMap<String, TreeSet<TopicEntry>>();
+                    topicsByTerm = new HashMap<String, Set<TopicEntry>>();
+                    for (TopicEntry entry : loadedTopics) {
+                        add(entry);
+                    }
+                    // The registry may have been read before these changes were made.
+                    for (Map.Entry<String, TopicEntry> change : changesDuringReload.entrySet()) {
+                        remove(change.getKey());
+                        if (change.getValue() != null) {
+                            add(change.getValue());
+                        }
+                    }
+                    loadedTime = System.currentTimeMillis();
+                }
+                changesDuringReload.clear();
+                reloading = false;
+            }
+        }
+    }
+
+    /**
+     * Adds a topic to the index, replacing any topic with the same id.
+     * @param entry Topic to be indexed.
+     */
+    synchronized void put(TopicEntry entry) {
+        if (reloading) {
+            changesDuringReload.put(entry.topicId, entry);
+        }
+        remove(entry.topicId);
+        add(entry);
+    }
+
+    /**
+     * Removes a topic from the index.
+     * @param topicId Id of the topic.
+     */
+    synchronized void removeTopic(String topicId) {
+        if (reloading) {
+            changesDuringReload.put(topicId, null);
+        }
+        remove(topicId);
+        descriptions.remove(topicId);
+    }
+
+    synchronized void updateReplyCount(String topicId, long replyCount) {
+        TopicEntry entry = topicsById.get(topicId);
+        if (entry != null) {
+            TopicEntry updated = new TopicEntry(entry);
+            updated.replyCount = replyCount;
+            put(updated);
+        }
+    }
+
+    synchronized void updateAverageRating(String topicId, float averageRating) {
+        TopicEntry entry = topicsById.get(topicId);
+        if (entry != null) {
+            TopicEntry updated = new TopicEntry(entry);
+            updated.averageRating = averageRating;
+            put(updated);
+        }
+    }
+
+    /**
+     * Returns the content of a topic, if it is one of the most recently used.
+     * @param topicId Id of the topic.
+     * @return Content of the topic, or null if it has to be read from the registry.
+     */
+    synchronized String getDescription(String topicId) {
+        return descriptions.get(topicId);
+    }
+
+    /**
+     * Keeps the content of an indexed topic, evicting the content of the least recently used topic if there are
+     * more than the maximum number of contents.
+     * @param topicId Id of the topic.
+     * @param description Content of the topic.
+     */
+    synchronized void putDescription(String topicId, String description) {
+        if (topicsById.containsKey(topicId) && description != null) {
+            descriptions.put(topicId, description);
+        }
+    }
+
+    /**
+     * Finds the topics of a resource, or of all resources, whose subject contains the given string.
+     * @param resourceIdentifier Resource the topics belong to, or null for topics of all resources.
+     * @param subjectString String the subject should contain, ignoring case, or null to match all subjects.
+     * @return Matching topics, latest first.
+     */
+    synchronized List<TopicEntry> findTopics(String resourceIdentifier, String subjectString) {
+        Collection<TopicEntry> candidates;
+        if (resourceIdentifier == null) {
+            candidates = topics;
+        } else {
+            candidates = topicsByResource.get(toStoredResourceIdentifier(resourceIdentifier));
+            if (candidates == null) {
+                return Collections.emptyList();
+            }
+        }
+
+        String searchString = subjectString == null ? "" : subjectString.trim().toLowerCase(Locale.ENGLISH);
+        if (searchString.length() == 0) {
+            return new ArrayList<TopicEntry>(candidates);
+        }
+
+        Set<TopicEntry> termMatches = findByTerms(searchString);
+        if (termMatches.size() < candidates.size()) {
+            TreeSet<TopicEntry> ordered = new TreeSet<TopicEntry>(TOPIC_ORDER);
+            for (TopicEntry entry : termMatches) {
+                if (resourceIdentifier == null || entry.resourceIdentifier.equals(
+                        toStoredResourceIdentifier(resourceIdentifier))) {
+                    ordered.add(entry);
+                }
+            }
+            candidates = ordered;
+        }
+
+        List<TopicEntry> matches = new ArrayList<TopicEntry>();
+        for (TopicEntry entry : candidates) {
+            if (termMatches.contains(entry) && entry.subject.toLowerCase(Locale.ENGLISH).contains(searchString)) {
+                matches.add(entry);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Finds the topics having, for every word of the search string, a subject term containing that word. This is a
+     * superset of the topics whose subject contains the search string, found from the term vocabulary rather than
+     * from every topic.
+     */
+    private Set<TopicEntry> findByTerms(String searchString) {
+        Set<TopicEntry> result = null;
+        for (String word : tokenize(searchString)) {
+            Set<TopicEntry> wordMatches = new HashSet<TopicEntry>();
+            for (Map.Entry<String, Set<TopicEntry>> term : topicsByTerm.entrySet()) {
+                if (term.getKey().contains(word)) {
+                    wordMatches.addAll(term.getValue());
+                }
+            }
+            if (result == null) {
+                result = wordMatches;
+            } else {
+                result.retainAll(wordMatches);
+            }
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result != null ? result : new HashSet<TopicEntry>(topics);
+    }
+
+    private void add(TopicEntry entry) {
+        topicsById.put(entry.topicId, entry);
+        topics.add(entry);
+
+        TreeSet<TopicEntry> resourceTopics = topicsByResource.get(entry.resourceIdentifier);
+        if (resourceTopics == null) {
+            resourceTopics = new TreeSet<TopicEntry>(TOPIC_ORDER);
+            topicsByResource.put(entry.resourceIdentifier, resourceTopics);
+        }
+        resourceTopics.add(entry);
+
+        for (String term : tokenize(entry.subject)) {
+            Set<TopicEntry> termTopics = topicsByTerm.get(term);
+            if (termTopics == null) {
+                termTopics = new HashSet<TopicEntry>();
+                topicsByTerm.put(term, termTopics);
+            }
+            termTopics.add(entry);
+        }
+    }
+
+    private void remove(String topicId) {
+        TopicEntry entry = topicsById.remove(topicId);
+        if (entry == null) {
+            return;
+        }
+        topics.remove(entry);
+
+        TreeSet<TopicEntry> resourceTopics = topicsByResource.get(entry.resourceIdentifier);
+        if (resourceTopics != null) {
+            resourceTopics.remove(entry);
+            if (resourceTopics.isEmpty()) {
+                topicsByResource.remove(entry.resourceIdentifier);
+            }
+        }
+
+        for (String term : tokenize(entry.subject)) {
+            Set<TopicEntry> termTopics = topicsByTerm.get(term);
+            if (termTopics != null) {
+                termTopics.remove(entry);
+                if (termTopics.isEmpty()) {
+                    topicsByTerm.remove(term);
+                }
+            }
+        }
+    }
+
+    private static Set<String> tokenize(String text) {
+        Set<String> terms = new HashSet<String>();
+        if (text != null) {
+            for (String term : text.toLowerCase(Locale.ENGLISH).split("\\s+")) {
+                if (term.length() > 0) {
+                    terms.add(term);
+                }
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Converts a resource identifier to the form stored in the topic artifacts.
+     */
+    static String toStoredResourceIdentifier(String resourceIdentifier) {
+        return resourceIdentifier.replaceAll("@", "-AT-");
+    }
+
+    /**
+     * Source of the topics the index is loaded from.
+     */
+    interface TopicLoader {
+
+        Collection<TopicEntry> loadTopics() throws ForumException;
+    }
+
+    synchronized int size() {
+        return topicsById.size();
+    }
+
+    synchronized int getDescriptionCount() {
+        return descriptions.size();
+    }
+
+    /**
+     * Indexed attributes of a topic. Entries are not modified once indexed; updates replace the entry.
+     */
+    static final class TopicEntry {
+
+        final String topicId;
+
+        final String subject;
+
+        final String topicOwner;
+
+        final String topicOwnerTenantDomain;
+
+        /** Resource identifier in the form stored in the topic artifact */
+        final String resourceIdentifier;
+
+        final Date createdDate;
+
+        final long timestamp;
+
+        long replyCount;
+
+        /** Average rating, or a negative value if it has not been aggregated onto the topic */
+        float averageRating = -1;
+
+        TopicEntry(String topicId, String subject, String topicOwner, String topicOwnerTenantDomain,
+                   String resourceIdentifier, Date createdDate, long timestamp) {
+            this.topicId = topicId;
+            this.subject = subject != null ? subject : "";
+            this.topicOwner = topicOwner;
+            this.topicOwnerTenantDomain = topicOwnerTenantDomain;
+            this.resourceIdentifier = resourceIdentifier;
+            this.createdDate = createdDate;
+            this.timestamp = timestamp;
+        }
+
+        TopicEntry(TopicEntry entry) {
+            this(entry.topicId, entry.subject, entry.topicOwner, entry.topicOwnerTenantDomain,
+                    entry.resourceIdentifier, entry.createdDate, entry.timestamp);
+            this.replyCount = entry.replyCount;
+            this.averageRating = entry.averageRating;
+        }
+    }
+}
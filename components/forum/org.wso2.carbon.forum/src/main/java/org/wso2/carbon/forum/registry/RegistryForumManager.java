@@ -34,6 +34,7 @@ import org.wso2.carbon.governance.api.exception.GovernanceException;
 import org.wso2.carbon.governance.api.generic.GenericArtifactManager;
 import org.wso2.carbon.governance.api.generic.dataobjects.GenericArtifact;
 import org.wso2.carbon.governance.api.util.GovernanceUtils;
+import org.wso2.carbon.registry.core.ActionConstants;
 import org.wso2.carbon.registry.core.Registry;
 import org.wso2.carbon.registry.core.RegistryConstants;
 import org.wso2.carbon.registry.core.Resource;
@@ -101,6 +102,10 @@ public class RegistryForumManager implements ForumManager {
                     RegistryConstants.PATH_SEPARATOR + artifact.getId() +
                     RegistryConstants.PATH_SEPARATOR + "topic_content";
             registry.put(resourcePath, resource);
+
+            ForumTopicIndex index = ForumTopicIndex.getIndex(forumTopicDTO.getTopicOwnerTenantDomain());
+            index.put(createTopicEntryFromArtifact(artifact));
+            index.putDescription(artifact.getId(), forumTopicDTO.getDescription());
             return artifact.getId();
         } catch (GovernanceException e) {
             log.error("Error while creating Governance Artifact " + e.getMessage());
@@ -154,6 +159,10 @@ public class RegistryForumManager implements ForumManager {
             resource.setContent(forumTopicDTO.getDescription().getBytes());
             registry.put(resourcePath, resource);
 
+            ForumTopicIndex index = ForumTopicIndex.getIndex(forumTopicDTO.getTopicOwnerTenantDomain());
+            index.put(createTopicEntryFromArtifact(artifact));
+            index.putDescription(artifact.getId(), forumTopicDTO.getDescription());
+
         } catch (GovernanceException e) {
             log.error("Error while creating Governance Artifact " + e.getMessage());
             throw new ForumException("Error while creating Governance Artifact ", e);
@@ -183,6 +192,7 @@ public class RegistryForumManager implements ForumManager {
                                   RegistryConstants.PATH_SEPARATOR + topicId;
             artifactManager.removeGenericArtifact(genericArtifact);
             registry.delete(resourcePath);
+            ForumTopicIndex.getIndex(tenantDomain).removeTopic(topicId);
         } catch (GovernanceException e) {
             log.error("Error while removing Governance Artifact " + e.getMessage());
             throw new ForumException("Error while removing Governance Artifact ", e);
@@ -194,53 +204,7 @@ public class RegistryForumManager implements ForumManager {
 
     @Override
     public ForumSearchDTO<ForumTopicDTO> fetchForumTopics(int start, int count, String tenantDomain, String username) throws ForumException {
-
-        Registry registry = getRegistry(username, tenantDomain);
-
-        GenericArtifactManager artifactManager = getArtifactManager(registry, TOPIC_RXT_KEY);
-
-        if(artifactManager == null){
-            if(log.isDebugEnabled()){
-                log.debug("Could not get artifact manager for topic.rxt, probably no topics found");
-            }
-            return null;
-        }
-
-        PaginationContext.init(start, count, "DESC", ForumConstants.OVERVIEW_TOPIC_TIMESTAMP, Integer.MAX_VALUE);
-
-        try {
-
-            Map<String, List<String>> listMap = new HashMap<String, List<String>>();
-            listMap.put(ForumConstants.OVERVIEW_SUBJECT, new ArrayList<String>() {{
-                add("*");
-            }});
-
-            //GenericArtifact[] genericArtifacts = artifactManager.getAllGenericArtifacts();
-            GenericArtifact[] genericArtifacts = artifactManager.findGenericArtifacts(listMap);
-
-            if(genericArtifacts == null || genericArtifacts.length == 0){
-                if(log.isDebugEnabled()){
-                    log.debug("No Forum Topics Found");
-                }
-                return null;
-            }
-
-            ForumSearchDTO forumSearchDTO = new ForumSearchDTO();
-            List<ForumTopicDTO> topics = new ArrayList<ForumTopicDTO>();
-            ForumTopicDTO forumTopicDTO = null;
-            for(GenericArtifact artifact : genericArtifacts){
-                forumTopicDTO = createForumTopicDTOFromArtifact(artifact, registry);
-                topics.add(forumTopicDTO);
-            }
-            forumSearchDTO.setPaginatedResults(topics);
-            forumSearchDTO.setTotalResultCount(PaginationContext.getInstance().getLength());
-            return forumSearchDTO;
-        } catch (GovernanceException e) {
-            log.error("Error finding forum topics " + e.getMessage());
-            throw new ForumException("Error finding forum topics", e);
-        } finally {
-            PaginationContext.destroy();
-        }
+        return findTopics(start, count, null, null, username, tenantDomain);
     }
 
     @Override
@@ -282,7 +246,13 @@ public class RegistryForumManager implements ForumManager {
             // Set ratings of the topic.
             // NOTE : Taking this operation out from 'createForumTopicDTOFromArtifact' for performance's sake
             topicDTO.setUserRating(registry.getRating(topicArtifact.getPath(), username));
-            topicDTO.setAverageRating(registry.getAverageRating(topicArtifact.getPath()));
+            String averageRating = topicArtifact.getAttribute(ForumConstants.OVERVIEW_AVERAGE_RATING);
+            if (averageRating != null && averageRating.length() > 0) {
+                topicDTO.setAverageRating(Float.parseFloat(averageRating));
+            } else {
+                // Topics which have not been rated since the average was aggregated onto the topic.
+                topicDTO.setAverageRating(registry.getAverageRating(topicArtifact.getPath()));
+            }
 
             final String searchValue = topicId;
 
@@ -355,10 +325,13 @@ public class RegistryForumManager implements ForumManager {
                 if(replyCount == null || replyCount.length() == 0){
                     replyCount = "1";
                 }
-                topicArtifact.setAttribute(ForumConstants.OVERVIEW_REPLY_COUNT, String.valueOf(Long.parseLong(replyCount) + 1));
+                long newReplyCount = Long.parseLong(replyCount) + 1;
+                topicArtifact.setAttribute(ForumConstants.OVERVIEW_REPLY_COUNT, String.valueOf(newReplyCount));
 
                 //Update the reply count for the topic
                 topicArtifactManager.updateGenericArtifact(topicArtifact);
+                ForumTopicIndex.getIndex(forumReplyDTO.getCreatorTenantDomain()).updateReplyCount(
+                        forumReplyDTO.getTopicId(), newReplyCount);
             }
             else{
                 log.warn("Could not find Topic with ID " + forumReplyDTO.getTopicId() + ". Cannot update reply counts.");
@@ -473,10 +446,12 @@ public class RegistryForumManager implements ForumManager {
 
             String replyCount = topicArtifact.getAttribute(ForumConstants.OVERVIEW_REPLY_COUNT);
 
-            topicArtifact.setAttribute(ForumConstants.OVERVIEW_REPLY_COUNT, String.valueOf(Long.parseLong(replyCount) - 1));
+            long newReplyCount = Long.parseLong(replyCount) - 1;
+            topicArtifact.setAttribute(ForumConstants.OVERVIEW_REPLY_COUNT, String.valueOf(newReplyCount));
 
             //Update the reply count for the topic
             topicArtifactManager.updateGenericArtifact(topicArtifact);
+            ForumTopicIndex.getIndex(tenantDomain).updateReplyCount(topicId, newReplyCount);
         } catch (GovernanceException e) {
             log.error("Error while removing Governance Artifact " + e.getMessage());
             throw new ForumException("Error while removing Governance Artifact ", e);
@@ -569,70 +544,7 @@ public class RegistryForumManager implements ForumManager {
 
     @Override
     public ForumSearchDTO<ForumTopicDTO> searchTopicsBySubject(int start, int count, String searchString, String user, String tenantDomain) throws ForumException{
-
-        //final String regex = "(?i)[\\w.|-]*" + searchString.trim() + "[\\w.|-]*";
-        final String regex = "*" + searchString.trim() + "*";
-        //final Pattern pattern = Pattern.compile(regex);
-
-        Map<String, List<String>> listMap = new HashMap<String, List<String>>();
-        listMap.put(ForumConstants.OVERVIEW_SUBJECT, new ArrayList<String>() {{
-            add(regex);
-        }});
-
-        Registry registry = getRegistry(user, tenantDomain);
-
-//        try {
-//            GovernanceUtils.loadGovernanceArtifacts((UserRegistry)registry);
-//        } catch (RegistryException e) {
-//            e.printStackTrace();
-//        }
-
-        PaginationContext.init(start, count, "DESC", ForumConstants.OVERVIEW_TOPIC_TIMESTAMP, Integer.MAX_VALUE);
-
-        GenericArtifactManager artifactManager = getArtifactManager(registry, TOPIC_RXT_KEY);
-
-        if(artifactManager == null){
-            if(log.isDebugEnabled()){
-                log.debug("Could not get artifact manager for topic.rxt, probably no topics found");
-            }
-            return null;
-        }
-
-        try {
-           /* GenericArtifact[] genericArtifacts = artifactManager.findGenericArtifacts(new GenericArtifactFilter() {
-                @Override
-                public boolean matches(GenericArtifact artifact) throws GovernanceException {
-                    Matcher matcher = pattern.matcher(artifact.getAttribute(ForumConstants.OVERVIEW_SUBJECT));
-                    return matcher.find();
-                }
-            });*/
-
-            GenericArtifact[] genericArtifacts = artifactManager.findGenericArtifacts(listMap);
-            if(genericArtifacts == null || genericArtifacts.length == 0){
-                if(log.isDebugEnabled()){
-                    log.debug("No Forum Topics Found");
-                }
-                return null;
-            }
-
-            List<ForumTopicDTO> topics = new ArrayList<ForumTopicDTO>();
-            ForumTopicDTO forumTopicDTO = null;
-            for(GenericArtifact artifact : genericArtifacts){
-                forumTopicDTO = createForumTopicDTOFromArtifact(artifact, registry);
-                topics.add(forumTopicDTO);
-            }
-
-            ForumSearchDTO<ForumTopicDTO> forumSearchDTO = new ForumSearchDTO<ForumTopicDTO>();
-            forumSearchDTO.setPaginatedResults(topics);
-            forumSearchDTO.setTotalResultCount(PaginationContext.getInstance().getLength());
-
-            return forumSearchDTO;
-        } catch (GovernanceException e) {
-            log.error("Error finding forum topics " + e.getMessage());
-            throw new ForumException("Error finding forum topics", e);
-        } finally {
-            PaginationContext.destroy();
-        }
+        return findTopics(start, count, null, searchString, user, tenantDomain);
     }
     
     @Override
@@ -640,113 +552,139 @@ public class RegistryForumManager implements ForumManager {
                                                                             final String resourceIdentifier,
                                                                             String user, String tenantDomain)
                                                                                                 throws ForumException {
+        return findTopics(start, count, resourceIdentifier, searchString, user, tenantDomain);
+    }
 
-        final String regex = "*" + searchString.trim() + "*";
-
-        Map<String, List<String>> listMap = new HashMap<String, List<String>>();
-        listMap.put(ForumConstants.OVERVIEW_SUBJECT, new ArrayList<String>() {
-            {
-                add(regex);
-            }
-        });
-        listMap.put(ForumConstants.OVERVIEW_RESOURCE_IDENTIFIER, new ArrayList<String>() {
-            {
-                add(resourceIdentifier.replace("@", "-AT-").replace(":","\\:"));
-            }
-        });
 
-        Registry registry = getRegistry(user, tenantDomain);
+    public ForumSearchDTO<ForumTopicDTO> getTopicsByResourceId(int start, int count, final String resourceIdentifier,
+                                                               String user, String tenantDomain) throws ForumException{
+        return findTopics(start, count, resourceIdentifier, null, user, tenantDomain);
+    }
 
-        PaginationContext.init(start, count, "DESC", ForumConstants.OVERVIEW_TOPIC_TIMESTAMP, Integer.MAX_VALUE);
+    /**
+     * Finds a page of topics from the topic index of the tenant. Only topics of resources the user is allowed to
+     * read are returned.
+     * @param start Index of the first topic of the page.
+     * @param count Maximum number of topics in the page.
+     * @param resourceIdentifier Resource the topics belong to, or null for topics of all resources.
+     * @param searchString String the topic subject should contain, or null for all topics.
+     * @param username Username, or null for anonymous users.
+     * @param tenantDomain Tenant domain.
+     * @return Topics of the page, latest first, and the number of matching topics, or null if no topics match.
+     * @throws ForumException If the topics cannot be read.
+     */
+    private ForumSearchDTO<ForumTopicDTO> findTopics(int start, int count, String resourceIdentifier,
+                                                     String searchString, String username, String tenantDomain)
+                                                                                                throws ForumException {
 
-        GenericArtifactManager artifactManager = getArtifactManager(registry, TOPIC_RXT_KEY);
+        ForumTopicIndex index = getTopicIndex(tenantDomain);
+        List<ForumTopicIndex.TopicEntry> matches = index.findTopics(resourceIdentifier, searchString);
+        if (username != null) {
+            matches = filterReadableTopics(matches, username, tenantDomain);
+        }
 
-        if (artifactManager == null) {
+        if (matches.isEmpty()) {
             if (log.isDebugEnabled()) {
-                log.debug("Could not get artifact manager for topic.rxt, probably no topics found");
+                log.debug("No Forum Topics Found");
             }
             return null;
         }
 
-        try {
-            
-            GenericArtifact[] genericArtifacts = artifactManager.findGenericArtifacts(listMap);
-            if (genericArtifacts == null || genericArtifacts.length == 0) {
-                if (log.isDebugEnabled()) {
-                    log.debug("No Forum Topics Found");
+        int from = Math.max(0, Math.min(start, matches.size()));
+        int to = Math.max(from, Math.min(from + count, matches.size()));
+        Registry registry = null;
+        List<ForumTopicDTO> topics = new ArrayList<ForumTopicDTO>();
+        for (ForumTopicIndex.TopicEntry entry : matches.subList(from, to)) {
+            String description = index.getDescription(entry.topicId);
+            if (description == null) {
+                if (registry == null) {
+                    registry = getRegistry(null, tenantDomain);
                 }
-                return null;
-            }
-
-            List<ForumTopicDTO> topics = new ArrayList<ForumTopicDTO>();
-            ForumTopicDTO forumTopicDTO = null;
-            for (GenericArtifact artifact : genericArtifacts) {
-                forumTopicDTO = createForumTopicDTOFromArtifact(artifact, registry);
-                topics.add(forumTopicDTO);
+                description = getTopicContent(entry.resourceIdentifier, entry.topicId, registry);
+                index.putDescription(entry.topicId, description);
             }
-
-            ForumSearchDTO<ForumTopicDTO> forumSearchDTO = new ForumSearchDTO<ForumTopicDTO>();
-            forumSearchDTO.setPaginatedResults(topics);
-            forumSearchDTO.setTotalResultCount(PaginationContext.getInstance().getLength());
-
-            return forumSearchDTO;
-        } catch (GovernanceException e) {
-            log.error("Error finding forum topics " + e.getMessage());
-            throw new ForumException("Error finding forum topics", e);
-        } finally {
-            PaginationContext.destroy();
+            topics.add(createForumTopicDTOFromEntry(entry, description));
         }
-    }
-
-
-    public ForumSearchDTO<ForumTopicDTO> getTopicsByResourceId(int start, int count, final String resourceIdentifier,
-                                                               String user, String tenantDomain) throws ForumException{
-
-        Map<String, List<String>> listMap = new HashMap<String, List<String>>();
-        listMap.put(ForumConstants.OVERVIEW_RESOURCE_IDENTIFIER, new ArrayList<String>() {{
-            add(resourceIdentifier.replace("@", "-AT-").replace(":","\\:"));
-        }});
-
-        Registry registry = getRegistry(user, tenantDomain);
-
-        PaginationContext.init(start, count, "DESC", ForumConstants.OVERVIEW_TOPIC_TIMESTAMP, Integer.MAX_VALUE);
 
-        GenericArtifactManager artifactManager = getArtifactManager(registry, TOPIC_RXT_KEY);
+        ForumSearchDTO<ForumTopicDTO> forumSearchDTO = new ForumSearchDTO<ForumTopicDTO>();
+        forumSearchDTO.setPaginatedResults(topics);
+        forumSearchDTO.setTotalResultCount(matches.size());
+        return forumSearchDTO;
+    }
 
-        if(artifactManager == null){
-            if(log.isDebugEnabled()){
-                log.debug("Could not get artifact manager for topic.rxt, probably no topics found");
+    /**
+     * Returns the topic index of the tenant, loading it from the registry if needed.
+     */
+    private ForumTopicIndex getTopicIndex(final String tenantDomain) throws ForumException {
+        ForumTopicIndex index = ForumTopicIndex.getIndex(tenantDomain);
+        index.ensureLoaded(new ForumTopicIndex.TopicLoader() {
+            @Override
+            public Collection<ForumTopicIndex.TopicEntry> loadTopics() throws ForumException {
+                GenericArtifactManager artifactManager = getArtifactManager(getRegistry(null, tenantDomain),
+                        TOPIC_RXT_KEY);
+                List<ForumTopicIndex.TopicEntry> entries = new ArrayList<ForumTopicIndex.TopicEntry>();
+                if (artifactManager == null) {
+                    if (log.isDebugEnabled()) {
+                        log.debug("Could not get artifact manager for topic.rxt, probably no topics found");
+                    }
+                    return entries;
+                }
+                try {
+                    GenericArtifact[] genericArtifacts = artifactManager.getAllGenericArtifacts();
+                    if (genericArtifacts != null) {
+                        for (GenericArtifact artifact : genericArtifacts) {
+                            entries.add(createTopicEntryFromArtifact(artifact));
+                        }
+                    }
+                } catch (GovernanceException e) {
+                    log.error("Error loading forum topics of tenant " + tenantDomain + " " + e.getMessage());
+                    throw new ForumException("Error loading forum topics of tenant " + tenantDomain, e);
+                }
+                if (log.isDebugEnabled()) {
+                    log.debug("Loaded " + entries.size() + " forum topics of tenant " + tenantDomain);
+                }
+                return entries;
             }
-            return null;
-        }
+        });
+        return index;
+    }
+
+    /**
+     * Removes the topics of resources the user is not allowed to read. Permissions are applied per resource
+     * identifier, see {@link #applyPermissions}, so each resource is checked once.
+     */
+    private List<ForumTopicIndex.TopicEntry> filterReadableTopics(List<ForumTopicIndex.TopicEntry> topics,
+                                                                  String username, String tenantDomain)
+                                                                                                throws ForumException {
+        String tenantAwareUserName = MultitenantUtils.getTenantAwareUsername(username);
+        Map<String, Boolean> readableResources = new HashMap<String, Boolean>();
+        List<ForumTopicIndex.TopicEntry> readableTopics = new ArrayList<ForumTopicIndex.TopicEntry>(topics.size());
 
         try {
-            GenericArtifact[] genericArtifacts = artifactManager.findGenericArtifacts(listMap);
-            if(genericArtifacts == null || genericArtifacts.length == 0){
-                if(log.isDebugEnabled()){
-                    log.debug("No Forum Topics Found for identifier " + resourceIdentifier);
+            int tenantId = serviceReferenceHolder.getRealmService().getTenantManager().getTenantId(tenantDomain);
+            AuthorizationManager authorizationManager = serviceReferenceHolder.getRealmService().
+                    getTenantUserRealm(tenantId).getAuthorizationManager();
+
+            for (ForumTopicIndex.TopicEntry topic : topics) {
+                Boolean readable = readableResources.get(topic.resourceIdentifier);
+                if (readable == null) {
+                    String resourcePath = RegistryUtils.getAbsolutePath(RegistryContext.getBaseInstance(),
+                            RegistryConstants.GOVERNANCE_REGISTRY_BASE_PATH +
+                                    RegistryConstants.PATH_SEPARATOR + TOPICS_ROOT +
+                                    RegistryConstants.PATH_SEPARATOR + topic.resourceIdentifier);
+                    readable = authorizationManager.isUserAuthorized(tenantAwareUserName, resourcePath,
+                            ActionConstants.GET);
+                    readableResources.put(topic.resourceIdentifier, readable);
+                }
+                if (readable) {
+                    readableTopics.add(topic);
                 }
-                return null;
-            }
-
-            List<ForumTopicDTO> topics = new ArrayList<ForumTopicDTO>();
-            ForumTopicDTO forumTopicDTO = null;
-            for(GenericArtifact artifact : genericArtifacts){
-                forumTopicDTO = createForumTopicDTOFromArtifact(artifact, registry);
-                topics.add(forumTopicDTO);
             }
-
-            ForumSearchDTO<ForumTopicDTO> forumSearchDTO = new ForumSearchDTO<ForumTopicDTO>();
-            forumSearchDTO.setPaginatedResults(topics);
-            forumSearchDTO.setTotalResultCount(PaginationContext.getInstance().getLength());
-
-            return forumSearchDTO;
-        } catch (GovernanceException e) {
-            log.error("Error finding forum topics " + e.getMessage());
-            throw new ForumException("Error finding forum topics", e);
-        } finally {
-            PaginationContext.destroy();
+        } catch (UserStoreException e) {
+            log.error("Could not check the permissions of user " + username + " on forum topics " + e.getMessage());
+            throw new ForumException("Could not check the permissions of user " + username + " on forum topics", e);
         }
+        return readableTopics;
     }
 
     /**
@@ -767,7 +705,18 @@ public class RegistryForumManager implements ForumManager {
             GenericArtifactManager artifactManager = getArtifactManager(registry, TOPIC_RXT_KEY);
             GenericArtifact genericArtifact = artifactManager.getGenericArtifact(topicId);
             registry.rateResource(genericArtifact.getPath(), rating);
-            return registry.getAverageRating(genericArtifact.getPath());
+            float averageRating = registry.getAverageRating(genericArtifact.getPath());
+
+            // Aggregate the average onto the topic, so that reading it does not depend on the number of ratings.
+            // The system registry is used since users rating a topic are not allowed to update it.
+            GenericArtifactManager systemArtifactManager = getArtifactManager(getRegistry(null, tenantDomain),
+                    TOPIC_RXT_KEY);
+            GenericArtifact topicArtifact = systemArtifactManager.getGenericArtifact(topicId);
+            topicArtifact.setAttribute(ForumConstants.OVERVIEW_AVERAGE_RATING, String.valueOf(averageRating));
+            systemArtifactManager.updateGenericArtifact(topicArtifact);
+            ForumTopicIndex.getIndex(tenantDomain).updateAverageRating(topicId, averageRating);
+
+            return averageRating;
         } catch (RegistryException e) {
             throw new ForumException("Unable to get Registry of User", e);
         }
@@ -797,7 +746,12 @@ public class RegistryForumManager implements ForumManager {
             }
 
             // Get average rating.
-            rating.put("averageRating", registry.getAverageRating(genericArtifact.getPath()));
+            String averageRating = genericArtifact.getAttribute(ForumConstants.OVERVIEW_AVERAGE_RATING);
+            if (averageRating != null && averageRating.length() > 0) {
+                rating.put("averageRating", Float.parseFloat(averageRating));
+            } else {
+                rating.put("averageRating", registry.getAverageRating(genericArtifact.getPath()));
+            }
 
             return rating;
 
@@ -888,29 +842,101 @@ public class RegistryForumManager implements ForumManager {
             }
             forumTopicDTO.setReplyCount(Long.parseLong(replyCount));
 
-            String resourcePath = TOPICS_ROOT +
-                    RegistryConstants.PATH_SEPARATOR + artifact.getAttribute(ForumConstants.OVERVIEW_RESOURCE_IDENTIFIER) +
-                    RegistryConstants.PATH_SEPARATOR + artifact.getId() +
-                    RegistryConstants.PATH_SEPARATOR + "topic_content";
-            Resource resource = registry.get(resourcePath);
-            if(resource != null){
-                byte[] content = (byte[])resource.getContent();
-                forumTopicDTO.setDescription(new String(content));
-            }
-            else{
-                log.warn("Could not load topic description");
-            }
+            forumTopicDTO.setDescription(getTopicContent(
+                    artifact.getAttribute(ForumConstants.OVERVIEW_RESOURCE_IDENTIFIER), artifact.getId(), registry));
 
             return forumTopicDTO;
         } catch (GovernanceException e) {
             log.error("Could not create Generic Artifact from DTO " + e.getMessage());
             throw new ForumException("Could not create Generic Artifact from DTO", e);
+        }
+    }
+
+    /**
+     * Reads the content of a topic.
+     * @param resourceIdentifier Resource identifier in the form stored in the topic artifact.
+     * @param topicId Id of the topic.
+     * @param registry Registry to read from.
+     * @return Content of the topic, or an empty string if it cannot be found.
+     * @throws ForumException If the content cannot be read.
+     */
+    private static String getTopicContent(String resourceIdentifier, String topicId, Registry registry)
+            throws ForumException {
+        String resourcePath = TOPICS_ROOT +
+                RegistryConstants.PATH_SEPARATOR + resourceIdentifier +
+                RegistryConstants.PATH_SEPARATOR + topicId +
+                RegistryConstants.PATH_SEPARATOR + "topic_content";
+        try {
+            Resource resource = registry.get(resourcePath);
+            if(resource != null){
+                byte[] content = (byte[])resource.getContent();
+                return new String(content);
+            }
+            log.warn("Could not load topic description");
+            return "";
         } catch (RegistryException e) {
             log.error("Could not fetch topic content from registry resource " + e.getMessage());
             throw new ForumException("Could not fetch topic content from registry resource ", e);
         }
     }
 
+    private static ForumTopicIndex.TopicEntry createTopicEntryFromArtifact(GenericArtifact artifact)
+            throws ForumException {
+
+        try {
+            Date createdDate;
+            Date timestamp;
+            try {
+                createdDate = new SimpleDateFormat(ForumConstants.FORUM_DATE_FORMAT).
+                        parse(artifact.getAttribute(ForumConstants.OVERVIEW_CREATED_DATE));
+                timestamp = new SimpleDateFormat(ForumConstants.FORUM_DATE_TIME_FORMAT).
+                        parse(artifact.getAttribute(ForumConstants.OVERVIEW_TOPIC_TIMESTAMP));
+            } catch (ParseException e) {
+                log.error("Could not parse String to date " + e.getMessage());
+                throw new ForumException("Could not parse String to date ", e);
+            }
+
+            ForumTopicIndex.TopicEntry entry = new ForumTopicIndex.TopicEntry(
+                    artifact.getId(),
+                    artifact.getAttribute(ForumConstants.OVERVIEW_SUBJECT),
+                    artifact.getAttribute(ForumConstants.OVERVIEW_TOPIC_OWNER),
+                    artifact.getAttribute(ForumConstants.OVERVIEW_TOPIC_OWNER_TENANT_DOMAIN),
+                    artifact.getAttribute(ForumConstants.OVERVIEW_RESOURCE_IDENTIFIER),
+                    createdDate, timestamp.getTime());
+
+            String replyCount = artifact.getAttribute(ForumConstants.OVERVIEW_REPLY_COUNT);
+            if (replyCount != null && replyCount.length() > 0) {
+                entry.replyCount = Long.parseLong(replyCount);
+            }
+            String averageRating = artifact.getAttribute(ForumConstants.OVERVIEW_AVERAGE_RATING);
+            if (averageRating != null && averageRating.length() > 0) {
+                entry.averageRating = Float.parseFloat(averageRating);
+            }
+            return entry;
+        } catch (GovernanceException e) {
+            log.error("Could not read topic attributes from Generic Artifact " + e.getMessage());
+            throw new ForumException("Could not read topic attributes from Generic Artifact", e);
+        }
+    }
+
+    private static ForumTopicDTO createForumTopicDTOFromEntry(ForumTopicIndex.TopicEntry entry, String description) {
+
+        ForumTopicDTO forumTopicDTO = new ForumTopicDTO();
+        forumTopicDTO.setTopicId(entry.topicId);
+        forumTopicDTO.setSubject(entry.subject);
+        forumTopicDTO.setTopicOwnerTenantDomain(entry.topicOwnerTenantDomain);
+        forumTopicDTO.setTopicOwner(entry.topicOwner);
+        forumTopicDTO.setTopicResourceIdentifier(entry.resourceIdentifier.replaceAll("-AT-", "@"));
+        forumTopicDTO.setCreatedDate(entry.createdDate);
+        forumTopicDTO.setTimestamp(entry.timestamp);
+        forumTopicDTO.setReplyCount(entry.replyCount);
+        if (entry.averageRating >= 0) {
+            forumTopicDTO.setAverageRating(entry.averageRating);
+        }
+        forumTopicDTO.setDescription(description);
+        return forumTopicDTO;
+    }
+
     private static GenericArtifact createReplyArtifactContent(GenericArtifact artifact, ForumReplyDTO forumReplyDTO)
             throws ForumException {
 
@@ -0,0 +1,232 @@
+/*
+*Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.carbon.forum.registry;
+
+import junit.framework.TestCase;
+import org.wso2.carbon.forum.ForumException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+public class ForumTopicIndexTest extends TestCase {
+
+    private static final String PIZZASHACK = "admin-AT-carbon.super-PizzaShackAPI-1.0.0";
+
+    private static final String CALCULATOR = "admin-AT-carbon.super-CalculatorAPI-1.0.0";
+
+    /** Reloads on every {@link ForumTopicIndex#ensureLoaded} */
+    private static final long ALWAYS_RELOAD = -1;
+
+    private final List<ForumTopicIndex.TopicEntry> registryTopics = new ArrayList<ForumTopicIndex.TopicEntry>();
+
+    private final ForumTopicIndex.TopicLoader registryLoader = new ForumTopicIndex.TopicLoader() {
+        @Override
+        public Collection<ForumTopicIndex.TopicEntry> loadTopics() {
+            return new ArrayList<ForumTopicIndex.TopicEntry>(registryTopics);
+        }
+    };
+
+    public void testAddedTopicsAreListedLatestFirst() throws Exception {
+        ForumTopicIndex index = new ForumTopicIndex(60000, 10);
+        registryTopics.add(topic("1", "Menu is empty", PIZZASHACK, 1000));
+        index.ensureLoaded(registryLoader);
+
+        index.put(topic("2", "Order fails", PIZZASHACK, 3000));
+        index.put(topic("3", "Add returns zero", CALCULATOR, 2000));
+
+        assertEquals(ids("2", "3", "1"), ids(index.findTopics(null, null)));
+        assertEquals(ids("2", "1"), ids(index.findTopics("admin@carbon.super-PizzaShackAPI-1.0.0", null)));
+        assertTrue(index.findTopics("admin@carbon.super-UnknownAPI-1.0.0", null).isEmpty());
+    }
+
+    public void testUpdatedTopicReplacesPreviousEntry() throws Exception {
+        ForumTopicIndex index = new ForumTopicIndex(60000, 10);
+        index.ensureLoaded(registryLoader);
+        index.put(topic("1", "Menu is empty", PIZZASHACK, 1000));
+        index.put(topic("1", "Order fails", PIZZASHACK, 2000));
+        index.updateReplyCount("1", 3);
+
+        List<ForumTopicIndex.TopicEntry> topics = index.findTopics(null, null);
+        assertEquals(1, topics.size());
+        assertEquals("Order fails", topics.get(0).subject);
+        assertEquals(3, topics.get(0).replyCount);
+        assertTrue(index.findTopics(null, "menu").isEmpty());
+    }
+
+    public void testDeletedTopicIsNotListed() throws Exception {
+        ForumTopicIndex index = new ForumTopicIndex(60000, 10);
+        registryTopics.add(topic("1", "Menu is empty", PIZZASHACK, 1000));
+        registryTopics.add(topic("2", "Menu is slow", PIZZASHACK, 2000));
+        index.ensureLoaded(registryLoader);
+        index.putDescription("1", "No items are returned");
+
+        index.removeTopic("1");
+
+        assertEquals(ids("2"), ids(index.findTopics(null, "menu")));
+        assertEquals(ids("2"), ids(index.findTopics("admin@carbon.super-PizzaShackAPI-1.0.0", null)));
+        assertNull(index.getDescription("1"));
+        assertEquals(1, index.size());
+    }
+
+    public void testSearchMatchesSubjectSubstringIgnoringCase() throws Exception {
+        ForumTopicIndex index = new ForumTopicIndex(60000, 10);
+        registryTopics.add(topic("1", "Menu is empty", PIZZASHACK, 1000));
+        registryTopics.add(topic("2", "Order MENU items", PIZZASHACK, 2000));
+        registryTopics.add(topic("3", "Empty menu on calculator", CALCULATOR, 3000));
+        registryTopics.add(topic("4", "Add returns zero", CALCULATOR, 4000));
+        index.ensureLoaded(registryLoader);
+
+        assertEquals(ids("3", "2", "1"), ids(index.findTopics(null, "menu")));
+        assertEquals(ids("1"), ids(index.findTopics(null, "MENU IS")));
+        assertEquals(ids("3"), ids(index.findTopics(null, "empty menu")));
+        assertEquals(ids("3"), ids(index.findTopics("admin@carbon.super-CalculatorAPI-1.0.0", "menu")));
+        assertEquals(ids("4", "3", "2", "1"), ids(index.findTopics(null, "  ")));
+        // The subject must contain the search string as a whole, not only each of its words
+        assertTrue(index.findTopics(null, "empty is").isEmpty());
+        assertTrue(index.findTopics(null, "payment").isEmpty());
+    }
+
+    public void testTopicsWithSameTimestampArePagedInStableOrder() throws Exception {
+        ForumTopicIndex index = new ForumTopicIndex(60000, 10);
+        for (int i = 0; i < 25; i++) {
+            registryTopics.add(topic(String.format("%02d", i), "Topic " + i, PIZZASHACK, 1000 * (i / 5)));
+        }
+        index.ensureLoaded(registryLoader);
+
+        List<ForumTopicIndex.TopicEntry> all = index.findTopics(null, null);
+        assertEquals(25, all.size());
+        List<String> paged = new ArrayList<String>();
+        for (int start = 0; start < all.size(); start += 10) {
+            List<ForumTopicIndex.TopicEntry> page = index.findTopics(null, "topic");
+            paged.addAll(ids(page.subList(start, Math.min(start + 10, page.size()))));
+        }
+        assertEquals(ids(all), paged);
+        assertEquals("20", all.get(0).topicId);
+        assertEquals("04", all.get(24).topicId);
+    }
+
+    public void testChangesDuringReloadAreKept() throws Exception {
+        final ForumTopicIndex index = new ForumTopicIndex(ALWAYS_RELOAD, 10);
+        registryTopics.add(topic("1", "Menu is empty", PIZZASHACK, 1000));
+        registryTopics.add(topic("2", "Order fails", PIZZASHACK, 2000));
+        index.ensureLoaded(registryLoader);
+
+        // The registry is read before topic 3 is added and topic 1 is deleted through this node, so the loaded
+        // topics still have topic 1 and not topic 3.
+        index.ensureLoaded(new ForumTopicIndex.TopicLoader() {
+            @Override
+            public Collection<ForumTopicIndex.TopicEntry> loadTopics() {
+                Collection<ForumTopicIndex.TopicEntry> loaded =
+                        new ArrayList<ForumTopicIndex.TopicEntry>(registryTopics);
+                index.put(topic("3", "Add returns zero", CALCULATOR, 3000));
+                index.putDescription("3", "Adding 1 and 2 returns 0");
+                index.removeTopic("1");
+                return loaded;
+            }
+        });
+
+        assertEquals(ids("3", "2"), ids(index.findTopics(null, null)));
+        assertEquals("Adding 1 and 2 returns 0", index.getDescription("3"));
+    }
+
+    public void testFailedReloadKeepsIndex() throws Exception {
+        ForumTopicIndex index = new ForumTopicIndex(ALWAYS_RELOAD, 10);
+        registryTopics.add(topic("1", "Menu is empty", PIZZASHACK, 1000));
+        index.ensureLoaded(registryLoader);
+
+        try {
+            index.ensureLoaded(new ForumTopicIndex.TopicLoader() {
+                @Override
+                public Collection<ForumTopicIndex.TopicEntry> loadTopics() throws ForumException {
+                    throw new ForumException("Registry is not available");
+                }
+            });
+            fail("Load failure was not reported");
+        } catch (ForumException e) {
+            assertEquals("Registry is not available", e.getMessage());
+        }
+        index.put(topic("2", "Order fails", PIZZASHACK, 2000));
+
+        assertEquals(ids("2", "1"), ids(index.findTopics(null, null)));
+    }
+
+    public void testReloadPicksUpChangesMadeThroughOtherNodes() throws Exception {
+        ForumTopicIndex index = new ForumTopicIndex(ALWAYS_RELOAD, 10);
+        registryTopics.add(topic("1", "Menu is empty", PIZZASHACK, 1000));
+        index.ensureLoaded(registryLoader);
+        index.putDescription("1", "No items are returned");
+
+        registryTopics.clear();
+        registryTopics.add(topic("1", "Menu is empty", PIZZASHACK, 1000));
+        registryTopics.add(topic("2", "Order fails", PIZZASHACK, 2000));
+        index.ensureLoaded(registryLoader);
+
+        assertEquals(ids("2", "1"), ids(index.findTopics(null, null)));
+        // The content may have been updated through another node as well
+        assertNull(index.getDescription("1"));
+    }
+
+    public void testDescriptionsAreBounded() throws Exception {
+        ForumTopicIndex index = new ForumTopicIndex(60000, 3);
+        for (int i = 0; i < 10; i++) {
+            registryTopics.add(topic(String.valueOf(i), "Topic " + i, PIZZASHACK, i));
+        }
+        index.ensureLoaded(registryLoader);
+
+        for (int i = 0; i < 10; i++) {
+            index.putDescription(String.valueOf(i), "Content " + i);
+            // Topic 0 is listed on every page, so it stays
+            assertEquals("Content 0", index.getDescription("0"));
+        }
+
+        assertEquals(3, index.getDescriptionCount());
+        assertEquals("Content 9", index.getDescription("9"));
+        assertEquals("Content 8", index.getDescription("8"));
+        assertNull(index.getDescription("7"));
+        assertEquals(10, index.size());
+
+        // Contents of topics which are not indexed are not kept
+        index.putDescription("10", "Content 10");
+        assertNull(index.getDescription("10"));
+    }
+
+    private static ForumTopicIndex.TopicEntry topic(String topicId, String subject, String resourceIdentifier,
+                                                    long timestamp) {
+        return new ForumTopicIndex.TopicEntry(topicId, subject, "admin", "carbon.super", resourceIdentifier,
+                new Date(timestamp), timestamp);
+    }
+
+    private static List<String> ids(String... topicIds) {
+        List<String> ids = new ArrayList<String>();
+        for (String topicId : topicIds) {
+            ids.add(topicId);
+        }
+        return ids;
+    }
+
+    private static List<String> ids(List<ForumTopicIndex.TopicEntry> topics) {
+        List<String> ids = new ArrayList<String>();
+        for (ForumTopicIndex.TopicEntry topic : topics) {
+            ids.add(topic.topicId);
+        }
+        return ids;
+    }
+}